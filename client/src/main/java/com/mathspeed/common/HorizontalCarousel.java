@@ -7,7 +7,6 @@ import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
@@ -21,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mathspeed.model.Player;
+import com.mathspeed.util.ImageCache;
 
 public class HorizontalCarousel extends StackPane {
     private static final Logger logger = LoggerFactory.getLogger(HorizontalCarousel.class);
@@ -233,9 +233,10 @@ public class HorizontalCarousel extends StackPane {
         // Card Background with Icon
         VBox iconBox = new VBox();
         iconBox.setAlignment(Pos.CENTER);
-        ImageView quizIcon = new ImageView(new Image(imagePath));
+        ImageView quizIcon = new ImageView();
         quizIcon.setFitWidth(120);
         quizIcon.setFitHeight(120);
+        ImageCache.getInstance().load(quizIcon, imagePath, null);
         quizIcon.getStyleClass().add("quiz-card-icon");
         iconBox.getChildren().add(quizIcon);
         StackPane.setAlignment(iconBox, Pos.CENTER);
@@ -266,9 +267,10 @@ public class HorizontalCarousel extends StackPane {
         authorBox.setAlignment(Pos.CENTER_LEFT);
         StackPane avatarPane = new StackPane();
         avatarPane.getStyleClass().add("author-avatar");
-        ImageView avatarImg = new ImageView(new Image(authorAvatarUrl));
+        ImageView avatarImg = new ImageView();
         avatarImg.setFitWidth(24);
         avatarImg.setFitHeight(24);
+        ImageCache.getInstance().load(avatarImg, authorAvatarUrl, null);
         avatarImg.getStyleClass().add("avatar-image");
         Circle avatarClip = new Circle(12, 12, 12);
         avatarImg.setClip(avatarClip);
@@ -297,9 +299,10 @@ public class HorizontalCarousel extends StackPane {
         // Card Background with Icon
         VBox iconBox = new VBox();
         iconBox.setAlignment(Pos.CENTER);
-        ImageView quizIcon = new ImageView(new Image(imagePath));
+        ImageView quizIcon = new ImageView();
         quizIcon.setFitWidth(120);
         quizIcon.setFitHeight(120);
+        ImageCache.getInstance().load(quizIcon, imagePath, null);
         quizIcon.getStyleClass().add("quiz-card-icon");
         iconBox.getChildren().add(quizIcon);
         StackPane.setAlignment(iconBox, Pos.CENTER);
@@ -346,14 +349,10 @@ public class HorizontalCarousel extends StackPane {
         authorBox.setAlignment(Pos.CENTER_LEFT);
         StackPane avatarPane = new StackPane();
         avatarPane.getStyleClass().add("author-avatar");
-        ImageView avatarImg;
-        try {
-            avatarImg = new ImageView(new Image(authorAvatarUrl));
-        } catch (Exception e) {
-            avatarImg = new ImageView();
-        }
+        ImageView avatarImg = new ImageView();
         avatarImg.setFitWidth(24);
         avatarImg.setFitHeight(24);
+        ImageCache.getInstance().load(avatarImg, authorAvatarUrl, null);
         avatarImg.getStyleClass().add("avatar-image");
         Circle avatarClip = new Circle(12, 12, 12);
         avatarImg.setClip(avatarClip);
@@ -385,6 +384,9 @@ public class HorizontalCarousel extends StackPane {
         } else if ("in_game".equalsIgnoreCase(rawStatus) || "in-game".equalsIgnoreCase(rawStatus) || "busy".equalsIgnoreCase(rawStatus)) {
             statusText = "In game";
             statusColor = "#ff0033";
+        } else if ("idle".equalsIgnoreCase(rawStatus)) {
+            statusText = "Idle";
+            statusColor = "#ffb300";
         } else {
             statusText = "Offline";
             statusColor = "#9e9e9e";
@@ -400,20 +402,10 @@ public class HorizontalCarousel extends StackPane {
         // Avatar
         StackPane avatarPane = new StackPane();
         avatarPane.getStyleClass().add("friend-avatar");
-        ImageView avatarImg;
-        try {
-            if (avatarUrl == null || avatarUrl.isBlank()) {
-                java.io.InputStream is = getClass().getResourceAsStream("/images/logo.png");
-                if (is != null) avatarImg = new ImageView(new Image(is));
-                else avatarImg = new ImageView();
-            } else {
-                avatarImg = new ImageView(new Image(avatarUrl, true));
-            }
-        } catch (Exception e) {
-            avatarImg = new ImageView();
-        }
+        ImageView avatarImg = new ImageView();
         avatarImg.setFitWidth(56);
         avatarImg.setFitHeight(56);
+        ImageCache.getInstance().load(avatarImg, avatarUrl, "/images/logo.png");
         avatarImg.getStyleClass().add("avatar-image");
         Circle avatarClip = new Circle(28, 28, 28);
         avatarImg.setClip(avatarClip);
@@ -1,19 +1,21 @@
 package com.mathspeed.controller;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.shape.Circle;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.mathspeed.model.Player;
 import com.mathspeed.service.FriendService;
 import com.mathspeed.client.SessionManager;
 import com.mathspeed.common.ErrorComponents;
+import com.mathspeed.util.ImageCache;
 
 public class FriendsController {
     private static final Logger logger = LoggerFactory.getLogger(FriendsController.class);
@@ -28,10 +30,24 @@ public class FriendsController {
     private String currentFilter = "all";
     private final FriendService friendService = new FriendService();
     private Player currentPlayer;
+    // search as you type: wait for a short pause in typing and ignore answers to superseded queries
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(150));
+    private long searchSeq = 0;
 
     @FXML
     public void initialize() {
         currentPlayer = SessionManager.getInstance().getCurrentPlayer();
+        if (searchField != null) {
+            searchDebounce.setOnFinished(e -> {
+                if (searchField.getText().trim().isEmpty()) {
+                    searchSeq++;
+                    loadFriends();
+                } else {
+                    handleSearchFriend();
+                }
+            });
+            searchField.textProperty().addListener((obs, oldText, newText) -> searchDebounce.playFromStart());
+        }
         String startFilter = (pendingStartFilter != null) ? pendingStartFilter : currentFilter;
         javafx.application.Platform.runLater(() -> {
             setActiveFilter(startFilter);
@@ -180,6 +196,9 @@ public class FriendsController {
         } else if ("in_game".equalsIgnoreCase(rawStatus) || "in-game".equalsIgnoreCase(rawStatus) || "busy".equalsIgnoreCase(rawStatus)) {
             statusText = "In game";
             statusColor = "#ff0033";
+        } else if ("idle".equalsIgnoreCase(rawStatus)) {
+            statusText = "Idle";
+            statusColor = "#ffb300";
         } else {
             statusText = "Offline";
             statusColor = "#9e9e9e";
@@ -197,27 +216,11 @@ public class FriendsController {
             StackPane avatarPane = new StackPane();
             avatarPane.getStyleClass().add("friend-avatar");
 
-            ImageView avatarImg;
-            if (avatarUrl == null || avatarUrl.isBlank()) {
-                // Load default packaged image safely (avoid passing null InputStream to Image)
-                java.io.InputStream in = getClass().getResourceAsStream("/images/logo.png");
-                if (in != null) {
-                    avatarImg = new ImageView(new Image(in));
-                } else {
-                    // Fallback to resource URL if stream isn't available
-                    java.net.URL res = getClass().getResource("/images/logo.png");
-                    if (res != null) {
-                        avatarImg = new ImageView(new Image(res.toExternalForm(), true));
-                    } else {
-                        // As a last resort, create an empty ImageView (UI will show nothing)
-                        avatarImg = new ImageView();
-                    }
-                }
-            } else {
-                avatarImg = new ImageView(new Image(avatarUrl, true));
-            }
+            ImageView avatarImg = new ImageView();
             avatarImg.setFitWidth(56);
             avatarImg.setFitHeight(56);
+            // packaged logo when the friend has no avatar or it fails to load
+            ImageCache.getInstance().load(avatarImg, avatarUrl, "/images/logo.png");
             avatarImg.getStyleClass().add("avatar-image");
             Circle avatarClip = new Circle(28, 28, 28);
             avatarImg.setClip(avatarClip);
@@ -272,9 +275,10 @@ public class FriendsController {
             // Avatar
             StackPane avatarPane = new StackPane();
             avatarPane.getStyleClass().add("friend-avatar");
-            ImageView avatarImg = new ImageView(new Image(avatarUrl));
+            ImageView avatarImg = new ImageView();
             avatarImg.setFitWidth(56);
             avatarImg.setFitHeight(56);
+            ImageCache.getInstance().load(avatarImg, avatarUrl, "/images/logo.png");
             avatarImg.getStyleClass().add("avatar-image");
             Circle avatarClip = new Circle(28, 28, 28);
             avatarImg.setClip(avatarClip);
@@ -365,9 +369,13 @@ public class FriendsController {
 
     @FXML
     private void handleSearchFriend() {
-        FriendService friendService = new FriendService();
-        friendService.searchFriends( searchField.getText().trim(), currentPlayer.getId()).thenAccept(list -> {
+        String keyword = searchField.getText().trim();
+        if (keyword.isEmpty() || currentPlayer == null) return;
+        searchDebounce.stop();
+        long seq = ++searchSeq;
+        friendService.searchFriends(keyword, currentPlayer.getId()).thenAccept(list -> {
             javafx.application.Platform.runLater(() -> {
+                if (seq != searchSeq) return;
                 friendsContainer.getChildren().clear();
                 if (list == null || list.isEmpty()) {
                     showEmptyPlaceholder("No friends yet");
@@ -4,6 +4,7 @@ package com.mathspeed.controller;
 import com.mathspeed.model.*;
 import com.mathspeed.network.NetworkGameplay;
 import com.mathspeed.util.ExpressionEvaluator;
+import com.mathspeed.util.ImageCache;
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.JsonElement;
@@ -19,7 +20,6 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
@@ -178,8 +178,7 @@ public class GameplayController {
         if (urlOrResourcePath == null) return;
         Platform.runLater(() -> {
             try {
-                Image img = new Image(urlOrResourcePath, 56, 56, true, true, true);
-                playerAvatarImage.setImage(img);
+                ImageCache.getInstance().load(playerAvatarImage, urlOrResourcePath, 56, 56, null);
                 applyCircleClip(playerAvatarImage, 28);
             } catch (Exception ex) {
                 System.err.println("setPlayerAvatarUrl error: " + ex.getMessage());
@@ -191,8 +190,7 @@ public class GameplayController {
         if (urlOrResourcePath == null) return;
         Platform.runLater(() -> {
             try {
-                javafx.scene.image.Image img = new javafx.scene.image.Image(urlOrResourcePath, 56, 56, true, true, true);
-                opponentAvatarImage.setImage(img);
+                ImageCache.getInstance().load(opponentAvatarImage, urlOrResourcePath, 56, 56, null);
                 applyCircleClip(opponentAvatarImage, 28);
             } catch (Exception ex) {
                 System.err.println("setOpponentAvatarUrl error: " + ex.getMessage());
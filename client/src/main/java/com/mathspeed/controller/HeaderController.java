@@ -3,12 +3,12 @@ package com.mathspeed.controller;
 import com.mathspeed.client.SceneManager;
 import com.mathspeed.client.SessionManager;
 import com.mathspeed.model.Player;
+import com.mathspeed.util.ImageCache;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,13 +59,8 @@ public class HeaderController {
 
     private void updateUserDisplay(String avatarUrl, String displayName, String username) {
         Platform.runLater(() -> {
-            if (avatarImageView != null && avatarUrl != null && !avatarUrl.isEmpty()) {
-                try {
-                    Image image = new Image(avatarUrl, true);
-                    avatarImageView.setImage(image);
-                } catch (Exception e) {
-                    logger.warn("Failed to load avatar from URL: {}", avatarUrl, e);
-                }
+            if (avatarImageView != null) {
+                ImageCache.getInstance().load(avatarImageView, avatarUrl, "/images/logo.png");
             }
             if (username != null && !username.isEmpty() && userNameLabel != null) {
                 userNameLabel.setText("@" + username);
@@ -1,11 +1,11 @@
 package com.mathspeed.controller;
 
+import com.mathspeed.util.ImageCache;
 import com.mathspeed.util.ReloadManager;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -140,7 +140,7 @@ public class LeaderboardController {
         avatar.setFitHeight(40);
         avatar.setPreserveRatio(true);
         int randomImg = 10 + Integer.parseInt(entry.getRank());
-        avatar.setImage(new Image("https://i.pravatar.cc/150?img=" + randomImg));
+        ImageCache.getInstance().load(avatar, "https://i.pravatar.cc/150?img=" + randomImg, null);
         javafx.scene.shape.Circle clip = new javafx.scene.shape.Circle(20, 20, 20);
         avatar.setClip(clip);
 
@@ -150,26 +150,11 @@ public class LeaderboardController {
         flagView.setFitHeight(22);
         flagView.setPreserveRatio(true);
         String countryCode = entry.getCountryCode();
-        if (countryCode != null && countryCode.length() == 2) {
-            String codeLower = countryCode.toLowerCase();
-            String flagUrl = "https://flagcdn.com/56x42/" + codeLower + ".png"; // 56px width
-            try {
-                Image flagImg = new Image(flagUrl, true);
-                if (!flagImg.isError()) {
-                    flagView.setImage(flagImg);
-                } else {
-                    // fallback to bundled default
-                    java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-                    if (is != null) flagView.setImage(new Image(is));
-                }
-            } catch (Exception ex) {
-                java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-                if (is != null) flagView.setImage(new Image(is));
-            }
-        } else {
-            java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-            if (is != null) flagView.setImage(new Image(is));
-        }
+        String flagUrl = countryCode != null && countryCode.length() == 2
+                ? "https://flagcdn.com/56x42/" + countryCode.toLowerCase() + ".png" // 56px width
+                : null;
+        // bundled default stays when there is no code or the flag fails to load
+        ImageCache.getInstance().load(flagView, flagUrl, "/images/t1.png");
 
         VBox nameBox = new VBox(2);
         Label nameLabel = new Label(entry.getName());
@@ -6,12 +6,12 @@ import javafx.animation.FadeTransition;
 import com.mathspeed.model.Player;
 import com.mathspeed.model.Quiz;
 import com.mathspeed.service.LibraryService;
+import com.mathspeed.util.ImageCache;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.shape.Circle;
@@ -372,15 +372,10 @@ public class LibraryController {
             // Card Background with Icon
             VBox iconBox = new VBox();
             iconBox.setAlignment(Pos.CENTER);
-            String iconUrl = getResourceExternal(imagePath);
-            ImageView quizIcon;
-            if (iconUrl != null) {
-                quizIcon = new ImageView(new Image(iconUrl));
-            } else {
-                quizIcon = new ImageView();
-            }
+            ImageView quizIcon = new ImageView();
              quizIcon.setFitWidth(120);
              quizIcon.setFitHeight(120);
+            ImageCache.getInstance().load(quizIcon, getResourceExternal(imagePath), null);
              quizIcon.getStyleClass().add("quiz-card-icon");
              iconBox.getChildren().add(quizIcon);
              StackPane.setAlignment(iconBox, Pos.CENTER);
@@ -430,21 +425,11 @@ public class LibraryController {
             StackPane avatarPane = new StackPane();
             avatarPane.getStyleClass().add("author-avatar");
 
-            ImageView avatarImg;
-            try {
-                if (authorAvatarUrl != null) {
-                    avatarImg = new ImageView(new Image(authorAvatarUrl));
-                } else {
-                    avatarImg = new ImageView();
-                }
-             } catch (Exception ex) {
-                 // fallback to bundled logo
-                String fallback = getResourceExternal("/images/logo.png");
-                avatarImg = fallback != null ? new ImageView(new Image(fallback)) : new ImageView();
-             }
-
+            ImageView avatarImg = new ImageView();
             avatarImg.setFitWidth(24);
             avatarImg.setFitHeight(24);
+            // bundled logo stays when the avatar is missing or fails to load
+            ImageCache.getInstance().load(avatarImg, authorAvatarUrl, "/images/logo.png");
             avatarImg.getStyleClass().add("avatar-image");
             Circle avatarClip = new Circle(12, 12, 12);
             avatarImg.setClip(avatarClip);
@@ -6,6 +6,7 @@ import com.mathspeed.model.Player;
 import com.mathspeed.model.Stats;
 import com.mathspeed.service.AuthService;
 import com.mathspeed.service.StatService;
+import com.mathspeed.util.ImageCache;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -69,15 +70,8 @@ public class ProfileController {
     }
 
     private void setCurrentPlayerInfo() {
-        // load avatar image from URL into an Image then set on ImageView
-        try {
-            javafx.scene.image.Image avatarImg = new javafx.scene.image.Image(currentPlayer.getAvatarUrl(), true);
-            profileImageView.setImage(avatarImg);
-        } catch (Exception ex) {
-            // default image if URL invalid
-            java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-            if (is != null) profileImageView.setImage(new javafx.scene.image.Image(is));
-        }
+        // avatar decoded off the FX thread; default image if the URL is missing or invalid
+        ImageCache.getInstance().load(profileImageView, currentPlayer.getAvatarUrl(), "/images/t1.png");
         profileDisplayNameLabel.setText(currentPlayer.getDisplayName());
         profileUserNameLabel.setText("@" + currentPlayer.getUsername());
         // Format createdAt to a friendly date string (e.g. "Joined: 17 Mar 2025")
@@ -121,18 +115,7 @@ public class ProfileController {
             String codeLower = country.toLowerCase();
             String codeUpper = country.toUpperCase();
             String flagUrl = "https://flagcdn.com/56x42/" + codeLower + ".png";
-            try {
-                javafx.scene.image.Image flagImg = new javafx.scene.image.Image(flagUrl, true);
-                if (!flagImg.isError()) {
-                    countryFlagView.setImage(flagImg);
-                } else {
-                    java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-                    if (is != null) countryFlagView.setImage(new javafx.scene.image.Image(is));
-                }
-            } catch (Exception ex) {
-                java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-                if (is != null) countryFlagView.setImage(new javafx.scene.image.Image(is));
-            }
+            ImageCache.getInstance().load(countryFlagView, flagUrl, "/images/t1.png");
             // set country display name using Locale
             try {
                 String countryName = new java.util.Locale.Builder().setRegion(codeUpper).build().getDisplayCountry(java.util.Locale.getDefault());
@@ -145,8 +128,7 @@ public class ProfileController {
             }
         } else {
             // no country: use fallback
-            java.io.InputStream is = getClass().getResourceAsStream("/images/t1.png");
-            if (is != null) countryFlagView.setImage(new javafx.scene.image.Image(is));
+            ImageCache.getInstance().load(countryFlagView, null, "/images/t1.png");
             if (countryNameLabel != null) {
                 countryNameLabel.setText("");
                 countryNameLabel.setVisible(false);
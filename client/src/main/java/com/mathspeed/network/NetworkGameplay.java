@@ -108,6 +108,12 @@ public class NetworkGameplay {
         }
         String trimmed = message.trim();
 
+        // server clock probe: echo immediately with our wall clock so the server can estimate RTT and offset
+        if (trimmed.startsWith("TIME_PROBE|")) {
+            sendRaw("TIME_PROBE_ACK " + trimmed.substring("TIME_PROBE|".length()) + " " + System.currentTimeMillis());
+            return;
+        }
+
         // Debug: always print raw incoming message (helps troubleshooting field name mismatches)
         System.out.println("RAW <== " + trimmed);
 
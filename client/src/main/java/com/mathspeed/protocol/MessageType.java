@@ -2,7 +2,7 @@ package com.mathspeed.protocol;
 
 public enum MessageType {
     LOGIN_REQUEST, LOGIN_SUCCESS, LOGIN_FAILED, REGISTER_SUCCESS, LOGOUT,
-    PING, PONG, PLAYER_LIST_UPDATE,
+    PING, PONG, TIME_PROBE, TIME_PROBE_ACK, PLAYER_LIST_UPDATE,
     JOIN_QUEUE, LEAVE_QUEUE, QUEUE_JOINED, QUEUE_LEFT,
     CHALLENGE_REQUEST, CHALLENGE_SENT, CHALLENGE_RECEIVED, CHALLENGE_ACCEPTED, CHALLENGE_DECLINED, CHALLENGE_EXPIRED, CHALLENGE_FAILED, INFO,
     GAME_START, NEW_QUESTION, SUBMIT_ANSWER, ANSWER_RESULT, GAME_END, REMATCH_REQUEST, REMATCH_RESPONSE,
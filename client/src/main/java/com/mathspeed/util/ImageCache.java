@@ -0,0 +1,316 @@
+package com.mathspeed.util;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.stage.Screen;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Client-wide image loader for avatars, flags and quiz icons.
+ *
+ * - decoded images are kept in an LRU keyed by source and decoded size, bounded by pixel memory
+ * - http(s) downloads are kept on disk under ~/.quickmath/image-cache and reused for DISK_TTL
+ * - downloading and decoding run on a small background pool, decoding straight to the displayed size
+ *   (times the screen's output scale), never on the FX thread
+ * - concurrent requests for the same source or size share one download / decode
+ * - the view shows the fallback right away and swaps in the real image when it is ready, unless the view has
+ *   been pointed at another image in the meantime
+ *
+ * Sources may be http(s), file: or jar: URLs, or classpath paths such as "/images/logo.png".
+ * {@link #load} must be called on the FX thread.
+ */
+public final class ImageCache {
+    private static final Logger logger = LoggerFactory.getLogger(ImageCache.class);
+    private static final ImageCache INSTANCE = new ImageCache();
+
+    private static final long MEMORY_BUDGET_BYTES = 48L * 1024 * 1024;
+    private static final long DISK_BUDGET_BYTES = 100L * 1024 * 1024;
+    private static final Duration DISK_TTL = Duration.ofDays(7);
+    // a source that failed is not retried for this long, so a dead avatar URL does not cost a request per card
+    private static final long RETRY_FAILED_AFTER_MS = 60_000L;
+    private static final String VIEW_KEY = "imageCache.key";
+
+    private final Path diskDir = Paths.get(System.getProperty("user.home"), ".quickmath", "image-cache");
+    private final ExecutorService pool;
+    private final HttpClient http;
+    // access-ordered; guarded by itself
+    private final LinkedHashMap<String, Image> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes = 0L;
+    private final Map<String, CompletableFuture<Image>> decoding = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<byte[]>> fetching = new ConcurrentHashMap<>();
+    private final Map<String, Long> failedAt = new ConcurrentHashMap<>();
+
+    private ImageCache() {
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(3, r -> {
+            Thread t = new Thread(r, "image-cache-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        pool.execute(this::trimDisk);
+    }
+
+    public static ImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Show {@code source} in {@code view} at the view's fit size; {@code fallback} (a classpath path, may be null)
+     * is shown until then and stays if the source is missing or fails to load.
+     */
+    public void load(ImageView view, String source, String fallback) {
+        load(view, source, view.getFitWidth(), view.getFitHeight(), fallback);
+    }
+
+    public void load(ImageView view, String source, double width, double height, String fallback) {
+        double scale = outputScale();
+        int w = (int) Math.ceil(Math.max(0, width) * scale);
+        int h = (int) Math.ceil(Math.max(0, height) * scale);
+        if (source == null || source.isBlank()) {
+            view.getProperties().remove(VIEW_KEY);
+            view.setImage(fallback != null ? placeholder(fallback, w, h) : null);
+            return;
+        }
+
+        String key = key(source, w, h);
+        view.getProperties().put(VIEW_KEY, key);
+        Image cached = cached(key);
+        if (cached != null) {
+            view.setImage(cached);
+            return;
+        }
+        view.setImage(fallback != null ? placeholder(fallback, w, h) : null);
+        request(source, w, h).whenComplete((img, err) -> {
+            if (img == null) return;
+            Platform.runLater(() -> {
+                // the view may have been reused for another image while this one loaded
+                if (key.equals(view.getProperties().get(VIEW_KEY))) view.setImage(img);
+            });
+        });
+    }
+
+    /**
+     * Decoded image for {@code source} at {@code width} x {@code height} pixels (0 keeps the natural size).
+     * Completes with null when the source cannot be loaded.
+     */
+    public CompletableFuture<Image> request(String source, int width, int height) {
+        String key = key(source, width, height);
+        Image cached = cached(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        Long failed = failedAt.get(source);
+        if (failed != null && System.currentTimeMillis() - failed < RETRY_FAILED_AFTER_MS) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Image> mine = new CompletableFuture<>();
+        CompletableFuture<Image> inFlight = decoding.putIfAbsent(key, mine);
+        if (inFlight != null) return inFlight;
+        fetch(source)
+                .thenApplyAsync(bytes -> decode(bytes, width, height), pool)
+                .whenComplete((img, err) -> {
+                    if (err != null || img == null) {
+                        failedAt.put(source, System.currentTimeMillis());
+                        logger.debug("Image load failed for {}: {}", source, err != null ? err.getMessage() : "decode error");
+                    } else {
+                        failedAt.remove(source);
+                        remember(key, img);
+                    }
+                    decoding.remove(key, mine);
+                    mine.complete(err != null ? null : img);
+                });
+        return mine;
+    }
+
+    private CompletableFuture<byte[]> fetch(String source) {
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlight = fetching.putIfAbsent(source, mine);
+        if (inFlight != null) return inFlight;
+        CompletableFuture<byte[]> f = isHttp(source) ? fetchHttp(source) : CompletableFuture.supplyAsync(() -> readLocal(source), pool);
+        f.whenComplete((bytes, err) -> {
+            fetching.remove(source, mine);
+            if (err != null) mine.completeExceptionally(err);
+            else mine.complete(bytes);
+        });
+        return mine;
+    }
+
+    private CompletableFuture<byte[]> fetchHttp(String url) {
+        Path file = diskDir.resolve(sha256(url));
+        return CompletableFuture.supplyAsync(() -> {
+            byte[] onDisk = readDisk(file);
+            if (onDisk != null) return onDisk;
+            HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(15)).GET().build();
+            try {
+                HttpResponse<byte[]> resp = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                if (resp.statusCode() != 200) throw new IllegalStateException("HTTP " + resp.statusCode());
+                writeDisk(file, resp.body());
+                return resp.body();
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", e);
+            }
+        }, pool);
+    }
+
+    private byte[] readLocal(String source) {
+        try {
+            URL url = source.contains(":") ? URI.create(source).toURL() : ImageCache.class.getResource(source.startsWith("/") ? source : "/" + source);
+            if (url == null) throw new IllegalArgumentException("resource not found: " + source);
+            try (InputStream in = url.openStream()) {
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private byte[] readDisk(Path file) {
+        try {
+            if (!Files.isRegularFile(file)) return null;
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > DISK_TTL.toMillis()) return null;
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeDisk(Path file, byte[] bytes) {
+        try {
+            Files.createDirectories(diskDir);
+            Path tmp = Files.createTempFile(diskDir, "dl", ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.debug("Could not write image cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static Image decode(byte[] bytes, int width, int height) {
+        Image img = new Image(new ByteArrayInputStream(bytes), width, height, true, true);
+        return img.isError() ? null : img;
+    }
+
+    /**
+     * Bundled fallback, decoded synchronously: these are small classpath images and are cached after the first use.
+     */
+    private Image placeholder(String resource, int width, int height) {
+        String key = key(resource, width, height);
+        Image cached = cached(key);
+        if (cached != null) return cached;
+        try {
+            Image img = decode(readLocal(resource), width, height);
+            if (img != null) remember(key, img);
+            return img;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Image cached(String key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    private void remember(String key, Image img) {
+        long bytes = (long) img.getWidth() * (long) img.getHeight() * 4L;
+        synchronized (memory) {
+            Image previous = memory.put(key, img);
+            if (previous != null) memoryBytes -= (long) previous.getWidth() * (long) previous.getHeight() * 4L;
+            memoryBytes += bytes;
+            Iterator<Map.Entry<String, Image>> it = memory.entrySet().iterator();
+            while (memoryBytes > MEMORY_BUDGET_BYTES && it.hasNext()) {
+                Map.Entry<String, Image> eldest = it.next();
+                if (eldest.getKey().equals(key)) continue;
+                memoryBytes -= (long) eldest.getValue().getWidth() * (long) eldest.getValue().getHeight() * 4L;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Delete the least recently written files once the disk cache grows past DISK_BUDGET_BYTES.
+     */
+    private void trimDisk() {
+        if (!Files.isDirectory(diskDir)) return;
+        try (Stream<Path> files = Files.list(diskDir)) {
+            List<Path> all = new ArrayList<>(files.filter(Files::isRegularFile).toList());
+            all.sort((a, b) -> Long.compare(lastModified(b), lastModified(a)));
+            long total = 0L;
+            for (Path p : all) {
+                long size = Files.size(p);
+                total += size;
+                if (total > DISK_BUDGET_BYTES || p.getFileName().toString().endsWith(".tmp")) Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            logger.debug("Image cache trim failed: {}", e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static double outputScale() {
+        try {
+            return Math.max(1.0, Screen.getPrimary().getOutputScaleX());
+        } catch (Exception e) {
+            return 1.0;
+        }
+    }
+
+    private static boolean isHttp(String source) {
+        return source.startsWith("http://") || source.startsWith("https://");
+    }
+
+    private static String key(String source, int width, int height) {
+        return source + "@" + width + "x" + height;
+    }
+
+    private static String sha256(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            return Integer.toHexString(s.hashCode());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mathspeed.adapter.cluster;
+
+/**
+ * Node-to-node control message. Encodes to a single line so any line-oriented transport can carry it:
+ * KIND|sourceNode|username|payload (payload may itself contain '|').
+ */
+public final class ClusterMessage {
+
+    public enum Kind {
+        HELLO,             // a node joined, payload is its snapshot; peers answer with PRESENCE_SNAPSHOT
+        BYE,               // a node is leaving; drop everything it owned
+        PRESENCE_SNAPSHOT, // payload: user:playerId,user:playerId,...
+        PRESENCE_JOIN,     // payload: playerId
+        PRESENCE_LEAVE,
+        DELIVER,           // payload: raw protocol line for the player's socket
+        GAME_COMMAND,      // payload: raw command line for the player's proxy on the hosting node
+        GAME_BOUND,        // player is now seated in a session hosted on sourceNode
+        GAME_UNBOUND,
+        CHALLENGE_CONTROL, // payload: accept|<challenger> or decline|<challenger>; username is the actor
+        POOL_JOIN,         // player enters the shared matchmaking pool on the pool host
+        POOL_LEAVE
+    }
+
+    private final Kind kind;
+    private final String sourceNode;
+    private final String username;
+    private final String payload;
+
+    public ClusterMessage(Kind kind, String sourceNode, String username, String payload) {
+        this.kind = kind;
+        this.sourceNode = sourceNode;
+        this.username = username;
+        this.payload = payload;
+    }
+
+    public Kind getKind() { return kind; }
+    public String getSourceNode() { return sourceNode; }
+    public String getUsername() { return username; }
+    public String getPayload() { return payload; }
+
+    public String encode() {
+        return kind.name() + '|' + sourceNode + '|' + (username != null ? username : "") + '|' + (payload != null ? payload : "");
+    }
+
+    public static ClusterMessage decode(String line) {
+        String[] parts = line.split("\\|", 4);
+        if (parts.length < 4) throw new IllegalArgumentException("Malformed cluster message: " + line);
+        return new ClusterMessage(Kind.valueOf(parts[0]), parts[1],
+                parts[2].isEmpty() ? null : parts[2],
+                parts[3].isEmpty() ? null : parts[3]);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,286 @@
+package com.mathspeed.adapter.cluster;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.ClientRegistry;
+import com.mathspeed.application.game.ChallengeManager;
+import com.mathspeed.application.game.Matchmaker;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.port.PlayerRepository;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster glue for one server process: keeps the presence directory in sync, forwards messages to the node
+ * holding a player's connection, and routes lone queued players into the shared matchmaking pool hosted by
+ * the node with the smallest id.
+ *
+ * Sessions always run on one node; players from other nodes take part through RemoteClientHandler proxies.
+ */
+public class ClusterNode {
+    private static final String[] GAME_COMMANDS = {
+            "SUBMIT_ANSWER", "ANSWER", "READY", "REQUEST_MATCH_INFO",
+            "FORFEIT", "CANCEL", "FORFEIT_REQUEST", "FORFEIT_ACK"
+    };
+
+    private final ClusterTransport transport;
+    private final String nodeId;
+    private final ClientRegistry clientRegistry;
+    private final PlayerRepository playerRepository;
+    private final PresenceDirectory directory = new PresenceDirectory();
+    // one proxy per remote player so queue removal and session seat lookups see the same instance
+    private final Map<String, RemoteClientHandler> proxies = new ConcurrentHashMap<>();
+
+    private volatile Matchmaker matchmaker;
+    private volatile ChallengeManager challengeManager;
+
+    public ClusterNode(ClusterTransport transport, ClientRegistry clientRegistry, PlayerRepository playerRepository) {
+        this.transport = transport;
+        this.nodeId = transport.localNodeId();
+        this.clientRegistry = clientRegistry;
+        this.playerRepository = playerRepository;
+    }
+
+    public void attach(Matchmaker matchmaker, ChallengeManager challengeManager) {
+        this.matchmaker = matchmaker;
+        this.challengeManager = challengeManager;
+    }
+
+    public void start() {
+        transport.setListener(this::onMessage);
+        transport.broadcast(message(ClusterMessage.Kind.HELLO, null, localSnapshot()));
+        System.out.println("[ClusterNode] " + nodeId + " joined cluster");
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public PresenceDirectory getDirectory() {
+        return directory;
+    }
+
+    // ---- presence ----
+
+    public void onLocalLogin(String username, String playerId) {
+        transport.broadcast(message(ClusterMessage.Kind.PRESENCE_JOIN, username, playerId));
+    }
+
+    public void onLocalLogout(String username) {
+        transport.broadcast(message(ClusterMessage.Kind.PRESENCE_LEAVE, username, null));
+    }
+
+    public boolean isOnlineElsewhere(String username) {
+        String owner = directory.ownerOf(username);
+        return owner != null && !owner.equals(nodeId);
+    }
+
+    /**
+     * Proxy for a player connected to another node, or null if the player is not known to be online elsewhere.
+     */
+    public ClientHandler remoteHandler(String username) {
+        String owner = directory.ownerOf(username);
+        if (owner == null || owner.equals(nodeId)) return null;
+        String key = key(username);
+        RemoteClientHandler existing = proxies.get(key);
+        if (existing != null && existing.getOwnerNode().equals(owner)) return existing;
+
+        Player player;
+        try {
+            player = playerRepository.getPlayerById(directory.playerIdOf(username));
+        } catch (Exception ex) {
+            System.err.println("[ClusterNode] Cannot load remote player " + username + ": " + ex.getMessage());
+            return null;
+        }
+        if (player == null) return null;
+        RemoteClientHandler proxy = new RemoteClientHandler(this, owner, player, clientRegistry, matchmaker, challengeManager, playerRepository);
+        RemoteClientHandler prev = proxies.putIfAbsent(key, proxy);
+        return prev != null ? prev : proxy;
+    }
+
+    // ---- forwarding ----
+
+    boolean deliver(String ownerNode, String username, String line) {
+        return transport.send(ownerNode, message(ClusterMessage.Kind.DELIVER, username, line));
+    }
+
+    void notifyGameBinding(String ownerNode, String username, boolean bound) {
+        transport.send(ownerNode, message(bound ? ClusterMessage.Kind.GAME_BOUND : ClusterMessage.Kind.GAME_UNBOUND, username, null));
+    }
+
+    public static boolean isGameCommand(String line) {
+        if (line == null) return false;
+        int sp = line.indexOf(' ');
+        String cmd = (sp < 0 ? line : line.substring(0, sp)).toUpperCase(Locale.ROOT);
+        for (String c : GAME_COMMANDS) if (c.equals(cmd)) return true;
+        return false;
+    }
+
+    public boolean forwardGameCommand(String hostNode, String username, String line) {
+        return transport.send(hostNode, message(ClusterMessage.Kind.GAME_COMMAND, username, line));
+    }
+
+    /**
+     * Pending challenges live on the challenger's node. Returns true if the accept/decline was sent there.
+     */
+    public boolean forwardChallengeControl(String action, String actor, String challenger) {
+        String owner = directory.ownerOf(challenger);
+        if (owner == null || owner.equals(nodeId)) return false;
+        return transport.send(owner, message(ClusterMessage.Kind.CHALLENGE_CONTROL, actor, action + "|" + challenger));
+    }
+
+    // ---- shared matchmaking pool ----
+
+    public String poolHostId() {
+        Set<String> all = new TreeSet<>(directory.nodes());
+        all.add(nodeId);
+        return ((TreeSet<String>) all).first();
+    }
+
+    public boolean isPoolHost() {
+        return nodeId.equals(poolHostId());
+    }
+
+    /**
+     * Hand a local queued player to the pool host. Returns false when this node is the host (keep it local).
+     */
+    public boolean offerToPool(ClientHandler local) {
+        String host = poolHostId();
+        if (host.equals(nodeId) || local.getUsername() == null) return false;
+        return transport.send(host, message(ClusterMessage.Kind.POOL_JOIN, local.getUsername(), null));
+    }
+
+    public void withdrawFromPool(String username) {
+        String host = poolHostId();
+        if (!host.equals(nodeId)) transport.send(host, message(ClusterMessage.Kind.POOL_LEAVE, username, null));
+    }
+
+    // ---- inbound ----
+
+    private void onMessage(ClusterMessage msg) {
+        String src = msg.getSourceNode();
+        if (nodeId.equals(src)) return;
+        switch (msg.getKind()) {
+            case HELLO:
+                applySnapshot(src, msg.getPayload());
+                transport.send(src, message(ClusterMessage.Kind.PRESENCE_SNAPSHOT, null, localSnapshot()));
+                break;
+            case PRESENCE_SNAPSHOT:
+                applySnapshot(src, msg.getPayload());
+                break;
+            case PRESENCE_JOIN:
+                directory.put(msg.getUsername(), src, msg.getPayload());
+                break;
+            case PRESENCE_LEAVE:
+                if (directory.remove(msg.getUsername(), src)) dropProxy(msg.getUsername());
+                break;
+            case BYE:
+                for (String u : directory.removeNode(src)) dropProxy(u);
+                break;
+            case DELIVER: {
+                ClientHandler h = clientRegistry.getClientHandler(msg.getUsername());
+                if (h != null && msg.getPayload() != null) h.sendMessage(msg.getPayload());
+                break;
+            }
+            case GAME_COMMAND: {
+                ClientHandler proxy = remoteHandler(msg.getUsername());
+                if (proxy instanceof RemoteClientHandler && msg.getPayload() != null) {
+                    ((RemoteClientHandler) proxy).processLine(msg.getPayload());
+                }
+                break;
+            }
+            case GAME_BOUND: {
+                ClientHandler h = clientRegistry.getClientHandler(msg.getUsername());
+                if (h != null) {
+                    h.bindRemoteGame(src);
+                    Matchmaker mm = matchmaker;
+                    if (mm != null) mm.onPoolMatched(h);
+                }
+                break;
+            }
+            case GAME_UNBOUND: {
+                ClientHandler h = clientRegistry.getClientHandler(msg.getUsername());
+                if (h != null) h.unbindRemoteGame(src);
+                break;
+            }
+            case CHALLENGE_CONTROL:
+                handleChallengeControl(msg);
+                break;
+            case POOL_JOIN: {
+                ClientHandler proxy = remoteHandler(msg.getUsername());
+                Matchmaker mm = matchmaker;
+                if (proxy != null && mm != null) mm.joinQueue(proxy);
+                break;
+            }
+            case POOL_LEAVE: {
+                RemoteClientHandler proxy = proxies.get(key(msg.getUsername()));
+                Matchmaker mm = matchmaker;
+                if (proxy != null && mm != null) mm.leaveQueue(proxy);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void handleChallengeControl(ClusterMessage msg) {
+        ChallengeManager cm = challengeManager;
+        String payload = msg.getPayload();
+        if (cm == null || payload == null) return;
+        int idx = payload.indexOf('|');
+        if (idx < 0) return;
+        String action = payload.substring(0, idx);
+        String challenger = payload.substring(idx + 1);
+        if ("accept".equals(action)) cm.acceptChallenge(msg.getUsername(), challenger);
+        else if ("decline".equals(action)) cm.declineChallenge(challenger, msg.getUsername());
+    }
+
+    private void dropProxy(String username) {
+        RemoteClientHandler proxy = proxies.remove(key(username));
+        if (proxy == null) return;
+        Matchmaker mm = matchmaker;
+        if (mm != null) mm.leaveQueue(proxy);
+        proxy.disconnect();
+    }
+
+    private void applySnapshot(String src, String payload) {
+        directory.addNode(src);
+        if (payload == null) return;
+        for (String entry : payload.split(",")) {
+            int idx = entry.indexOf(':');
+            if (idx > 0) directory.put(entry.substring(0, idx), src, entry.substring(idx + 1));
+        }
+    }
+
+    private String localSnapshot() {
+        StringBuilder sb = new StringBuilder();
+        for (String u : clientRegistry.getOnlineUsers()) {
+            ClientHandler h = clientRegistry.getClientHandler(u);
+            if (h == null || h.getPlayer() == null) continue;
+            if (sb.length() > 0) sb.append(',');
+            sb.append(u).append(':').append(h.getPlayer().getId());
+        }
+        return sb.toString();
+    }
+
+    private ClusterMessage message(ClusterMessage.Kind kind, String username, String payload) {
+        return new ClusterMessage(kind, nodeId, username, payload);
+    }
+
+    private static String key(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public void shutdown() {
+        try {
+            transport.broadcast(message(ClusterMessage.Kind.BYE, null, null));
+        } catch (Exception ignored) {
+        }
+        for (RemoteClientHandler proxy : proxies.values()) proxy.disconnect();
+        proxies.clear();
+        transport.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.mathspeed.adapter.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Pluggable node-to-node channel. Implementations must deliver messages from one sender to one receiver in order.
+ */
+public interface ClusterTransport {
+    String localNodeId();
+
+    void setListener(Consumer<ClusterMessage> listener);
+
+    /**
+     * @return false if the target node is unknown or unreachable
+     */
+    boolean send(String targetNode, ClusterMessage message);
+
+    void broadcast(ClusterMessage message);
+
+    void shutdown();
+}
@@ -0,0 +1,80 @@
+package com.mathspeed.adapter.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-process transport: every node in the same JVM shares one static hub. Messages still go through
+ * encode/decode and are delivered on the receiver's own inbox thread, like a network transport would.
+ */
+public class LoopbackClusterTransport implements ClusterTransport {
+    private static final Map<String, LoopbackClusterTransport> NODES = new ConcurrentHashMap<>();
+
+    private final String nodeId;
+    private final ExecutorService inbox;
+    private volatile Consumer<ClusterMessage> listener;
+
+    public LoopbackClusterTransport(String nodeId) {
+        this.nodeId = nodeId;
+        this.inbox = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cluster-inbox-" + nodeId);
+            t.setDaemon(true);
+            return t;
+        });
+        if (NODES.putIfAbsent(nodeId, this) != null) {
+            inbox.shutdownNow();
+            throw new IllegalStateException("Node id already in use: " + nodeId);
+        }
+    }
+
+    @Override
+    public String localNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void setListener(Consumer<ClusterMessage> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean send(String targetNode, ClusterMessage message) {
+        LoopbackClusterTransport target = NODES.get(targetNode);
+        if (target == null) return false;
+        return target.enqueue(message.encode());
+    }
+
+    @Override
+    public void broadcast(ClusterMessage message) {
+        String line = message.encode();
+        for (LoopbackClusterTransport t : NODES.values()) {
+            if (t != this) t.enqueue(line);
+        }
+    }
+
+    private boolean enqueue(String line) {
+        try {
+            inbox.execute(() -> {
+                Consumer<ClusterMessage> l = listener;
+                if (l == null) return;
+                try {
+                    l.accept(ClusterMessage.decode(line));
+                } catch (Exception ex) {
+                    System.err.println("[LoopbackClusterTransport] " + nodeId + " failed to handle " + line + ": " + ex.getMessage());
+                }
+            });
+            return true;
+        } catch (Exception rejected) {
+            return false;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        NODES.remove(nodeId, this);
+        inbox.shutdown();
+    }
+}
@@ -0,0 +1,92 @@
+package com.mathspeed.adapter.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which node holds which player's connection, for players connected to other nodes.
+ * Local players stay in ClientRegistry.
+ */
+public class PresenceDirectory {
+
+    private static final class Entry {
+        final String username;
+        final String nodeId;
+        final String playerId;
+
+        Entry(String username, String nodeId, String playerId) {
+            this.username = username;
+            this.nodeId = nodeId;
+            this.playerId = playerId;
+        }
+    }
+
+    private final Map<String, Entry> byUser = new ConcurrentHashMap<>();
+    private final Set<String> nodes = ConcurrentHashMap.newKeySet();
+
+    public void addNode(String nodeId) {
+        if (nodeId != null) nodes.add(nodeId);
+    }
+
+    /**
+     * Forget a node and everything it owned; returns the usernames that went offline.
+     */
+    public List<String> removeNode(String nodeId) {
+        nodes.remove(nodeId);
+        List<String> gone = new ArrayList<>();
+        byUser.values().removeIf(e -> {
+            if (!e.nodeId.equals(nodeId)) return false;
+            gone.add(e.username);
+            return true;
+        });
+        return gone;
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    public void put(String username, String nodeId, String playerId) {
+        if (username == null || nodeId == null) return;
+        nodes.add(nodeId);
+        byUser.put(key(username), new Entry(username, nodeId, playerId));
+    }
+
+    /**
+     * Remove only if the user is still attributed to nodeId (a newer login elsewhere wins).
+     */
+    public boolean remove(String username, String nodeId) {
+        if (username == null) return false;
+        Entry e = byUser.get(key(username));
+        return e != null && e.nodeId.equals(nodeId) && byUser.remove(key(username), e);
+    }
+
+    public String ownerOf(String username) {
+        Entry e = username != null ? byUser.get(key(username)) : null;
+        return e != null ? e.nodeId : null;
+    }
+
+    public String playerIdOf(String username) {
+        Entry e = username != null ? byUser.get(key(username)) : null;
+        return e != null ? e.playerId : null;
+    }
+
+    public String usernameOf(String username) {
+        Entry e = username != null ? byUser.get(key(username)) : null;
+        return e != null ? e.username : null;
+    }
+
+    public Set<String> onlineUsers() {
+        Set<String> out = ConcurrentHashMap.newKeySet();
+        for (Entry e : byUser.values()) out.add(e.username);
+        return out;
+    }
+
+    private static String key(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
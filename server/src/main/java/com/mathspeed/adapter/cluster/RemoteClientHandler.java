@@ -0,0 +1,90 @@
+package com.mathspeed.adapter.cluster;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.ClientRegistry;
+import com.mathspeed.adapter.network.protocol.MessageType;
+import com.mathspeed.application.game.ChallengeManager;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.application.game.Matchmaker;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.port.PlayerRepository;
+
+/**
+ * Stand-in for a player connected to another node. Outgoing messages are forwarded to the owning node,
+ * game commands from that node arrive through {@link #processLine(String)}.
+ */
+public class RemoteClientHandler extends ClientHandler {
+    private final ClusterNode cluster;
+    private final String ownerNode;
+    private volatile boolean connected = true;
+
+    RemoteClientHandler(ClusterNode cluster,
+                        String ownerNode,
+                        Player player,
+                        ClientRegistry clientRegistry,
+                        Matchmaker matchmaker,
+                        ChallengeManager challengeManager,
+                        PlayerRepository playerRepository) {
+        super(clientRegistry, matchmaker, challengeManager, playerRepository);
+        this.cluster = cluster;
+        this.ownerNode = ownerNode;
+        bindPlayer(player);
+    }
+
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    @Override
+    protected void processLine(String line) {
+        super.processLine(line);
+    }
+
+    @Override
+    public void sendType(MessageType type, String payload) {
+        sendMessage(type.name() + (payload != null && !payload.isEmpty() ? "|" + payload : ""));
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        if (!connected) return;
+        if (!cluster.deliver(ownerNode, getUsername(), message)) {
+            System.err.println("[RemoteClientHandler] Node " + ownerNode + " unreachable for " + getUsername());
+            disconnect();
+        }
+    }
+
+    @Override
+    public boolean isAlive(long timeoutMillis) {
+        return connected;
+    }
+
+    @Override
+    public void setCurrentGame(GameSession session) {
+        super.setCurrentGame(session);
+        cluster.notifyGameBinding(ownerNode, getUsername(), session != null);
+    }
+
+    @Override
+    public void setGameSession(GameSession session) {
+        setCurrentGame(session);
+    }
+
+    @Override
+    public void clearCurrentGame() {
+        super.clearCurrentGame();
+        cluster.notifyGameBinding(ownerNode, getUsername(), false);
+    }
+
+    @Override
+    public void clearGameSession() {
+        clearCurrentGame();
+    }
+
+    @Override
+    public void disconnect() {
+        if (!connected) return;
+        connected = false;
+        super.disconnect();
+    }
+}
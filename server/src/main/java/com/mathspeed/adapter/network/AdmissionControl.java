@@ -0,0 +1,125 @@
+package com.mathspeed.adapter.network;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides at accept time whether a socket is served at all, so one host cannot fill the client pool:
+ * each address may hold at most {@code maxPerIp} connections and open new ones at {@code connectsPerSecond} with a
+ * burst of {@code burst} (token bucket). Admitted sockets must LOGIN or RESUME within {@code loginTimeoutMs} or
+ * they are closed.
+ *
+ * Per address this keeps one small counter object; per pre-auth socket a timing wheel entry, next to the
+ * {@link PreAuthConnection} that stands in for the ClientHandler until login.
+ */
+public class AdmissionControl {
+    public enum Decision { ACCEPT, TOO_MANY_CONNECTIONS, RATE_LIMITED }
+
+    // idle addresses are forgotten on every SWEEP_EVERY-th admission
+    private static final int SWEEP_EVERY = 1024;
+
+    private final int maxPerIp;
+    private final double burst;
+    private final double tokensPerNano;
+    private final long loginTimeoutMs;
+    private final Map<InetAddress, IpState> byIp = new ConcurrentHashMap<>();
+    private final AtomicInteger admissions = new AtomicInteger();
+    private final TimingWheel<PreAuthConnection> loginDeadlines;
+
+    public AdmissionControl(int maxPerIp, double connectsPerSecond, int burst, long loginTimeoutMs) {
+        this.maxPerIp = Math.max(1, maxPerIp);
+        this.burst = Math.max(1, burst);
+        this.tokensPerNano = Math.max(0.001, connectsPerSecond) / TimeUnit.SECONDS.toNanos(1);
+        this.loginTimeoutMs = loginTimeoutMs;
+        this.loginDeadlines = loginTimeoutMs > 0 ? new TimingWheel<>("AdmissionControl-login", 250L, 128, this::onLoginDeadline) : null;
+    }
+
+    /**
+     * Take a connection slot and a connect token for {@code ip}; every ACCEPT must be paired with {@link #release}.
+     */
+    public Decision admit(InetAddress ip) {
+        if (admissions.incrementAndGet() % SWEEP_EVERY == 0) sweep();
+        long now = System.nanoTime();
+        Decision[] decision = new Decision[1];
+        byIp.compute(ip, (k, s) -> {
+            if (s == null) s = new IpState(burst, now);
+            s.refill(now, burst, tokensPerNano);
+            if (s.open >= maxPerIp) {
+                decision[0] = Decision.TOO_MANY_CONNECTIONS;
+            } else if (s.tokens < 1.0) {
+                decision[0] = Decision.RATE_LIMITED;
+            } else {
+                s.tokens -= 1.0;
+                s.open++;
+                decision[0] = Decision.ACCEPT;
+            }
+            return s;
+        });
+        if (decision[0] == Decision.TOO_MANY_CONNECTIONS) ThrottleMetrics.recordPerIpCapReject();
+        else if (decision[0] == Decision.RATE_LIMITED) ThrottleMetrics.recordConnectRateReject();
+        return decision[0];
+    }
+
+    public void release(InetAddress ip) {
+        byIp.computeIfPresent(ip, (k, s) -> {
+            if (s.open > 0) s.open--;
+            return s;
+        });
+    }
+
+    /**
+     * Close {@code conn} unless it has logged in by the deadline.
+     */
+    void armLoginDeadline(PreAuthConnection conn) {
+        if (loginDeadlines != null) conn.setDeadline(loginDeadlines.schedule(conn, loginTimeoutMs));
+    }
+
+    public int trackedAddresses() {
+        return byIp.size();
+    }
+
+    public void shutdown() {
+        if (loginDeadlines != null) loginDeadlines.shutdown();
+    }
+
+    private void onLoginDeadline(PreAuthConnection conn) {
+        if (conn.isHandedOver()) return;
+        ThrottleMetrics.recordLoginTimeout();
+        System.out.println("[AdmissionControl] no login within " + loginTimeoutMs + " ms, closing " + conn.getRemoteAddress());
+        conn.close();
+    }
+
+    /**
+     * Drop addresses with no open connection whose bucket has refilled; they would start from the same state anyway.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        for (InetAddress ip : byIp.keySet()) {
+            byIp.computeIfPresent(ip, (k, s) -> {
+                s.refill(now, burst, tokensPerNano);
+                return s.open == 0 && s.tokens >= burst ? null : s;
+            });
+        }
+    }
+
+    // guarded by the map's per-key compute
+    private static final class IpState {
+        int open;
+        double tokens;
+        long refilledAt;
+
+        IpState(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        void refill(long now, double burst, double tokensPerNano) {
+            if (now <= refilledAt) return;
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
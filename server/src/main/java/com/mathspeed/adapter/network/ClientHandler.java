@@ -1,11 +1,13 @@
 package com.mathspeed.adapter.network;
 
+import com.mathspeed.adapter.cluster.ClusterNode;
 import com.mathspeed.domain.port.PlayerRepository;
 import com.mathspeed.domain.model.Player;
 import com.mathspeed.adapter.network.protocol.MessageType;
 import com.mathspeed.application.game.ChallengeManager;
 import com.mathspeed.application.game.GameSession;
 import com.mathspeed.application.game.Matchmaker;
+import com.mathspeed.infrastructure.jfr.ConnectionClosedEvent;
 
 import java.io.*;
 import java.net.Socket;
@@ -21,16 +23,33 @@ public class ClientHandler implements Runnable {
     private final PlayerRepository PlayerRepository;
 
     private BufferedWriter out;
+    // the socket stream under out, for frames that are already encoded; out is always flushed after a write
+    private OutputStream rawOut;
     private BufferedReader in;
 
     private volatile Player player = null;
     private final AtomicReference<GameSession> currentGame = new AtomicReference<>(null);
     private volatile boolean running = true;
     private volatile long lastHeartbeat = System.currentTimeMillis();
+    private long connectedAt = System.currentTimeMillis();
+    // set by the registry's first expiry stage, cleared by any traffic
+    private volatile boolean idle = false;
+    // pending deadline on the registry's heartbeat wheel
+    private final AtomicReference<TimingWheel.Timeout> heartbeatDeadline = new AtomicReference<>();
     private final int DEFAULT_TOTAL_ROUNDS = 10;
 
-    private volatile long estimatedRttMs = 150L;
-    private volatile long timeOffsetMs = 0L;
+    private final LatencyEstimator latency = new LatencyEstimator();
+    private final CommandRateLimiter rateLimiter = new CommandRateLimiter();
+
+    // resume token issued at login; lets a dropped client come back without a password check
+    private volatile String resumeToken = null;
+    private volatile boolean leftIntentionally = false;
+    // match this connection resumed into; set before the player is registered, the session seats it asynchronously
+    private volatile GameSession resumingInto;
+    private static final long RESUME_TOKEN_TTL_MS = 10 * 60_000L;
+
+    // node hosting this player's current match when it runs on another cluster node
+    private volatile String remoteGameNode = null;
 
     public ClientHandler(Socket socket,
                          ClientRegistry clientRegistry,
@@ -44,6 +63,16 @@ public class ClientHandler implements Runnable {
         this.PlayerRepository = PlayerRepository;
     }
 
+    /**
+     * Socket-less handler for players whose connection lives elsewhere (see RemoteClientHandler).
+     */
+    protected ClientHandler(ClientRegistry clientRegistry,
+                            Matchmaker matchmaker,
+                            ChallengeManager challengeManager,
+                            PlayerRepository PlayerRepository) {
+        this(null, clientRegistry, matchmaker, challengeManager, PlayerRepository);
+    }
+
     @Override
     public void run() {
         String remote = socket.getRemoteSocketAddress() != null ? socket.getRemoteSocketAddress().toString() : "unknown";
@@ -51,52 +80,22 @@ public class ClientHandler implements Runnable {
 
         try {
             socket.setSoTimeout(0);
-            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+            // a connection handed over by PreAuthConnection already has its streams
+            if (in == null) this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            if (out == null) {
+                this.rawOut = socket.getOutputStream();
+                this.out = new BufferedWriter(new OutputStreamWriter(rawOut));
+            }
 
             String line;
             while (running && (line = in.readLine()) != null) {
                 line = line.trim();
                 if (line.isEmpty()) continue;
-
-                refreshHeartbeat();
-                String[] parts = line.split(" ", 3);
-                String cmdToken = parts[0].toUpperCase();
-
-                MessageType incomingType = null;
-                try {
-                    incomingType = MessageType.valueOf(cmdToken);
-                } catch (IllegalArgumentException ignored) {
-                }
-
-                if (incomingType != null) {
-                    switch (incomingType) {
-                        case PING:
-                            sendType(MessageType.PONG, null);
-                            break;
-                        case TIME_PING:
-                            // If MessageType includes TIME_PING, delegate to the same handler as legacy text
-                            handleTimePing(parts);
-                            break;
-                        case DISCONNECT:
-                        case LOGOUT:
-                            sendType(MessageType.DISCONNECT, null);
-                            running = false;
-                            break;
-                        case FORFEIT_REQUEST: // client sent "FORFEIT_REQUEST" as MessageType
-                        case FORFEIT_ACK:     // treat FORFEIT_ACK from client same as FORFEIT_REQUEST (lenient)
-                            handleForfeitCommand();
-                            break;
-                        // You can add more MessageType-driven incoming handling here if clients adopt enum names
-                        default:
-                            // if enum name doesn't map to a command we act upon, fall back to legacy processing
-                            handleLegacyCommand(parts, cmdToken);
-                            break;
-                    }
-                } else {
-                    // Legacy plain-text command processing (backwards-compat)
-                    handleLegacyCommand(parts, cmdToken);
+                if (!admitLine(line)) {
+                    if (!running) break;
+                    continue;
                 }
+                processLine(line);
             }
         } catch (SocketException se) {
             System.out.println("Socket exception for " + remote + ": " + se.getMessage());
@@ -108,11 +107,81 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    /**
+     * Run one LOGIN, REGISTER or RESUME line for a connection still in its pre-auth stage, replying on
+     * {@code rawOut}. Returns true if it logged the player in; the handler then owns the connection, reading
+     * the rest from {@code in} once {@link #run()} is called. Otherwise the handler is meant to be dropped.
+     */
+    boolean authenticate(String line, InputStream in, OutputStream rawOut, long connectedAt) {
+        this.rawOut = rawOut;
+        this.out = new BufferedWriter(new OutputStreamWriter(rawOut));
+        processLine(line);
+        if (player == null) return false;
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.connectedAt = connectedAt;
+        return true;
+    }
+
+    /**
+     * Handle one command line. Also the entry point for commands forwarded from another cluster node.
+     */
+    protected void processLine(String line) {
+        refreshHeartbeat();
+        if (isForwardedToRemoteGame(line)) return;
+        String[] parts = line.split(" ", 3);
+        String cmdToken = parts[0].toUpperCase();
+
+        MessageType incomingType = null;
+        try {
+            incomingType = MessageType.valueOf(cmdToken);
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        if (incomingType != null) {
+            switch (incomingType) {
+                case PING:
+                    sendType(MessageType.PONG, null);
+                    break;
+                case TIME_PING:
+                    // If MessageType includes TIME_PING, delegate to the same handler as legacy text
+                    handleTimePing(parts);
+                    break;
+                case DISCONNECT:
+                case LOGOUT:
+                    sendType(MessageType.DISCONNECT, null);
+                    leftIntentionally = true;
+                    running = false;
+                    break;
+                case FORFEIT_REQUEST: // client sent "FORFEIT_REQUEST" as MessageType
+                case FORFEIT_ACK:     // treat FORFEIT_ACK from client same as FORFEIT_REQUEST (lenient)
+                    handleForfeitCommand();
+                    break;
+                // You can add more MessageType-driven incoming handling here if clients adopt enum names
+                default:
+                    // if enum name doesn't map to a command we act upon, fall back to legacy processing
+                    handleLegacyCommand(parts, cmdToken);
+                    break;
+            }
+        } else {
+            // Legacy plain-text command processing (backwards-compat)
+            handleLegacyCommand(parts, cmdToken);
+        }
+    }
+
     private void handleLegacyCommand(String[] parts, String cmdToken) {
+        if (clientRegistry.isDraining() && startsNewActivity(cmdToken)) {
+            sendType(MessageType.SERVER_DRAINING, "Server restarting, please reconnect");
+            return;
+        }
+
         switch (cmdToken) {
             case "REGISTER": handleRegister(parts); break;
             case "LOGIN": handleLogin(parts); break;
             case "JOIN_QUEUE": handleJoinQueue(); break;
+            case "JOIN_ROOM": handleJoinRoom(); break;
+            case "JOIN_GHOST": handleJoinGhost(); break;
+            case "REMATCH_REQUEST": handleRematch(true); break;
+            case "REMATCH_RESPONSE": handleRematchResponse(parts); break;
             case "LEAVE_QUEUE": handleLeaveQueue(); break;
             case "CHALLENGE": handleChallenge(parts); break;
             case "ACCEPT": handleAccept(parts); break;
@@ -127,11 +196,27 @@ public class ClientHandler implements Runnable {
             case "TIME_PING": // legacy plain-text TIME_PING <client_send_ms>
                 handleTimePing(parts);
                 break;
-            case "QUIT": sendType(MessageType.DISCONNECT, null); running = false; break;
+            case "RESUME": handleResume(parts); break;
+            case "TIME_PROBE_ACK": handleTimeProbeAck(parts); break;
+            case "QUIT": sendType(MessageType.DISCONNECT, null); leftIntentionally = true; running = false; break;
             default: sendType(MessageType.ERROR, "Unknown command"); break;
         }
     }
 
+    /**
+     * Commands refused while the node drains; everything that keeps a running match going stays allowed,
+     * including RESUME for a player whose seat is held here.
+     */
+    private static boolean startsNewActivity(String cmd) {
+        switch (cmd) {
+            case "LOGIN": case "REGISTER": case "JOIN_QUEUE": case "JOIN_ROOM": case "JOIN_GHOST":
+            case "REMATCH_REQUEST": case "REMATCH_RESPONSE": case "CHALLENGE": case "ACCEPT":
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private void handleRegister(String[] parts) {
         if (parts.length < 3) {
             sendType(MessageType.ERROR, "REGISTER usage: REGISTER <username> <password> [gender]");
@@ -204,6 +289,56 @@ public class ClientHandler implements Runnable {
 
         clientRegistry.broadcastOnlinePlayers();
         sendType(MessageType.LOGIN_SUCCESS, player.toJson());
+        resumeToken = clientRegistry.getResumeTokens().issue(p);
+        sendType(MessageType.RESUME_TOKEN, resumeToken);
+    }
+
+    /**
+     * RESUME <token>: log back in with the token from the previous connection and, if the match is still
+     * holding our seat, take it over again.
+     */
+    private void handleResume(String[] parts) {
+        if (player != null) {
+            sendType(MessageType.ERROR, "Already logged in");
+            return;
+        }
+        if (parts.length < 2) {
+            sendType(MessageType.RESUME_FAILED, "Usage: RESUME <token>");
+            return;
+        }
+        ResumeTokenStore tokens = clientRegistry.getResumeTokens();
+        ResumeTokenStore.Ticket ticket = tokens.claim(parts[1].trim());
+        if (ticket == null) {
+            sendType(MessageType.RESUME_FAILED, "Invalid or expired token");
+            return;
+        }
+        Player p = ticket.getPlayer();
+        GameSession held = ticket.getHeldSession();
+
+        // the old connection may still look alive (half-open TCP); take its place
+        ClientHandler stale = clientRegistry.getClientHandler(p.getUsername());
+        if (stale != null && stale != this) {
+            GameSession s = stale.getCurrentGame();
+            if (s != null) held = s;
+            clientRegistry.removeClient(p.getUsername(), stale);
+        }
+
+        this.player = p;
+        if (held != null && !held.isFinished()) resumingInto = held;
+        if (!clientRegistry.registerClient(p.getUsername(), this)) {
+            this.player = null;
+            resumingInto = null;
+            sendType(MessageType.RESUME_FAILED, "User already online");
+            return;
+        }
+
+        try { PlayerRepository.updateStatus(p.getUsername(), "online"); } catch (Exception e) { System.err.println("Failed to update status on resume for user: " + p.getUsername() + " - " + e.getMessage()); }
+
+        resumeToken = tokens.issue(p);
+        clientRegistry.broadcastOnlinePlayers();
+        sendType(MessageType.LOGIN_SUCCESS, p.toJson());
+        sendType(MessageType.RESUME_TOKEN, resumeToken);
+        if (held != null && !held.isFinished()) held.resumeSeat(p.getId(), this);
     }
 
     private void handleJoinQueue() {
@@ -212,6 +347,45 @@ public class ClientHandler implements Runnable {
         sendType(MessageType.QUEUE_JOINED, null);
     }
 
+    private void handleJoinRoom() {
+        if (!ensureLoggedIn()) return;
+        matchmaker.joinRoomQueue(this);
+        sendType(MessageType.QUEUE_JOINED, "room");
+    }
+
+    private void handleJoinGhost() {
+        if (!ensureLoggedIn()) return;
+        if (currentGame.get() != null) {
+            sendType(MessageType.ERROR, "Already in a match");
+            return;
+        }
+        if (!matchmaker.joinGhostMatch(this)) {
+            sendType(MessageType.ERROR, "No recorded opponent available, try JOIN_QUEUE");
+        }
+    }
+
+    private void handleRematch(boolean accept) {
+        if (!ensureLoggedIn()) return;
+        if (currentGame.get() != null) {
+            sendType(MessageType.ERROR, "Already in a match");
+            return;
+        }
+        if (!matchmaker.respondRematch(this, accept)) {
+            sendType(MessageType.ERROR, "Rematch not available");
+        }
+    }
+
+    private void handleRematchResponse(String[] parts) {
+        if (parts.length < 2) {
+            sendType(MessageType.ERROR, "REMATCH_RESPONSE usage: REMATCH_RESPONSE <accept|decline>");
+            return;
+        }
+        String answer = parts[1].trim();
+        if (answer.equalsIgnoreCase("accept")) handleRematch(true);
+        else if (answer.equalsIgnoreCase("decline")) handleRematch(false);
+        else sendType(MessageType.ERROR, "REMATCH_RESPONSE usage: REMATCH_RESPONSE <accept|decline>");
+    }
+
     private void handleLeaveQueue() {
         if (!ensureLoggedIn()) return;
         matchmaker.leaveQueue(this);
@@ -277,12 +451,11 @@ public class ClientHandler implements Runnable {
             rawExpr = parts[1].trim();
         } else {
             String token = parts[0];
-            String up = token.toUpperCase(java.util.Locale.ROOT);
             final String CMD1 = "SUBMIT_ANSWER";
             final String CMD2 = "ANSWER";
-            if (up.startsWith(CMD1)) {
+            if (token.regionMatches(true, 0, CMD1, 0, CMD1.length())) {
                 rawExpr = token.substring(CMD1.length()).trim();
-            } else if (up.startsWith(CMD2)) {
+            } else if (token.regionMatches(true, 0, CMD2, 0, CMD2.length())) {
                 rawExpr = token.substring(CMD2.length()).trim();
             } else {
                 sendType(MessageType.ERROR, "Usage: SUBMIT_ANSWER <expression>");
@@ -296,27 +469,25 @@ public class ClientHandler implements Runnable {
             return;
         }
 
-        String expr = rawExpr;
-        String upExpr = expr.toUpperCase(java.util.Locale.ROOT);
-        while (upExpr.startsWith("SUBMIT_ANSWER") || upExpr.startsWith("ANSWER")) {
-            if (upExpr.startsWith("SUBMIT_ANSWER")) expr = expr.substring("SUBMIT_ANSWER".length()).trim();
-            else expr = expr.substring("ANSWER".length()).trim();
-            upExpr = expr.toUpperCase(java.util.Locale.ROOT);
-        }
-
-        expr = expr.replaceFirst("^[^0-9\\-\\(]+", "").trim();
-
+        String expr = stripAnswerPrefix(rawExpr);
         if (expr.isEmpty()) {
             sendType(MessageType.ERROR, "Empty expression");
             return;
         }
 
-        if (!expr.matches(".*\\d.*")) {
-            sendType(MessageType.ERROR, "Expression must contain digits");
-            return;
+        // single pass instead of regexes: only digits, operators, parentheses and spaces, at least one digit
+        boolean hasDigit = false;
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (c != '+' && c != '-' && c != '*' && c != '/' && c != '(' && c != ')' && !Character.isWhitespace(c)) {
+                sendType(MessageType.ERROR, "Expression contains invalid characters");
+                return;
+            }
         }
-        if (!expr.matches("[0-9+\\-*/()\\s]+")) {
-            sendType(MessageType.ERROR, "Expression contains invalid characters");
+        if (!hasDigit) {
+            sendType(MessageType.ERROR, "Expression must contain digits");
             return;
         }
 
@@ -334,6 +505,46 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    /**
+     * Drop repeated SUBMIT_ANSWER / ANSWER keywords and any other leading junk up to the first digit, '-' or '('.
+     */
+    private static String stripAnswerPrefix(String raw) {
+        String expr = raw;
+        while (true) {
+            if (expr.regionMatches(true, 0, "SUBMIT_ANSWER", 0, 13)) expr = expr.substring(13).trim();
+            else if (expr.regionMatches(true, 0, "ANSWER", 0, 6)) expr = expr.substring(6).trim();
+            else break;
+        }
+        int start = 0;
+        while (start < expr.length()) {
+            char c = expr.charAt(start);
+            if ((c >= '0' && c <= '9') || c == '-' || c == '(') break;
+            start++;
+        }
+        return start == 0 ? expr : expr.substring(start).trim();
+    }
+
+    /**
+     * Rate limit check on the raw line, before any parsing. Returns false if the line must be dropped.
+     */
+    private boolean admitLine(String line) {
+        switch (rateLimiter.admit(line)) {
+            case ALLOW:
+                return true;
+            case REJECT_NOTIFY:
+                sendType(MessageType.ERROR, "rate_limited");
+                return false;
+            case DISCONNECT:
+                System.err.println("[ClientHandler] Dropping " + (getUsername() != null ? getUsername() : "anonymous")
+                        + ": sustained command flood");
+                sendType(MessageType.ERROR, "rate_limited");
+                running = false;
+                return false;
+            default:
+                return false;
+        }
+    }
+
     private void handleReady() {
         if (!ensureLoggedIn()) return;
         GameSession session = currentGame.get();
@@ -389,6 +600,10 @@ public class ClientHandler implements Runnable {
      * Reply (JSON): {"type":"time_pong","client_send":<client_send_ms>,"server_time":<server_time_ms>}
      */
     private void handleTimePing(String[] parts) {
+        sendMessage(timePong(parts));
+    }
+
+    static String timePong(String[] parts) {
         long serverTime = System.currentTimeMillis();
         long clientSend = -1L;
         if (parts.length >= 2) {
@@ -396,8 +611,15 @@ public class ClientHandler implements Runnable {
                 clientSend = Long.parseLong(parts[1].trim());
             } catch (NumberFormatException ignored) {}
         }
-        String json = "{\"type\":\"time_pong\",\"client_send\":" + clientSend + ",\"server_time\":" + serverTime + "}";
-        sendMessage(json);
+        return "{\"type\":\"time_pong\",\"client_send\":" + clientSend + ",\"server_time\":" + serverTime + "}";
+    }
+
+    private void handleTimeProbeAck(String[] parts) {
+        long now = System.currentTimeMillis();
+        if (parts.length < 3) return;
+        try {
+            latency.addSample(Long.parseLong(parts[1].trim()), Long.parseLong(parts[2].trim()), now);
+        } catch (NumberFormatException ignored) {}
     }
 
     public GameSession getGameSession() { return currentGame.get(); }
@@ -416,10 +638,59 @@ public class ClientHandler implements Runnable {
 
     public Player getPlayer() { return player; }
 
+    public String getRemoteAddress() {
+        return socket != null ? String.valueOf(socket.getRemoteSocketAddress()) : null;
+    }
+
+    protected void bindPlayer(Player player) { this.player = player; }
+
+    /** True for in-process opponents (bots, ghosts); their seats are not persisted and make the match unranked. */
+    public boolean isBot() { return false; }
+
+    public void bindRemoteGame(String nodeId) { this.remoteGameNode = nodeId; }
+
+    public void unbindRemoteGame(String nodeId) {
+        if (nodeId == null || nodeId.equals(remoteGameNode)) this.remoteGameNode = null;
+    }
+
+    public boolean isInRemoteGame() { return remoteGameNode != null; }
+
+    /**
+     * True between RESUME and the held session putting this connection back in its seat.
+     */
+    public boolean isResumingSeat() {
+        GameSession s = resumingInto;
+        return s != null && !s.isFinished() && currentGame.get() == null;
+    }
+
+    private boolean isForwardedToRemoteGame(String line) {
+        String node = remoteGameNode;
+        if (node == null || currentGame.get() != null) return false;
+        ClusterNode cluster = clientRegistry.getClusterNode();
+        if (cluster == null || !ClusterNode.isGameCommand(line)) return false;
+        return cluster.forwardGameCommand(node, getUsername(), line);
+    }
+
     public String getUsername() { return player != null ? player.getUsername() : null; }
 
     public void refreshHeartbeat() {
         lastHeartbeat = System.currentTimeMillis();
+        if (idle) idle = false;
+    }
+
+    public long getLastHeartbeat() { return lastHeartbeat; }
+
+    /**
+     * Returns true only for the call that moved the connection from active to idle.
+     */
+    boolean markIdle() {
+        if (idle) return false;
+        idle = true;
+        return true;
+    }
+
+    TimingWheel.Timeout swapHeartbeatDeadline(TimingWheel.Timeout next) {
+        return heartbeatDeadline.getAndSet(next);
     }
 
     public boolean isAlive(long timeoutMillis) {
@@ -438,8 +709,7 @@ public class ClientHandler implements Runnable {
     public synchronized void sendType(MessageType type, String payload) {
         if (out == null) return;
         try {
-            String msg = type.name() + (payload != null && !payload.isEmpty() ? "|" + payload : "");
-            out.write(msg);
+            out.write(typeFrame(type, payload));
             out.newLine();
             out.flush();
         } catch (IOException e) {
@@ -448,10 +718,45 @@ public class ClientHandler implements Runnable {
         }
     }
 
-    public long getEstimatedRttMs() { return estimatedRttMs; }
-    public long getTimeOffsetMs() { return timeOffsetMs; }
+    static String typeFrame(MessageType type, String payload) {
+        return type.name() + (payload != null && !payload.isEmpty() ? "|" + payload : "");
+    }
+
+    public long getEstimatedRttMs() { return latency.getRttMs(); }
+    public long getTimeOffsetMs() { return latency.getOffsetMs(); }
+    public long getJitterMs() { return latency.getJitterMs(); }
+    public long getOneWayDelayMs() { return latency.getOneWayDelayMs(); }
+
+    /**
+     * Server-initiated clock probe. Client answers: TIME_PROBE_ACK <server_send_ms> <client_time_ms>
+     */
+    public void sendTimeProbe() {
+        long sentAt = System.currentTimeMillis();
+        latency.probeSent(sentAt);
+        sendType(MessageType.TIME_PROBE, Long.toString(sentAt));
+    }
     public void sendMessage(String message) { sendRaw(message); }
 
+    /**
+     * Send a pre-encoded ASCII frame that already ends with a newline. Goes straight to the socket; handlers
+     * without a socket of their own get the equivalent string through {@link #sendMessage(String)}.
+     */
+    public void sendEncoded(byte[] frame, int length) {
+        if (rawOut == null) {
+            if (socket == null) sendMessage(new String(frame, 0, Math.max(0, length - 1), java.nio.charset.StandardCharsets.US_ASCII));
+            return;
+        }
+        synchronized (this) {
+            try {
+                rawOut.write(frame, 0, length);
+                rawOut.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to send to " + getUsername() + ": " + e.getMessage());
+                disconnect();
+            }
+        }
+    }
+
     private synchronized void sendRaw(String message) {
         if (out == null) return;
         try {
@@ -467,32 +772,64 @@ public class ClientHandler implements Runnable {
     public void disconnect() {
         running = false;
 
+        releaseSession();
+
+        if (socket != null) {
+            try { socket.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Leave the current match: a deliberate quit forfeits, a dropped connection only suspends the seat.
+     */
+    private void releaseSession() {
         GameSession session = currentGame.getAndSet(null);
-        if (session != null) {
-            try {
+        if (session == null) return;
+        try {
+            // in-process seats (bots, ghosts) have no connection to come back on, so their leaving is always final
+            if (leftIntentionally || isBot()) {
+                session.handleForfeit(this);
+            } else {
                 session.handlePlayerDisconnect(this);
-            } catch (Exception ex) {
-                ex.printStackTrace();
+                if (clientRegistry != null) {
+                    clientRegistry.getResumeTokens().markDisconnected(resumeToken, session, RESUME_TOKEN_TTL_MS);
+                }
             }
+        } catch (Exception ex) {
+            ex.printStackTrace();
         }
-
-        try { socket.close(); } catch (IOException ignored) {}
     }
 
     private void cleanup() {
         // notify session defensively
-        GameSession session = currentGame.getAndSet(null);
-        if (session != null) {
-            try { session.handlePlayerDisconnect(this); } catch (Exception ignored) {}
-        }
+        releaseSession();
+
+        ResumeTokenStore tokens = clientRegistry.getResumeTokens();
+        if (leftIntentionally) tokens.revoke(resumeToken);
+        else tokens.markDisconnected(resumeToken, null, RESUME_TOKEN_TTL_MS);
 
         if (player != null) {
-            try { clientRegistry.removeClient(player.getUsername()); } catch (Exception ignored) {}
+            try {
+                // a resumed connection that already took the slot keeps the player online
+                if (clientRegistry.removeClient(player.getUsername(), this)) {
+                    PlayerRepository.updateStatus(player.getUsername(), "offline");
+                }
+            } catch (Exception ignored) {}
         }
         try { matchmaker.leaveQueue(this); } catch (Exception ignored) {}
+        try { matchmaker.onClientGone(this); } catch (Exception ignored) {}
         try { if (out != null) out.close(); } catch (IOException ignored) {}
         try { if (in != null) in.close(); } catch (IOException ignored) {}
         try { if (!socket.isClosed()) socket.close(); } catch (IOException ignored) {}
+
+        ConnectionClosedEvent closed = new ConnectionClosedEvent();
+        if (closed.shouldCommit()) {
+            closed.remote = String.valueOf(socket.getRemoteSocketAddress());
+            closed.username = player != null ? player.getUsername() : null;
+            closed.lifetimeMs = System.currentTimeMillis() - connectedAt;
+            closed.intentional = leftIntentionally;
+            closed.commit();
+        }
     }
 
 }
\ No newline at end of file
@@ -1,47 +1,168 @@
 package com.mathspeed.adapter.network;
 
+import com.mathspeed.adapter.cluster.ClusterNode;
 import com.mathspeed.domain.port.PlayerRepository;
 import com.mathspeed.adapter.network.protocol.MessageType;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ClientRegistry {
 
     private final Map<String, ClientHandler> clients = new ConcurrentHashMap<>();
     private final PlayerRepository PlayerRepository;
+    private volatile ClusterNode clusterNode;
+    // set while the node drains: no new logins, queue joins or matches
+    private volatile boolean draining = false;
+    private final ResumeTokenStore resumeTokens = new ResumeTokenStore();
 
-    // Heartbeat timeout (ms)
-    private static final long HEARTBEAT_TIMEOUT = 180_000; // 3 phÃºt
+    // latency probing: a short burst right after login, then one probe per connection every interval
+    private static final long PROBE_INTERVAL_MS = 5_000L;
+    private static final int PROBE_BURST = 3;
+    private static final long PROBE_BURST_SPACING_MS = 250L;
+    private final ScheduledExecutorService probeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClientRegistry-Probe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Heartbeat expiry, two stages: after idleAfterMs of silence a connection is marked idle, after evictAfterMs it
+    // is disconnected and its slot, socket and worker thread are freed. Live clients answer a probe every
+    // PROBE_INTERVAL_MS, so even the first stage means the link has stalled.
+    private volatile long idleAfterMs = 30_000L;
+    private volatile long evictAfterMs = 180_000L; // 3 phút; <= 0 keeps silent connections, idle, forever
+    // one pending deadline per connection; 1 s ticks, 256 buckets cover the default eviction without wrapping
+    private final TimingWheel<ClientHandler> heartbeatWheel = new TimingWheel<>("ClientRegistry-Heartbeat", 1_000L, 256, this::onHeartbeatDeadline);
+    // what an expiry sets off (socket close, DB status, presence broadcast) runs here, off the wheel's tick thread
+    private final ExecutorService expiryExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ClientRegistry-Expiry");
+        t.setDaemon(true);
+        return t;
+    });
 
     public ClientRegistry(PlayerRepository PlayerRepository) {
         this.PlayerRepository = PlayerRepository;
-        Thread heartbeatThread = new Thread(this::heartbeatChecker, "ClientRegistry-Heartbeat");
-        heartbeatThread.setDaemon(true);
-        heartbeatThread.start();
+        probeScheduler.scheduleAtFixedRate(this::probeAll, PROBE_INTERVAL_MS, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        probeScheduler.scheduleWithFixedDelay(resumeTokens::purgeExpired, 30_000L, 30_000L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param idleAfterMs  silence after which a connection is reported idle
+     * @param evictAfterMs silence after which it is disconnected; 0 or less never evicts
+     */
+    public void setHeartbeatPolicy(long idleAfterMs, long evictAfterMs) {
+        this.idleAfterMs = Math.max(1_000L, idleAfterMs);
+        this.evictAfterMs = evictAfterMs > 0 ? Math.max(this.idleAfterMs, evictAfterMs) : 0L;
+    }
+
+    private long aliveWindowMs() {
+        long evict = evictAfterMs;
+        return evict > 0 ? evict : Long.MAX_VALUE;
+    }
+
+    private void probeAll() {
+        for (ClientHandler ch : clients.values()) {
+            if (ch != null && ch.isAlive(aliveWindowMs())) {
+                try { ch.sendTimeProbe(); } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    private void probeBurst(String username, ClientHandler handler) {
+        for (int i = 0; i < PROBE_BURST; i++) {
+            probeScheduler.schedule(() -> {
+                if (clients.get(username) == handler) handler.sendTimeProbe();
+            }, i * PROBE_BURST_SPACING_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void setClusterNode(ClusterNode clusterNode) {
+        this.clusterNode = clusterNode;
+    }
+
+    public ClusterNode getClusterNode() {
+        return clusterNode;
+    }
+
+    public void setDraining(boolean draining) {
+        this.draining = draining;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public ResumeTokenStore getResumeTokens() {
+        return resumeTokens;
     }
 
     public boolean registerClient(String username, ClientHandler handler) {
+        ClusterNode cluster = clusterNode;
+        if (cluster != null && cluster.isOnlineElsewhere(username)) return false;
         ClientHandler prev = clients.putIfAbsent(username, handler);
-        return prev == null;
+        if (prev != null) return false;
+        armHeartbeat(handler, idleAfterMs);
+        probeBurst(username, handler);
+        if (cluster != null && handler.getPlayer() != null) {
+            cluster.onLocalLogin(username, handler.getPlayer().getId());
+        }
+        return true;
     }
 
     public void removeClient(String username) {
         if (username == null) return;
         ClientHandler ch = clients.remove(username);
         if (ch != null) {
+            disarmHeartbeat(ch);
+            ClusterNode cluster = clusterNode;
+            if (cluster != null) cluster.onLocalLogout(username);
             ch.disconnect();
         }
     }
 
+    /**
+     * Remove only if username still maps to this handler; a resumed connection may already own the slot.
+     * Returns whether this handler was removed.
+     */
+    public boolean removeClient(String username, ClientHandler handler) {
+        if (username == null || handler == null) return false;
+        if (clients.remove(username, handler)) {
+            disarmHeartbeat(handler);
+            ClusterNode cluster = clusterNode;
+            if (cluster != null) cluster.onLocalLogout(username);
+            handler.disconnect();
+            return true;
+        }
+        return false;
+    }
+
     // Lookup client báº±ng lowercase
     public ClientHandler getClientHandler(String username) {
         if (username == null) return null;
         return clients.get(username);
     }
 
+    public Collection<ClientHandler> getLocalClients() {
+        return Collections.unmodifiableCollection(clients.values());
+    }
+
+    /**
+     * Presence of a local connection, or null once its heartbeat has lapsed; such a ghost is not reported
+     * online even before the checker drops it.
+     */
+    public Presence presenceOf(ClientHandler ch) {
+        if (ch == null || ch.getPlayer() == null || !ch.isAlive(aliveWindowMs())) return null;
+        if (ch.getCurrentGame() != null || ch.isInRemoteGame()) return Presence.IN_GAME;
+        return ch.isAlive(idleAfterMs) ? Presence.ONLINE : Presence.IDLE;
+    }
+
     public Set<String> getOnlineUsers() {
         return Collections.unmodifiableSet(clients.keySet());
     }
@@ -55,10 +176,12 @@ public class ClientRegistry {
             ClientHandler ch = e.getValue();
             if (ch == null) continue;
 
-            if (!ch.isAlive(HEARTBEAT_TIMEOUT)) {
+            if (!ch.isAlive(aliveWindowMs())) {
                 status = "OFFLINE";
             } else if (ch.getCurrentGame() != null) {
                 status = "BUSY";
+            } else if (!ch.isAlive(idleAfterMs)) {
+                status = "IDLE";
             }
 
             if (!first) sb.append("|");
@@ -69,7 +192,7 @@ public class ClientRegistry {
         String payload = sb.toString();
 
         for (ClientHandler ch : clients.values()) {
-            if (ch != null && ch.isAlive(HEARTBEAT_TIMEOUT)) {
+            if (ch != null && ch.isAlive(aliveWindowMs())) {
                 try { ch.sendType(MessageType.PLAYER_LIST_UPDATE, payload); }
                 catch (Exception ex) {
                     System.err.println("Failed to send PLAYER_LIST_UPDATE to " + ch.getUsername() + ": " + ex.getMessage());
@@ -78,23 +201,50 @@ public class ClientRegistry {
         }
     }
 
-    private void heartbeatChecker() {
-        while (true) {
-            try { Thread.sleep(30_000); } catch (InterruptedException ignored) {}
+    private void armHeartbeat(ClientHandler ch, long delayMs) {
+        TimingWheel.Timeout previous = ch.swapHeartbeatDeadline(heartbeatWheel.schedule(ch, delayMs));
+        if (previous != null) previous.cancel();
+    }
 
-            boolean needBroadcast = false;
+    private void disarmHeartbeat(ClientHandler ch) {
+        TimingWheel.Timeout previous = ch.swapHeartbeatDeadline(null);
+        if (previous != null) previous.cancel();
+    }
 
-            for (Map.Entry<String, ClientHandler> entry : clients.entrySet()) {
-                ClientHandler ch = entry.getValue();
-                if (ch != null && !ch.isAlive(HEARTBEAT_TIMEOUT)) {
-                    System.out.println("Player appears offline: " + entry.getKey());
-                    needBroadcast = true; // chá»‰ mark offline, khÃ´ng remove ngay
-                }
+    /**
+     * A connection's heartbeat deadline came up. refreshHeartbeat only stamps the time, so the deadline is moved
+     * here, lazily, when traffic has arrived since it was set; otherwise the connection goes idle, then is evicted.
+     */
+    private void onHeartbeatDeadline(ClientHandler ch) {
+        String username = ch.getUsername();
+        if (username == null || clients.get(username) != ch) return;
+        long silentMs = System.currentTimeMillis() - ch.getLastHeartbeat();
+        long idle = idleAfterMs;
+        long evict = evictAfterMs;
+
+        if (silentMs < idle) {
+            armHeartbeat(ch, idle - silentMs);
+        } else if (evict <= 0 || silentMs < evict) {
+            if (ch.markIdle()) {
+                System.out.println("[ClientRegistry] " + username + " idle, no heartbeat for " + silentMs + " ms");
+                expiryExecutor.execute(this::broadcastOnlinePlayers);
             }
+            // keep watching: either traffic resumes (back to stage one) or the eviction deadline comes
+            armHeartbeat(ch, evict > 0 ? evict - silentMs : idle);
+        } else {
+            System.out.println("[ClientRegistry] evicting " + username + ", no heartbeat for " + silentMs + " ms");
+            expiryExecutor.execute(() -> evict(username, ch));
+        }
+    }
 
-            if (needBroadcast) {
-                broadcastOnlinePlayers();
+    private void evict(String username, ClientHandler ch) {
+        if (removeClient(username, ch)) {
+            try {
+                PlayerRepository.updateStatus(username, "offline");
+            } catch (Exception e) {
+                System.err.println("[ClientRegistry] failed to mark " + username + " offline: " + e.getMessage());
             }
+            broadcastOnlinePlayers();
         }
     }
 
@@ -107,6 +257,9 @@ public class ClientRegistry {
     }
 
     public void shutdown() {
+        probeScheduler.shutdownNow();
+        heartbeatWheel.shutdown();
+        expiryExecutor.shutdownNow();
         for (ClientHandler ch : clients.values()) {
             if (ch != null) ch.disconnect();
         }
@@ -0,0 +1,91 @@
+package com.mathspeed.adapter.network;
+
+/**
+ * Per-connection command budget, checked on the raw line before it is split or parsed.
+ *
+ * Commands are grouped into classes with their own token bucket, so a flood of answers cannot starve
+ * heartbeats and vice versa. A connection that keeps hammering an empty bucket is cut off.
+ */
+public class CommandRateLimiter {
+
+    public enum CommandClass {
+        ANSWER(8, 4.0),     // SUBMIT_ANSWER, ANSWER
+        AUTH(5, 0.2),       // LOGIN, REGISTER, RESUME
+        MATCH(10, 2.0),     // queue, challenge, ready, forfeit, match info
+        CONTROL(20, 10.0),  // PING, TIME_PING, TIME_PROBE_ACK
+        OTHER(10, 5.0);
+
+        final int burst;
+        final double perSecond;
+
+        CommandClass(int burst, double perSecond) {
+            this.burst = burst;
+            this.perSecond = perSecond;
+        }
+    }
+
+    // consecutive rejected lines before the connection is dropped
+    static final int MAX_CONSECUTIVE_REJECTS = 200;
+    private static final long REJECT_NOTICE_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final TokenBucket[] buckets = new TokenBucket[CommandClass.values().length];
+    private int consecutiveRejects;
+    private long lastNoticeNanos;
+
+    public CommandRateLimiter() {
+        for (CommandClass c : CommandClass.values()) {
+            buckets[c.ordinal()] = new TokenBucket(c.burst, c.perSecond);
+        }
+    }
+
+    public enum Verdict { ALLOW, REJECT, REJECT_NOTIFY, DISCONNECT }
+
+    public Verdict admit(String line) {
+        CommandClass cls = classify(line);
+        long now = System.nanoTime();
+        if (buckets[cls.ordinal()].tryAcquire(now)) {
+            consecutiveRejects = 0;
+            return Verdict.ALLOW;
+        }
+        ThrottleMetrics.recordThrottled(cls);
+        if (++consecutiveRejects >= MAX_CONSECUTIVE_REJECTS) {
+            ThrottleMetrics.recordAbusiveDisconnect();
+            return Verdict.DISCONNECT;
+        }
+        // one notice per second at most; replying to every dropped line would amplify the flood
+        if (now - lastNoticeNanos >= REJECT_NOTICE_INTERVAL_NANOS) {
+            lastNoticeNanos = now;
+            return Verdict.REJECT_NOTIFY;
+        }
+        return Verdict.REJECT;
+    }
+
+    /**
+     * Classify by the leading command token, case-insensitively, without allocating.
+     */
+    static CommandClass classify(String line) {
+        int end = line.indexOf(' ');
+        if (end < 0) end = line.length();
+        // answers also arrive glued to the command ("SUBMIT_ANSWER:1+2"), so match those by prefix
+        if (startsWith(line, "SUBMIT_ANSWER") || startsWith(line, "ANSWER")) return CommandClass.ANSWER;
+        if (is(line, end, "PING") || is(line, end, "TIME_PING") || is(line, end, "TIME_PROBE_ACK")) return CommandClass.CONTROL;
+        if (is(line, end, "LOGIN") || is(line, end, "REGISTER") || is(line, end, "RESUME")) return CommandClass.AUTH;
+        if (is(line, end, "JOIN_QUEUE") || is(line, end, "JOIN_ROOM") || is(line, end, "JOIN_GHOST") || is(line, end, "LEAVE_QUEUE")
+                || is(line, end, "REMATCH_REQUEST") || is(line, end, "REMATCH_RESPONSE")
+                || is(line, end, "CHALLENGE") || is(line, end, "ACCEPT") || is(line, end, "DECLINE")
+                || is(line, end, "READY") || is(line, end, "REQUEST_MATCH_INFO")
+                || is(line, end, "FORFEIT") || is(line, end, "FORFEIT_REQUEST") || is(line, end, "FORFEIT_ACK")
+                || is(line, end, "CANCEL")) {
+            return CommandClass.MATCH;
+        }
+        return CommandClass.OTHER;
+    }
+
+    private static boolean startsWith(String line, String cmd) {
+        return line.regionMatches(true, 0, cmd, 0, cmd.length());
+    }
+
+    private static boolean is(String line, int tokenEnd, String cmd) {
+        return tokenEnd == cmd.length() && line.regionMatches(true, 0, cmd, 0, tokenEnd);
+    }
+}
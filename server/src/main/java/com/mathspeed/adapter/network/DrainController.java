@@ -0,0 +1,145 @@
+package com.mathspeed.adapter.network;
+
+import com.mathspeed.adapter.network.protocol.MessageType;
+import com.mathspeed.application.game.GameSessionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes the node out of service without forfeiting live matches, for rolling restarts. Draining:
+ * refuses new logins, registrations, queue joins, challenges and rematches, and sends players who are not in a
+ * match SERVER_DRAINING before disconnecting them so they reconnect to another node. Running sessions are left to
+ * finish on their own until the deadline; any still running then are ended as before. The listener stays open
+ * until then, so a player whose connection drops mid-match can still come back with RESUME.
+ * Finally the registered flush steps run so nothing buffered is lost on exit.
+ *
+ * Started by the shutdown hook (SIGTERM / Ctrl+C) or POST /api/admin/drain; both wait for the same drain.
+ */
+public class DrainController {
+    private static final long SWEEP_INTERVAL_MS = 500L;
+
+    private final ServerAcceptor acceptor;
+    private final ClientRegistry clientRegistry;
+    private final GameSessionManager sessionManager;
+    private final long timeoutMs;
+    private final List<FlushStep> flushSteps = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile long deadlineAt = 0L;
+
+    public DrainController(ServerAcceptor acceptor, ClientRegistry clientRegistry, GameSessionManager sessionManager, long timeoutMs) {
+        this.acceptor = acceptor;
+        this.clientRegistry = clientRegistry;
+        this.sessionManager = sessionManager;
+        this.timeoutMs = Math.max(0L, timeoutMs);
+    }
+
+    /**
+     * Something to flush once sessions are done, e.g. buffered activity writes.
+     */
+    public void addFlushStep(FlushStep step) {
+        if (step != null) flushSteps.add(step);
+    }
+
+    public boolean isDraining() {
+        return started.get();
+    }
+
+    public int getRemainingSessions() {
+        return sessionManager.getActiveSessionCount();
+    }
+
+    public long getRemainingMs() {
+        long at = deadlineAt;
+        return at == 0L ? 0L : Math.max(0L, at - System.currentTimeMillis());
+    }
+
+    /**
+     * Drain on a background thread, then exit the process (which runs the normal shutdown hook).
+     * Returns false if a drain was already under way.
+     */
+    public boolean drainThenExit() {
+        if (started.get()) return false;
+        Thread t = new Thread(() -> {
+            drain();
+            System.exit(0);
+        }, "DrainController");
+        t.setDaemon(false);
+        t.start();
+        return true;
+    }
+
+    /**
+     * Drain and return when done. A second caller waits for the drain already running.
+     */
+    public void drain() {
+        if (!started.compareAndSet(false, true)) {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        try {
+            deadlineAt = System.currentTimeMillis() + timeoutMs;
+            clientRegistry.setDraining(true);
+            System.out.println("[DrainController] draining, " + sessionManager.getActiveSessionCount()
+                    + " session(s) running, deadline " + timeoutMs + " ms");
+
+            while (true) {
+                sendLobbyAway(false);
+                if (sessionManager.getActiveSessionCount() == 0 || System.currentTimeMillis() >= deadlineAt) break;
+                try {
+                    Thread.sleep(SWEEP_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            // nothing left to resume into
+            acceptor.stopAccepting();
+            int left = sessionManager.getActiveSessionCount();
+            if (left > 0) {
+                System.out.println("[DrainController] deadline reached, ending " + left + " session(s)");
+                sessionManager.shutdown();
+            }
+            sendLobbyAway(true);
+
+            for (FlushStep step : flushSteps) {
+                try {
+                    step.flush();
+                } catch (Exception e) {
+                    System.err.println("[DrainController] flush step failed: " + e.getMessage());
+                }
+            }
+            System.out.println("[DrainController] drained");
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    @FunctionalInterface
+    public interface FlushStep {
+        void flush() throws Exception;
+    }
+
+    /**
+     * Tell players outside a match to go elsewhere and drop them; with {@code everyone}, players in a match too.
+     * A player who just resumed counts as in a match while the session is still seating them.
+     */
+    private void sendLobbyAway(boolean everyone) {
+        for (ClientHandler ch : clientRegistry.getLocalClients()) {
+            if (ch == null) continue;
+            if (!everyone && (ch.getCurrentGame() != null || ch.isInRemoteGame() || ch.isResumingSeat())) continue;
+            try {
+                ch.sendType(MessageType.SERVER_DRAINING, "Server restarting, please reconnect");
+            } catch (Exception ignored) {}
+            ch.disconnect();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mathspeed.adapter.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * POST /api/admin/drain with header X-Admin-Token: starts a drain and exits once it is done.
+ * Only registered when quickmath.adminToken is set.
+ */
+public class DrainHandler implements HttpHandler {
+    private final DrainController drainController;
+    private final byte[] adminToken;
+
+    public DrainHandler(DrainController drainController, String adminToken) {
+        this.drainController = drainController;
+        this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, "{\"ok\":false,\"status\":405,\"error\":\"Method not allowed\"}");
+            return;
+        }
+        String token = exchange.getRequestHeaders().getFirst("X-Admin-Token");
+        if (token == null || !MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8))) {
+            sendJson(exchange, 403, "{\"ok\":false,\"status\":403,\"error\":\"Forbidden\"}");
+            return;
+        }
+        boolean startedNow = drainController.drainThenExit();
+        sendJson(exchange, 202, "{\"ok\":true,\"status\":202,\"draining\":true,\"alreadyDraining\":" + !startedNow
+                + ",\"activeSessions\":" + drainController.getRemainingSessions() + "}");
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -7,17 +7,46 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * GET /api/health. Answers 503 until the startup warm-up is done and while the node drains, so load balancers only
+ * send players to a node that is warm and staying up.
+ */
 public class HealthHandler implements HttpHandler {
+    private volatile DrainController drainController;
+    private volatile WarmupRunner warmupRunner;
+
+    public void setDrainController(DrainController drainController) {
+        this.drainController = drainController;
+    }
+
+    public void setWarmupRunner(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
             exchange.sendResponseHeaders(405, -1);
             return;
         }
-        String body = "{\"ok\":true,\"message\":\"healthy\"}";
-        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        DrainController drain = drainController;
+        boolean draining = drain != null && drain.isDraining();
+        WarmupRunner warmup = warmupRunner;
+        boolean warming = warmup != null && !warmup.isReady();
+        boolean ok = !draining && !warming;
+        StringBuilder body = new StringBuilder();
+        body.append("{\"ok\":").append(ok)
+                .append(",\"message\":\"").append(draining ? "draining" : warming ? "warming_up" : "healthy").append('"')
+                .append(",\"draining\":").append(draining);
+        if (warmup != null) body.append(",\"warmup\":").append(warmup.toJson());
+        if (drain != null) {
+            body.append(",\"activeSessions\":").append(drain.getRemainingSessions());
+            if (draining) body.append(",\"drainRemainingMs\":").append(drain.getRemainingMs());
+        }
+        body.append(",\"throttle\":").append(ThrottleMetrics.toJson()).append('}');
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
-        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.sendResponseHeaders(ok ? 200 : 503, bytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(bytes);
         }
@@ -0,0 +1,93 @@
+package com.mathspeed.adapter.network;
+
+/**
+ * Per-connection latency estimate built from server-initiated TIME_PROBE round trips.
+ *
+ * RTT is the minimum over the last WINDOW samples (queueing only ever adds delay, so the minimum is the
+ * best view of the path). Jitter is an EWMA of successive RTT differences (gain 1/16, as in RFC 3550).
+ * Clock offset is taken from the lowest-RTT sample in the window, NTP style:
+ * offset = clientTime - (serverSend + rtt / 2), i.e. positive when the client clock is ahead.
+ *
+ * Only acks that echo the send time of a probe this server actually sent and has not seen answered are sampled,
+ * so a client cannot make up round trips. It can still answer late; callers must cap whatever they derive from
+ * these numbers.
+ */
+public class LatencyEstimator {
+    private static final int WINDOW = 16;
+    private static final long DEFAULT_RTT_MS = 150L;
+    private static final long MAX_PLAUSIBLE_RTT_MS = 30_000L;
+    private static final int MAX_OUTSTANDING = 4;
+
+    private final long[] rtts = new long[WINDOW];
+    private final long[] offsets = new long[WINDOW];
+    private int count = 0;
+    private int next = 0;
+    private long lastRtt = -1L;
+    private double jitterMs = 0.0;
+    // send times of probes still waiting for an ack; the oldest is overwritten once MAX_OUTSTANDING are pending
+    private final long[] outstanding = new long[MAX_OUTSTANDING];
+    private int nextOutstanding = 0;
+
+    public synchronized void probeSent(long serverSendMs) {
+        outstanding[nextOutstanding] = serverSendMs;
+        nextOutstanding = (nextOutstanding + 1) % MAX_OUTSTANDING;
+    }
+
+    /**
+     * @return false if the ack did not match an outstanding probe and was ignored
+     */
+    public synchronized boolean addSample(long serverSendMs, long clientTimeMs, long serverRecvMs) {
+        if (serverSendMs <= 0 || !claimProbe(serverSendMs)) return false;
+        long rtt = serverRecvMs - serverSendMs;
+        if (rtt < 0 || rtt > MAX_PLAUSIBLE_RTT_MS) return false;
+
+        rtts[next] = rtt;
+        offsets[next] = clientTimeMs - (serverSendMs + rtt / 2);
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) count++;
+
+        if (lastRtt >= 0) jitterMs += (Math.abs(rtt - lastRtt) - jitterMs) / 16.0;
+        lastRtt = rtt;
+        return true;
+    }
+
+    private boolean claimProbe(long serverSendMs) {
+        for (int i = 0; i < MAX_OUTSTANDING; i++) {
+            if (outstanding[i] == serverSendMs) {
+                outstanding[i] = 0L;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized long getRttMs() {
+        if (count == 0) return DEFAULT_RTT_MS;
+        return rtts[bestIndex()];
+    }
+
+    public synchronized long getOffsetMs() {
+        if (count == 0) return 0L;
+        return offsets[bestIndex()];
+    }
+
+    public synchronized long getJitterMs() {
+        return Math.round(jitterMs);
+    }
+
+    public long getOneWayDelayMs() {
+        return getRttMs() / 2;
+    }
+
+    public synchronized int getSampleCount() {
+        return count;
+    }
+
+    private int bestIndex() {
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (rtts[i] < rtts[best]) best = i;
+        }
+        return best;
+    }
+}
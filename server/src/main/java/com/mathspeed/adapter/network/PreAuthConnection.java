@@ -0,0 +1,176 @@
+package com.mathspeed.adapter.network;
+
+import com.mathspeed.adapter.network.protocol.MessageType;
+import com.mathspeed.infrastructure.jfr.ConnectionClosedEvent;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A socket that has not logged in yet. Holds only the socket, its login deadline, a command budget and a short
+ * line buffer; the full ClientHandler (reader and writer buffers, latency and session state) is built for a
+ * LOGIN, REGISTER or RESUME line and kept only if it logs the player in, which then takes the connection over on
+ * this same worker thread. Until then PING, TIME_PING and QUIT are answered here and everything else is refused.
+ *
+ * Lines longer than {@link #MAX_LINE} close the connection, so an unauthenticated peer cannot grow a buffer.
+ */
+class PreAuthConnection implements Runnable {
+    static final int MAX_LINE = 1024;
+    private static final int READ_BUFFER = 512;
+
+    private final Socket socket;
+    private final Function<Socket, ClientHandler> handlers;
+    private final CommandRateLimiter rateLimiter = new CommandRateLimiter();
+    private final long connectedAt = System.currentTimeMillis();
+    private byte[] line = new byte[128];
+    private volatile TimingWheel.Timeout deadline;
+    // set once a handler owns the socket; from then on the deadline and cleanup here are no-ops
+    private volatile boolean handedOver = false;
+    private boolean intentional = false;
+
+    PreAuthConnection(Socket socket, Function<Socket, ClientHandler> handlers) {
+        this.socket = socket;
+        this.handlers = handlers;
+    }
+
+    void setDeadline(TimingWheel.Timeout deadline) {
+        this.deadline = deadline;
+        if (handedOver) deadline.cancel();
+    }
+
+    boolean isHandedOver() {
+        return handedOver;
+    }
+
+    String getRemoteAddress() {
+        return String.valueOf(socket.getRemoteSocketAddress());
+    }
+
+    /**
+     * Login deadline passed: close, unless a handler took over in the meantime.
+     */
+    void close() {
+        if (handedOver) return;
+        try { socket.close(); } catch (IOException ignored) {}
+    }
+
+    @Override
+    public void run() {
+        ClientHandler owner = null;
+        try {
+            socket.setSoTimeout(0);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), READ_BUFFER);
+            OutputStream out = socket.getOutputStream();
+            String text;
+            while ((text = readLine(in)) != null) {
+                text = text.trim();
+                if (text.isEmpty()) continue;
+                if (!admitLine(text, out)) continue;
+
+                String[] parts = text.split(" ", 3);
+                String cmd = parts[0].toUpperCase();
+                switch (cmd) {
+                    case "LOGIN":
+                    case "REGISTER":
+                    case "RESUME": {
+                        ClientHandler handler = handlers.apply(socket);
+                        if (handler.authenticate(text, in, out, connectedAt)) {
+                            handedOver = true;
+                            TimingWheel.Timeout d = deadline;
+                            if (d != null) d.cancel();
+                            owner = handler;
+                        }
+                        break;
+                    }
+                    case "PING":
+                        send(out, ClientHandler.typeFrame(MessageType.PONG, null));
+                        break;
+                    case "TIME_PING":
+                        send(out, ClientHandler.timePong(parts));
+                        break;
+                    case "QUIT":
+                    case "DISCONNECT":
+                    case "LOGOUT":
+                        send(out, ClientHandler.typeFrame(MessageType.DISCONNECT, null));
+                        intentional = true;
+                        return;
+                    default:
+                        send(out, ClientHandler.typeFrame(MessageType.ERROR, "Not authenticated. Send: LOGIN <username> <password>"));
+                        break;
+                }
+                if (owner != null) break;
+            }
+        } catch (IOException e) {
+            // peer went away or the login deadline closed the socket
+        } finally {
+            if (owner == null) closeUnauthenticated();
+        }
+        // outside the try: from here the handler owns the socket and cleans it up itself
+        if (owner != null) owner.run();
+    }
+
+    private boolean admitLine(String text, OutputStream out) throws IOException {
+        switch (rateLimiter.admit(text)) {
+            case ALLOW:
+                return true;
+            case REJECT_NOTIFY:
+                send(out, ClientHandler.typeFrame(MessageType.ERROR, "rate_limited"));
+                return false;
+            case DISCONNECT:
+                System.err.println("[PreAuthConnection] Dropping " + getRemoteAddress() + ": sustained command flood");
+                send(out, ClientHandler.typeFrame(MessageType.ERROR, "rate_limited"));
+                throw new IOException("command flood");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Next line without its terminator, or null at end of stream. The buffer grows up to MAX_LINE bytes.
+     */
+    private String readLine(InputStream in) throws IOException {
+        int n = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') break;
+            if (n == line.length) {
+                if (n >= MAX_LINE) {
+                    send(socket.getOutputStream(), ClientHandler.typeFrame(MessageType.ERROR, "line_too_long"));
+                    throw new IOException("line longer than " + MAX_LINE + " bytes");
+                }
+                line = Arrays.copyOf(line, Math.min(MAX_LINE, n * 2));
+            }
+            line[n++] = (byte) b;
+        }
+        if (b == -1 && n == 0) return null;
+        if (n > 0 && line[n - 1] == '\r') n--;
+        // same charset the handler's reader decodes with
+        return new String(line, 0, n, Charset.defaultCharset());
+    }
+
+    private static void send(OutputStream out, String frame) throws IOException {
+        out.write((frame + System.lineSeparator()).getBytes(Charset.defaultCharset()));
+        out.flush();
+    }
+
+    private void closeUnauthenticated() {
+        TimingWheel.Timeout d = deadline;
+        if (d != null) d.cancel();
+        try { socket.close(); } catch (IOException ignored) {}
+
+        ConnectionClosedEvent closed = new ConnectionClosedEvent();
+        if (closed.shouldCommit()) {
+            closed.remote = getRemoteAddress();
+            closed.username = null;
+            closed.lifetimeMs = System.currentTimeMillis() - connectedAt;
+            closed.intentional = intentional;
+            closed.commit();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.mathspeed.adapter.network;
+
+/**
+ * Live state of a connected player, as reported to friends lists. Offline players have no presence at all.
+ */
+public enum Presence {
+    ONLINE("online"),
+    IN_GAME("in_game"),
+    // connected, but nothing heard for a while (not even probe acks): likely a stalled network
+    IDLE("idle");
+
+    private final String status;
+
+    Presence(String status) {
+        this.status = status;
+    }
+
+    /** Value used in JSON and in the players.status column. */
+    public String status() {
+        return status;
+    }
+}
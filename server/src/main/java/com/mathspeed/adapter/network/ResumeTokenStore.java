@@ -0,0 +1,100 @@
+package com.mathspeed.adapter.network;
+
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.domain.model.Player;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-use resume tokens handed out at login. A dropped client reconnects with {@code RESUME <token>}
+ * instead of a full LOGIN (no password check) and, if its match is still holding the seat, is put back into it.
+ *
+ * A token never expires while its connection is alive; after a disconnect it stays valid for the given TTL.
+ */
+public class ResumeTokenStore {
+
+    public static final class Ticket {
+        private final String token;
+        private final Player player;
+        private volatile long expiresAtMs = Long.MAX_VALUE;
+        private volatile GameSession heldSession;
+
+        private Ticket(String token, Player player) {
+            this.token = token;
+            this.player = player;
+        }
+
+        public String getToken() { return token; }
+        public Player getPlayer() { return player; }
+        public GameSession getHeldSession() { return heldSession; }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> byToken = new ConcurrentHashMap<>();
+    private final Map<String, String> tokenByPlayerId = new ConcurrentHashMap<>();
+
+    /**
+     * New token for a logged-in player; any older token of the same player is revoked.
+     */
+    public String issue(Player player) {
+        byte[] raw = new byte[24];
+        random.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        byToken.put(token, new Ticket(token, player));
+        String previous = tokenByPlayerId.put(player.getId(), token);
+        if (previous != null) byToken.remove(previous);
+        return token;
+    }
+
+    /**
+     * Connection dropped: start the token's TTL and remember the match that is holding the seat, if any.
+     */
+    public void markDisconnected(String token, GameSession session, long ttlMs) {
+        if (token == null) return;
+        Ticket t = byToken.get(token);
+        if (t == null) return;
+        if (session != null) t.heldSession = session;
+        t.expiresAtMs = System.currentTimeMillis() + ttlMs;
+    }
+
+    /**
+     * Consume a token. Returns null if it is unknown or expired.
+     */
+    public Ticket claim(String token) {
+        if (token == null) return null;
+        Ticket t = byToken.remove(token);
+        if (t == null) return null;
+        tokenByPlayerId.remove(t.player.getId(), token);
+        if (System.currentTimeMillis() > t.expiresAtMs) return null;
+        return t;
+    }
+
+    /**
+     * Player a live token belongs to, without consuming it; lets side channels such as HTTP act as that player.
+     * Returns null if the token is unknown or expired.
+     */
+    public Player peek(String token) {
+        if (token == null) return null;
+        Ticket t = byToken.get(token);
+        if (t == null || System.currentTimeMillis() > t.expiresAtMs) return null;
+        return t.player;
+    }
+
+    public void revoke(String token) {
+        if (token == null) return;
+        Ticket t = byToken.remove(token);
+        if (t != null) tokenByPlayerId.remove(t.player.getId(), token);
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        byToken.values().removeIf(t -> {
+            if (now <= t.expiresAtMs) return false;
+            tokenByPlayerId.remove(t.player.getId(), t.token);
+            return true;
+        });
+    }
+}
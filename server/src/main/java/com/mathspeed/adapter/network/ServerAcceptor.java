@@ -5,10 +5,12 @@ import com.mathspeed.domain.port.PlayerRepository;
 import com.mathspeed.adapter.network.ClientRegistry;
 import com.mathspeed.application.game.ChallengeManager;
 import com.mathspeed.application.game.Matchmaker;
+import com.mathspeed.infrastructure.jfr.ConnectionAcceptedEvent;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
@@ -32,6 +34,8 @@ public class ServerAcceptor {
     private final ThreadPoolExecutor clientPool;
 
     private volatile boolean running = true;
+    // per-address caps, connect rate and login deadline; null admits everything the pool can take
+    private volatile AdmissionControl admissionControl;
 
     public ServerAcceptor(int port,
                           ClientRegistry clientRegistry,
@@ -74,6 +78,10 @@ public class ServerAcceptor {
         this.clientPool.allowCoreThreadTimeOut(true);
     }
 
+    public void setAdmissionControl(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
     public void start() {
         try {
             serverSocket = new ServerSocket(port);
@@ -94,17 +102,53 @@ public class ServerAcceptor {
                     socket.setSoTimeout(120_000); // 2 minutes read timeout; handler may override
                 } catch (IOException ignored) {}
 
-                //Tao mot ClientHandler moi de xu ly ket noi
-                ClientHandler handler = new ClientHandler(socket, clientRegistry, matchmaker, challengeManager, PlayerRepository);
-
-                try {
-
-                    //Dua ClientHandler vao pool de xu ly I/O va logic
-                    clientPool.execute(handler);
-                } catch (RejectedExecutionException rej) {
-                    // Pool is saturated or shutting down: politely reject connection
+                ConnectionAcceptedEvent accepted = new ConnectionAcceptedEvent();
+                AdmissionControl admission = admissionControl;
+                InetAddress ip = socket.getInetAddress();
+
+                // decide before building anything, so refused sockets cost nothing but the close
+                AdmissionControl.Decision decision = admission != null ? admission.admit(ip) : AdmissionControl.Decision.ACCEPT;
+                if (decision != AdmissionControl.Decision.ACCEPT) {
+                    rejectAndClose(socket, decision == AdmissionControl.Decision.RATE_LIMITED
+                            ? "ERROR: Too many connection attempts. Try again later."
+                            : "ERROR: Too many connections from your address.");
+                    accepted.rejected = true;
+                    accepted.reason = decision == AdmissionControl.Decision.RATE_LIMITED ? "connect_rate" : "per_ip_cap";
+                } else if (clientPool.getQueue().remainingCapacity() == 0
+                        && clientPool.getPoolSize() >= clientPool.getMaximumPoolSize()) {
                     System.err.println("Connection rejected (server overloaded). Closing socket: " + socket.getRemoteSocketAddress());
+                    if (admission != null) admission.release(ip);
                     sendServerBusyAndClose(socket);
+                    accepted.rejected = true;
+                    accepted.reason = "pool_full";
+                } else {
+                    // until LOGIN/RESUME succeeds the socket only gets a PreAuthConnection; it builds the ClientHandler
+                    PreAuthConnection conn = new PreAuthConnection(socket,
+                            s -> new ClientHandler(s, clientRegistry, matchmaker, challengeManager, PlayerRepository));
+                    Runnable task = admission == null ? conn : () -> {
+                        try {
+                            conn.run();
+                        } finally {
+                            admission.release(ip);
+                        }
+                    };
+                    try {
+
+                        //Dua ClientHandler vao pool de xu ly I/O va logic
+                        clientPool.execute(task);
+                        if (admission != null) admission.armLoginDeadline(conn);
+                    } catch (RejectedExecutionException rej) {
+                        // Pool is saturated or shutting down: politely reject connection
+                        System.err.println("Connection rejected (server overloaded). Closing socket: " + socket.getRemoteSocketAddress());
+                        if (admission != null) admission.release(ip);
+                        sendServerBusyAndClose(socket);
+                        accepted.rejected = true;
+                        accepted.reason = "pool_full";
+                    }
+                }
+                if (accepted.shouldCommit()) {
+                    accepted.remote = String.valueOf(socket.getRemoteSocketAddress());
+                    accepted.commit();
                 }
             } catch (SocketException se) {
                 // SocketException is expected when serverSocket.close() is called during shutdown.
@@ -126,9 +170,13 @@ public class ServerAcceptor {
     }
 
     private void sendServerBusyAndClose(Socket socket) {
+        rejectAndClose(socket, "ERROR: Server busy. Try again later.");
+    }
+
+    private void rejectAndClose(Socket socket, String message) {
         try (OutputStream os = socket.getOutputStream();
              PrintWriter pw = new PrintWriter(os, true)) {
-            pw.println("ERROR: Server busy. Try again later.");
+            pw.println(message);
         } catch (IOException e) {
             // ignore - we're closing anyway
         } finally {
@@ -138,6 +186,20 @@ public class ServerAcceptor {
         }
     }
 
+    /**
+     * Stop taking new connections but leave the connected clients running; {@link #shutdown()} finishes the job.
+     */
+    public void stopAccepting() {
+        running = false;
+        try {
+            ServerSocket ss = serverSocket;
+            if (ss != null && !ss.isClosed()) {
+                ss.close();
+            }
+        } catch (IOException ignored) {}
+        System.out.println("ServerAcceptor no longer accepting connections.");
+    }
+
     public void shutdown() {
         running = false;
 
@@ -149,6 +211,9 @@ public class ServerAcceptor {
             }
         } catch (IOException ignored) {}
 
+        AdmissionControl admission = admissionControl;
+        if (admission != null) admission.shutdown();
+
         // Stop acceptor
         acceptPool.shutdown();
         try {
@@ -0,0 +1,56 @@
+package com.mathspeed.adapter.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters for rejected client traffic, reported by {@link HealthHandler}.
+ */
+public final class ThrottleMetrics {
+    private static final LongAdder[] throttledByClass = new LongAdder[CommandRateLimiter.CommandClass.values().length];
+    private static final LongAdder abusiveDisconnects = new LongAdder();
+    private static final LongAdder answerCooldownRejects = new LongAdder();
+    private static final LongAdder answerBacklogRejects = new LongAdder();
+    private static final LongAdder perIpCapRejects = new LongAdder();
+    private static final LongAdder connectRateRejects = new LongAdder();
+    private static final LongAdder loginTimeouts = new LongAdder();
+
+    static {
+        for (int i = 0; i < throttledByClass.length; i++) throttledByClass[i] = new LongAdder();
+    }
+
+    private ThrottleMetrics() {
+    }
+
+    static void recordThrottled(CommandRateLimiter.CommandClass cls) { throttledByClass[cls.ordinal()].increment(); }
+    static void recordAbusiveDisconnect() { abusiveDisconnects.increment(); }
+    public static void recordAnswerCooldownReject() { answerCooldownRejects.increment(); }
+    public static void recordAnswerBacklogReject() { answerBacklogRejects.increment(); }
+    static void recordPerIpCapReject() { perIpCapRejects.increment(); }
+    static void recordConnectRateReject() { connectRateRejects.increment(); }
+    static void recordLoginTimeout() { loginTimeouts.increment(); }
+
+    public static long throttled(CommandRateLimiter.CommandClass cls) { return throttledByClass[cls.ordinal()].sum(); }
+    public static long abusiveDisconnects() { return abusiveDisconnects.sum(); }
+    public static long answerCooldownRejects() { return answerCooldownRejects.sum(); }
+    public static long answerBacklogRejects() { return answerBacklogRejects.sum(); }
+    public static long perIpCapRejects() { return perIpCapRejects.sum(); }
+    public static long connectRateRejects() { return connectRateRejects.sum(); }
+    public static long loginTimeouts() { return loginTimeouts.sum(); }
+
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\"throttled\":{");
+        CommandRateLimiter.CommandClass[] classes = CommandRateLimiter.CommandClass.values();
+        for (int i = 0; i < classes.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(classes[i].name().toLowerCase()).append("\":").append(throttled(classes[i]));
+        }
+        sb.append("},\"abusiveDisconnects\":").append(abusiveDisconnects());
+        sb.append(",\"answerCooldownRejects\":").append(answerCooldownRejects());
+        sb.append(",\"answerBacklogRejects\":").append(answerBacklogRejects());
+        sb.append(",\"perIpCapRejects\":").append(perIpCapRejects());
+        sb.append(",\"connectRateRejects\":").append(connectRateRejects());
+        sb.append(",\"loginTimeouts\":").append(loginTimeouts());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.mathspeed.adapter.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: deadlines are bucketed by tick, and each tick only visits its own bucket, so scheduling,
+ * cancelling and expiring are O(1) however many timeouts are pending. Deadlines further out than one turn of the
+ * wheel stay in their bucket until the turn they belong to.
+ *
+ * Expiry callbacks run on the wheel's single daemon thread and must not block; hand slow work to an executor.
+ */
+public class TimingWheel<T> {
+    private final long tickMs;
+    private final int mask;
+    private final Entry<T>[] buckets;
+    private final Consumer<T> onExpire;
+    private final Thread worker;
+    private final long startMs = System.currentTimeMillis();
+    // last tick whose bucket has been processed; guarded by this
+    private long tick;
+    private volatile boolean running = true;
+
+    /**
+     * @param bucketCount rounded up to a power of two; size it so tickMs * bucketCount covers the usual timeout
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(String name, long tickMs, int bucketCount, Consumer<T> onExpire) {
+        this.tickMs = Math.max(1L, tickMs);
+        int n = Integer.highestOneBit(Math.max(2, bucketCount - 1)) << 1;
+        this.mask = n - 1;
+        this.buckets = (Entry<T>[]) new Entry[n];
+        this.onExpire = onExpire;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Fire {@code onExpire(item)} after about {@code delayMs} (rounded up to the next tick).
+     */
+    public Timeout schedule(T item, long delayMs) {
+        long due = (System.currentTimeMillis() - startMs + Math.max(0L, delayMs) + tickMs - 1) / tickMs;
+        Entry<T> e = new Entry<>(this, item);
+        synchronized (this) {
+            // never file into a bucket the worker has already passed for this turn
+            e.dueTick = Math.max(due, tick + 1);
+            link(e);
+        }
+        return e;
+    }
+
+    public synchronized int pending() {
+        int count = 0;
+        for (Entry<T> head : buckets) {
+            for (Entry<T> e = head; e != null; e = e.next) count++;
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        List<T> expired = new ArrayList<>();
+        while (running) {
+            long now = (System.currentTimeMillis() - startMs) / tickMs;
+            synchronized (this) {
+                // catch up on every tick missed while asleep or busy, so no bucket is skipped
+                while (tick < now) {
+                    tick++;
+                    int b = (int) (tick & mask);
+                    Entry<T> e = buckets[b];
+                    while (e != null) {
+                        Entry<T> next = e.next;
+                        if (e.dueTick <= tick) {
+                            unlink(e);
+                            expired.add(e.item);
+                        }
+                        e = next;
+                    }
+                }
+            }
+            for (T item : expired) {
+                try {
+                    onExpire.accept(item);
+                } catch (Exception ex) {
+                    System.err.println("[TimingWheel] " + worker.getName() + " expiry failed: " + ex.getMessage());
+                }
+            }
+            expired.clear();
+            try {
+                long nextTickAt = startMs + (tick + 1) * tickMs;
+                Thread.sleep(Math.max(1L, nextTickAt - System.currentTimeMillis()));
+            } catch (InterruptedException ie) {
+                if (!running) return;
+            }
+        }
+    }
+
+    private void link(Entry<T> e) {
+        int b = (int) (e.dueTick & mask);
+        e.bucket = b;
+        e.prev = null;
+        e.next = buckets[b];
+        if (e.next != null) e.next.prev = e;
+        buckets[b] = e;
+    }
+
+    private void unlink(Entry<T> e) {
+        if (e.bucket < 0) return;
+        if (e.prev != null) e.prev.next = e.next;
+        else buckets[e.bucket] = e.next;
+        if (e.next != null) e.next.prev = e.prev;
+        e.prev = e.next = null;
+        e.bucket = -1;
+    }
+
+    public interface Timeout {
+        /** Returns false if it had already fired or been cancelled. */
+        boolean cancel();
+    }
+
+    private static final class Entry<T> implements Timeout {
+        final TimingWheel<T> wheel;
+        final T item;
+        // guarded by wheel
+        long dueTick;
+        int bucket = -1;
+        Entry<T> prev, next;
+
+        Entry(TimingWheel<T> wheel, T item) {
+            this.wheel = wheel;
+            this.item = item;
+        }
+
+        @Override
+        public boolean cancel() {
+            synchronized (wheel) {
+                if (bucket < 0) return false;
+                wheel.unlink(this);
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mathspeed.adapter.network;
+
+/**
+ * Classic token bucket: holds up to {@code capacity} tokens, refilled continuously at {@code refillPerSecond}.
+ * Owned by a single connection's read thread, so it is deliberately not synchronized.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(int capacity, double refillPerSecond) {
+        this.capacity = Math.max(1, capacity);
+        this.refillPerNano = Math.max(0.0, refillPerSecond) / 1_000_000_000.0;
+        this.tokens = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+package com.mathspeed.adapter.network;
+
+import com.mathspeed.sim.MatchSimulator;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Startup warm-up run before the acceptor opens: fills the connection pools, loads the in-memory caches and plays
+ * simulated matches until the game paths (evaluator, puzzle generation, message encoding) are JIT-compiled, so the
+ * first real matches do not absorb cold-start pauses. /api/health answers 503 until it completes.
+ *
+ * Steps run in order on the calling thread; a failing step is reported and skipped, it never blocks readiness.
+ */
+public class WarmupRunner {
+    private static final int MATCHES_PER_BATCH = 100;
+    private static final int MIN_BATCHES = 3;
+    // compilation is considered settled once a batch spends less than this share of its wall time in the JIT
+    private static final double SETTLED_JIT_SHARE = 0.02;
+
+    private final List<NamedStep> steps = new ArrayList<>();
+    private final List<StepReport> reports = new CopyOnWriteArrayList<>();
+    private volatile boolean ready = false;
+    private volatile long startedAt = 0L;
+    private volatile long finishedAt = 0L;
+
+    @FunctionalInterface
+    public interface Step {
+        /** Does the work and returns a short description of what it did, for the report. */
+        String run() throws Exception;
+    }
+
+    public void addStep(String name, Step step) {
+        if (step != null) steps.add(new NamedStep(name, step));
+    }
+
+    /**
+     * Simulated matches in virtual time, in batches alternating 1v1 and 4-player rooms, until a batch barely
+     * compiles anything or {@code budgetMs} is spent.
+     */
+    public void addSimulatedMatches(long budgetMs) {
+        if (budgetMs <= 0) return;
+        addStep("game-paths", () -> simulateUntilCompiled(budgetMs));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void run() {
+        startedAt = System.currentTimeMillis();
+        for (NamedStep s : steps) {
+            long t0 = System.nanoTime();
+            String summary;
+            boolean ok = true;
+            try {
+                summary = s.step.run();
+            } catch (Exception e) {
+                ok = false;
+                summary = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            reports.add(new StepReport(s.name, ms, ok, summary));
+            System.out.println("[WarmupRunner] " + s.name + (ok ? "" : " FAILED") + " in " + ms + " ms: " + summary);
+        }
+        finishedAt = System.currentTimeMillis();
+        ready = true;
+        System.out.println("[WarmupRunner] ready after " + (finishedAt - startedAt) + " ms");
+    }
+
+    public String toJson() {
+        long end = ready ? finishedAt : System.currentTimeMillis();
+        StringBuilder sb = new StringBuilder("{\"ready\":").append(ready)
+                .append(",\"elapsedMs\":").append(startedAt == 0L ? 0L : end - startedAt)
+                .append(",\"steps\":[");
+        boolean first = true;
+        for (StepReport r : reports) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"name\":\"").append(r.name).append('"')
+                    .append(",\"ms\":").append(r.ms)
+                    .append(",\"ok\":").append(r.ok)
+                    .append(",\"summary\":\"").append(escape(r.summary)).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private String simulateUntilCompiled(long budgetMs) {
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean jitTimed = jit != null && jit.isCompilationTimeMonitoringSupported();
+        long jitStart = jitTimed ? jit.getTotalCompilationTime() : 0L;
+        long deadline = System.nanoTime() + budgetMs * 1_000_000L;
+
+        int batches = 0;
+        long failed = 0;
+        double firstUsPerMatch = 0, lastUsPerMatch = 0;
+        boolean settled = false;
+        while (System.nanoTime() < deadline) {
+            long jitBefore = jitTimed ? jit.getTotalCompilationTime() : 0L;
+            long t0 = System.nanoTime();
+            int roomSize = batches % 2 == 0 ? 2 : 4;
+            MatchSimulator.Result r = MatchSimulator.simulate(MATCHES_PER_BATCH, roomSize, 10, MATCHES_PER_BATCH, batches);
+            long wallNs = System.nanoTime() - t0;
+            failed += r.failedTasks;
+            batches++;
+
+            lastUsPerMatch = wallNs / 1000.0 / MATCHES_PER_BATCH;
+            if (batches == 1) firstUsPerMatch = lastUsPerMatch;
+            if (jitTimed && batches >= MIN_BATCHES) {
+                long jitMs = jit.getTotalCompilationTime() - jitBefore;
+                if (jitMs < SETTLED_JIT_SHARE * wallNs / 1_000_000.0) {
+                    settled = true;
+                    break;
+                }
+            }
+        }
+        return String.format("%d matches in %d batches, %.0f -> %.0f us/match, jit %d ms, %s%s",
+                batches * MATCHES_PER_BATCH, batches, firstUsPerMatch, lastUsPerMatch,
+                jitTimed ? jit.getTotalCompilationTime() - jitStart : -1L,
+                settled ? "compilation settled" : "budget reached",
+                failed > 0 ? ", " + failed + " failed tasks" : "");
+    }
+
+    private static String escape(String s) {
+        if (s == null) return "";
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", " ");
+    }
+
+    private static final class NamedStep {
+        final String name;
+        final Step step;
+
+        NamedStep(String name, Step step) {
+            this.name = name;
+            this.step = step;
+        }
+    }
+
+    private static final class StepReport {
+        final String name;
+        final long ms;
+        final boolean ok;
+        final String summary;
+
+        StepReport(String name, long ms, boolean ok, String summary) {
+            this.name = name;
+            this.ms = ms;
+            this.ok = ok;
+            this.summary = summary;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mathspeed.adapter.network.friend;
 
 import com.mathspeed.application.friend.FriendService;
+import com.mathspeed.application.friend.PlayerSearchIndex;
 import com.mathspeed.domain.model.Player;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -16,9 +17,11 @@ import java.util.HashMap;
  * HTTP handler that exposes friend-related endpoints.
  * GET /api/friends/all?id=<requesterId>
  * GET /api/friends/online?id=<requesterId>
- * GET /api/friends/search?keyword=<kw>&id=<requesterId>
+ * GET /api/friends/search?keyword=<kw>&id=<requesterId>[&limit=<n>]
  */
 public class FriendHandler implements HttpHandler {
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
     private final FriendService friendService;
 
     public FriendHandler(FriendService friendService) {
@@ -172,8 +175,14 @@ public class FriendHandler implements HttpHandler {
                 sendJson(exchange, 400, json);
                 return;
             }
+            int limit = DEFAULT_SEARCH_LIMIT;
+            try {
+                if (params.get("limit") != null) limit = Integer.parseInt(params.get("limit"));
+            } catch (NumberFormatException ignored) {
+            }
+            limit = Math.max(1, Math.min(limit, PlayerSearchIndex.MAX_LIMIT));
             // perform search and exclude requester id from results
-            List<Player> found = friendService.searchPlayers(keyword, id);
+            List<Player> found = friendService.searchPlayers(keyword, id, limit);
             List<Player> filtered = new java.util.ArrayList<>();
             for (Player p : found) {
                 if (!id.equals(p.getId())) filtered.add(p);
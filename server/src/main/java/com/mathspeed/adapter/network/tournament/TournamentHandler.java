@@ -0,0 +1,268 @@
+package com.mathspeed.adapter.network.tournament;
+
+import com.mathspeed.adapter.network.ResumeTokenStore;
+import com.mathspeed.application.tournament.TournamentFormat;
+import com.mathspeed.application.tournament.TournamentScheduler;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.model.Tournament;
+import com.mathspeed.domain.model.TournamentEntrant;
+import com.mathspeed.domain.model.TournamentPairing;
+import com.mathspeed.domain.port.TournamentRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP handler for tournaments.
+ * GET  /api/tournaments                 -> registering and running tournaments
+ * GET  /api/tournaments?id=<id>         -> tournament with entrants and bracket
+ * POST /api/tournaments/create          {"name","format","roundsPerMatch","startInSeconds"}   (X-Admin-Token)
+ * POST /api/tournaments/register        {"tournamentId"}                                      (X-Session-Token)
+ * POST /api/tournaments/start           {"tournamentId"}                                      (X-Admin-Token)
+ *
+ * create/start need quickmath.adminToken and are refused when it is not set. register enrols the player whose
+ * game connection holds the session (resume) token sent in X-Session-Token; a playerId in the body is ignored.
+ */
+public class TournamentHandler implements HttpHandler {
+    private final TournamentScheduler tournamentScheduler;
+    private final TournamentRepository tournamentRepository;
+    private final ResumeTokenStore sessions;
+    // null: admin endpoints disabled
+    private final byte[] adminToken;
+
+    private final Pattern namePattern = Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
+    private final Pattern formatPattern = Pattern.compile("\"format\"\\s*:\\s*\"([^\"]+)\"");
+    private final Pattern roundsPattern = Pattern.compile("\"roundsPerMatch\"\\s*:\\s*(\\d+)");
+    private final Pattern startInPattern = Pattern.compile("\"startInSeconds\"\\s*:\\s*(\\d+)");
+    private final Pattern tournamentIdPattern = Pattern.compile("\"tournamentId\"\\s*:\\s*\"([^\"]+)\"");
+
+    public TournamentHandler(TournamentScheduler tournamentScheduler,
+                             TournamentRepository tournamentRepository,
+                             ResumeTokenStore sessions,
+                             String adminToken) {
+        this.tournamentScheduler = tournamentScheduler;
+        this.tournamentRepository = tournamentRepository;
+        this.sessions = sessions;
+        this.adminToken = adminToken != null && !adminToken.isEmpty() ? adminToken.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if ("GET".equalsIgnoreCase(method)) {
+                String id = parseQuery(exchange.getRequestURI().getQuery()).get("id");
+                if (id == null || id.isEmpty()) handleList(exchange);
+                else handleView(exchange, id);
+                return;
+            }
+            if (!"POST".equalsIgnoreCase(method)) {
+                sendJson(exchange, 405, "{\"ok\":false,\"status\":405,\"error\":\"Method not allowed\"}");
+                return;
+            }
+            String body = readRequestBody(exchange.getRequestBody());
+            boolean adminOnly = path.endsWith("/create") || path.endsWith("/start");
+            if (adminOnly && !isAdmin(exchange)) {
+                sendJson(exchange, 403, "{\"ok\":false,\"status\":403,\"error\":\"Forbidden\"}");
+                return;
+            }
+            if (path.endsWith("/create")) handleCreate(exchange, body);
+            else if (path.endsWith("/register")) handleRegister(exchange, body);
+            else if (path.endsWith("/start")) handleStart(exchange, body);
+            else sendJson(exchange, 404, "{\"ok\":false,\"status\":404,\"error\":\"Not found\"}");
+        } catch (Exception e) {
+            System.err.println("[TournamentHandler] " + e.getMessage());
+            sendJson(exchange, 500, "{\"ok\":false,\"status\":500,\"error\":\"Internal error\"}");
+        }
+    }
+
+    private void handleList(HttpExchange exchange) throws Exception {
+        List<Tournament> list = new ArrayList<>(tournamentRepository.findByStatus("registering"));
+        list.addAll(tournamentRepository.findByStatus("running"));
+        StringBuilder sb = new StringBuilder("{\"ok\":true,\"status\":200,\"tournaments\":[");
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(',');
+            appendTournament(sb, list.get(i));
+        }
+        sb.append("]}");
+        sendJson(exchange, 200, sb.toString());
+    }
+
+    private void handleView(HttpExchange exchange, String id) throws Exception {
+        Tournament t = tournamentRepository.findTournament(id);
+        if (t == null) {
+            sendJson(exchange, 404, "{\"ok\":false,\"status\":404,\"error\":\"Tournament not found\"}");
+            return;
+        }
+        StringBuilder sb = new StringBuilder("{\"ok\":true,\"status\":200,\"tournament\":");
+        appendTournament(sb, t);
+        sb.append(",\"entrants\":[");
+        List<TournamentEntrant> entrants = tournamentRepository.getEntrants(id);
+        for (int i = 0; i < entrants.size(); i++) {
+            TournamentEntrant e = entrants.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"playerId\":\"").append(escapeJson(e.getPlayerId())).append('"');
+            sb.append(",\"username\":\"").append(escapeJson(e.getUsername())).append('"');
+            sb.append(",\"seed\":").append(e.getSeed());
+            sb.append(",\"rating\":").append(e.getRating());
+            sb.append(",\"points\":").append(e.getPoints() / 2.0);
+            sb.append(",\"eliminated\":").append(e.isEliminated());
+            sb.append('}');
+        }
+        sb.append("],\"pairings\":[");
+        List<TournamentPairing> pairings = tournamentRepository.getPairings(id);
+        for (int i = 0; i < pairings.size(); i++) {
+            TournamentPairing p = pairings.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"round\":").append(p.getRound());
+            sb.append(",\"slot\":").append(p.getSlot());
+            sb.append(",\"playerA\":\"").append(escapeJson(p.getPlayerA())).append('"');
+            sb.append(",\"playerB\":").append(p.getPlayerB() != null ? "\"" + escapeJson(p.getPlayerB()) + "\"" : "null");
+            sb.append(",\"matchId\":").append(p.getMatchId() != null ? "\"" + escapeJson(p.getMatchId()) + "\"" : "null");
+            sb.append(",\"winnerId\":").append(p.getWinnerId() != null ? "\"" + escapeJson(p.getWinnerId()) + "\"" : "null");
+            sb.append(",\"status\":\"").append(escapeJson(p.getStatus())).append('"');
+            sb.append('}');
+        }
+        sb.append("]}");
+        sendJson(exchange, 200, sb.toString());
+    }
+
+    private void handleCreate(HttpExchange exchange, String body) throws Exception {
+        String name = extract(body, namePattern);
+        if (name == null || name.isEmpty()) {
+            sendJson(exchange, 400, "{\"ok\":false,\"status\":400,\"error\":\"Missing name\"}");
+            return;
+        }
+        TournamentFormat format;
+        try {
+            String f = extract(body, formatPattern);
+            format = f != null ? TournamentFormat.fromDb(f) : TournamentFormat.SINGLE_ELIMINATION;
+        } catch (IllegalArgumentException ex) {
+            sendJson(exchange, 400, "{\"ok\":false,\"status\":400,\"error\":\"Invalid format\"}");
+            return;
+        }
+        int roundsPerMatch = parseIntOr(extract(body, roundsPattern), 10);
+        long startIn = parseIntOr(extract(body, startInPattern), 0);
+
+        Tournament t = tournamentScheduler.createTournament(name, format, Math.max(1, roundsPerMatch), startIn);
+        StringBuilder sb = new StringBuilder("{\"ok\":true,\"status\":200,\"tournament\":");
+        appendTournament(sb, t);
+        sb.append('}');
+        sendJson(exchange, 200, sb.toString());
+    }
+
+    private void handleRegister(HttpExchange exchange, String body) throws Exception {
+        Player player = sessions.peek(exchange.getRequestHeaders().getFirst("X-Session-Token"));
+        if (player == null) {
+            sendJson(exchange, 401, "{\"ok\":false,\"status\":401,\"error\":\"Not logged in\"}");
+            return;
+        }
+        String tournamentId = extract(body, tournamentIdPattern);
+        if (tournamentId == null) {
+            sendJson(exchange, 400, "{\"ok\":false,\"status\":400,\"error\":\"Missing tournamentId\"}");
+            return;
+        }
+        try {
+            TournamentEntrant e = tournamentScheduler.register(tournamentId, player);
+            sendJson(exchange, 200, "{\"ok\":true,\"status\":200,\"rating\":" + e.getRating() + "}");
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            sendJson(exchange, 400, "{\"ok\":false,\"status\":400,\"error\":\"" + escapeJson(ex.getMessage()) + "\"}");
+        }
+    }
+
+    private void handleStart(HttpExchange exchange, String body) throws IOException {
+        String tournamentId = extract(body, tournamentIdPattern);
+        if (tournamentId == null) {
+            sendJson(exchange, 400, "{\"ok\":false,\"status\":400,\"error\":\"Missing tournamentId\"}");
+            return;
+        }
+        tournamentScheduler.startTournament(tournamentId);
+        sendJson(exchange, 202, "{\"ok\":true,\"status\":202}");
+    }
+
+    private boolean isAdmin(HttpExchange exchange) {
+        String token = exchange.getRequestHeaders().getFirst("X-Admin-Token");
+        return adminToken != null && token != null && MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendTournament(StringBuilder sb, Tournament t) {
+        sb.append("{\"id\":\"").append(escapeJson(t.getId())).append('"');
+        sb.append(",\"name\":\"").append(escapeJson(t.getName())).append('"');
+        sb.append(",\"format\":\"").append(escapeJson(t.getFormat())).append('"');
+        sb.append(",\"status\":\"").append(escapeJson(t.getStatus())).append('"');
+        sb.append(",\"currentRound\":").append(t.getCurrentRound());
+        sb.append(",\"totalRounds\":").append(t.getTotalRounds());
+        sb.append(",\"roundsPerMatch\":").append(t.getRoundsPerMatch());
+        if (t.getStartsAt() != null) {
+            sb.append(",\"startsAt\":\"").append(escapeJson(t.getStartsAt().toString())).append('"');
+        }
+        sb.append('}');
+    }
+
+    private int parseIntOr(String s, int fallback) {
+        if (s == null) return fallback;
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private Map<String, String> parseQuery(String q) {
+        Map<String, String> map = new HashMap<>();
+        if (q == null || q.isEmpty()) return map;
+        for (String p : q.split("&")) {
+            int idx = p.indexOf('=');
+            if (idx > 0 && idx < p.length() - 1) {
+                map.put(p.substring(0, idx), java.net.URLDecoder.decode(p.substring(idx + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return map;
+    }
+
+    private String readRequestBody(InputStream is) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = br.readLine()) != null) {
+                sb.append(line);
+            }
+            return sb.toString();
+        }
+    }
+
+    private String extract(String body, Pattern pattern) {
+        if (body == null) return null;
+        Matcher m = pattern.matcher(body);
+        if (m.find()) return m.group(1);
+        return null;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private String escapeJson(String s) {
+        if (s == null) return "";
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,101 @@
+package com.mathspeed.application.activity;
+
+import com.mathspeed.domain.model.PlayerActivity;
+import com.mathspeed.domain.port.PlayerRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for players.status and last_active_at. Logins, logouts and disconnects only record the
+ * latest value per player in memory; a background flush writes every dirty row in one batched UPDATE. A player
+ * who logs in and out between flushes costs one row write, and a login never waits on the database.
+ *
+ * The column is an audit trail: live presence is answered from ClientRegistry, so a flush delay of a few seconds
+ * is invisible to players. Pending rows are flushed on shutdown.
+ */
+public class ActivityTracker {
+    private final PlayerRepository repository;
+    private final long flushIntervalMs;
+    private final Map<String, PlayerActivity> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ActivityTracker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param repository the database-backed repository; not a wrapper that routes updateStatus back here
+     */
+    public ActivityTracker(PlayerRepository repository, long flushIntervalMs) {
+        this.repository = repository;
+        this.flushIntervalMs = Math.max(100L, flushIntervalMs);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Remember the player's status as of now; replaces anything not yet flushed for them.
+     */
+    public void record(String username, String status) {
+        if (username == null || status == null) return;
+        dirty.put(username, new PlayerActivity(username, status, LocalDateTime.now()));
+    }
+
+    public int pending() {
+        return dirty.size();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            System.err.println("[ActivityTracker] flush failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Write every dirty row; returns how many were written. Rows that fail go back into the buffer unless a newer
+     * value arrived meanwhile.
+     */
+    public synchronized int flush() throws Exception {
+        if (dirty.isEmpty()) return 0;
+        List<PlayerActivity> batch = new ArrayList<>(dirty.size());
+        for (String username : dirty.keySet()) {
+            PlayerActivity a = dirty.get(username);
+            // remove only the value we write, so a record() racing with the flush is kept for the next one
+            if (a != null && dirty.remove(username, a)) batch.add(a);
+        }
+        if (batch.isEmpty()) return 0;
+        try {
+            repository.updateActivity(batch);
+        } catch (Exception ex) {
+            for (PlayerActivity a : batch) dirty.putIfAbsent(a.getUsername(), a);
+            throw ex;
+        }
+        return batch.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            int n = flush();
+            if (n > 0) System.out.println("[ActivityTracker] flushed " + n + " pending rows on shutdown");
+        } catch (Exception ex) {
+            System.err.println("[ActivityTracker] final flush failed, " + dirty.size() + " rows lost: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.mathspeed.application.archive;
+
+import com.mathspeed.domain.model.RoundRecord;
+import com.mathspeed.domain.port.RoundArchiveRepository;
+import com.mathspeed.domain.port.RoundArchiveStore;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that moves game_rounds rows older than {@code archiveAfterDays} into the monthly round archive,
+ * so the hot table only holds recent play. Each batch is staged in the archive, deleted from the database in
+ * one transaction, then committed; see {@link RoundArchiveStore} for how that survives a crash.
+ *
+ * Batches are small and spaced out so the job never competes with match persistence for long.
+ */
+public class RoundArchiver {
+    private static final int BATCH_ROWS = 5_000;
+    private static final int MAX_BATCHES_PER_RUN = 200;
+    private static final long PAUSE_BETWEEN_BATCHES_MS = 200L;
+    private static final long RUN_EVERY_HOURS = 6L;
+
+    private final RoundArchiveRepository repository;
+    private final RoundArchiveStore store;
+    private final long archiveAfterMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "RoundArchiver");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+
+    public RoundArchiver(RoundArchiveRepository repository, RoundArchiveStore store, int archiveAfterDays) {
+        this.repository = repository;
+        this.store = store;
+        this.archiveAfterMs = TimeUnit.DAYS.toMillis(Math.max(1, archiveAfterDays));
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::runSafely, 1, RUN_EVERY_HOURS * 60, TimeUnit.MINUTES);
+    }
+
+    public RoundArchiveStore getStore() {
+        return store;
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+        } catch (Exception ex) {
+            System.err.println("[RoundArchiver] run failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Recover interrupted batches, then archive until nothing old is left or the per-run cap is reached.
+     * Returns the number of rows archived.
+     */
+    public long runOnce() throws Exception {
+        recoverStaged();
+        long cutoff = System.currentTimeMillis() - archiveAfterMs;
+        long archived = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN && running; batch++) {
+            List<RoundRecord> rows = repository.findRoundsBefore(cutoff, BATCH_ROWS);
+            if (rows.isEmpty()) break;
+            for (Map.Entry<YearMonth, List<RoundRecord>> month : byMonth(rows).entrySet()) {
+                archived += archiveMonth(month.getKey(), month.getValue());
+            }
+            if (rows.size() < BATCH_ROWS) break;
+            Thread.sleep(PAUSE_BETWEEN_BATCHES_MS);
+        }
+        if (archived > 0) System.out.println("[RoundArchiver] archived " + archived + " rounds older than " + Instant.ofEpochMilli(cutoff));
+        return archived;
+    }
+
+    private int archiveMonth(YearMonth month, List<RoundRecord> rows) throws Exception {
+        store.stage(month, rows);
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (RoundRecord r : rows) ids.add(r.getId());
+        // if this throws, the batch stays staged and recoverStaged settles it from what the database holds
+        repository.deleteRounds(ids);
+        store.commit(month);
+        return rows.size();
+    }
+
+    /**
+     * A staged batch whose rows are gone from the database was deleted but not yet appended: finish it.
+     * If the rows are still there the delete never committed, so the batch is dropped and redone later.
+     */
+    private void recoverStaged() throws Exception {
+        for (YearMonth month : store.stagedMonths()) {
+            List<Long> ids = store.stagedIds(month);
+            if (ids.isEmpty() || repository.countRounds(ids) == 0) {
+                store.commit(month);
+                System.out.println("[RoundArchiver] completed interrupted batch for " + month);
+            } else {
+                store.discard(month);
+            }
+        }
+    }
+
+    private static Map<YearMonth, List<RoundRecord>> byMonth(List<RoundRecord> rows) {
+        Map<YearMonth, List<RoundRecord>> out = new TreeMap<>();
+        for (RoundRecord r : rows) {
+            YearMonth m = YearMonth.from(Instant.ofEpochMilli(r.getTimestampMs()).atZone(ZoneOffset.UTC));
+            out.computeIfAbsent(m, k -> new ArrayList<>()).add(r);
+        }
+        return out;
+    }
+
+    public void shutdown() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+}
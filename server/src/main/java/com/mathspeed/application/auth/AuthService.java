@@ -85,17 +85,12 @@ public class AuthService {
             // Default avatar URL to empty for now
             player.setAvatarUrl("https://tse1.mm.bing.net/th/id/OIP.pLa0MvBoBWBLYBwKtdbLhQAAAA?rs=1&amp;pid=ImgDetMain&amp;o=7&amp;rm=3");
 
+            // the row is inserted already online with last_active_at = now, so no separate status update
             boolean inserted = playerRepository.insertPlayer(player);
             if (!inserted) {
                 return new AuthResult(false, null, "Failed to create user", null);
             }
 
-            try {
-                playerRepository.updateStatus(username, "online");
-            } catch (Exception e) {
-                System.err.println("Failed to update status for new user: " + username + " - " + e.getClass().getSimpleName() + ": " + e.getMessage());
-            }
-
             String token = UuidUtil.randomUuid();
             return new AuthResult(true, token, null, player);
         } catch (Exception e) {
@@ -0,0 +1,134 @@
+package com.mathspeed.application.bot;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.protocol.MessageType;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.puzzle.MathPuzzleSolver;
+
+import java.util.Random;
+
+/**
+ * In-process opponent with no socket. Reads the same messages a client would and answers each NEW_ROUND
+ * through {@link GameSession#submitAnswer}, timed by the pool's {@link BotTimingModel}.
+ * Timers run on the pool's shared scheduler; a bot owns no thread.
+ */
+public class BotPlayer extends ClientHandler {
+    private final BotPool pool;
+    private final double skill;
+    private final Random random;
+    private volatile int lastRound = -1;
+    private volatile boolean readySent;
+    private volatile boolean released;
+
+    BotPlayer(BotPool pool, Player player, double skill, long seed) {
+        super(null, null, null, null);
+        this.pool = pool;
+        this.skill = skill;
+        this.random = new Random(seed);
+        bindPlayer(player);
+    }
+
+    @Override
+    public boolean isBot() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlive(long timeoutMillis) {
+        return !released;
+    }
+
+    @Override
+    public long getOneWayDelayMs() {
+        return 0L;
+    }
+
+    @Override
+    public long getJitterMs() {
+        return 0L;
+    }
+
+    @Override
+    public void sendType(MessageType type, String payload) {
+        // INFO, RESUME_* and the like carry nothing a bot acts on
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        if (released || message == null) return;
+        if (message.startsWith("{\"type\":\"NEW_ROUND\"")) {
+            onNewRound(message);
+        } else if (message.startsWith("{\"type\":\"MATCH_START_INFO\"")) {
+            if (!readySent) {
+                readySent = true;
+                long delay = 300 + random.nextInt(900);
+                pool.schedule(() -> {
+                    GameSession s = getCurrentGame();
+                    if (s != null) s.handleReady(this);
+                }, delay);
+            }
+        }
+    }
+
+    @Override
+    public void clearCurrentGame() {
+        // the session clears every seat when the match ends; a bot is single-use
+        super.clearCurrentGame();
+        released = true;
+        pool.release(this);
+    }
+
+    private void onNewRound(String json) {
+        int round = (int) longField(json, "\"round\":");
+        if (round == lastRound) return;
+        lastRound = round;
+        int target = (int) longField(json, "\"target\":");
+        int difficulty = (int) longField(json, "\"difficulty\":");
+        long roundStart = longField(json, "\"server_round_start\":");
+        long roundEnd = longField(json, "\"server_round_end\":");
+        if (target <= 0) return;
+
+        long now = System.currentTimeMillis();
+        long opensIn = Math.max(0L, roundStart - now);
+        long solve = pool.getTimingModel().sampleSolveMs(difficulty, skill, random);
+        long answerAt = opensIn + solve;
+        // a bot that would only finish after the deadline simply does not answer, like a human running out of time
+        if (roundEnd > 0 && now + answerAt >= roundEnd) return;
+
+        String expression = MathPuzzleSolver.solve(target);
+        if (random.nextDouble() < pool.getTimingModel().getAccuracy()) {
+            submitLater(round, expression, answerAt);
+        } else {
+            // slip once, then get it right a little later
+            submitLater(round, target == 2 ? "1+2" : "1+1", answerAt);
+            long retryAt = answerAt + pool.getTimingModel().sampleSolveMs(difficulty, skill, random) / 2;
+            if (roundEnd <= 0 || now + retryAt < roundEnd) submitLater(round, expression, retryAt);
+        }
+    }
+
+    private void submitLater(int round, String expression, long delayMs) {
+        pool.schedule(() -> {
+            GameSession s = getCurrentGame();
+            if (released || s == null || s.isFinished() || lastRound != round) return;
+            s.submitAnswer(this, expression);
+        }, delayMs);
+    }
+
+    @Override
+    public void disconnect() {
+        released = true;
+        pool.release(this);
+        super.disconnect();
+    }
+
+    private static long longField(String json, String key) {
+        int i = json.indexOf(key);
+        if (i < 0) return 0L;
+        i += key.length();
+        int end = i;
+        if (end < json.length() && json.charAt(end) == '-') end++;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+        return end > i ? Long.parseLong(json.substring(i, end)) : 0L;
+    }
+}
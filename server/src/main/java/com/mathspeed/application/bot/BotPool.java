@@ -0,0 +1,98 @@
+package com.mathspeed.application.bot;
+
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.port.GameRepository;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates bot opponents and runs all of their timers on one shared daemon thread.
+ * A bot only holds a few fields and schedules two or three tasks per round, so hundreds of
+ * bot matches cost less than a single socket connection with its own reader thread.
+ */
+public class BotPool {
+    private static final String[] NAMES = {"An", "Binh", "Chi", "Dung", "Giang", "Hai", "Khoa", "Linh", "Minh", "Nam", "Phuong", "Quan", "Trang", "Vy"};
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "BotPool");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Set<BotPlayer> active = ConcurrentHashMap.newKeySet();
+    private final long queueWaitMs;
+    private final int maxActive;
+    private volatile BotTimingModel timingModel;
+
+    /**
+     * @param queueWaitMs how long a lone player waits in the queue before a bot is matched in
+     * @param maxActive   cap on bots in play at once; beyond it players keep waiting for humans
+     */
+    public BotPool(GameRepository gameRepository, long queueWaitMs, int maxActive) {
+        this.queueWaitMs = Math.max(0L, queueWaitMs);
+        this.maxActive = Math.max(1, maxActive);
+        this.timingModel = BotTimingModel.defaults();
+        // calibration reads game_rounds; do it off the caller's thread so startup is not held up by the database
+        scheduler.execute(() -> timingModel = BotTimingModel.calibrate(gameRepository));
+    }
+
+    public long getQueueWaitMs() {
+        return queueWaitMs;
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    BotTimingModel getTimingModel() {
+        return timingModel;
+    }
+
+    /**
+     * New bot with a random name and skill, or null if the pool is at capacity.
+     */
+    public BotPlayer createBot() {
+        if (active.size() >= maxActive) return null;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String suffix = UUID.randomUUID().toString().substring(0, 4);
+        String name = NAMES[rnd.nextInt(NAMES.length)];
+        Player p = new Player("bot_" + name.toLowerCase() + "_" + suffix, null);
+        p.setId("bot-" + UUID.randomUUID());
+        p.setDisplayName(name + " (Bot)");
+        p.setStatus("in_game");
+        // skill spreads bots around the calibrated median: some faster, some slower than a typical player
+        double skill = Math.exp(0.25 * rnd.nextGaussian());
+        BotPlayer bot = new BotPlayer(this, p, skill, rnd.nextLong());
+        active.add(bot);
+        return bot;
+    }
+
+    void release(BotPlayer bot) {
+        active.remove(bot);
+    }
+
+    void schedule(Runnable task, long delayMs) {
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    System.err.println("[BotPool] bot task failed: " + ex.getMessage());
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // shutting down
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        active.clear();
+    }
+}
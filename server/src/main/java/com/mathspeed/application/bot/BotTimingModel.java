@@ -0,0 +1,115 @@
+package com.mathspeed.application.bot;
+
+import com.mathspeed.domain.model.RoundTiming;
+import com.mathspeed.domain.port.GameRepository;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Human-like solve times for bots: a log-normal fitted to the play times of recent correct rounds in game_rounds,
+ * scaled by puzzle difficulty. Each level's factor is the ratio of its own fitted median (from rows that recorded
+ * game_rounds.difficulty) to the overall one; a level with too few such rows keeps the fixed default ratio.
+ */
+public class BotTimingModel {
+    private static final int CALIBRATION_ROWS = 5_000;
+    private static final int MIN_SAMPLES = 50;
+
+    // defaults until enough rounds were played: median ~6s, accuracy 80%
+    private static final double DEFAULT_MU = Math.log(6_000);
+    private static final double DEFAULT_SIGMA = 0.5;
+    private static final double DEFAULT_ACCURACY = 0.8;
+
+    private static final double[] DEFAULT_DIFFICULTY_FACTOR = {0.6, 1.0, 1.7}; // easy, medium, hard
+
+    private final double mu;
+    private final double sigma;
+    private final double accuracy;
+    private final double[] difficultyFactor;
+
+    public BotTimingModel(double mu, double sigma, double accuracy) {
+        this(mu, sigma, accuracy, DEFAULT_DIFFICULTY_FACTOR);
+    }
+
+    public BotTimingModel(double mu, double sigma, double accuracy, double[] difficultyFactor) {
+        this.mu = mu;
+        this.sigma = Math.max(0.05, sigma);
+        this.accuracy = Math.max(0.05, Math.min(0.99, accuracy));
+        this.difficultyFactor = difficultyFactor.clone();
+    }
+
+    public static BotTimingModel defaults() {
+        return new BotTimingModel(DEFAULT_MU, DEFAULT_SIGMA, DEFAULT_ACCURACY);
+    }
+
+    /**
+     * Fit from recent ranked rounds; falls back to the defaults if the repository is unavailable or too sparse.
+     */
+    public static BotTimingModel calibrate(GameRepository repository) {
+        if (repository == null) return defaults();
+        try {
+            List<Long> times = repository.getRecentSolveTimesMs(CALIBRATION_ROWS);
+            double acc = repository.getRecentAccuracy(CALIBRATION_ROWS);
+            int n = 0;
+            double sum = 0, sumSq = 0;
+            for (Long t : times) {
+                if (t == null || t <= 0) continue;
+                double l = Math.log(t);
+                sum += l;
+                sumSq += l * l;
+                n++;
+            }
+            if (n < MIN_SAMPLES) {
+                System.out.println("[BotTimingModel] only " + n + " samples, using defaults");
+                return defaults();
+            }
+            double m = sum / n;
+            double var = Math.max(0.0, sumSq / n - m * m);
+            double[] factors = difficultyFactors(repository.getRecentRoundTimings(CALIBRATION_ROWS), m);
+            BotTimingModel model = new BotTimingModel(m, Math.sqrt(var), acc >= 0 ? acc : DEFAULT_ACCURACY, factors);
+            System.out.println("[BotTimingModel] calibrated from " + n + " rounds: median=" + Math.round(Math.exp(m))
+                    + "ms sigma=" + String.format("%.2f", model.sigma) + " accuracy=" + String.format("%.2f", model.accuracy)
+                    + String.format(" factors=%.2f/%.2f/%.2f", factors[0], factors[1], factors[2]));
+            return model;
+        } catch (Exception ex) {
+            System.err.println("[BotTimingModel] calibration failed, using defaults: " + ex.getMessage());
+            return defaults();
+        }
+    }
+
+    /**
+     * Per-level factor exp(mean log time of the level - overall mu), from correct rounds with a recorded difficulty.
+     */
+    private static double[] difficultyFactors(List<RoundTiming> timings, double overallMu) {
+        double[] factors = DEFAULT_DIFFICULTY_FACTOR.clone();
+        double[] sum = new double[factors.length];
+        int[] count = new int[factors.length];
+        for (RoundTiming t : timings) {
+            int level = t.getDifficulty();
+            if (!t.isCorrect() || t.getPlayTimeMs() <= 0 || level < 1 || level > factors.length) continue;
+            sum[level - 1] += Math.log(t.getPlayTimeMs());
+            count[level - 1]++;
+        }
+        for (int i = 0; i < factors.length; i++) {
+            if (count[i] >= MIN_SAMPLES) factors[i] = Math.exp(sum[i] / count[i] - overallMu);
+        }
+        return factors;
+    }
+
+    /**
+     * Solve time in ms for one round. {@code skill} scales the whole distribution (below 1 = faster bot).
+     */
+    public long sampleSolveMs(int difficulty, double skill, Random random) {
+        int idx = Math.max(1, Math.min(difficulty, difficultyFactor.length)) - 1;
+        double t = Math.exp(mu + sigma * random.nextGaussian()) * difficultyFactor[idx] * skill;
+        return Math.max(800L, Math.round(t));
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public long getMedianMs() {
+        return Math.round(Math.exp(mu));
+    }
+}
@@ -0,0 +1,124 @@
+package com.mathspeed.application.difficulty;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.domain.model.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Picks the easy/medium/hard mix of a match so that its expected duration lands on a fixed budget
+ * ({@code roundBudgetMs} per round) for the players actually seated, instead of the fixed 45/40/15 split.
+ *
+ * The expected length of a round at level L comes from the live sketches, each player's time scaled by their
+ * pace factor and cut off at the question timeout:
+ *   FIRST_CORRECT ends at the first solve:  E[min(T1..Tn, timeout)] = integral_0^timeout  prod(1 - F_i(t)) dt
+ *   RANKED waits for every seat:            E[min(max(T1..Tn), timeout)] = integral_0^timeout (1 - prod F_i(t)) dt
+ * Every split (e, m, h) of the rounds is scored by its distance from the budget, with a small penalty for
+ * drifting from the default mix so that equally good plans keep the familiar variety.
+ */
+public class DifficultyPlanner {
+    private static final double MIN_SAMPLES_PER_LEVEL = 200;
+    private static final int INTEGRATION_STEPS = 120;
+    private static final double[] DEFAULT_MIX = {0.45, 0.40, 0.15};
+    // ms of budget error a plan may trade for one round closer to the default mix
+    private static final double MIX_PENALTY_MS = 250.0;
+
+    private final SolveTimeStats stats;
+    private final long roundBudgetMs;
+
+    public DifficultyPlanner(SolveTimeStats stats, long roundBudgetMs) {
+        this.stats = stats;
+        this.roundBudgetMs = Math.max(1_000L, roundBudgetMs);
+    }
+
+    /**
+     * Difficulty per round (ascending, like the default sequence), or null while there is too little data to
+     * beat the default mix.
+     */
+    public List<Integer> plan(List<ClientHandler> players, GameSession.ScoringMode mode, int totalRounds,
+                              long questionTimeoutSeconds) {
+        int rounds = Math.max(1, Math.min(totalRounds, 20));
+        for (int level = 1; level <= SolveTimeStats.LEVELS; level++) {
+            if (stats.sampleCount(level) < MIN_SAMPLES_PER_LEVEL) return null;
+        }
+
+        double[] expected = expectedRoundMsByLevel(players, mode, questionTimeoutSeconds);
+
+        double budget = (double) roundBudgetMs * rounds;
+        int minEach = rounds >= 3 ? 1 : 0;
+        int bestE = -1, bestM = -1, bestH = -1;
+        double bestCost = Double.MAX_VALUE;
+        for (int e = minEach; e <= rounds - 2 * minEach; e++) {
+            for (int m = minEach; m <= rounds - e - minEach; m++) {
+                int h = rounds - e - m;
+                double duration = e * expected[1] + m * expected[2] + h * expected[3];
+                double drift = Math.abs(e - DEFAULT_MIX[0] * rounds) + Math.abs(m - DEFAULT_MIX[1] * rounds)
+                        + Math.abs(h - DEFAULT_MIX[2] * rounds);
+                double cost = Math.abs(duration - budget) + MIX_PENALTY_MS * drift;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestE = e;
+                    bestM = m;
+                    bestH = h;
+                }
+            }
+        }
+        if (bestE < 0) return null;
+
+        List<Integer> plan = new ArrayList<>(rounds);
+        for (int i = 0; i < bestE; i++) plan.add(1);
+        for (int i = 0; i < bestM; i++) plan.add(2);
+        for (int i = 0; i < bestH; i++) plan.add(3);
+        return Collections.unmodifiableList(plan);
+    }
+
+    /**
+     * Expected match length in ms for a plan, with the same model {@link #plan} optimises.
+     */
+    public long expectedDurationMs(List<Integer> plan, List<ClientHandler> players, GameSession.ScoringMode mode,
+                                   long questionTimeoutSeconds) {
+        double[] expected = expectedRoundMsByLevel(players, mode, questionTimeoutSeconds);
+        double sum = 0;
+        for (int level : plan) sum += expected[level];
+        return Math.round(sum);
+    }
+
+    private double[] expectedRoundMsByLevel(List<ClientHandler> players, GameSession.ScoringMode mode,
+                                            long questionTimeoutSeconds) {
+        // nobody seated yet: size the match for one typical player
+        double[] pace = new double[Math.max(1, players.size())];
+        Arrays.fill(pace, 1.0);
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.get(i).getPlayer();
+            pace[i] = stats.paceFactor(p != null ? p.getId() : null);
+        }
+        boolean firstSolveEnds = mode != GameSession.ScoringMode.RANKED;
+        long timeoutMs = Math.max(1L, questionTimeoutSeconds) * 1000L;
+        double[] expected = new double[SolveTimeStats.LEVELS + 1];
+        for (int level = 1; level <= SolveTimeStats.LEVELS; level++) {
+            expected[level] = expectedRoundMs(stats.snapshot(level), pace, timeoutMs, firstSolveEnds);
+        }
+        return expected;
+    }
+
+    private static double expectedRoundMs(double[] sketch, double[] pace, long timeoutMs, boolean firstSolveEnds) {
+        // midpoint rule; the integrand is a survival function, smooth enough at this resolution
+        double dt = (double) timeoutMs / INTEGRATION_STEPS;
+        double sum = 0;
+        for (int s = 0; s < INTEGRATION_STEPS; s++) {
+            double t = (s + 0.5) * dt;
+            double v = 1.0;
+            for (double f : pace) {
+                // a player with pace f takes f times as long: F_i(t) = F(t / f)
+                double cdf = SolveTimeSketch.cdf(sketch, t / f);
+                v *= firstSolveEnds ? (1.0 - cdf) : cdf;
+            }
+            sum += firstSolveEnds ? v : 1.0 - v;
+        }
+        return sum * dt;
+    }
+}
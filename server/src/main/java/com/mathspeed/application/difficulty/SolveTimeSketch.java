@@ -0,0 +1,85 @@
+package com.mathspeed.application.difficulty;
+
+/**
+ * Streaming quantile sketch for solve times: counts in logarithmic buckets, so every estimate is within
+ * {@code GAMMA - 1} (about 5%) relative error of the true value and the size is fixed no matter how many rounds
+ * are added. Counts are halved whenever they pass {@link #DECAY_AT}, so the sketch follows the recent player
+ * base instead of averaging over the server's whole lifetime.
+ *
+ * Thread-safe; writers are the finished-session listeners, readers the planner.
+ */
+public class SolveTimeSketch {
+    private static final double MIN_MS = 50.0;
+    private static final double MAX_MS = 300_000.0;
+    private static final double GAMMA = 1.05;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int BUCKETS = (int) Math.ceil(Math.log(MAX_MS / MIN_MS) / LOG_GAMMA) + 1;
+    private static final double DECAY_AT = 50_000.0;
+
+    private final double[] counts = new double[BUCKETS];
+    private double total;
+
+    public synchronized void add(long ms) {
+        counts[bucketOf(ms)] += 1.0;
+        total += 1.0;
+        if (total >= DECAY_AT) {
+            for (int i = 0; i < BUCKETS; i++) counts[i] *= 0.5;
+            total *= 0.5;
+        }
+    }
+
+    /**
+     * Weighted number of samples (decayed).
+     */
+    public synchronized double count() {
+        return total;
+    }
+
+    /**
+     * Estimated q-quantile in ms, or -1 while empty.
+     */
+    public synchronized long quantile(double q) {
+        if (total <= 0) return -1L;
+        double rank = Math.max(0.0, Math.min(1.0, q)) * total;
+        double seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) return Math.round(valueOf(i));
+        }
+        return Math.round(valueOf(BUCKETS - 1));
+    }
+
+    /**
+     * Prefix sums of the bucket counts taken under one lock: element i holds the weight of buckets below i, the
+     * last element the total. Lets the planner evaluate the cdf many times without locking or rescanning.
+     */
+    synchronized double[] snapshot() {
+        double[] cum = new double[BUCKETS + 1];
+        for (int i = 0; i < BUCKETS; i++) cum[i + 1] = cum[i] + counts[i];
+        return cum;
+    }
+
+    /**
+     * Share of samples at or below {@code ms} in a {@link #snapshot()}; 0 while empty.
+     */
+    static double cdf(double[] snapshot, double ms) {
+        double total = snapshot[BUCKETS];
+        if (total <= 0 || ms < MIN_MS) return 0.0;
+        int b = bucketOf((long) ms);
+        // linear within the bucket
+        double lo = MIN_MS * Math.pow(GAMMA, b);
+        double frac = Math.max(0.0, Math.min(1.0, (ms - lo) / (lo * (GAMMA - 1.0))));
+        return Math.min(1.0, (snapshot[b] + (snapshot[b + 1] - snapshot[b]) * frac) / total);
+    }
+
+    private static int bucketOf(long ms) {
+        if (ms <= MIN_MS) return 0;
+        int b = (int) (Math.log(ms / MIN_MS) / LOG_GAMMA);
+        return Math.min(BUCKETS - 1, b);
+    }
+
+    private static double valueOf(int bucket) {
+        // geometric midpoint of the bucket
+        return MIN_MS * Math.pow(GAMMA, bucket + 0.5);
+    }
+}
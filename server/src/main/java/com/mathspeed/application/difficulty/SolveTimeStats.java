@@ -0,0 +1,122 @@
+package com.mathspeed.application.difficulty;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.model.RoundTiming;
+import com.mathspeed.domain.port.GameRepository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live solve-time statistics per difficulty level, updated incrementally as matches finish and seeded from
+ * game_rounds at startup. A round a player did not solve counts as the full question time, so the sketches
+ * describe how long a round keeps a player busy, which is what the match budget is made of.
+ *
+ * Alongside the per-level sketches each player gets a pace factor: a moving average of how much slower (>1) or
+ * faster (<1) than the level median they solve. It lets the planner size a match for the actual pair.
+ */
+public class SolveTimeStats {
+    public static final int LEVELS = 3;
+    private static final int WARMUP_ROWS = 20_000;
+    private static final int MAX_TRACKED_PLAYERS = 50_000;
+    // weight of the newest round in a player's pace average
+    private static final double PACE_ALPHA = 0.1;
+    private static final double MIN_PACE = 0.25;
+    private static final double MAX_PACE = 4.0;
+
+    private final SolveTimeSketch[] byLevel = new SolveTimeSketch[LEVELS + 1];
+    // log of the pace factor per player id, most recently updated last
+    private final Map<String, Double> logPace = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_TRACKED_PLAYERS;
+        }
+    };
+
+    public SolveTimeStats() {
+        for (int level = 1; level <= LEVELS; level++) byLevel[level] = new SolveTimeSketch();
+    }
+
+    /**
+     * Load recent rounds from the repository; rounds recorded without a level are skipped.
+     */
+    public void warmUp(GameRepository repository) {
+        try {
+            List<RoundTiming> rows = repository.getRecentRoundTimings(WARMUP_ROWS);
+            int used = 0;
+            for (RoundTiming r : rows) {
+                int level = r.getDifficulty();
+                if (level < 1 || level > LEVELS || r.getPlayTimeMs() <= 0) continue;
+                byLevel[level].add(r.getPlayTimeMs());
+                used++;
+            }
+            System.out.println("[SolveTimeStats] loaded " + used + " rounds");
+        } catch (Exception ex) {
+            System.err.println("[SolveTimeStats] could not load rounds: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Finished-session listener. Matches with bots or ghosts are skipped: their times come from a model, not from
+     * people.
+     */
+    public void record(GameSession session) {
+        List<ClientHandler> seats = session.getPlayers();
+        for (ClientHandler seat : seats) {
+            if (seat.isBot()) return;
+        }
+        List<Integer> levels = session.getDifficultySequence();
+        long timeoutMs = session.getQuestionTimeoutSeconds() * 1000L;
+        for (int i = 0; i < seats.size(); i++) {
+            long[] times = session.getSolveTimeline(i);
+            Player p = seats.get(i).getPlayer();
+            String playerId = p != null ? p.getId() : null;
+            for (int round = 0; round < times.length && round < levels.size(); round++) {
+                int level = levels.get(round);
+                if (level < 1 || level > LEVELS) continue;
+                long t = times[round] >= 0 ? times[round] : timeoutMs;
+                if (t <= 0) continue;
+                SolveTimeSketch sketch = byLevel[level];
+                long median = sketch.quantile(0.5);
+                sketch.add(t);
+                if (playerId != null && times[round] >= 0 && median > 0) updatePace(playerId, Math.log((double) t / median));
+            }
+        }
+    }
+
+    private void updatePace(String playerId, double logRatio) {
+        synchronized (logPace) {
+            Double prev = logPace.get(playerId);
+            double next = prev == null ? logRatio : prev + PACE_ALPHA * (logRatio - prev);
+            logPace.put(playerId, next);
+        }
+    }
+
+    /**
+     * How much longer than the level median this player usually needs; 1.0 for unknown players.
+     */
+    public double paceFactor(String playerId) {
+        if (playerId == null) return 1.0;
+        Double lp;
+        synchronized (logPace) {
+            lp = logPace.get(playerId);
+        }
+        if (lp == null) return 1.0;
+        return Math.max(MIN_PACE, Math.min(MAX_PACE, Math.exp(lp)));
+    }
+
+    public double sampleCount(int level) {
+        return byLevel[level].count();
+    }
+
+    public long quantileMs(int level, double q) {
+        return byLevel[level].quantile(q);
+    }
+
+    double[] snapshot(int level) {
+        return byLevel[level].snapshot();
+    }
+}
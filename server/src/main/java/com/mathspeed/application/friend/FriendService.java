@@ -7,24 +7,43 @@ import java.util.List;
 
 public class FriendService {
     private final PlayerRepository playerRepository;
+    private volatile PresenceService presenceService;
 
     public FriendService(PlayerRepository playerRepository) {
         this.playerRepository = playerRepository;
     }
 
+    /**
+     * Serve online lists and statuses from live presence instead of the players.status column.
+     */
+    public void setPresenceService(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
     public boolean playerExistsById(String id) throws Exception {
         return playerRepository.existsById(id);
     }
 
     public List<Player> listAllPlayers(String requesterId) throws Exception {
-        return playerRepository.getAllPlayers(requesterId);
+        return withLiveStatus(playerRepository.getAllPlayers(requesterId));
     }
 
     public List<Player> listOnlinePlayers(String requesterId) throws Exception {
+        PresenceService presence = presenceService;
+        if (presence != null) return presence.onlinePlayers(requesterId);
         return playerRepository.getOnlinePlayers(requesterId);
     }
 
     public List<Player> searchPlayers(String keyword, String requesterId) throws Exception {
-        return playerRepository.searchPlayers(keyword, requesterId);
+        return withLiveStatus(playerRepository.searchPlayers(keyword, requesterId));
+    }
+
+    public List<Player> searchPlayers(String keyword, String requesterId, int limit) throws Exception {
+        return withLiveStatus(playerRepository.searchPlayers(keyword, requesterId, limit));
+    }
+
+    private List<Player> withLiveStatus(List<Player> players) {
+        PresenceService presence = presenceService;
+        return presence != null ? presence.withLiveStatus(players) : players;
     }
 }
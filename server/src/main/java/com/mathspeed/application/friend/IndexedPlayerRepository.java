@@ -0,0 +1,117 @@
+package com.mathspeed.application.friend;
+
+import com.mathspeed.application.activity.ActivityTracker;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.model.PlayerActivity;
+import com.mathspeed.domain.port.PlayerRepository;
+
+import java.util.List;
+
+/**
+ * PlayerRepository that keeps a {@link PlayerSearchIndex} in step with the writes passing through it and answers
+ * searches from the index once it is warm. With an {@link ActivityTracker} set, status updates are buffered and
+ * written in batches instead of one UPDATE each. Everything else goes straight to the wrapped repository.
+ */
+public class IndexedPlayerRepository implements PlayerRepository {
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    private final PlayerRepository delegate;
+    private final PlayerSearchIndex index;
+    private volatile ActivityTracker activityTracker;
+
+    public IndexedPlayerRepository(PlayerRepository delegate, PlayerSearchIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    public PlayerSearchIndex getIndex() {
+        return index;
+    }
+
+    public void setActivityTracker(ActivityTracker activityTracker) {
+        this.activityTracker = activityTracker;
+    }
+
+    @Override
+    public boolean insertPlayer(Player player) throws Exception {
+        boolean inserted = delegate.insertPlayer(player);
+        if (inserted) index.put(player);
+        return inserted;
+    }
+
+    @Override
+    public void updateStatus(String username, String status) throws Exception {
+        index.updateStatus(username, status);
+        ActivityTracker tracker = activityTracker;
+        if (tracker != null) tracker.record(username, status);
+        else delegate.updateStatus(username, status);
+    }
+
+    @Override
+    public void updateActivity(List<PlayerActivity> updates) throws Exception {
+        delegate.updateActivity(updates);
+    }
+
+    @Override
+    public List<Player> searchPlayers(String keyword, String excludePlayerId) throws Exception {
+        return searchPlayers(keyword, excludePlayerId, DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Override
+    public List<Player> searchPlayers(String keyword, String excludePlayerId, int limit) throws Exception {
+        if (index.isReady()) return index.search(keyword, excludePlayerId, limit);
+        return delegate.searchPlayers(keyword, excludePlayerId, limit);
+    }
+
+    @Override
+    public String hashPassword(String password) throws Exception {
+        return delegate.hashPassword(password);
+    }
+
+    @Override
+    public boolean checkPassword(String plain, String hashed) throws Exception {
+        return delegate.checkPassword(plain, hashed);
+    }
+
+    @Override
+    public boolean changePassword(String username, String newPassword) throws Exception {
+        return delegate.changePassword(username, newPassword);
+    }
+
+    @Override
+    public Player findPlayer(String username, String password) throws Exception {
+        return delegate.findPlayer(username, password);
+    }
+
+    @Override
+    public Player getPlayerById(String id) throws Exception {
+        return delegate.getPlayerById(id);
+    }
+
+    @Override
+    public boolean existsByUsername(String username) throws Exception {
+        return delegate.existsByUsername(username);
+    }
+
+    @Override
+    public boolean existsById(String id) throws Exception {
+        // positive answers only; a player missing from the index may still have been inserted elsewhere
+        if (index.isReady() && index.contains(id)) return true;
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public List<Player> getAllPlayers(String excludePlayerId) throws Exception {
+        return delegate.getAllPlayers(excludePlayerId);
+    }
+
+    @Override
+    public List<Player> getOnlinePlayers(String excludePlayerId) throws Exception {
+        return delegate.getOnlinePlayers(excludePlayerId);
+    }
+
+    @Override
+    public int getTotalPlayers() throws Exception {
+        return delegate.getTotalPlayers();
+    }
+}
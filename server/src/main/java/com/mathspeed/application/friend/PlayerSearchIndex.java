@@ -0,0 +1,516 @@
+package com.mathspeed.application.friend;
+
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.port.PlayerRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over username and display name, so player search never scans the players table.
+ *
+ * Every word of both names is lower-cased, stripped of accents ("Nguyễn" indexes as "nguyen") and cut into
+ * trigrams, with two boundary marks in front so the first one or two letters of a word form trigrams too.
+ * Each trigram maps to a sorted int[] of document numbers. A query is cut the same way (words of one or two
+ * letters only contribute the prefix trigram ending on their last letter), then:
+ *   1. documents holding every query trigram, found by walking the shortest posting list and galloping in the rest
+ *   2. if that leaves too few, documents sharing at least half of the trigrams, which catches small typos
+ * Candidates are ranked on primitive arrays; only the finalists are compared as strings to order them
+ * exact > word prefix > substring > fuzzy, shorter names first.
+ *
+ * An update appends a new document and marks the old one dead; the postings are rebuilt once dead documents
+ * make up half the index. Searches run under a read lock and keep their counters in per-thread arrays.
+ */
+public class PlayerSearchIndex {
+    public static final int MAX_LIMIT = 50;
+    private static final char BOUNDARY = '\u0001';
+    private static final double MIN_TRIGRAM_OVERLAP = 0.5;
+    private static final int MIN_DOCS_BEFORE_COMPACT = 1_024;
+    // candidates kept per requested result before names are compared as strings
+    private static final int FINALISTS_PER_RESULT = 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> docByPlayerId = new HashMap<>();
+    private final Map<String, Integer> docByUsername = new HashMap<>();
+    private Player[] profiles = new Player[1_024];
+    private String[] normUsernames = new String[1_024];
+    private String[] normDisplayNames = new String[1_024];
+    private int[] nameLengths = new int[1_024];
+    private final Map<String, Integer> docByNormUsername = new HashMap<>();
+    private final BitSet dead = new BitSet();
+    private int docCount;
+    private int deadCount;
+    private volatile boolean ready;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+            docs[size++] = doc;
+        }
+    }
+
+    /**
+     * Hit counters for one search; only the touched slots are cleared afterwards.
+     */
+    private static final class Scratch {
+        int[] hits = new int[0];
+        int[] touched = new int[64];
+        int touchedSize;
+
+        void ensure(int docs) {
+            if (hits.length < docs) hits = new int[Math.max(docs, hits.length * 2)];
+        }
+
+        void touch(int doc) {
+            if (hits[doc]++ == 0) {
+                if (touchedSize == touched.length) touched = Arrays.copyOf(touched, touchedSize * 2);
+                touched[touchedSize++] = doc;
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedSize; i++) hits[touched[i]] = 0;
+            touchedSize = 0;
+        }
+    }
+
+    /**
+     * Load every player once at startup. Until this finishes, {@link #isReady()} is false and callers should
+     * fall back to the database.
+     */
+    public void warmUp(PlayerRepository repository) {
+        try {
+            List<Player> all = repository.getAllPlayers(null);
+            lock.writeLock().lock();
+            try {
+                for (Player p : all) putLocked(p);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            System.out.println("[PlayerSearchIndex] indexed " + all.size() + " players");
+        } catch (Exception e) {
+            System.err.println("[PlayerSearchIndex] warm-up failed, search stays on the database: " + e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Cached public profile (no password hash), or null if the player is not indexed.
+     */
+    public Player get(String playerId) {
+        if (playerId == null) return null;
+        lock.readLock().lock();
+        try {
+            Integer doc = docByPlayerId.get(playerId);
+            return doc != null ? copyWithoutSecrets(profiles[doc]) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String playerId) {
+        if (playerId == null) return false;
+        lock.readLock().lock();
+        try {
+            return docByPlayerId.containsKey(playerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByPlayerId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a player or replace their entry; call after registration and after any name or avatar change.
+     */
+    public void put(Player player) {
+        if (player == null || player.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            putLocked(player);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String playerId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByPlayerId.remove(playerId);
+            if (doc != null) kill(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keep the cached status current without reindexing; names are unchanged.
+     */
+    public void updateStatus(String username, String status) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByUsername.get(username);
+            if (doc != null) profiles[doc].setStatus(status);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Player source) {
+        Player p = copyWithoutSecrets(source);
+        Integer old = docByPlayerId.get(p.getId());
+        if (old != null) kill(old);
+        int doc = docCount++;
+        if (doc == profiles.length) {
+            int cap = profiles.length * 2;
+            profiles = Arrays.copyOf(profiles, cap);
+            normUsernames = Arrays.copyOf(normUsernames, cap);
+            normDisplayNames = Arrays.copyOf(normDisplayNames, cap);
+            nameLengths = Arrays.copyOf(nameLengths, cap);
+        }
+        profiles[doc] = p;
+        normUsernames[doc] = normalize(p.getUsername());
+        normDisplayNames[doc] = normalize(p.getDisplayName());
+        nameLengths[doc] = normDisplayNames[doc].length();
+        docByPlayerId.put(p.getId(), doc);
+        if (p.getUsername() != null) docByUsername.put(p.getUsername(), doc);
+        docByNormUsername.put(normUsernames[doc], doc);
+        indexDoc(doc);
+        if (deadCount >= MIN_DOCS_BEFORE_COMPACT && deadCount * 2 >= docCount) compact();
+    }
+
+    private void kill(int doc) {
+        if (!dead.get(doc)) {
+            dead.set(doc);
+            deadCount++;
+            String username = profiles[doc].getUsername();
+            if (username != null) docByUsername.remove(username, doc);
+            docByNormUsername.remove(normUsernames[doc], doc);
+        }
+    }
+
+    private void indexDoc(int doc) {
+        // a trigram shared by both names is posted once; postings stay sorted because doc numbers only grow
+        long[] grams = documentTrigrams(normUsernames[doc], normDisplayNames[doc]);
+        for (long g : grams) postings.computeIfAbsent(g, k -> new Postings()).add(doc);
+    }
+
+    /**
+     * Renumber live documents densely and rebuild every posting list.
+     */
+    private void compact() {
+        int live = docCount - deadCount;
+        int cap = Math.max(1_024, Integer.highestOneBit(Math.max(1, live)) * 2);
+        Player[] newProfiles = new Player[cap];
+        String[] newUsers = new String[cap];
+        String[] newNames = new String[cap];
+        int[] newLengths = new int[cap];
+        int next = 0;
+        docByPlayerId.clear();
+        docByUsername.clear();
+        docByNormUsername.clear();
+        for (int doc = 0; doc < docCount; doc++) {
+            if (dead.get(doc)) continue;
+            newProfiles[next] = profiles[doc];
+            newUsers[next] = normUsernames[doc];
+            newNames[next] = normDisplayNames[doc];
+            newLengths[next] = nameLengths[doc];
+            docByPlayerId.put(profiles[doc].getId(), next);
+            docByNormUsername.put(normUsernames[doc], next);
+            if (profiles[doc].getUsername() != null) docByUsername.put(profiles[doc].getUsername(), next);
+            next++;
+        }
+        profiles = newProfiles;
+        normUsernames = newUsers;
+        normDisplayNames = newNames;
+        nameLengths = newLengths;
+        docCount = next;
+        deadCount = 0;
+        dead.clear();
+        postings.clear();
+        for (int doc = 0; doc < docCount; doc++) indexDoc(doc);
+    }
+
+    /**
+     * Best matches for {@code query}, most relevant first, never including {@code excludePlayerId}.
+     */
+    public List<Player> search(String query, String excludePlayerId, int limit) {
+        String q = normalize(query);
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (q.isEmpty()) return List.of();
+        long[] grams = queryTrigrams(q);
+
+        lock.readLock().lock();
+        try {
+            Integer excluded = excludePlayerId != null ? docByPlayerId.get(excludePlayerId) : null;
+            int excludeDoc = excluded != null ? excluded : -1;
+            Postings[] lists = new Postings[grams.length];
+            boolean allPresent = true;
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) allPresent = false;
+            }
+
+            // candidates are ranked on primitives only (match kind, name length); strings are read for finalists
+            TopK top = new TopK(max * FINALISTS_PER_RESULT);
+            if (allPresent) collectAll(lists, excludeDoc, top);
+            if (top.size < max && q.length() >= 3) collectFuzzy(lists, grams.length, excludeDoc, top);
+            Integer exact = docByNormUsername.get(q);
+            if (exact != null && exact != excludeDoc && !dead.get(exact) && !top.contains(exact)) {
+                top.offer(exact, 1.0, 0);
+            }
+
+            TopK ranked = new TopK(max);
+            for (int i = 0; i < top.size; i++) {
+                int doc = top.docs[i];
+                double score = score(q, normUsernames[doc], normDisplayNames[doc], top.scores[i]);
+                if (score > 0) ranked.offer(doc, score, nameLengths[doc]);
+            }
+            List<Player> out = new ArrayList<>(ranked.size);
+            for (int i = 0; i < ranked.size; i++) out.add(copyWithoutSecrets(profiles[ranked.docs[i]]));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents holding every query trigram: a walk over the shortest posting list, galloping forward in the others.
+     */
+    private void collectAll(Postings[] lists, int excludeDoc, TopK top) {
+        Postings[] sorted = lists.clone();
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.size, b.size));
+        Postings driver = sorted[0];
+        int[] cursor = new int[sorted.length];
+        outer:
+        for (int i = 0; i < driver.size; i++) {
+            int doc = driver.docs[i];
+            if (doc == excludeDoc || dead.get(doc)) continue;
+            for (int j = 1; j < sorted.length; j++) {
+                int pos = gallop(sorted[j], cursor[j], doc);
+                cursor[j] = pos;
+                if (pos == sorted[j].size) return;
+                if (sorted[j].docs[pos] != doc) continue outer;
+            }
+            top.offer(doc, 1.0, nameLengths[doc]);
+        }
+    }
+
+    /**
+     * Documents sharing at least half of the query trigrams. Trigrams found in more than a quarter of all
+     * documents say little about a match and cost the most to count, so they are assumed present.
+     */
+    private void collectFuzzy(Postings[] lists, int queryGrams, int excludeDoc, TopK top) {
+        Scratch s = SCRATCH.get();
+        s.ensure(docCount);
+        try {
+            int common = Math.max(64, docCount / 4);
+            int assumed = 0;
+            for (Postings list : lists) {
+                if (list == null) continue;
+                if (list.size > common) {
+                    assumed++;
+                    continue;
+                }
+                for (int k = 0; k < list.size; k++) s.touch(list.docs[k]);
+            }
+            int minHits = Math.max(1, (int) Math.ceil(queryGrams * MIN_TRIGRAM_OVERLAP) - assumed);
+            for (int i = 0; i < s.touchedSize; i++) {
+                int doc = s.touched[i];
+                int hits = s.hits[doc];
+                if (hits < minHits || doc == excludeDoc || dead.get(doc) || top.contains(doc)) continue;
+                top.offer(doc, Math.min(1.0, (double) (hits + assumed) / queryGrams), nameLengths[doc]);
+            }
+        } finally {
+            s.reset();
+        }
+    }
+
+    /**
+     * First position at or after {@code from} whose doc is >= {@code doc}.
+     */
+    private static int gallop(Postings list, int from, int doc) {
+        int[] docs = list.docs;
+        int n = list.size;
+        if (from >= n || docs[from] >= doc) return from;
+        int step = 1;
+        int lo = from, hi = from + 1;
+        while (hi < n && docs[hi] < doc) {
+            lo = hi;
+            step <<= 1;
+            hi = lo + step;
+        }
+        if (hi > n) hi = n;
+        // docs[lo] < doc, and docs[hi] >= doc or hi == n
+        while (lo + 1 < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (docs[mid] < doc) lo = mid; else hi = mid;
+        }
+        return hi;
+    }
+
+    /**
+     * Bounded best-first list ordered by score, then shorter display name, then older document.
+     */
+    private static final class TopK {
+        final int[] docs;
+        final double[] scores;
+        final int[] lengths;
+        int size;
+
+        TopK(int capacity) {
+            docs = new int[capacity];
+            scores = new double[capacity];
+            lengths = new int[capacity];
+        }
+
+        void offer(int doc, double score, int length) {
+            int cap = docs.length;
+            if (size == cap && !before(score, length, doc, cap - 1)) return;
+            int pos = size < cap ? size++ : cap - 1;
+            while (pos > 0 && before(score, length, doc, pos - 1)) {
+                docs[pos] = docs[pos - 1];
+                scores[pos] = scores[pos - 1];
+                lengths[pos] = lengths[pos - 1];
+                pos--;
+            }
+            docs[pos] = doc;
+            scores[pos] = score;
+            lengths[pos] = length;
+        }
+
+        private boolean before(double score, int length, int doc, int i) {
+            if (score != scores[i]) return score > scores[i];
+            if (length != lengths[i]) return length < lengths[i];
+            return doc < docs[i];
+        }
+
+        boolean contains(int doc) {
+            for (int i = 0; i < size; i++) if (docs[i] == doc) return true;
+            return false;
+        }
+    }
+
+    /**
+     * Distinct trigrams of a query: every padded trigram of words with 3+ letters, and for shorter words only
+     * the prefix trigram ending on the last typed letter.
+     */
+    private static long[] queryTrigrams(String q) {
+        long[] out = new long[q.length() + 2];
+        int size = 0;
+        for (String word : q.split(" ")) {
+            if (word.isEmpty()) continue;
+            String padded = "" + BOUNDARY + BOUNDARY + word;
+            int from = word.length() < 3 ? word.length() - 1 : 0;
+            for (int i = from; i + 3 <= padded.length(); i++) {
+                long g = trigram(padded, i);
+                boolean dup = false;
+                for (int k = 0; k < size && !dup; k++) dup = out[k] == g;
+                if (!dup) out[size++] = g;
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static double score(String q, String username, String displayName, double overlap) {
+        if (q.equals(username) || q.equals(displayName)) return 4 + overlap;
+        if (username.startsWith(q) || displayName.startsWith(q)
+                || containsWordPrefix(username, q) || containsWordPrefix(displayName, q)) return 3 + overlap;
+        if (username.contains(q) || displayName.contains(q)) return 2 + overlap;
+        return q.length() < 3 ? 0 : overlap;
+    }
+
+    private static boolean containsWordPrefix(String name, String q) {
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            if (name.startsWith(q, i + 1)) return true;
+        }
+        return false;
+    }
+
+    private static long[] documentTrigrams(String username, String displayName) {
+        long[] out = new long[16];
+        int size = 0;
+        for (String field : new String[]{username, displayName}) {
+            for (String word : field.split(" ")) {
+                if (word.isEmpty()) continue;
+                String padded = "" + BOUNDARY + BOUNDARY + word;
+                for (int i = 0; i + 3 <= padded.length(); i++) {
+                    long g = trigram(padded, i);
+                    boolean dup = false;
+                    for (int k = 0; k < size && !dup; k++) dup = out[k] == g;
+                    if (dup) continue;
+                    if (size == out.length) out = Arrays.copyOf(out, size * 2);
+                    out[size++] = g;
+                }
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Lower-case, accent-free, single-spaced form used for both indexing and queries.
+     */
+    static String normalize(String s) {
+        if (s == null) return "";
+        String decomposed = Normalizer.normalize(s.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (c == 'đ') c = 'd';
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    static Player copyWithoutSecrets(Player src) {
+        Player p = new Player();
+        p.setId(src.getId());
+        p.setUsername(src.getUsername());
+        p.setDisplayName(src.getDisplayName());
+        p.setGender(src.getGender());
+        p.setAvatarUrl(src.getAvatarUrl());
+        p.setCountryCode(src.getCountryCode());
+        p.setStatus(src.getStatus());
+        p.setLastActiveAt(src.getLastActiveAt());
+        p.setCreatedAt(src.getCreatedAt());
+        return p;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mathspeed.application.friend;
+
+import com.mathspeed.adapter.cluster.ClusterNode;
+import com.mathspeed.adapter.cluster.PresenceDirectory;
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.ClientRegistry;
+import com.mathspeed.adapter.network.Presence;
+import com.mathspeed.domain.model.Player;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Who is online, answered from the connections this server actually holds (plus players the cluster directory
+ * places on other nodes) instead of the players.status column, which is only written best-effort and stays
+ * "online" after a crash. Profiles come from the search index cache, falling back to the connection's own copy.
+ */
+public class PresenceService {
+    private final ClientRegistry clientRegistry;
+    private final PlayerSearchIndex profiles;
+
+    public PresenceService(ClientRegistry clientRegistry, PlayerSearchIndex profiles) {
+        this.clientRegistry = clientRegistry;
+        this.profiles = profiles;
+    }
+
+    /**
+     * Every live player except {@code excludePlayerId}, status set to their presence, sorted by display name.
+     */
+    public List<Player> onlinePlayers(String excludePlayerId) {
+        List<Player> out = new ArrayList<>();
+        for (Map.Entry<String, Live> e : liveById().entrySet()) {
+            if (e.getKey().equals(excludePlayerId)) continue;
+            Player p = profiles != null ? profiles.get(e.getKey()) : null;
+            if (p == null && e.getValue().local != null) p = PlayerSearchIndex.copyWithoutSecrets(e.getValue().local);
+            if (p == null) continue;
+            p.setStatus(e.getValue().presence.status());
+            out.add(p);
+        }
+        out.sort(Comparator.comparing((Player p) -> p.getDisplayName() != null ? p.getDisplayName().toLowerCase(Locale.ROOT) : "")
+                .thenComparing(p -> p.getUsername() != null ? p.getUsername() : ""));
+        return out;
+    }
+
+    /**
+     * Replace the stored status of each player with their live presence, or "offline".
+     */
+    public List<Player> withLiveStatus(List<Player> players) {
+        if (players.isEmpty()) return players;
+        Map<String, Live> live = liveById();
+        for (Player p : players) {
+            Live l = p.getId() != null ? live.get(p.getId()) : null;
+            p.setStatus(l != null ? l.presence.status() : "offline");
+        }
+        return players;
+    }
+
+    private static final class Live {
+        final Presence presence;
+        // the connection's own profile; null for players on other nodes
+        final Player local;
+
+        Live(Presence presence, Player local) {
+            this.presence = presence;
+            this.local = local;
+        }
+    }
+
+    private Map<String, Live> liveById() {
+        Map<String, Live> live = new HashMap<>();
+        for (ClientHandler ch : clientRegistry.getLocalClients()) {
+            Presence presence = clientRegistry.presenceOf(ch);
+            Player p = ch.getPlayer();
+            if (presence != null && p != null && p.getId() != null) live.put(p.getId(), new Live(presence, p));
+        }
+        ClusterNode cluster = clientRegistry.getClusterNode();
+        if (cluster != null) {
+            // other nodes only announce joins and leaves, so their players show as plain online
+            PresenceDirectory directory = cluster.getDirectory();
+            for (String username : directory.onlineUsers()) {
+                if (cluster.getNodeId().equals(directory.ownerOf(username))) continue;
+                String playerId = directory.playerIdOf(username);
+                if (playerId != null) live.putIfAbsent(playerId, new Live(Presence.ONLINE, null));
+            }
+        }
+        return live;
+    }
+}
@@ -1,6 +1,7 @@
 package com.mathspeed.application.game;
 
 
+import com.mathspeed.adapter.cluster.ClusterNode;
 import com.mathspeed.adapter.network.ClientHandler;
 import com.mathspeed.adapter.network.ClientRegistry;
 import com.mathspeed.adapter.network.protocol.MessageType;
@@ -30,6 +31,7 @@ public class ChallengeManager {
 
     private final ClientRegistry clientRegistry;
     private final GameSessionManager sessionManager;
+    private volatile ClusterNode clusterNode;
 
     // pending keyed by normalized target username
     private final ConcurrentMap<String, PendingChallenge> pending = new ConcurrentHashMap<>();
@@ -47,6 +49,10 @@ public class ChallengeManager {
         this.sessionManager = Objects.requireNonNull(sessionManager);
     }
 
+    public void setClusterNode(ClusterNode clusterNode) {
+        this.clusterNode = clusterNode;
+    }
+
     /**
      * Send a challenge from challenger -> target for totalRounds rounds.
      * Notifies challenger on failure (offline/busy/target already has pending).
@@ -120,6 +126,7 @@ public class ChallengeManager {
         }
 
         PendingChallenge p = pending.get(acceptorKey);
+        if (p == null && forwardToChallengerNode("accept", acceptor, challenger)) return;
         if (p == null || !p.challengerKey.equals(challengerKey)) {
             acceptorHandler.sendType(MessageType.CHALLENGE_FAILED, "No pending challenge");
             System.out.println("[ChallengeManager] acceptChallenge: no pending for acceptor=" + acceptor + " from=" + challenger);
@@ -203,6 +210,7 @@ public class ChallengeManager {
         String declinerKey = norm(decliner);
 
         PendingChallenge p = pending.remove(declinerKey);
+        if (p == null && forwardToChallengerNode("decline", decliner, challenger)) return;
         if (p != null && p.expiryFuture != null) p.expiryFuture.cancel(false);
 
         ClientHandler challengerHandler = resolveHandler(challenger);
@@ -254,9 +262,27 @@ public class ChallengeManager {
                 }
             }
         } catch (Exception ignored) {}
+
+        // connected to another node: talk to them through a proxy
+        ClusterNode cluster = clusterNode;
+        if (cluster != null) {
+            try {
+                return cluster.remoteHandler(username);
+            } catch (Exception ignored) {}
+        }
         return null;
     }
 
+    /**
+     * The pending challenge is kept on the challenger's node; if the challenger is connected elsewhere,
+     * hand the accept/decline over to that node.
+     */
+    private boolean forwardToChallengerNode(String action, String actor, String challenger) {
+        ClusterNode cluster = clusterNode;
+        if (cluster == null || clientRegistry.getClientHandler(challenger) != null) return false;
+        return cluster.forwardChallengeControl(action, actor, challenger);
+    }
+
     private String norm(String s) {
         return s == null ? null : s.trim().toLowerCase(Locale.ROOT);
     }
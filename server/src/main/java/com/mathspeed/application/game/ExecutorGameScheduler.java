@@ -0,0 +1,41 @@
+package com.mathspeed.application.game;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock GameScheduler backed by a dedicated single-thread executor.
+ */
+public class ExecutorGameScheduler implements GameScheduler {
+    private final ScheduledExecutorService executor;
+
+    public ExecutorGameScheduler(String threadName) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return executor.schedule(task, delay, unit);
+    }
+
+    @Override
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,20 @@
+package com.mathspeed.application.game;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock and task queue of a GameSession. Production runs on a real single-thread executor; the simulation
+ * harness plugs in virtual time so whole matches run without waiting on countdowns and round timeouts.
+ *
+ * Tasks submitted to one scheduler run one at a time, in submission order for equal deadlines.
+ */
+public interface GameScheduler {
+    long currentTimeMillis();
+
+    void execute(Runnable task);
+
+    ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit);
+
+    void shutdownNow();
+}
@@ -1,6 +1,7 @@
 package com.mathspeed.application.game;
 
 import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.ThrottleMetrics;
 import com.mathspeed.adapter.network.protocol.MessageType;
 import com.mathspeed.domain.model.GameHistory;
 import com.mathspeed.domain.model.GameHistoryId;
@@ -10,6 +11,10 @@ import com.mathspeed.domain.port.GameRepository;
 import com.mathspeed.domain.puzzle.MathExpressionEvaluator;
 import com.mathspeed.domain.puzzle.MathPuzzleFormat;
 import com.mathspeed.domain.puzzle.MathPuzzleGenerator;
+import com.mathspeed.infrastructure.jfr.AnswerEvaluatedEvent;
+import com.mathspeed.infrastructure.jfr.MatchEvent;
+import com.mathspeed.infrastructure.jfr.RoundStartEvent;
+import com.mathspeed.infrastructure.jfr.RoundTimeoutEvent;
 
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
@@ -22,27 +27,78 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * One match between 2..64 seated players sharing a single round clock.
+ * All per-player state is kept in arrays indexed by seat; every mutation runs on the session scheduler thread.
+ */
 public class GameSession {
 
+    public static final int MIN_ROOM_SIZE = 2;
+    public static final int MAX_ROOM_SIZE = 64;
+
+    /**
+     * FIRST_CORRECT: the first correct answer closes the round and earns 1 point (classic 1v1).
+     * RANKED: the round stays open until every active seat solved it (or timeout); the k-th solver earns (seats - k) points.
+     */
+    public enum ScoringMode { FIRST_CORRECT, RANKED }
+
+    private static final List<Integer> DECK = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9);
+
     private final String sessionId;
-    private final ClientHandler playerA;
-    private final ClientHandler playerB;
+    private final ClientHandler[] seats;
+    // read off the session thread by submitAnswer/hasPlayer, rewritten on it by resumeSeat
+    private final Map<ClientHandler, Integer> seatIndex = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final ScoringMode scoringMode;
     private final int totalRounds;
     private final long questionTimeoutSeconds;
     private final MathPuzzleGenerator generator;
-    private final ScheduledExecutorService scheduler;
+    private final GameScheduler scheduler;
 
     private final AtomicInteger currentRound = new AtomicInteger(0);
-    private final Map<ClientHandler, Integer> scores = new HashMap<>();
-    private final Map<ClientHandler, Duration> totalPlayTime = new HashMap<>();
-    private final List<Integer> difficultySequence;
-
-    private final Map<ClientHandler, List<RoundResult>> roundHistory = new HashMap<>();
+    private final int[] scores;
+    private final long[] totalPlayTimeMs;
+    // default mix derived from the seed; a DifficultyPlanner may replace it before beginGame
+    private List<Integer> difficultySequence;
+
+    // roundHistory[seat][roundIndex], null until the seat has a result for that round
+    private final RoundResult[][] roundHistory;
+    // time from round open to the server receiving each seat's first correct answer, -1 if none; kept even when
+    // FIRST_CORRECT hands the round to someone else, so replays keep the loser's real pace
+    private final long[][] solveTimeMs;
+    // FIRST_CORRECT: latency-compensated time of this round's candidates, only compared inside the hold window
+    private final long[] compensatedMs;
+
+    // seats that forfeited or disconnected; they no longer receive round traffic
+    private final boolean[] departed;
+    private int activeSeats;
+
+    // seats whose connection dropped and are held for RESUME_GRACE_MS before they forfeit
+    private final boolean[] suspended;
+    private final ScheduledFuture<?>[] graceFutures;
+    public static final long RESUME_GRACE_MS = 20_000L;
+
+    // answer spam policy: after MAX_WRONG_ANSWERS_PER_ROUND misses a seat is cooled down; answers beyond
+    // MAX_PENDING_ANSWERS queued for the session thread are refused before they reach it
+    public static final int MAX_WRONG_ANSWERS_PER_ROUND = 3;
+    public static final long WRONG_ANSWER_COOLDOWN_MS = 3_000L;
+    public static final int MAX_PENDING_ANSWERS = 4;
+    private final int[] wrongThisRound;
+    private final AtomicLongArray cooldownUntilMs;
+    private final AtomicIntegerArray pendingAnswers;
 
     private final List<Integer> revealedTargets = new ArrayList<>();
 
     private final List<MathPuzzleFormat> preGeneratedPuzzles = new ArrayList<>();
+    // NEW_ROUND bodies encoded with the puzzles; only the timestamps are written at round start
+    private final NewRoundFrame[] roundFrames;
+    // per-seat JSON fragments that never change during the match, encoded once in beginGame
+    private String[] seatIdJson;
+    private String[] seatIdentityJson;
+    private String playersInfoJson;
     private final int bufferAhead = 2;
 
     private ScheduledFuture<?> roundTimeoutFuture;
@@ -53,26 +109,46 @@ public class GameSession {
     private Instant roundStart;
     private boolean roundActive = false;
     private int activeRoundIndex = -1;
+    private long activeRoundEndMs = -1L;
+    private int solvedThisRound = 0;       // solvers so far, used for ranking
+    private int solvedActiveThisRound = 0; // solvers that are still seated
+    private int firstSolverSeat = -1;
 
     private final boolean persistResults;
     private final GameRepository gameDAO;
+    // warm-up / benchmark match: no JFR events, throttle metrics or per-round logging
+    private boolean simulated = false;
 
     // matchSeed is now long (higher entropy)
     private final long matchSeed;
     private long matchStartTimeMs = -1L; // accurate start time (set when match actually starts)
     private long matchEndTimeMs = -1L;   // accurate end time (set when match finishes)
     private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile String winnerId;
+
+    // notified on the session thread once the match is over and results were handed to persistence
+    private final List<Consumer<GameSession>> completionListeners = new CopyOnWriteArrayList<>();
+    // JFR span from beginGame to GAME_OVER; committed in finishGameInternal
+    private volatile MatchEvent matchEvent;
 
-    private final Map<ClientHandler, Boolean> readyMap = new HashMap<>();
-    private final int initialCountdownMs = 5000; // 5s default
+    private final boolean[] ready;
+    private int initialCountdownMs = 5000; // 5s default, shortened for rematches
+    private PreparedPuzzles prepared;
     private final int fastStartBufferMs = 500;
 
     // inter-round timing config (ms)
     private final long minInterRoundGapMs = 100;
+    private final long maxInterRoundGapMs = 1000;
     private final long defaultInterRoundGapMs = 300;
+    private final long leadSafetyMarginMs = 30;
+
+    // lag compensation hold window for FIRST_CORRECT rounds (ms)
+    private final long minLagHoldMs = 10;
+    private final long maxLagHoldMs = 150;
+    private ScheduledFuture<?> lagHoldFuture;
 
     // uniqueness attempts when generating puzzles to avoid duplicate targets per match
-    private final int MAX_UNIQUE_ATTEMPTS = 10;
+    private static final int MAX_UNIQUE_ATTEMPTS = 10;
 
     // inter-round countdown (ms) to show between rounds (except before first round)
     private final long interRoundCountdownMs = 3000L; // 3s
@@ -82,47 +158,81 @@ public class GameSession {
                        int totalRounds,
                        long questionTimeoutSeconds,
                        GameRepository gameDAO) {
+        this(List.of(Objects.requireNonNull(playerA), Objects.requireNonNull(playerB)),
+                ScoringMode.FIRST_CORRECT, totalRounds, questionTimeoutSeconds, gameDAO);
+    }
+
+    public GameSession(List<ClientHandler> players,
+                       ScoringMode scoringMode,
+                       int totalRounds,
+                       long questionTimeoutSeconds,
+                       GameRepository gameDAO) {
+        this(players, scoringMode, totalRounds, questionTimeoutSeconds, gameDAO, null, new SecureRandom().nextLong());
+    }
+
+    /**
+     * @param scheduler clock and task queue; null for a dedicated wall-clock thread
+     * @param matchSeed seed for the puzzle and difficulty sequence; fixed seeds replay the same match
+     */
+    public GameSession(List<ClientHandler> players,
+                       ScoringMode scoringMode,
+                       int totalRounds,
+                       long questionTimeoutSeconds,
+                       GameRepository gameDAO,
+                       GameScheduler scheduler,
+                       long matchSeed) {
+        Objects.requireNonNull(players);
+        if (players.size() < MIN_ROOM_SIZE || players.size() > MAX_ROOM_SIZE) {
+            throw new IllegalArgumentException("Room size must be between " + MIN_ROOM_SIZE + " and " + MAX_ROOM_SIZE + ": " + players.size());
+        }
         this.sessionId = UUID.randomUUID().toString();
-        this.playerA = Objects.requireNonNull(playerA);
-        this.playerB = Objects.requireNonNull(playerB);
+        this.seats = players.toArray(new ClientHandler[0]);
+        this.scoringMode = scoringMode != null ? scoringMode : ScoringMode.FIRST_CORRECT;
         this.totalRounds = Math.max(1, Math.min(totalRounds, 20));
         this.questionTimeoutSeconds = questionTimeoutSeconds;
         this.generator = new MathPuzzleGenerator(1);
         this.persistResults = true;
         this.gameDAO = gameDAO;
 
-        this.matchSeed = new SecureRandom().nextLong();
-
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "GameSession-" + sessionId);
-            t.setDaemon(true);
-            return t;
-        });
-
-        scores.put(playerA, 0);
-        scores.put(playerB, 0);
-        totalPlayTime.put(playerA, Duration.ZERO);
-        totalPlayTime.put(playerB, Duration.ZERO);
-
-        roundHistory.put(playerA, new ArrayList<>());
-        roundHistory.put(playerB, new ArrayList<>());
-
-        try {
-            playerA.setCurrentGame(this);
-        } catch (Exception ignored) {
+        this.matchSeed = matchSeed;
+
+        this.scheduler = scheduler != null ? scheduler : new ExecutorGameScheduler("GameSession-" + sessionId);
+
+        int n = seats.length;
+        this.scores = new int[n];
+        this.totalPlayTimeMs = new long[n];
+        this.roundHistory = new RoundResult[n][this.totalRounds];
+        this.solveTimeMs = new long[n][this.totalRounds];
+        for (long[] row : solveTimeMs) Arrays.fill(row, -1L);
+        this.compensatedMs = new long[n];
+        this.departed = new boolean[n];
+        this.suspended = new boolean[n];
+        this.graceFutures = new ScheduledFuture<?>[n];
+        this.ready = new boolean[n];
+        this.roundFrames = new NewRoundFrame[this.totalRounds];
+        this.wrongThisRound = new int[n];
+        this.cooldownUntilMs = new AtomicLongArray(n);
+        this.pendingAnswers = new AtomicIntegerArray(n);
+        this.activeSeats = n;
+
+        for (int i = 0; i < n; i++) {
+            ClientHandler p = Objects.requireNonNull(seats[i]);
+            if (seatIndex.put(p, i) != null) {
+                throw new IllegalArgumentException("Player seated twice: " + p.getUsername());
+            }
         }
-        try {
-            playerB.setCurrentGame(this);
-        } catch (Exception ignored) {
+        // attach only once every seat checked out, so a rejected room leaves nobody bound to it
+        for (ClientHandler p : seats) {
+            try {
+                p.setCurrentGame(this);
+            } catch (Exception ignored) {
+            }
         }
 
-        readyMap.put(playerA, false);
-        readyMap.put(playerB, false);
-
         this.difficultySequence = generateDifficultyList(this.totalRounds, this.matchSeed);
     }
 
-    private List<Integer> generateDifficultyList(int rounds, long seed) {
+    private static List<Integer> generateDifficultyList(int rounds, long seed) {
         int capped = Math.max(1, Math.min(rounds, 20));
         double easyPct = 0.45;
         double mediumPct = 0.40;
@@ -174,7 +284,7 @@ public class GameSession {
         return Collections.unmodifiableList(list);
     }
 
-    private void repeatAdd(List<Integer> list, int value, int times) {
+    private static void repeatAdd(List<Integer> list, int value, int times) {
         for (int i = 0; i < times; i++) list.add(value);
     }
 
@@ -182,61 +292,237 @@ public class GameSession {
         return sessionId;
     }
 
-    public ClientHandler getPlayerA() {
-        return playerA;
+    /**
+     * Seated players in seat order (including seats that already left the match).
+     */
+    public List<ClientHandler> getPlayers() {
+        return Collections.unmodifiableList(Arrays.asList(seats));
+    }
+
+    public int getRoomSize() {
+        return seats.length;
+    }
+
+    public ScoringMode getScoringMode() {
+        return scoringMode;
     }
 
-    public ClientHandler getPlayerB() {
-        return playerB;
+    public boolean hasPlayer(ClientHandler player) {
+        return player != null && seatIndex.containsKey(player);
     }
 
     public long getMatchSeed() {
         return matchSeed;
     }
 
-    public void beginGame() {
-        // scheduled start time (may be moved earlier if both players ready)
-        this.matchStartTimeMs = System.currentTimeMillis() + initialCountdownMs;
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public long getQuestionTimeoutSeconds() {
+        return questionTimeoutSeconds;
+    }
+
+    /**
+     * Difficulty level (1..3) of each round, in round order.
+     */
+    public List<Integer> getDifficultySequence() {
+        return difficultySequence;
+    }
+
+    /**
+     * Replace the seed's default difficulty mix, e.g. with a planned or recorded one; must be called before
+     * beginGame. Ignored unless it has one level in 1..3 per round.
+     */
+    public void setDifficultySequence(List<Integer> difficulties) {
+        if (difficulties == null || difficulties.size() != totalRounds) return;
+        for (Integer d : difficulties) {
+            if (d == null || d < 1 || d > 3) return;
+        }
+        this.difficultySequence = Collections.unmodifiableList(new ArrayList<>(difficulties));
+    }
+
+    /**
+     * Per-round solve times of one seat (ms from round start, -1 = not solved). Meant for after the match.
+     */
+    public long[] getSolveTimeline(int seat) {
+        return solveTimeMs[seat].clone();
+    }
 
-        preGenerateAllPuzzles();
+    /**
+     * Submit an answer for an in-process seat after {@code delayMs} on the session's own clock, so replayed
+     * and simulated opponents need neither a connection nor a thread of their own.
+     */
+    public void scheduleAnswer(ClientHandler player, String expression, long delayMs) {
+        try {
+            scheduler.schedule(() -> submitAnswer(player, expression), Math.max(0L, delayMs), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // match already over
+        }
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    /**
+     * Winner player id once the match finished; null while running or on a draw.
+     */
+    public String getWinnerId() {
+        return winnerId;
+    }
+
+    public void addCompletionListener(Consumer<GameSession> listener) {
+        if (listener != null) completionListeners.add(listener);
+    }
+
+    public void beginGame() {
+        if (!simulated) {
+            matchEvent = new MatchEvent();
+            matchEvent.begin();
+        }
+        // scheduled start time (may be moved earlier if every seat is ready)
+        this.matchStartTimeMs = scheduler.currentTimeMillis() + initialCountdownMs;
+
+        if (prepared != null) {
+            preGeneratedPuzzles.clear();
+            preGeneratedPuzzles.addAll(prepared.getPuzzles());
+            System.arraycopy(prepared.getFrames(), 0, roundFrames, 0, totalRounds);
+            difficultySequence = prepared.getDifficulties();
+            prepared = null;
+        } else {
+            preGenerateAllPuzzles();
+        }
+        encodeStaticFragments();
         broadcastMatchInfo();
 
-        for (int i = 5; i >= 1; i--) {
+        int countdownSeconds = (initialCountdownMs + 999) / 1000;
+        for (int i = countdownSeconds; i >= 1; i--) {
             final int sec = i;
-            scheduler.schedule(() -> {
-                String msg = "Bắt đầu sau " + sec + " giây...";
-                safeSendInfo(playerA, msg);
-                safeSendInfo(playerB, msg);
-            }, (5 - i), TimeUnit.SECONDS);
+            long at = initialCountdownMs - sec * 1000L;
+            scheduler.schedule(() -> broadcastInfo("Bắt đầu sau " + sec + " giây..."), Math.max(0, at), TimeUnit.MILLISECONDS);
         }
 
-        long delay = Math.max(0, matchStartTimeMs - System.currentTimeMillis());
+        long delay = Math.max(0, matchStartTimeMs - scheduler.currentTimeMillis());
         startFuture = scheduler.schedule(this::runStartMatch, delay, TimeUnit.MILLISECONDS);
     }
 
     private void preGenerateAllPuzzles() {
         preGeneratedPuzzles.clear();
-        Set<Integer> usedTargets = new HashSet<>();
+        generatePuzzleSet(generator, matchSeed, difficultySequence, preGeneratedPuzzles);
         for (int roundIndex = 0; roundIndex < totalRounds; roundIndex++) {
+            roundFrames[roundIndex] = newRoundFrame(roundIndex, preGeneratedPuzzles.get(roundIndex));
+        }
+    }
+
+    private static void generatePuzzleSet(MathPuzzleGenerator generator, long matchSeed,
+                                          List<Integer> difficulties, List<MathPuzzleFormat> out) {
+        Set<Integer> usedTargets = new HashSet<>();
+        for (int roundIndex = 0; roundIndex < difficulties.size(); roundIndex++) {
             MathPuzzleFormat p = null;
             int attempt = 0;
             while (attempt < MAX_UNIQUE_ATTEMPTS) {
                 long roundSeed = deriveRoundSeed(matchSeed, roundIndex, attempt);
                 Random puzzleRnd = new Random(roundSeed);
-                p = generator.generatePuzzle(difficultySequence.get(roundIndex), puzzleRnd);
+                p = generator.generatePuzzle(difficulties.get(roundIndex), puzzleRnd);
                 if (!usedTargets.contains(p.getTarget())) break;
                 attempt++;
             }
             if (p == null) {
                 long roundSeed = deriveRoundSeed(matchSeed, roundIndex, 0);
-                p = generator.generatePuzzle(difficultySequence.get(roundIndex), new Random(roundSeed));
+                p = generator.generatePuzzle(difficulties.get(roundIndex), new Random(roundSeed));
             }
             if (usedTargets.contains(p.getTarget())) {
                 System.out.printf("WARN: duplicate target for round %d target=%d%n", roundIndex, p.getTarget());
             }
             usedTargets.add(p.getTarget());
-            preGeneratedPuzzles.add(p);
+            out.add(p);
+        }
+    }
+
+    private NewRoundFrame newRoundFrame(int roundIndex, MathPuzzleFormat puzzle) {
+        return newRoundFrame(roundIndex, difficultySequence.get(roundIndex), puzzle, questionTimeoutSeconds, matchSeed);
+    }
+
+    private static NewRoundFrame newRoundFrame(int roundIndex, int difficulty, MathPuzzleFormat puzzle,
+                                               long questionTimeoutSeconds, long matchSeed) {
+        return new NewRoundFrame(roundIndex + 1, difficulty, puzzle.getTarget(),
+                questionTimeoutSeconds, matchSeed, deriveRoundSeed(matchSeed, roundIndex), roundIndex);
+    }
+
+    /**
+     * Generate a match's puzzles and NEW_ROUND frames without a session, e.g. on a background thread while the
+     * players are still looking at the previous result. A session with the same seed, rounds and timeout adopts
+     * them through {@link #usePreparedPuzzles}; the output is identical to what beginGame would generate.
+     *
+     * @param plannedDifficulties one level per round, or null for the seed's default mix
+     */
+    static PreparedPuzzles preparePuzzles(long matchSeed, int totalRounds, long questionTimeoutSeconds,
+                                          List<Integer> plannedDifficulties) {
+        int rounds = Math.max(1, Math.min(totalRounds, 20));
+        List<Integer> difficulties = plannedDifficulties != null && plannedDifficulties.size() == rounds
+                ? Collections.unmodifiableList(new ArrayList<>(plannedDifficulties))
+                : generateDifficultyList(rounds, matchSeed);
+        List<MathPuzzleFormat> puzzles = new ArrayList<>(rounds);
+        generatePuzzleSet(new MathPuzzleGenerator(1), matchSeed, difficulties, puzzles);
+        NewRoundFrame[] frames = new NewRoundFrame[rounds];
+        for (int i = 0; i < rounds; i++) {
+            frames[i] = newRoundFrame(i, difficulties.get(i), puzzles.get(i), questionTimeoutSeconds, matchSeed);
+        }
+        return new PreparedPuzzles(matchSeed, questionTimeoutSeconds, difficulties, Collections.unmodifiableList(puzzles), frames);
+    }
+
+    /**
+     * Adopt a pre-generated puzzle set; must be called before beginGame. Ignored if it was built for another match.
+     */
+    void usePreparedPuzzles(PreparedPuzzles puzzles) {
+        if (puzzles == null || puzzles.getMatchSeed() != matchSeed || puzzles.getRounds() != totalRounds
+                || puzzles.getQuestionTimeoutSeconds() != questionTimeoutSeconds) {
+            return;
         }
+        this.prepared = puzzles;
+    }
+
+    /**
+     * Countdown between MATCH_START_INFO and the first round; must be set before beginGame.
+     */
+    public void setInitialCountdownMs(int countdownMs) {
+        this.initialCountdownMs = Math.max(0, countdownMs);
+    }
+
+    /**
+     * Mark a match played by simulated seats so it stays out of JFR recordings, the throttle counters and the
+     * console; must be set before beginGame.
+     */
+    public void setSimulated(boolean simulated) {
+        this.simulated = simulated;
+    }
+
+    /**
+     * Encode the parts of MATCH_START_INFO and ROUND_RESULT that depend only on who is seated.
+     */
+    private void encodeStaticFragments() {
+        int n = seats.length;
+        String[] ids = new String[n];
+        String[] identities = new String[n];
+        List<Map<String, Object>> playersInfo = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ClientHandler p = seats[i];
+            ids[i] = JsonUtil.toJson(safeGetPlayerId(p));
+            identities[i] = "\"id\":" + ids[i]
+                    + ",\"username\":" + JsonUtil.toJson(safeGetUsername(p))
+                    + ",\"display_name\":" + JsonUtil.toJson(safeGetDisplayName(p));
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("id", safeGetPlayerId(p));
+            info.put("username", safeGetUsername(p));
+            info.put("display_name", safeGetDisplayName(p));
+            info.put("avatar_url", safeGetAvatarUrl(p));
+            info.put("seat", i);
+            playersInfo.add(info);
+        }
+        seatIdJson = ids;
+        seatIdentityJson = identities;
+        playersInfoJson = JsonUtil.toJson(playersInfo);
     }
 
     private void ensureBufferedPuzzles(int currentIndex) {
@@ -288,7 +574,7 @@ public class GameSession {
     }
 
     private void broadcastMatchInfo() {
-        long now = System.currentTimeMillis();
+        long now = scheduler.currentTimeMillis();
         Map<String, Object> msg = new LinkedHashMap<>();
         msg.put("type", MessageType.MATCH_START_INFO.name());
         msg.put("seed", matchSeed);
@@ -297,32 +583,13 @@ public class GameSession {
         msg.put("countdown_ms", Math.max(0, matchStartTimeMs - now));
         msg.put("question_count", totalRounds);
         msg.put("per_question_seconds", questionTimeoutSeconds);
+        msg.put("room_size", seats.length);
+        msg.put("scoring", scoringMode.name());
 
-        try {
-            List<Map<String, Object>> playersInfo = new ArrayList<>(2);
-
-            Map<String, Object> aInfo = new LinkedHashMap<>();
-            aInfo.put("id", safeGetPlayerId(playerA));
-            aInfo.put("username", safeGetUsername(playerA));
-            aInfo.put("display_name", safeGetDisplayName(playerA));
-            aInfo.put("avatar_url", safeGetAvatarUrl(playerA));
-            playersInfo.add(aInfo);
-
-            Map<String, Object> bInfo = new LinkedHashMap<>();
-            bInfo.put("id", safeGetPlayerId(playerB));
-            bInfo.put("username", safeGetUsername(playerB));
-            bInfo.put("display_name", safeGetDisplayName(playerB));
-            aInfo.put("avatar_url", safeGetAvatarUrl(playerB));
-            playersInfo.add(bInfo);
-
-            msg.put("players", playersInfo);
-        } catch (Exception ex) {
-            System.err.println("Warning: failed to collect player display info: " + ex.getMessage());
-        }
+        if (playersInfoJson == null) encodeStaticFragments();
+        msg.put("players", new JsonUtil.RawJson(playersInfoJson));
 
-        String json = JsonUtil.toJson(msg);
-        safeSendMessage(playerA, json);
-        safeSendMessage(playerB, json);
+        broadcast(JsonUtil.toJson(msg));
     }
 
     private String safeGetDisplayName(ClientHandler p) {
@@ -354,10 +621,9 @@ public class GameSession {
 
     private void runStartMatch() {
         // mark the actual start time precisely when match begins
-        this.matchStartTimeMs = System.currentTimeMillis();
+        this.matchStartTimeMs = scheduler.currentTimeMillis();
 
-        safeSendInfo(playerA, "Trận đấu bắt đầu!");
-        safeSendInfo(playerB, "Trận đấu bắt đầu!");
+        broadcastInfo("Trận đấu bắt đầu!");
         runStartNextRound(false); // first round: do not prepend inter-round countdown
     }
 
@@ -375,27 +641,42 @@ public class GameSession {
         }
 
         activeRoundIndex = roundIndex;
+        solvedThisRound = 0;
+        solvedActiveThisRound = 0;
+        firstSolverSeat = -1;
+        Arrays.fill(wrongThisRound, 0);
+        for (int i = 0; i < seats.length; i++) cooldownUntilMs.set(i, 0L);
         ensureBufferedPuzzles(roundIndex);
 
         currentPuzzle = getPuzzleForRound(roundIndex);
-        int difficulty = difficultySequence.get(roundIndex);
         long roundSeed = deriveRoundSeed(matchSeed, roundIndex);
 
         long interGap = skipInterGap ? 0L : computeInterRoundGapMs();
-        long serverRoundStartMs = System.currentTimeMillis() + interGap;
+        long serverRoundStartMs = scheduler.currentTimeMillis() + interGap;
         long serverRoundEndMs = serverRoundStartMs + questionTimeoutSeconds * 1000L;
-
-        try {
-            System.out.printf("DEBUG preparing_round: session=%s round=%d roundSeed=%d target=%d startAt=%d endAt=%d%n",
-                    sessionId, roundIndex, roundSeed, currentPuzzle.getTarget(), serverRoundStartMs, serverRoundEndMs);
-        } catch (Exception ignored) {
-        }
+        activeRoundEndMs = serverRoundEndMs;
 
         revealedTargets.add(currentPuzzle.getTarget());
 
-        Duration placeholderTime = Duration.ofSeconds(questionTimeoutSeconds);
-        // send server_round_start and server_round_end + server_time to clients
-        sendPuzzleToPlayers(currentPuzzle, difficulty, placeholderTime, roundIndex + 1, roundIndex, roundSeed, Instant.ofEpochMilli(serverRoundStartMs), serverRoundEndMs);
+        // send first, log after: the send is the latency-critical part of round start
+        sendPuzzleToPlayers(currentPuzzle, roundIndex, serverRoundStartMs, serverRoundEndMs);
+
+        RoundStartEvent started = new RoundStartEvent();
+        if (!simulated && started.shouldCommit()) {
+            started.sessionId = sessionId;
+            started.round = roundIndex;
+            started.difficulty = difficultySequence.get(roundIndex);
+            started.leadMs = interGap;
+            started.commit();
+        }
+
+        if (!simulated) {
+            try {
+                System.out.printf("DEBUG preparing_round: session=%s round=%d roundSeed=%d target=%d startAt=%d endAt=%d%n",
+                        sessionId, roundIndex, roundSeed, currentPuzzle.getTarget(), serverRoundStartMs, serverRoundEndMs);
+            } catch (Exception ignored) {
+            }
+        }
 
         if (activationFuture != null && !activationFuture.isDone()) activationFuture.cancel(false);
         if (roundTimeoutFuture != null && !roundTimeoutFuture.isDone()) roundTimeoutFuture.cancel(false);
@@ -403,39 +684,118 @@ public class GameSession {
         roundActive = false;
         roundStart = null;
 
-        long delayToActivate = Math.max(0L, serverRoundStartMs - System.currentTimeMillis());
+        long delayToActivate = Math.max(0L, serverRoundStartMs - scheduler.currentTimeMillis());
         activationFuture = scheduler.schedule(() -> {
             roundStart = Instant.ofEpochMilli(serverRoundStartMs);
             roundActive = true;
             roundTimeoutFuture = scheduler.schedule(this::onRoundTimeout, questionTimeoutSeconds * 1000L, TimeUnit.MILLISECONDS);
-            safeSendInfo(playerA, "Bắt đầu vòng " + (roundIndex + 1));
-            safeSendInfo(playerB, "Bắt đầu vòng " + (roundIndex + 1));
+            broadcastInfo("Bắt đầu vòng " + (roundIndex + 1));
         }, delayToActivate, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Lead time between sending NEW_ROUND and the round opening, sized for the slowest seat in this room:
+     * its one-way delay plus two jitters of headroom. Low-latency rooms get the minimum instead of a fixed 300ms.
+     */
     private long computeInterRoundGapMs() {
         try {
-            long rttA = (playerA != null) ? playerA.getEstimatedRttMs() : 0L;
-            long rttB = (playerB != null) ? playerB.getEstimatedRttMs() : 0L;
-            long maxRtt = Math.max(0L, Math.max(rttA, rttB));
-            long computed = 2L * maxRtt + 50L;
-            computed = Math.min(1000L, computed);
-            return Math.max(minInterRoundGapMs, Math.max(defaultInterRoundGapMs, computed));
+            long worst = 0L;
+            for (int i = 0; i < seats.length; i++) {
+                if (departed[i] || suspended[i]) continue;
+                worst = Math.max(worst, seats[i].getOneWayDelayMs() + 2L * seats[i].getJitterMs());
+            }
+            long computed = worst + leadSafetyMarginMs;
+            return Math.max(minInterRoundGapMs, Math.min(maxInterRoundGapMs, computed));
         } catch (Exception ex) {
             return Math.max(minInterRoundGapMs, defaultInterRoundGapMs);
         }
     }
 
+    /**
+     * How long to keep a FIRST_CORRECT round open after the first correct answer, so a slower seat whose answer
+     * is still in flight can beat it on latency-compensated time. Zero when everyone has similar latency.
+     */
+    private long computeLagHoldMs(int firstSeat) {
+        long own = seats[firstSeat].getOneWayDelayMs();
+        long worst = 0L;
+        for (int i = 0; i < seats.length; i++) {
+            if (i == firstSeat || departed[i] || suspended[i]) continue;
+            if (roundHistory[i][activeRoundIndex] != null) continue;
+            worst = Math.max(worst, seats[i].getOneWayDelayMs() + seats[i].getJitterMs());
+        }
+        long hold = worst - own;
+        if (hold < minLagHoldMs) return 0L;
+        return Math.min(maxLagHoldMs, hold);
+    }
+
     public void submitAnswer(ClientHandler player, String expression) {
         if (finished.get()) {
             sendSimpleAnswerResult(player, false, "match_finished");
             return;
         }
-        final Instant serverRecv = Instant.now();
-        scheduler.execute(() -> processAnswer(player, expression, serverRecv));
+        final long now = scheduler.currentTimeMillis();
+        final Integer seat = seatIndex.get(player);
+        if (seat == null) {
+            sendSimpleAnswerResult(player, false, "not_in_match");
+            return;
+        }
+        // cheap rejections on the caller's thread so a spamming seat cannot flood the session thread
+        long cooldownLeft = cooldownUntilMs.get(seat) - now;
+        if (cooldownLeft > 0) {
+            if (!simulated) ThrottleMetrics.recordAnswerCooldownReject();
+            sendCooldownResult(player, cooldownLeft);
+            return;
+        }
+        if (pendingAnswers.incrementAndGet(seat) > MAX_PENDING_ANSWERS) {
+            pendingAnswers.decrementAndGet(seat);
+            if (!simulated) ThrottleMetrics.recordAnswerBacklogReject();
+            sendSimpleAnswerResult(player, false, "too_many_pending");
+            return;
+        }
+        final Instant serverRecv = Instant.ofEpochMilli(now);
+        scheduler.execute(() -> {
+            pendingAnswers.decrementAndGet(seat);
+            processAnswer(player, expression, serverRecv);
+        });
+    }
+
+    private void commitAnswerEvent(AnswerEvaluatedEvent event, ClientHandler player, String result) {
+        if (simulated) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.sessionId = sessionId;
+        event.username = player.getUsername();
+        event.round = activeRoundIndex;
+        event.result = result;
+        event.commit();
+    }
+
+    private void sendCooldownResult(ClientHandler player, long retryAfterMs) {
+        Map<String, Object> resMsg = new HashMap<>();
+        resMsg.put("type", MessageType.ANSWER_RESULT.name());
+        resMsg.put("accepted", false);
+        resMsg.put("reason", "cooldown");
+        resMsg.put("retry_after_ms", retryAfterMs);
+        resMsg.put("server_time", scheduler.currentTimeMillis());
+        safeSendMessage(player, JsonUtil.toJson(resMsg));
+    }
+
+    /**
+     * Count a miss; the MAX_WRONG_ANSWERS_PER_ROUND-th and every later miss in the round starts a cooldown.
+     */
+    private void recordWrongAnswer(int seat) {
+        if (++wrongThisRound[seat] >= MAX_WRONG_ANSWERS_PER_ROUND) {
+            cooldownUntilMs.set(seat, scheduler.currentTimeMillis() + WRONG_ANSWER_COOLDOWN_MS);
+        }
     }
 
     private void processAnswer(ClientHandler player, String expression, Instant serverRecv) {
+        Integer seatObj = seatIndex.get(player);
+        if (seatObj == null || departed[seatObj]) {
+            sendSimpleAnswerResult(player, false, "not_in_match");
+            return;
+        }
+        int seat = seatObj;
         if (currentPuzzle == null) {
             sendSimpleAnswerResult(player, false, "no_active_round");
             return;
@@ -448,22 +808,35 @@ public class GameSession {
             sendSimpleAnswerResult(player, false, "no_active_round");
             return;
         }
+        if (roundHistory[seat][activeRoundIndex] != null) {
+            sendSimpleAnswerResult(player, false, "already_solved");
+            return;
+        }
+        long cooldownLeft = cooldownUntilMs.get(seat) - serverRecv.toEpochMilli();
+        if (cooldownLeft > 0) {
+            if (!simulated) ThrottleMetrics.recordAnswerCooldownReject();
+            sendCooldownResult(player, cooldownLeft);
+            return;
+        }
 
         int result;
+        AnswerEvaluatedEvent evaluated = new AnswerEvaluatedEvent();
+        evaluated.begin();
         try {
-            List<Integer> deck = new ArrayList<>();
-            for (int a = 1; a < 10; a++) deck.add(a);
-            result = MathExpressionEvaluator.evaluate(expression, deck);
+            result = MathExpressionEvaluator.evaluate(expression, DECK);
         } catch (IllegalArgumentException evalEx) {
+            commitAnswerEvent(evaluated, player, "invalid_expression");
+            recordWrongAnswer(seat);
             Map<String, Object> err = new HashMap<>();
             err.put("type", MessageType.ANSWER_RESULT.name());
             err.put("accepted", false);
             err.put("reason", "invalid_expression");
             err.put("message", evalEx.getMessage());
             safeSendMessage(player, JsonUtil.toJson(err));
-            System.err.println("Invalid expression from " + player.getUsername() + ": \"" + expression + "\" -> " + evalEx.getMessage());
+            if (!simulated) System.err.println("Invalid expression from " + player.getUsername() + ": \"" + expression + "\" -> " + evalEx.getMessage());
             return;
         } catch (Exception ex) {
+            commitAnswerEvent(evaluated, player, "internal_error");
             Map<String, Object> err = new HashMap<>();
             err.put("type", MessageType.ANSWER_RESULT.name());
             err.put("accepted", false);
@@ -475,6 +848,7 @@ public class GameSession {
         }
 
         boolean correct = result == currentPuzzle.getTarget();
+        commitAnswerEvent(evaluated, player, correct ? "correct" : "wrong");
 
         Map<String, Object> resMsg = new HashMap<>();
         resMsg.put("type", MessageType.ANSWER_RESULT.name());
@@ -483,21 +857,96 @@ public class GameSession {
         resMsg.put("server_time", serverRecv.toEpochMilli());
         safeSendMessage(player, JsonUtil.toJson(resMsg));
 
-        if (!correct) return;
-
-        if (!roundActive) return;
-        roundActive = false;
+        if (!correct) {
+            recordWrongAnswer(seat);
+            return;
+        }
 
+        // recorded times are as the server saw them; latency only breaks near-ties in FIRST_CORRECT below
         long playMs = Duration.between(roundStart, serverRecv).toMillis();
         long maxMs = questionTimeoutSeconds * 1000L;
         if (playMs < 0) playMs = 0;
         if (playMs > maxMs) playMs = maxMs;
-        Duration playTime = Duration.ofMillis(playMs);
+        if (solveTimeMs[seat][activeRoundIndex] < 0) solveTimeMs[seat][activeRoundIndex] = playMs;
+
+        if (scoringMode == ScoringMode.FIRST_CORRECT) {
+            // record as a candidate; the winner is picked on compensated time once the hold window closes.
+            // The estimate comes from the client's own acks, so it never takes off more than the hold window.
+            roundHistory[seat][activeRoundIndex] = new RoundResult(activeRoundIndex, true, playMs, scheduler.currentTimeMillis());
+            compensatedMs[seat] = playMs - Math.min(maxLagHoldMs, Math.max(0L, player.getOneWayDelayMs()));
+            if (lagHoldFuture == null) {
+                long hold = computeLagHoldMs(seat);
+                if (hold <= 0) {
+                    awardFirstCorrect();
+                } else {
+                    lagHoldFuture = scheduler.schedule(this::awardFirstCorrect, hold, TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
 
-        totalPlayTime.put(player, totalPlayTime.getOrDefault(player, Duration.ZERO).plus(playTime));
-        scores.put(player, scores.getOrDefault(player, 0) + 1);
+        int rank = solvedThisRound++;
+        solvedActiveThisRound++;
+        if (rank == 0) firstSolverSeat = seat;
+        int points = (scoringMode == ScoringMode.RANKED) ? Math.max(1, seats.length - rank) : 1;
 
-        recordRoundResultsOnCorrect(player, activeRoundIndex, playTime);
+        totalPlayTimeMs[seat] += playMs;
+        scores[seat] += points;
+        roundHistory[seat][activeRoundIndex] = new RoundResult(activeRoundIndex, true, playMs, scheduler.currentTimeMillis());
+
+        if (solvedActiveThisRound >= activeSeats) {
+            closeActiveRound();
+        }
+    }
+
+    /**
+     * FIRST_CORRECT: among the seats that answered correctly during the hold window, the lowest
+     * latency-compensated time takes the point; the others count as not having won the round.
+     * A lone candidate wins outright. The winner is credited with its uncompensated time.
+     */
+    private void awardFirstCorrect() {
+        if (lagHoldFuture != null) {
+            lagHoldFuture.cancel(false);
+            lagHoldFuture = null;
+        }
+        if (!roundActive) return;
+
+        int winner = -1;
+        for (int i = 0; i < seats.length; i++) {
+            RoundResult r = roundHistory[i][activeRoundIndex];
+            if (r == null || !r.correct || departed[i]) continue;
+            if (winner < 0 || compensatedMs[i] < compensatedMs[winner]) winner = i;
+        }
+        long nowTs = scheduler.currentTimeMillis();
+        for (int i = 0; i < seats.length; i++) {
+            RoundResult r = roundHistory[i][activeRoundIndex];
+            if (i != winner && r != null && r.correct) {
+                roundHistory[i][activeRoundIndex] = new RoundResult(activeRoundIndex, false, 0L, nowTs);
+            }
+        }
+        if (winner >= 0) {
+            firstSolverSeat = winner;
+            solvedThisRound = 1;
+            solvedActiveThisRound = 1;
+            scores[winner] += 1;
+            totalPlayTimeMs[winner] += roundHistory[winner][activeRoundIndex].playTimeMillis;
+        }
+        closeActiveRound();
+    }
+
+    /**
+     * Close the active round: fill in missing results as incorrect, broadcast the summary once and move on.
+     */
+    private void closeActiveRound() {
+        if (!roundActive) return;
+        roundActive = false;
+
+        long nowTs = scheduler.currentTimeMillis();
+        for (int i = 0; i < seats.length; i++) {
+            if (roundHistory[i][activeRoundIndex] == null) {
+                roundHistory[i][activeRoundIndex] = new RoundResult(activeRoundIndex, false, 0L, nowTs);
+            }
+        }
 
         if (roundTimeoutFuture != null && !roundTimeoutFuture.isDone()) {
             roundTimeoutFuture.cancel(false);
@@ -517,35 +966,19 @@ public class GameSession {
         }
     }
 
-    private void recordRoundResultsOnCorrect(ClientHandler winner, int roundIndex, Duration winnerPlayTime) {
-        ClientHandler loser = (winner == playerA) ? playerB : playerA;
-
-        RoundResult rWinner = new RoundResult(roundIndex, true, winnerPlayTime.toMillis(), Instant.now().toEpochMilli());
-        roundHistory.get(winner).add(rWinner);
-
-        RoundResult rLoser = new RoundResult(roundIndex, false, 0L, Instant.now().toEpochMilli());
-        roundHistory.get(loser).add(rLoser);
-    }
-
     private void onRoundTimeout() {
-        if (!roundActive) {
-            return;
+        RoundTimeoutEvent timedOut = new RoundTimeoutEvent();
+        if (roundActive && !simulated && timedOut.shouldCommit()) {
+            timedOut.sessionId = sessionId;
+            timedOut.round = activeRoundIndex;
+            timedOut.solved = solvedThisRound;
+            timedOut.commit();
         }
-        roundActive = false;
-
-        RoundResult rA = new RoundResult(activeRoundIndex, false, 0L, Instant.now().toEpochMilli());
-        RoundResult rB = new RoundResult(activeRoundIndex, false, 0L, Instant.now().toEpochMilli());
-        roundHistory.get(playerA).add(rA);
-        roundHistory.get(playerB).add(rB);
-
-        broadcastRoundSummary(activeRoundIndex);
-
-        // schedule inter-round countdown and next round (3s), unless match finished
-        if (currentRound.get() >= totalRounds) {
-            finishGameInternal();
-        } else {
-            scheduleInterRoundCountdownThenNext();
+        if (lagHoldFuture != null) {
+            awardFirstCorrect();
+            return;
         }
+        closeActiveRound();
     }
 
     /**
@@ -555,27 +988,16 @@ public class GameSession {
     private void scheduleInterRoundCountdownThenNext() {
         try {
             // Inform clients about upcoming round with a 3s countdown
-            safeSendInfo(playerA, "Bắt đầu vòng tiếp theo sau 3 giây...");
-            safeSendInfo(playerB, "Bắt đầu vòng tiếp theo sau 3 giây...");
+            broadcastInfo("Bắt đầu vòng tiếp theo sau 3 giây...");
 
             // Optionally send countdown ticks (1,2,3) - small scheduled notifications
-            scheduler.schedule(() -> {
-                safeSendInfo(playerA, "3...");
-                safeSendInfo(playerB, "3...");
-            }, 0, TimeUnit.MILLISECONDS);
-
-            scheduler.schedule(() -> {
-                safeSendInfo(playerA, "2...");
-                safeSendInfo(playerB, "2...");
-            }, 1, TimeUnit.SECONDS);
-
-            scheduler.schedule(() -> {
-                safeSendInfo(playerA, "1...");
-                safeSendInfo(playerB, "1...");
-            }, 2, TimeUnit.SECONDS);
-
-            // After interRoundCountdownMs, start the next round but skip additional inter-gap (we already had the countdown)
-            scheduler.schedule(() -> runStartNextRound(true), interRoundCountdownMs, TimeUnit.MILLISECONDS);
+            scheduler.schedule(() -> broadcastInfo("3..."), 0, TimeUnit.MILLISECONDS);
+            scheduler.schedule(() -> broadcastInfo("2..."), 1, TimeUnit.SECONDS);
+            scheduler.schedule(() -> broadcastInfo("1..."), 2, TimeUnit.SECONDS);
+
+            // send NEW_ROUND one lead time before the countdown ends so the round still opens on the 3s mark
+            long lead = Math.min(computeInterRoundGapMs(), interRoundCountdownMs);
+            scheduler.schedule(() -> runStartNextRound(false), interRoundCountdownMs - lead, TimeUnit.MILLISECONDS);
         } catch (Exception ex) {
             System.err.println("Failed to schedule inter-round countdown: " + ex.getMessage());
             // fallback: start immediately
@@ -586,19 +1008,20 @@ public class GameSession {
     public void handleReady(ClientHandler from) {
         if (from == null) return;
         scheduler.execute(() -> {
-            readyMap.put(from, true);
-            ClientHandler other = (from == playerA) ? playerB : playerA;
-            if (other != null) safeSendInfo(other, "Đối thủ đã sẵn sàng");
-
-            boolean aReady = Boolean.TRUE.equals(readyMap.get(playerA));
-            boolean bReady = Boolean.TRUE.equals(readyMap.get(playerB));
-            if (aReady && bReady && startFuture != null && !startFuture.isDone()) {
-                long now = System.currentTimeMillis();
+            Integer seat = seatIndex.get(from);
+            if (seat == null) return;
+            ready[seat] = true;
+            for (int i = 0; i < seats.length; i++) {
+                if (i != seat && !departed[i]) safeSendInfo(seats[i], "Đối thủ đã sẵn sàng");
+            }
+
+            if (allActiveReady() && startFuture != null && !startFuture.isDone()) {
+                long now = scheduler.currentTimeMillis();
                 long potentialStart = now + fastStartBufferMs;
                 if (potentialStart + 50 < matchStartTimeMs) {
                     startFuture.cancel(false);
                     matchStartTimeMs = potentialStart;
-                    long delay = Math.max(0, matchStartTimeMs - System.currentTimeMillis());
+                    long delay = Math.max(0, matchStartTimeMs - scheduler.currentTimeMillis());
                     startFuture = scheduler.schedule(this::runStartMatch, delay, TimeUnit.MILLISECONDS);
                     broadcastMatchInfo();
                 }
@@ -606,6 +1029,13 @@ public class GameSession {
         });
     }
 
+    private boolean allActiveReady() {
+        for (int i = 0; i < seats.length; i++) {
+            if (!departed[i] && !ready[i]) return false;
+        }
+        return true;
+    }
+
     public void handleRequestMatchInfo(ClientHandler from) {
         scheduler.execute(this::broadcastMatchInfo);
     }
@@ -614,106 +1044,193 @@ public class GameSession {
         if (who == null) return;
         scheduler.execute(() -> {
             if (finished.get()) return;
-            ClientHandler other = (who == playerA) ? playerB : playerA;
+            Integer seat = seatIndex.get(who);
+            if (seat == null || departed[seat]) return;
 
             safeSendInfo(who, "Bạn đã hủy trận. Bạn thua.");
-            if (other != null) safeSendInfo(other, "Đối thủ đã hủy, bạn thắng (forfeit).");
+            if (activeSeats == 2) {
+                broadcastInfoExcept(seat, "Đối thủ đã hủy, bạn thắng (forfeit).");
+            } else {
+                broadcastInfoExcept(seat, "Người chơi " + safeGetUsername(who) + " đã rời phòng.");
+            }
 
-            applyForfeitScoringAndFinish(who);
+            applyForfeitScoringAndFinish(seat);
         });
     }
 
+    /**
+     * Connection lost: hold the seat for RESUME_GRACE_MS so the player can come back with RESUME.
+     * The round clock keeps running; if the player is not back in time the seat forfeits.
+     */
     public void handlePlayerDisconnect(ClientHandler disconnected) {
         if (disconnected == null) return;
         scheduler.execute(() -> {
             if (finished.get()) return;
-            ClientHandler other = (disconnected == playerA) ? playerB : playerA;
+            Integer seat = seatIndex.get(disconnected);
+            if (seat == null || departed[seat] || suspended[seat]) return;
 
-            if (other != null) safeSendInfo(other, "Đối thủ đã ngắt kết nối. Bạn thắng (forfeit).");
-
-            applyForfeitScoringAndFinish(disconnected);
+            suspended[seat] = true;
+            broadcastInfoExcept(seat, "Người chơi " + safeGetUsername(disconnected) + " mất kết nối, đang chờ kết nối lại...");
+            graceFutures[seat] = scheduler.schedule(() -> onGraceExpired(seat), RESUME_GRACE_MS, TimeUnit.MILLISECONDS);
         });
     }
 
-    private void applyForfeitScoringAndFinish(ClientHandler forfeiter) {
-        if (forfeiter == null) return;
-        if (finished.get()) return;
+    private void onGraceExpired(int seat) {
+        if (finished.get() || departed[seat] || !suspended[seat]) return;
+        suspended[seat] = false;
+        graceFutures[seat] = null;
+        if (activeSeats == 2) {
+            broadcastInfoExcept(seat, "Đối thủ đã ngắt kết nối. Bạn thắng (forfeit).");
+        } else {
+            broadcastInfoExcept(seat, "Người chơi " + safeGetUsername(seats[seat]) + " đã ngắt kết nối.");
+        }
+        applyForfeitScoringAndFinish(seat);
+    }
 
-        ClientHandler winner = (forfeiter == playerA) ? playerB : playerA;
-        long nowTs = Instant.now().toEpochMilli();
+    /**
+     * Put a reconnected player back into its held seat and send a catch-up snapshot.
+     * Runs on the session thread; tells the handler if the seat is no longer available.
+     */
+    public void resumeSeat(String playerId, ClientHandler handler) {
+        if (playerId == null || handler == null) return;
+        scheduler.execute(() -> {
+            int seat = -1;
+            for (int i = 0; i < seats.length; i++) {
+                if (playerId.equals(safeGetPlayerId(seats[i]))) {
+                    seat = i;
+                    break;
+                }
+            }
+            if (finished.get() || seat < 0 || departed[seat] || !suspended[seat]) {
+                handler.sendType(MessageType.RESUME_FAILED, "match_unavailable");
+                return;
+            }
+            if (graceFutures[seat] != null) graceFutures[seat].cancel(false);
+            graceFutures[seat] = null;
+            suspended[seat] = false;
 
-        scores.put(forfeiter, 0);
-        scores.put(winner, totalRounds);
+            seatIndex.remove(seats[seat]);
+            seats[seat] = handler;
+            seatIndex.put(handler, seat);
+            handler.setCurrentGame(this);
 
-        List<RoundResult> histForfeiter = roundHistory.getOrDefault(forfeiter, new ArrayList<>());
-        List<RoundResult> histWinner = roundHistory.getOrDefault(winner, new ArrayList<>());
-        roundHistory.putIfAbsent(forfeiter, histForfeiter);
-        roundHistory.putIfAbsent(winner, histWinner);
+            safeSendMessage(handler, buildResumeSnapshot(seat));
+            broadcastInfoExcept(seat, "Người chơi " + safeGetUsername(handler) + " đã kết nối lại.");
+        });
+    }
 
-        Set<Integer> recForfeiter = new HashSet<>();
-        for (RoundResult r : roundHistory.get(forfeiter)) recForfeiter.add(r.roundIndex);
-        Set<Integer> recWinner = new HashSet<>();
-        for (RoundResult r : roundHistory.get(winner)) recWinner.add(r.roundIndex);
+    /**
+     * Compact catch-up state: where the match is, the live round's deadline and the scores. No replay of past rounds.
+     */
+    private String buildResumeSnapshot(int seat) {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("type", MessageType.RESUME_SNAPSHOT.name());
+        msg.put("match_id", sessionId);
+        msg.put("seat", seat);
+        msg.put("total_rounds", totalRounds);
+        msg.put("round", activeRoundIndex + 1);
+        msg.put("round_index", activeRoundIndex);
+        msg.put("round_active", roundActive);
+        if (currentPuzzle != null && activeRoundIndex >= 0) {
+            msg.put("target", currentPuzzle.getTarget());
+            msg.put("difficulty", difficultySequence.get(activeRoundIndex));
+            msg.put("server_round_end", activeRoundEndMs);
+            msg.put("solved", roundHistory[seat][activeRoundIndex] != null && roundHistory[seat][activeRoundIndex].correct);
+        }
+        Map<String, Integer> scoreMap = new LinkedHashMap<>();
+        for (int i = 0; i < seats.length; i++) scoreMap.put(safeGetUsername(seats[i]), scores[i]);
+        msg.put("scores", scoreMap);
+        msg.put("server_time", scheduler.currentTimeMillis());
+        return JsonUtil.toJson(msg);
+    }
 
-        for (int r = 0; r < totalRounds; r++) {
-            boolean fHas = recForfeiter.contains(r);
-            boolean wHas = recWinner.contains(r);
+    /**
+     * Remove a seat from play. Its missing rounds count as incorrect and its score drops to zero.
+     * Once only one active seat is left, that seat wins by forfeit and the match ends.
+     */
+    private void applyForfeitScoringAndFinish(int forfeiter) {
+        if (finished.get()) return;
+        if (departed[forfeiter]) return;
 
-            if (fHas && wHas) continue;
+        departed[forfeiter] = true;
+        suspended[forfeiter] = false;
+        if (graceFutures[forfeiter] != null) {
+            graceFutures[forfeiter].cancel(false);
+            graceFutures[forfeiter] = null;
+        }
+        activeSeats--;
+        if (roundActive && scoringMode == ScoringMode.RANKED) {
+            RoundResult current = roundHistory[forfeiter][activeRoundIndex];
+            if (current != null && current.correct) solvedActiveThisRound--;
+        }
+        long nowTs = scheduler.currentTimeMillis();
 
-            if (!wHas) {
-                RoundResult rw = new RoundResult(r, true, 0L, nowTs);
-                roundHistory.get(winner).add(rw);
+        scores[forfeiter] = 0;
+        for (int r = 0; r < totalRounds; r++) {
+            if (roundHistory[forfeiter][r] == null) {
+                roundHistory[forfeiter][r] = new RoundResult(r, false, 0L, nowTs);
             }
-            if (!fHas) {
-                RoundResult rf = new RoundResult(r, false, 0L, nowTs);
-                roundHistory.get(forfeiter).add(rf);
+        }
+
+        if (activeSeats <= 1) {
+            for (int winner = 0; winner < seats.length; winner++) {
+                if (departed[winner]) continue;
+                // a full sweep in FIRST_CORRECT; a RANKED survivor may already be past that and keeps its score
+                scores[winner] = Math.max(scores[winner], totalRounds);
+                for (int r = 0; r < totalRounds; r++) {
+                    if (roundHistory[winner][r] == null) {
+                        roundHistory[winner][r] = new RoundResult(r, true, 0L, nowTs);
+                    }
+                }
             }
+            finishGameInternal();
+            return;
+        }
+
+        try {
+            seats[forfeiter].clearCurrentGame();
+        } catch (Exception ignored) {
         }
 
-        finishGameInternal();
+        // the remaining seats may all have solved the active round already
+        if (roundActive && scoringMode == ScoringMode.RANKED && solvedActiveThisRound >= activeSeats) {
+            closeActiveRound();
+        }
     }
 
     private void finishGameInternal() {
         if (!finished.compareAndSet(false, true)) return;
 
         // mark end time precisely when game finishes
-        this.matchEndTimeMs = System.currentTimeMillis();
+        this.matchEndTimeMs = scheduler.currentTimeMillis();
 
-        ClientHandler winner = null;
-        int scoreA = scores.getOrDefault(playerA, 0);
-        int scoreB = scores.getOrDefault(playerB, 0);
+        int[] ranking = computeRanking();
+        int winnerSeat = determineWinnerSeat(ranking);
 
-        if (scoreA > scoreB) winner = playerA;
-        else if (scoreB > scoreA) winner = playerB;
-        else {
-            Duration timeA = totalPlayTime.getOrDefault(playerA, Duration.ZERO);
-            Duration timeB = totalPlayTime.getOrDefault(playerB, Duration.ZERO);
-            if (timeA.compareTo(timeB) < 0) winner = playerA;
-            else if (timeB.compareTo(timeA) < 0) winner = playerB;
-        }
+        List<String> rankingIds = new ArrayList<>(ranking.length);
+        for (int seat : ranking) rankingIds.add(safeGetPlayerId(seats[seat]));
+        this.winnerId = winnerSeat >= 0 ? safeGetPlayerId(seats[winnerSeat]) : null;
 
         Map<String, Object> msg = new HashMap<>();
         msg.put("type", MessageType.GAME_OVER.name());
         msg.put("scores", exportScores());
         msg.put("total_play_time_ms", exportPlayTime());
-        msg.put("winner", winner != null ? safeGetPlayerId(winner) : null);
+        msg.put("winner", winnerSeat >= 0 ? safeGetPlayerId(seats[winnerSeat]) : null);
+        msg.put("ranking", rankingIds);
         msg.put("round_history", exportRoundHistory());
         msg.put("revealed_targets", revealedTargets);
 
         String json = JsonUtil.toJson(msg);
-        safeSendMessage(playerA, json);
-        safeSendMessage(playerB, json);
+        for (ClientHandler p : seats) safeSendMessage(p, json);
+        commitMatchEvent();
 
-        persistResultsToDatabase(json);
+        persistResultsToDatabase(json, ranking, winnerSeat);
 
-        try {
-            playerA.clearCurrentGame();
-        } catch (Exception ignored) {
-        }
-        try {
-            playerB.clearCurrentGame();
-        } catch (Exception ignored) {
+        for (ClientHandler p : seats) {
+            try {
+                p.clearCurrentGame();
+            } catch (Exception ignored) {
+            }
         }
 
         try {
@@ -732,27 +1249,53 @@ public class GameSession {
             scheduler.shutdownNow();
         } catch (Exception ignored) {
         }
+
+        for (Consumer<GameSession> listener : completionListeners) {
+            try {
+                listener.accept(this);
+            } catch (Exception ex) {
+                System.err.println("[GameSession] completion listener failed for game=" + sessionId + ": " + ex.getMessage());
+            }
+        }
     }
 
-    private void persistResultsToDatabase(String gameOverJson) {
+    /**
+     * Seats ordered best first: higher score wins, lower total play time breaks ties.
+     */
+    private int[] computeRanking() {
+        Integer[] order = new Integer[seats.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            if (scores[a] != scores[b]) return Integer.compare(scores[b], scores[a]);
+            return Long.compare(totalPlayTimeMs[a], totalPlayTimeMs[b]);
+        });
+        int[] out = new int[order.length];
+        for (int i = 0; i < order.length; i++) out[i] = order[i];
+        return out;
+    }
+
+    private int determineWinnerSeat(int[] ranking) {
+        int top = ranking[0];
+        int second = ranking[1];
+        if (scores[top] == scores[second] && totalPlayTimeMs[top] == totalPlayTimeMs[second]) return -1;
+        return top;
+    }
+
+    private boolean tiedWithTop(int seat, int[] ranking) {
+        int top = ranking[0];
+        return scores[seat] == scores[top] && totalPlayTimeMs[seat] == totalPlayTimeMs[top];
+    }
+
+    private void persistResultsToDatabase(String gameOverJson, int[] ranking, int winnerSeat) {
         if (!persistResults || gameDAO == null) return;
 
-        Map<String, Integer> scoresMap = exportScores();
-        Map<String, Long> playTimeMap = exportPlayTime();
         Map<String, List<Map<String, Object>>> roundHist = exportRoundHistory();
-        String winnerId = null;
-        try {
-            int scoreA = scores.getOrDefault(playerA, 0);
-            int scoreB = scores.getOrDefault(playerB, 0);
-            if (scoreA > scoreB) winnerId = safeGetPlayerId(playerA);
-            else if (scoreB > scoreA) winnerId = safeGetPlayerId(playerB);
-            else {
-                long timeA = playTimeMap.getOrDefault(safeGetPlayerId(playerA), 0L);
-                long timeB = playTimeMap.getOrDefault(safeGetPlayerId(playerB), 0L);
-                if (timeA < timeB) winnerId = safeGetPlayerId(playerA);
-                else if (timeB < timeA) winnerId = safeGetPlayerId(playerB);
+        boolean hasBot = false;
+        for (int seat = 0; seat < seats.length; seat++) {
+            if (seats[seat].isBot()) {
+                hasBot = true;
+                roundHist.remove(safeGetPlayerId(seats[seat]));
             }
-        } catch (Exception ignored) {
         }
 
         try {
@@ -769,6 +1312,7 @@ public class GameSession {
 
             match.setTotalRounds(totalRounds);
             match.setStatus("finished");
+            match.setRanked(!hasBot);
 
             // Use the precise end time if available; otherwise set to now
             if (matchEndTimeMs > 0) {
@@ -778,41 +1322,27 @@ public class GameSession {
                 match.setEndedAt(LocalDateTime.now());
             }
 
-            List<GameHistory> histories = new ArrayList<>(2);
-
-            // playerA
-            Player pA = null;
-            try { pA = playerA.getPlayer(); } catch (Exception ignored) {}
-            if (pA == null) {
-                pA = new Player();
-                pA.setId(safeGetPlayerId(playerA));
-                pA.setUsername(safeGetUsername(playerA));
-            }
-            GameHistory gha = new GameHistory();
-            gha.setId(new GameHistoryId(sessionId, pA.getId()));
-            gha.setMatch(match);
-            gha.setPlayer(pA);
-            gha.setFinalScore(scoresMap.getOrDefault(pA.getId(), 0));
-            gha.setTotalTime(playTimeMap.getOrDefault(pA.getId(), 0L));
-            gha.setResult(determineResultForPlayer(pA.getId(), winnerId));
-            histories.add(gha);
-
-            // playerB
-            Player pB = null;
-            try { pB = playerB.getPlayer(); } catch (Exception ignored) {}
-            if (pB == null) {
-                pB = new Player();
-                pB.setId(safeGetPlayerId(playerB));
-                pB.setUsername(safeGetUsername(playerB));
+            List<GameHistory> histories = new ArrayList<>(seats.length);
+            for (int seat = 0; seat < seats.length; seat++) {
+                ClientHandler handler = seats[seat];
+                // bots have no players row; only the humans' side of the match is stored
+                if (handler.isBot()) continue;
+                Player p = null;
+                try { p = handler.getPlayer(); } catch (Exception ignored) {}
+                if (p == null) {
+                    p = new Player();
+                    p.setId(safeGetPlayerId(handler));
+                    p.setUsername(safeGetUsername(handler));
+                }
+                GameHistory gh = new GameHistory();
+                gh.setId(new GameHistoryId(sessionId, p.getId()));
+                gh.setMatch(match);
+                gh.setPlayer(p);
+                gh.setFinalScore(scores[seat]);
+                gh.setTotalTime(totalPlayTimeMs[seat]);
+                gh.setResult(determineResultForSeat(seat, winnerSeat, ranking));
+                histories.add(gh);
             }
-            GameHistory ghb = new GameHistory();
-            ghb.setId(new GameHistoryId(sessionId, pB.getId()));
-            ghb.setMatch(match);
-            ghb.setPlayer(pB);
-            ghb.setFinalScore(scoresMap.getOrDefault(pB.getId(), 0));
-            ghb.setTotalTime(playTimeMap.getOrDefault(pB.getId(), 0L));
-            ghb.setResult(determineResultForPlayer(pB.getId(), winnerId));
-            histories.add(ghb);
 
             gameDAO.persistGameFinal(match, histories, roundHist);
             System.out.println("[GameSession] persisted via GameRepository for game=" + sessionId);
@@ -825,100 +1355,102 @@ public class GameSession {
         }
     }
 
-    private String determineResultForPlayer(String playerId, String winnerId) {
-        if (winnerId == null) return "draw";
-        if (winnerId.equals(playerId)) return "win";
+    private String determineResultForSeat(int seat, int winnerSeat, int[] ranking) {
+        if (winnerSeat == seat) return "win";
+        if (winnerSeat < 0 && tiedWithTop(seat, ranking)) return "draw";
         return "lose";
     }
 
+    private void commitMatchEvent() {
+        MatchEvent event = matchEvent;
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.sessionId = sessionId;
+        event.players = seats.length;
+        event.roundsPlayed = Math.min(currentRound.get(), totalRounds);
+        event.scoringMode = scoringMode.name();
+        event.winner = winnerId;
+        event.commit();
+    }
+
     public void finishGame() {
         scheduler.execute(this::finishGameInternal);
     }
 
     private Map<String, Integer> exportScores() {
         Map<String, Integer> out = new HashMap<>();
-        out.put(safeGetPlayerId(playerA), scores.getOrDefault(playerA, 0));
-        out.put(safeGetPlayerId(playerB), scores.getOrDefault(playerB, 0));
+        for (int i = 0; i < seats.length; i++) out.put(safeGetPlayerId(seats[i]), scores[i]);
         return out;
     }
 
     private Map<String, Long> exportPlayTime() {
         Map<String, Long> out = new HashMap<>();
-        out.put(safeGetPlayerId(playerA), totalPlayTime.getOrDefault(playerA, Duration.ZERO).toMillis());
-        out.put(safeGetPlayerId(playerB), totalPlayTime.getOrDefault(playerB, Duration.ZERO).toMillis());
+        for (int i = 0; i < seats.length; i++) out.put(safeGetPlayerId(seats[i]), totalPlayTimeMs[i]);
         return out;
     }
 
     private Map<String, List<Map<String, Object>>> exportRoundHistory() {
         Map<String, List<Map<String, Object>>> out = new HashMap<>();
-        out.put(safeGetPlayerId(playerA), exportRoundList(roundHistory.getOrDefault(playerA, Collections.emptyList())));
-        out.put(safeGetPlayerId(playerB), exportRoundList(roundHistory.getOrDefault(playerB, Collections.emptyList())));
+        for (int i = 0; i < seats.length; i++) out.put(safeGetPlayerId(seats[i]), exportRoundList(roundHistory[i]));
         return out;
     }
 
-    private List<Map<String, Object>> exportRoundList(List<RoundResult> list) {
-        List<Map<String, Object>> out = new ArrayList<>(list.size());
+    private List<Map<String, Object>> exportRoundList(RoundResult[] list) {
+        List<Map<String, Object>> out = new ArrayList<>(list.length);
         for (RoundResult r : list) {
+            if (r == null) continue;
             Map<String, Object> m = new HashMap<>();
             m.put("round_index", r.roundIndex);
             m.put("correct", r.correct);
             m.put("round_play_time_ms", r.playTimeMillis);
             m.put("timestamp", r.timestampMs);
+            m.put("difficulty", difficultySequence.get(r.roundIndex));
+            if (r.roundIndex < preGeneratedPuzzles.size()) m.put("target", preGeneratedPuzzles.get(r.roundIndex).getTarget());
             out.add(m);
         }
         return out;
     }
 
+    /**
+     * Build the ROUND_RESULT body once and fan the same string out to every active seat.
+     */
     private void broadcastRoundSummary(int roundIndex) {
-        String idA = safeGetPlayerId(playerA);
-        String idB = safeGetPlayerId(playerB);
-
-        Map<String, Object> msg = new LinkedHashMap<>();
-        msg.put("type", MessageType.ROUND_RESULT.name());
-        msg.put("round_index", roundIndex);
-        msg.put("round_number", roundIndex + 1);
-        msg.put("server_time", System.currentTimeMillis());
-        msg.put("server_round_end", this.roundStart != null ? this.roundStart.plusMillis(questionTimeoutSeconds * 1000L).toEpochMilli() : -1L);
-
-        String roundWinner = null;
-        List<RoundResult> histA = roundHistory.getOrDefault(playerA, Collections.emptyList());
-        List<RoundResult> histB = roundHistory.getOrDefault(playerB, Collections.emptyList());
-        RoundResult lastA = histA.isEmpty() ? null : histA.get(histA.size() - 1);
-        RoundResult lastB = histB.isEmpty() ? null : histB.get(histB.size() - 1);
-        if (lastA != null && lastA.roundIndex == roundIndex && lastA.correct) roundWinner = idA;
-        else if (lastB != null && lastB.roundIndex == roundIndex && lastB.correct) roundWinner = idB;
-
-        msg.put("round_winner", roundWinner);
-
-        List<Map<String, Object>> players = new ArrayList<>(2);
-        players.add(makePlayerRoundSummary(playerA, lastA));
-        players.add(makePlayerRoundSummary(playerB, lastB));
-        msg.put("players", players);
-
-        msg.put("scores", exportScores());
-        msg.put("total_play_time_ms", exportPlayTime());
-
-        String json = JsonUtil.toJson(msg);
-        safeSendMessage(playerA, json);
-        safeSendMessage(playerB, json);
-    }
-
-    private Map<String, Object> makePlayerRoundSummary(ClientHandler p, RoundResult last) {
-        Map<String, Object> m = new LinkedHashMap<>();
-        String id = safeGetPlayerId(p);
-        m.put("id", id);
-        m.put("username", safeGetUsername(p));
-        m.put("display_name", safeGetDisplayName(p));
-        if (last != null) {
-            m.put("correct", last.correct);
-            m.put("round_play_time_ms", last.playTimeMillis);
-        } else {
-            m.put("correct", false);
-            m.put("round_play_time_ms", 0L);
+        if (seatIdentityJson == null) encodeStaticFragments();
+        long roundEnd = this.roundStart != null ? this.roundStart.plusMillis(questionTimeoutSeconds * 1000L).toEpochMilli() : -1L;
+
+        StringBuilder sb = new StringBuilder(160 + seats.length * 200);
+        sb.append("{\"type\":\"").append(MessageType.ROUND_RESULT.name()).append('"');
+        sb.append(",\"round_index\":").append(roundIndex);
+        sb.append(",\"round_number\":").append(roundIndex + 1);
+        sb.append(",\"server_time\":").append(scheduler.currentTimeMillis());
+        sb.append(",\"server_round_end\":").append(roundEnd);
+        sb.append(",\"round_winner\":").append(firstSolverSeat >= 0 ? seatIdJson[firstSolverSeat] : "null");
+
+        sb.append(",\"players\":[");
+        for (int i = 0; i < seats.length; i++) {
+            RoundResult last = roundHistory[i][roundIndex];
+            if (i > 0) sb.append(',');
+            sb.append('{').append(seatIdentityJson[i]);
+            sb.append(",\"correct\":").append(last != null && last.correct);
+            sb.append(",\"round_play_time_ms\":").append(last != null ? last.playTimeMillis : 0L);
+            sb.append(",\"total_score\":").append(scores[i]);
+            sb.append(",\"total_play_time_ms\":").append(totalPlayTimeMs[i]);
+            sb.append('}');
         }
-        m.put("total_score", scores.getOrDefault(p, 0));
-        m.put("total_play_time_ms", totalPlayTime.getOrDefault(p, Duration.ZERO).toMillis());
-        return m;
+        sb.append("],\"scores\":{");
+        for (int i = 0; i < seats.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(seatIdJson[i]).append(':').append(scores[i]);
+        }
+        sb.append("},\"total_play_time_ms\":{");
+        for (int i = 0; i < seats.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(seatIdJson[i]).append(':').append(totalPlayTimeMs[i]);
+        }
+        sb.append("}}");
+
+        broadcast(sb.toString());
     }
 
     private String safeGetPlayerId(ClientHandler p) {
@@ -942,10 +1474,28 @@ public class GameSession {
         resMsg.put("type", MessageType.ANSWER_RESULT.name());
         resMsg.put("accepted", accepted);
         resMsg.put("reason", reason);
-        resMsg.put("server_time", System.currentTimeMillis());
+        resMsg.put("server_time", scheduler.currentTimeMillis());
         safeSendMessage(player, JsonUtil.toJson(resMsg));
     }
 
+    private void broadcast(String json) {
+        for (int i = 0; i < seats.length; i++) {
+            if (!departed[i] && !suspended[i]) safeSendMessage(seats[i], json);
+        }
+    }
+
+    private void broadcastInfo(String text) {
+        for (int i = 0; i < seats.length; i++) {
+            if (!departed[i] && !suspended[i]) safeSendInfo(seats[i], text);
+        }
+    }
+
+    private void broadcastInfoExcept(int skipSeat, String text) {
+        for (int i = 0; i < seats.length; i++) {
+            if (i != skipSeat && !departed[i] && !suspended[i]) safeSendInfo(seats[i], text);
+        }
+    }
+
     private void safeSendInfo(ClientHandler p, String text) {
         try {
             if (p != null) p.sendType(MessageType.INFO, text);
@@ -992,24 +1542,22 @@ public class GameSession {
         return bb.array();
     }
 
-    private void sendPuzzleToPlayers(MathPuzzleFormat puzzle, int difficulty, Duration roundTime,
-                                     int roundNumber, int roundIndex, long roundSeed, Instant serverRoundStartInstant, long serverRoundEndMs) {
-        Map<String, Object> msg = new LinkedHashMap<>();
-        msg.put("type", MessageType.NEW_ROUND.name());
-        msg.put("round", roundNumber);
-        msg.put("difficulty", difficulty);
-        msg.put("target", puzzle.getTarget());
-        msg.put("time", roundTime.getSeconds());
-        msg.put("seed", matchSeed);          // match seed (global)
-        msg.put("round_seed", roundSeed);   // per-round seed for reproducibility
-        msg.put("round_index", roundIndex);
-        msg.put("server_round_start", serverRoundStartInstant.toEpochMilli());
-        msg.put("server_round_end", serverRoundEndMs);
-        msg.put("server_time", System.currentTimeMillis());
-
-        String json = JsonUtil.toJson(msg);
-        safeSendMessage(playerA, json);
-        safeSendMessage(playerB, json);
+    private void sendPuzzleToPlayers(MathPuzzleFormat puzzle, int roundIndex, long serverRoundStartMs, long serverRoundEndMs) {
+        NewRoundFrame frame = roundIndex < roundFrames.length ? roundFrames[roundIndex] : null;
+        if (frame == null || frame.getTarget() != puzzle.getTarget()) {
+            // puzzle generated outside beginGame's pre-generation pass
+            frame = newRoundFrame(roundIndex, puzzle);
+            if (roundIndex < roundFrames.length) roundFrames[roundIndex] = frame;
+        }
+        int length = frame.encode(serverRoundStartMs, serverRoundEndMs, scheduler.currentTimeMillis());
+        byte[] bytes = frame.buffer();
+        for (int i = 0; i < seats.length; i++) {
+            if (departed[i] || suspended[i]) continue;
+            try {
+                seats[i].sendEncoded(bytes, length);
+            } catch (Exception ignored) {
+            }
+        }
     }
 
     private static class JsonUtil {
@@ -1019,11 +1567,24 @@ public class GameSession {
             return sb.toString();
         }
 
+        /** Already encoded JSON, appended verbatim. */
+        static final class RawJson {
+            final String json;
+
+            RawJson(String json) {
+                this.json = json;
+            }
+        }
+
         private static void serialize(Object obj, StringBuilder sb) {
             if (obj == null) {
                 sb.append("null");
                 return;
             }
+            if (obj instanceof RawJson) {
+                sb.append(((RawJson) obj).json);
+                return;
+            }
             if (obj instanceof Number || obj instanceof Boolean) {
                 sb.append(obj.toString());
             } else if (obj instanceof String) {
@@ -2,16 +2,22 @@ package com.mathspeed.application.game;
 
 import com.mathspeed.adapter.network.ClientHandler;
 import com.mathspeed.adapter.network.ClientRegistry;
+import com.mathspeed.application.difficulty.DifficultyPlanner;
 import com.mathspeed.domain.port.GameRepository;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class GameSessionManager {
     private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
     private final ClientRegistry clientRegistry;
     private final Locks locks = new Locks();
     private final GameRepository gameDAO;
+    private final List<Consumer<GameSession>> finishedListeners = new CopyOnWriteArrayList<>();
+    private volatile RematchManager rematchManager;
+    private volatile DifficultyPlanner difficultyPlanner;
 
     public GameSessionManager(ClientRegistry clientRegistry, GameRepository gameDAO) {
         this.clientRegistry = clientRegistry;
@@ -26,26 +32,129 @@ public class GameSessionManager {
             System.err.println("Không thể tạo session: một trong hai player null");
             return null;
         }
+        return createRoomSafely(List.of(p1, p2), GameSession.ScoringMode.FIRST_CORRECT, totalRounds, questionTimeoutSeconds);
+    }
+
+    /**
+     * Tạo phòng cho 2..64 người chơi dùng chung một đồng hồ vòng.
+     */
+    public synchronized GameSession createRoomSafely(List<ClientHandler> players,
+                                                     GameSession.ScoringMode scoringMode,
+                                                     int totalRounds,
+                                                     long questionTimeoutSeconds) {
+        return createSession(players, scoringMode, totalRounds, questionTimeoutSeconds, null, null, null, true);
+    }
+
+    /**
+     * Như createRoomSafely nhưng dùng matchSeed cho trước, để phát lại đúng bộ câu hỏi của một trận cũ.
+     *
+     * @param difficulties độ khó từng vòng của trận cũ; null nếu trận cũ dùng phân bố mặc định của seed
+     */
+    public synchronized GameSession createSeededSessionSafely(List<ClientHandler> players,
+                                                              GameSession.ScoringMode scoringMode,
+                                                              int totalRounds,
+                                                              long questionTimeoutSeconds,
+                                                              long matchSeed,
+                                                              List<Integer> difficulties) {
+        return createSession(players, scoringMode, totalRounds, questionTimeoutSeconds, matchSeed, difficulties, null, true);
+    }
+
+    /**
+     * Phiên đấu lại: dùng bộ câu hỏi đã sinh sẵn và không broadcast trạng thái, vì hai người chơi chưa từng được
+     * báo là rảnh kể từ trận trước (xem onSessionFinished).
+     */
+    synchronized GameSession createRematchSession(List<ClientHandler> players,
+                                                  GameSession.ScoringMode scoringMode,
+                                                  int totalRounds,
+                                                  long questionTimeoutSeconds,
+                                                  long matchSeed,
+                                                  List<Integer> difficulties,
+                                                  PreparedPuzzles prepared) {
+        return createSession(players, scoringMode, totalRounds, questionTimeoutSeconds, matchSeed, difficulties, prepared, false);
+    }
+
+    public void setRematchManager(RematchManager rematchManager) {
+        this.rematchManager = rematchManager;
+    }
+
+    public void setDifficultyPlanner(DifficultyPlanner difficultyPlanner) {
+        this.difficultyPlanner = difficultyPlanner;
+    }
+
+    /**
+     * Độ khó từng vòng theo thời gian giải thực tế của những người chơi này; null = dùng phân bố mặc định.
+     */
+    List<Integer> planDifficulties(List<ClientHandler> players, GameSession.ScoringMode scoringMode,
+                                   int totalRounds, long questionTimeoutSeconds) {
+        DifficultyPlanner planner = difficultyPlanner;
+        if (planner == null) return null;
+        try {
+            return planner.plan(players, scoringMode, totalRounds, questionTimeoutSeconds);
+        } catch (Exception ex) {
+            System.err.println("[GameSessionManager] difficulty planning failed: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gửi lại danh sách người chơi, ví dụ khi cửa sổ đấu lại đóng mà không có trận mới.
+     */
+    void broadcastPresence() {
+        safeBroadcastPlayers();
+    }
 
-        if (p1.getCurrentGame() != null) {
-            System.err.println("Player " + p1.getUsername() + " đã đang tham gia session khác");
+    /**
+     * Listener chạy trên luồng của session khi trận kết thúc tự nhiên; cần chuyển việc nặng sang luồng khác.
+     */
+    public void addSessionFinishedListener(Consumer<GameSession> listener) {
+        if (listener != null) finishedListeners.add(listener);
+    }
+
+    private GameSession createSession(List<ClientHandler> players,
+                                      GameSession.ScoringMode scoringMode,
+                                      int totalRounds,
+                                      long questionTimeoutSeconds,
+                                      Long matchSeed,
+                                      List<Integer> difficulties,
+                                      PreparedPuzzles prepared,
+                                      boolean broadcastPresence) {
+        if (players == null || players.size() < GameSession.MIN_ROOM_SIZE || players.size() > GameSession.MAX_ROOM_SIZE) {
+            System.err.println("Không thể tạo session: số người chơi không hợp lệ");
             return null;
         }
-        if (p2.getCurrentGame() != null) {
-            System.err.println("Player " + p2.getUsername() + " đã đang tham gia session khác");
+        if (clientRegistry != null && clientRegistry.isDraining()) {
+            System.err.println("Không thể tạo session: server đang drain");
             return null;
         }
 
+        for (ClientHandler p : players) {
+            if (p == null) {
+                System.err.println("Không thể tạo session: có player null");
+                return null;
+            }
+            if (p.getCurrentGame() != null) {
+                System.err.println("Player " + p.getUsername() + " đã đang tham gia session khác");
+                return null;
+            }
+        }
+
         try {
-            GameSession session = new GameSession(p1, p2, totalRounds, questionTimeoutSeconds, this.gameDAO);
-            p1.setCurrentGame(session);
-            p2.setCurrentGame(session);
+            GameSession session = matchSeed != null
+                    ? new GameSession(players, scoringMode, totalRounds, questionTimeoutSeconds, this.gameDAO, null, matchSeed)
+                    : new GameSession(players, scoringMode, totalRounds, questionTimeoutSeconds, this.gameDAO);
+            for (ClientHandler p : players) p.setCurrentGame(session);
+            if (difficulties == null && matchSeed == null) {
+                difficulties = planDifficulties(players, session.getScoringMode(), totalRounds, questionTimeoutSeconds);
+            }
+            session.setDifficultySequence(difficulties);
+            session.usePreparedPuzzles(prepared);
 
             if (this.sessions != null) {
                 this.sessions.put(session.getSessionId(), session);
             }
+            session.addCompletionListener(this::onSessionFinished);
 
-            safeBroadcastPlayers();
+            if (broadcastPresence) safeBroadcastPlayers();
 
             return session;
         } catch (Exception ex) {
@@ -54,6 +163,38 @@ public class GameSessionManager {
         }
     }
 
+    /**
+     * Gỡ session đã kết thúc tự nhiên khỏi bảng quản lý. Nếu cặp người chơi được giữ lại để đấu lại thì
+     * việc broadcast trạng thái được hoãn tới khi cửa sổ đấu lại đóng.
+     */
+    private void onSessionFinished(GameSession session) {
+        if (sessions.remove(session.getSessionId(), session)) {
+            RematchManager rematch = rematchManager;
+            boolean held = false;
+            try {
+                held = rematch != null && rematch.holdForRematch(session);
+            } catch (Exception ex) {
+                System.err.println("[GameSessionManager] rematch hold failed: " + ex.getMessage());
+            }
+            if (!held) safeBroadcastPlayers();
+        }
+        for (Consumer<GameSession> listener : finishedListeners) {
+            try {
+                listener.accept(session);
+            } catch (Exception ex) {
+                System.err.println("[GameSessionManager] finished listener failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    public GameSession getSession(String sessionId) {
+        return sessionId == null ? null : sessions.get(sessionId);
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
     /**
      * Kết thúc session theo id
      */
@@ -67,10 +208,11 @@ public class GameSessionManager {
                 System.err.println("Error finishing game " + gameId + ": " + e.getMessage());
             }
 
-            // Xoá session khỏi 2 người chơi
+            // Xoá session khỏi tất cả người chơi
             try {
-                if (session.getPlayerA() != null) session.getPlayerA().clearCurrentGame();
-                if (session.getPlayerB() != null) session.getPlayerB().clearCurrentGame();
+                for (ClientHandler p : session.getPlayers()) {
+                    if (p != null) p.clearCurrentGame();
+                }
             } catch (Exception ex) {
                 System.err.println("Error clearing currentGame for players of " + gameId + ": " + ex.getMessage());
             }
@@ -85,7 +227,7 @@ public class GameSessionManager {
      */
     private boolean isPlayerInSession(ClientHandler player) {
         for (GameSession s : sessions.values()) {
-            if (s.getPlayerA() == player || s.getPlayerB() == player) return true;
+            if (s.hasPlayer(player)) return true;
         }
         return false;
     }
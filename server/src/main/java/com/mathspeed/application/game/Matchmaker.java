@@ -1,10 +1,22 @@
 package com.mathspeed.application.game;
 
 
+import com.mathspeed.adapter.cluster.ClusterNode;
+import com.mathspeed.adapter.cluster.RemoteClientHandler;
 import com.mathspeed.adapter.network.ClientHandler;
 import com.mathspeed.adapter.network.ClientRegistry;
+import com.mathspeed.application.bot.BotPlayer;
+import com.mathspeed.application.bot.BotPool;
+import com.mathspeed.application.ghost.GhostService;
+import com.mathspeed.infrastructure.jfr.QueueWaitEvent;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -14,25 +26,119 @@ public class Matchmaker {
     private final ClientRegistry clientRegistry;
     private final GameSessionManager sessionManager;
     private final Queue<ClientHandler> waitingQueue = new ConcurrentLinkedQueue<>();
+    private final Map<ClientHandler, Long> queuedAt = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private volatile boolean running = true;
 
+    // room queue: players waiting for a multi-player room, with the time they joined
+    private final Queue<ClientHandler> roomQueue = new ConcurrentLinkedQueue<>();
+    private final Map<ClientHandler, Long> roomJoinedAt = new ConcurrentHashMap<>();
+
     private final int DEFAULT_TOTAL_ROUNDS = 10;
     private final long DEFAULT_ROUND_TIME_SECONDS = 30;
 
+    private final int roomSize;
+    private final long roomFillWaitMs;
+
+    // cluster: a player left alone in the local queue this long is handed to the shared pool on the pool host
+    private static final long SHARED_POOL_DELAY_MS = 5_000L;
+    private volatile ClusterNode clusterNode;
+    private final Set<ClientHandler> pooledRemotely = ConcurrentHashMap.newKeySet();
+    private long loneSinceMs = 0L;
+
+    // off-peak: a player alone in the 1v1 queue for botPool.getQueueWaitMs() gets a bot opponent
+    private volatile BotPool botPool;
+    private volatile GhostService ghostService;
+    private volatile RematchManager rematchManager;
+
     public Matchmaker(ClientRegistry clientRegistry, GameSessionManager sessionManager) {
+        this(clientRegistry, sessionManager, 4, 15_000L);
+    }
+
+    /**
+     * @param roomSize       target number of players per room (2..64)
+     * @param roomFillWaitMs once the oldest room entrant waited this long, start with whoever is queued (at least 2)
+     */
+    public Matchmaker(ClientRegistry clientRegistry, GameSessionManager sessionManager, int roomSize, long roomFillWaitMs) {
         this.clientRegistry = clientRegistry;
         this.sessionManager = sessionManager;
+        this.roomSize = Math.max(GameSession.MIN_ROOM_SIZE, Math.min(roomSize, GameSession.MAX_ROOM_SIZE));
+        this.roomFillWaitMs = Math.max(0L, roomFillWaitMs);
         scheduler.scheduleAtFixedRate(this::matchLoop, 0, 1, TimeUnit.SECONDS);
     }
 
 
+    public void setClusterNode(ClusterNode clusterNode) {
+        this.clusterNode = clusterNode;
+    }
+
+    public void setBotPool(BotPool botPool) {
+        this.botPool = botPool;
+    }
+
+    public void setGhostService(GhostService ghostService) {
+        this.ghostService = ghostService;
+    }
+
+    public void setRematchManager(RematchManager rematchManager) {
+        this.rematchManager = rematchManager;
+    }
+
+    /**
+     * REMATCH_REQUEST / REMATCH_RESPONSE: answer the rematch offer left over from the player's last 1v1.
+     */
+    public boolean respondRematch(ClientHandler client, boolean accept) {
+        RematchManager rematch = rematchManager;
+        if (rematch == null) return false;
+        rematch.respond(client, accept);
+        return true;
+    }
+
+    /**
+     * Asynchronous mode: play now against a recorded opponent instead of waiting for a live one.
+     */
+    public boolean joinGhostMatch(ClientHandler client) {
+        GhostService ghosts = ghostService;
+        if (ghosts == null) return false;
+        leaveQueue(client);
+        return ghosts.startGhostMatch(client);
+    }
+
     public void joinQueue(ClientHandler client) {
-        waitingQueue.offer(client);
+        if (client == null) return;
+        // a repeated JOIN_QUEUE must not queue the same handler twice
+        if (queuedAt.putIfAbsent(client, System.currentTimeMillis()) == null) {
+            waitingQueue.offer(client);
+        }
+    }
+
+    public void joinRoomQueue(ClientHandler client) {
+        if (client == null) return;
+        if (roomJoinedAt.putIfAbsent(client, System.currentTimeMillis()) == null) {
+            roomQueue.offer(client);
+        }
+    }
+
+    /**
+     * The player is gone; withdraw any open rematch offer so the opponent is not left waiting for the window.
+     */
+    public void onClientGone(ClientHandler client) {
+        RematchManager rematch = rematchManager;
+        if (rematch != null) rematch.withdraw(client);
     }
 
     public void leaveQueue(ClientHandler client) {
         waitingQueue.remove(client);
+        recordQueueWait(client, "duel", "left", queuedAt.remove(client));
+        if (pooledRemotely.remove(client)) {
+            ClusterNode cluster = clusterNode;
+            if (cluster != null) cluster.withdrawFromPool(client.getUsername());
+        }
+        Long roomSince = roomJoinedAt.remove(client);
+        if (roomSince != null) {
+            roomQueue.remove(client);
+            recordQueueWait(client, "room", "left", roomSince);
+        }
     }
 
     private void matchLoop() {
@@ -40,15 +146,178 @@ public class Matchmaker {
         while (waitingQueue.size() >= 2) {
             ClientHandler p1 = waitingQueue.poll();
             ClientHandler p2 = waitingQueue.poll();
+            if (p1 != null) recordQueueWait(p1, "duel", "matched", queuedAt.remove(p1));
+            if (p2 != null) recordQueueWait(p2, "duel", "matched", queuedAt.remove(p2));
             if (p1 == null || p2 == null) continue;
 
-            sessionManager.createSessionSafely(p1, p2, DEFAULT_TOTAL_ROUNDS, DEFAULT_ROUND_TIME_SECONDS);
+            GameSession session = sessionManager.createSessionSafely(p1, p2, DEFAULT_TOTAL_ROUNDS, DEFAULT_ROUND_TIME_SECONDS);
+            if (session != null) session.beginGame();
         }
+        try {
+            matchLoneWithBot();
+        } catch (Exception ex) {
+            System.err.println("[Matchmaker] bot match failed: " + ex.getMessage());
+        }
+        try {
+            offerLoneToSharedPool();
+        } catch (Exception ex) {
+            System.err.println("[Matchmaker] shared pool offer failed: " + ex.getMessage());
+        }
+        try {
+            fillRooms();
+        } catch (Exception ex) {
+            System.err.println("[Matchmaker] fillRooms failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * A single player who waited past the bot threshold plays an unranked match against a bot.
+     * In a cluster, lone players move to the pool host first, so bots only fill in once no node has a human.
+     */
+    private void matchLoneWithBot() {
+        BotPool pool = botPool;
+        ClientHandler lone = waitingQueue.peek();
+        if (pool == null || lone == null || waitingQueue.size() != 1) return;
+        Long since = queuedAt.get(lone);
+        if (since == null || System.currentTimeMillis() - since < pool.getQueueWaitMs()) return;
+
+        BotPlayer bot = pool.createBot();
+        if (bot == null) return;
+        if (!waitingQueue.remove(lone)) {
+            bot.disconnect();
+            return;
+        }
+        queuedAt.remove(lone);
+        GameSession session = sessionManager.createSessionSafely(lone, bot, DEFAULT_TOTAL_ROUNDS, DEFAULT_ROUND_TIME_SECONDS);
+        if (session != null) {
+            recordQueueWait(lone, "duel", "bot", since);
+            session.beginGame();
+            System.out.println("[Matchmaker] " + lone.getUsername() + " matched with bot " + bot.getUsername() + " after "
+                    + (System.currentTimeMillis() - since) / 1000 + "s");
+        } else {
+            bot.disconnect();
+            waitingQueue.offer(lone);
+            queuedAt.put(lone, since);
+        }
+    }
+
+    /**
+     * Called when a player handed to the shared pool got seated in a session on another node.
+     */
+    public void onPoolMatched(ClientHandler client) {
+        pooledRemotely.remove(client);
+        recordQueueWait(client, "duel", "pool_matched", queuedAt.remove(client));
+    }
+
+    /**
+     * A single local player with nobody to pair with here is moved to the pool host, where queued players from
+     * every node meet. The pool host keeps its own players and pairs them with the arrivals.
+     */
+    private void offerLoneToSharedPool() {
+        ClusterNode cluster = clusterNode;
+        ClientHandler lone = waitingQueue.peek();
+        if (cluster == null || lone == null || waitingQueue.size() != 1 || lone instanceof RemoteClientHandler) {
+            loneSinceMs = 0L;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (loneSinceMs == 0L) {
+            loneSinceMs = now;
+            return;
+        }
+        if (now - loneSinceMs < SHARED_POOL_DELAY_MS) return;
+        loneSinceMs = 0L;
+        if (!waitingQueue.remove(lone)) return;
+        // mark before sending so a fast GAME_BOUND reply finds the entry to clear
+        pooledRemotely.add(lone);
+        if (cluster.offerToPool(lone)) {
+            System.out.println("[Matchmaker] " + lone.getUsername() + " moved to shared pool on " + cluster.poolHostId());
+        } else {
+            pooledRemotely.remove(lone);
+            waitingQueue.offer(lone);
+        }
+    }
+
+    /**
+     * Start full rooms right away; start a partial room once its oldest entrant waited roomFillWaitMs.
+     */
+    private void fillRooms() {
+        while (true) {
+            int queued = roomJoinedAt.size();
+            if (queued < GameSession.MIN_ROOM_SIZE) return;
+
+            // oldest entrants first: someone put back after a failed start keeps the place their wait earned
+            List<ClientHandler> byWait = new ArrayList<>(roomQueue);
+            byWait.sort(Comparator.comparingLong(c -> roomJoinedAt.getOrDefault(c, Long.MAX_VALUE)));
+            Long since = byWait.isEmpty() ? null : roomJoinedAt.get(byWait.get(0));
+            boolean waitedLongEnough = since != null && System.currentTimeMillis() - since >= roomFillWaitMs;
+            if (queued < roomSize && !waitedLongEnough) return;
+
+            List<ClientHandler> room = new ArrayList<>(roomSize);
+            List<Long> joinedAt = new ArrayList<>(roomSize);
+            for (ClientHandler c : byWait) {
+                if (room.size() >= roomSize) break;
+                roomQueue.remove(c);
+                Long joined = roomJoinedAt.remove(c);
+                if (joined != null) {
+                    room.add(c);
+                    joinedAt.add(joined);
+                }
+            }
+            if (room.size() < GameSession.MIN_ROOM_SIZE) {
+                // lost entrants to a concurrent leave; put the rest back with their original wait
+                for (int i = 0; i < room.size(); i++) requeueRoomEntrant(room.get(i), joinedAt.get(i));
+                return;
+            }
+
+            GameSession session = sessionManager.createRoomSafely(room, GameSession.ScoringMode.RANKED,
+                    DEFAULT_TOTAL_ROUNDS, DEFAULT_ROUND_TIME_SECONDS);
+            if (session == null) {
+                // an entrant was already seated elsewhere or went away: drop only those, the rest keep their place
+                // and are retried on the next tick
+                for (int i = 0; i < room.size(); i++) {
+                    ClientHandler c = room.get(i);
+                    if (c.getCurrentGame() == null && c.isAlive(Long.MAX_VALUE)) {
+                        requeueRoomEntrant(c, joinedAt.get(i));
+                    } else {
+                        recordQueueWait(c, "room", "dropped", joinedAt.get(i));
+                    }
+                }
+                return;
+            }
+            for (int i = 0; i < room.size(); i++) recordQueueWait(room.get(i), "room", "matched", joinedAt.get(i));
+            session.beginGame();
+            System.out.println("[Matchmaker] Room " + session.getSessionId() + " started with " + room.size() + " players");
+        }
+    }
+
+    private void requeueRoomEntrant(ClientHandler client, long joinedAt) {
+        if (roomJoinedAt.putIfAbsent(client, joinedAt) == null) {
+            roomQueue.offer(client);
+        }
+    }
+
+    /**
+     * JFR: how long a player sat in a queue before leaving it, whichever way they left.
+     */
+    private static void recordQueueWait(ClientHandler client, String queue, String outcome, Long since) {
+        if (since == null) return;
+        QueueWaitEvent event = new QueueWaitEvent();
+        if (!event.shouldCommit()) return;
+        event.username = client.getUsername();
+        event.queue = queue;
+        event.outcome = outcome;
+        event.waitMs = System.currentTimeMillis() - since;
+        event.commit();
     }
 
     public void shutdown() {
         running = false;
         scheduler.shutdownNow();
         waitingQueue.clear();
+        queuedAt.clear();
+        roomQueue.clear();
+        roomJoinedAt.clear();
+        pooledRemotely.clear();
     }
 }
@@ -0,0 +1,81 @@
+package com.mathspeed.application.game;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * NEW_ROUND message pre-encoded at match start. Everything except the three timestamps is fixed once the puzzle is
+ * known, so the static head is written into the buffer up front and {@link #encode} only appends the timestamps.
+ *
+ * The buffer is reused for every send; callers must write it out before encoding again (the session thread does).
+ * Produces the same JSON, field for field, as the map-based encoding it replaces.
+ */
+final class NewRoundFrame {
+    private static final byte[] ROUND_END_KEY = ",\"server_round_end\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SERVER_TIME_KEY = ",\"server_time\":".getBytes(StandardCharsets.US_ASCII);
+    // three longs (up to 20 chars each), the two keys above, closing brace and newline
+    private static final int TAIL_CAPACITY = 3 * 20 + ROUND_END_KEY.length + SERVER_TIME_KEY.length + 2;
+
+    private final int target;
+    private final byte[] buf;
+    private final int headLength;
+
+    NewRoundFrame(int roundNumber, int difficulty, int target, long timeSeconds,
+                  long matchSeed, long roundSeed, int roundIndex) {
+        this.target = target;
+        String head = "{\"type\":\"NEW_ROUND\""
+                + ",\"round\":" + roundNumber
+                + ",\"difficulty\":" + difficulty
+                + ",\"target\":" + target
+                + ",\"time\":" + timeSeconds
+                + ",\"seed\":" + matchSeed
+                + ",\"round_seed\":" + roundSeed
+                + ",\"round_index\":" + roundIndex
+                + ",\"server_round_start\":";
+        byte[] headBytes = head.getBytes(StandardCharsets.US_ASCII);
+        this.headLength = headBytes.length;
+        this.buf = new byte[headLength + TAIL_CAPACITY];
+        System.arraycopy(headBytes, 0, buf, 0, headLength);
+    }
+
+    int getTarget() {
+        return target;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    /**
+     * Patch the timestamps in; returns the frame length including the trailing newline.
+     */
+    int encode(long serverRoundStartMs, long serverRoundEndMs, long serverTimeMs) {
+        int pos = writeLong(headLength, serverRoundStartMs);
+        System.arraycopy(ROUND_END_KEY, 0, buf, pos, ROUND_END_KEY.length);
+        pos = writeLong(pos + ROUND_END_KEY.length, serverRoundEndMs);
+        System.arraycopy(SERVER_TIME_KEY, 0, buf, pos, SERVER_TIME_KEY.length);
+        pos = writeLong(pos + SERVER_TIME_KEY.length, serverTimeMs);
+        buf[pos++] = '}';
+        buf[pos++] = '\n';
+        return pos;
+    }
+
+    private int writeLong(int pos, long v) {
+        if (v == Long.MIN_VALUE) {
+            byte[] min = Long.toString(v).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(min, 0, buf, pos, min.length);
+            return pos + min.length;
+        }
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) digits++;
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        }
+        return end;
+    }
+}
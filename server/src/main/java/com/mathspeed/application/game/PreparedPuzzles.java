@@ -0,0 +1,33 @@
+package com.mathspeed.application.game;
+
+import com.mathspeed.domain.puzzle.MathPuzzleFormat;
+
+import java.util.List;
+
+/**
+ * A match's puzzle set and NEW_ROUND frames generated ahead of the session, so a session built from it skips the
+ * generation pass in beginGame. Built by {@link GameSession#preparePuzzles}; owned by one session once handed over.
+ */
+final class PreparedPuzzles {
+    private final long matchSeed;
+    private final long questionTimeoutSeconds;
+    private final List<Integer> difficulties;
+    private final List<MathPuzzleFormat> puzzles;
+    private final NewRoundFrame[] frames;
+
+    PreparedPuzzles(long matchSeed, long questionTimeoutSeconds, List<Integer> difficulties,
+                    List<MathPuzzleFormat> puzzles, NewRoundFrame[] frames) {
+        this.matchSeed = matchSeed;
+        this.questionTimeoutSeconds = questionTimeoutSeconds;
+        this.difficulties = difficulties;
+        this.puzzles = puzzles;
+        this.frames = frames;
+    }
+
+    long getMatchSeed() { return matchSeed; }
+    long getQuestionTimeoutSeconds() { return questionTimeoutSeconds; }
+    List<Integer> getDifficulties() { return difficulties; }
+    int getRounds() { return puzzles.size(); }
+    List<MathPuzzleFormat> getPuzzles() { return puzzles; }
+    NewRoundFrame[] getFrames() { return frames; }
+}
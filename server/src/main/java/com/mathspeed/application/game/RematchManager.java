@@ -0,0 +1,230 @@
+package com.mathspeed.application.game;
+
+import com.mathspeed.adapter.cluster.RemoteClientHandler;
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.protocol.MessageType;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fast rematch for finished 1v1 matches. The pair is kept warm for {@link #WINDOW_MS} after GAME_OVER while the
+ * next puzzle set is generated in the background; once both sides agree the new session starts right away with a
+ * short countdown, and no presence broadcast is sent for either end of the gap.
+ *
+ * Protocol (client -> server):
+ *   REMATCH_REQUEST                    propose a rematch, or accept one the opponent proposed
+ *   REMATCH_RESPONSE accept|decline    answer the opponent's proposal
+ * Server -> client:
+ *   REMATCH_REQUEST|<from>|<ms_left>   the opponent proposed a rematch
+ *   REMATCH_RESPONSE|accepted|<countdown_ms>, REMATCH_RESPONSE|declined|<by>, REMATCH_RESPONSE|expired
+ */
+public class RematchManager {
+    public static final long WINDOW_MS = 15_000L;
+    public static final int REMATCH_COUNTDOWN_MS = 1_500;
+
+    private static final class Offer {
+        final ClientHandler[] pair;
+        final GameSession.ScoringMode scoringMode;
+        final int totalRounds;
+        final long questionTimeoutSeconds;
+        final long nextSeed;
+        final List<Integer> difficulties;
+        final long expiresAtMs;
+        final boolean[] wants = new boolean[2];
+        volatile Future<PreparedPuzzles> prepared;
+        ScheduledFuture<?> expiry;
+        boolean closed;
+
+        Offer(ClientHandler a, ClientHandler b, GameSession previous, long nextSeed, List<Integer> difficulties,
+              long expiresAtMs) {
+            this.pair = new ClientHandler[] { a, b };
+            this.scoringMode = previous.getScoringMode();
+            this.totalRounds = previous.getTotalRounds();
+            this.questionTimeoutSeconds = previous.getQuestionTimeoutSeconds();
+            this.nextSeed = nextSeed;
+            this.difficulties = difficulties;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        int seatOf(ClientHandler c) {
+            return pair[0] == c ? 0 : pair[1] == c ? 1 : -1;
+        }
+    }
+
+    private final GameSessionManager sessionManager;
+    private final Map<ClientHandler, Offer> offers = new ConcurrentHashMap<>();
+    private final SecureRandom seeds = new SecureRandom();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "RematchManager");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RematchManager(GameSessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+        sessionManager.setRematchManager(this);
+    }
+
+    /**
+     * Called on the session thread when a match ends. Returns true if the pair is held for a rematch, in which case
+     * the caller leaves presence alone until the window closes.
+     */
+    boolean holdForRematch(GameSession session) {
+        List<ClientHandler> players = session.getPlayers();
+        if (players.size() != 2) return false;
+        ClientHandler a = players.get(0);
+        ClientHandler b = players.get(1);
+        if (!eligible(a) || !eligible(b)) return false;
+
+        long now = System.currentTimeMillis();
+        List<Integer> difficulties = sessionManager.planDifficulties(players, session.getScoringMode(),
+                session.getTotalRounds(), session.getQuestionTimeoutSeconds());
+        Offer offer = new Offer(a, b, session, seeds.nextLong(), difficulties, now + WINDOW_MS);
+        synchronized (offer) {
+            offers.put(a, offer);
+            offers.put(b, offer);
+            offer.prepared = worker.submit(() ->
+                    GameSession.preparePuzzles(offer.nextSeed, offer.totalRounds, offer.questionTimeoutSeconds,
+                            offer.difficulties));
+            offer.expiry = worker.schedule(() -> expire(offer), WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private boolean eligible(ClientHandler c) {
+        return c != null && !c.isBot() && !(c instanceof RemoteClientHandler)
+                && c.getPlayer() != null && c.getCurrentGame() == null;
+    }
+
+    /**
+     * REMATCH_REQUEST (accept=true) or REMATCH_RESPONSE from a client. Accepting proposes the rematch, or starts it
+     * if the opponent already asked.
+     */
+    public void respond(ClientHandler client, boolean accept) {
+        Offer offer = offers.get(client);
+        if (offer == null) {
+            client.sendType(MessageType.REMATCH_RESPONSE, "expired");
+            return;
+        }
+        ClientHandler opponent;
+        boolean start = false;
+        synchronized (offer) {
+            int seat = offer.seatOf(client);
+            if (offer.closed || seat < 0) {
+                client.sendType(MessageType.REMATCH_RESPONSE, "expired");
+                return;
+            }
+            opponent = offer.pair[1 - seat];
+            if (!accept) {
+                closeOffer(offer);
+            } else {
+                if (offer.wants[seat]) return;
+                offer.wants[seat] = true;
+                start = offer.wants[1 - seat];
+                if (start) closeOffer(offer);
+            }
+        }
+
+        if (!accept) {
+            notifyBoth(offer, "declined|" + client.getUsername());
+            System.out.println("[RematchManager] " + client.getUsername() + " declined rematch");
+            worker.execute(sessionManager::broadcastPresence);
+            return;
+        }
+
+        if (!start) {
+            long msLeft = Math.max(0L, offer.expiresAtMs - System.currentTimeMillis());
+            opponent.sendType(MessageType.REMATCH_REQUEST, client.getUsername() + "|" + msLeft);
+            return;
+        }
+        startRematch(offer);
+    }
+
+    /**
+     * A player disconnected or went elsewhere: the offer is withdrawn and the opponent told so.
+     */
+    public void withdraw(ClientHandler client) {
+        Offer offer = offers.get(client);
+        if (offer == null) return;
+        synchronized (offer) {
+            if (offer.closed) return;
+            closeOffer(offer);
+        }
+        ClientHandler opponent = offer.pair[1 - Math.max(0, offer.seatOf(client))];
+        try {
+            opponent.sendType(MessageType.REMATCH_RESPONSE, "declined|" + client.getUsername());
+        } catch (Exception ignored) {
+        }
+        worker.execute(sessionManager::broadcastPresence);
+    }
+
+    private void startRematch(Offer offer) {
+        PreparedPuzzles puzzles = null;
+        Future<PreparedPuzzles> pending = offer.prepared;
+        if (pending != null && pending.isDone() && !pending.isCancelled()) {
+            try {
+                puzzles = pending.get();
+            } catch (Exception ex) {
+                System.err.println("[RematchManager] puzzle pre-generation failed: " + ex.getMessage());
+            }
+        }
+        // not ready yet: the session generates the same set itself from the seed
+        GameSession session = sessionManager.createRematchSession(List.of(offer.pair), offer.scoringMode,
+                offer.totalRounds, offer.questionTimeoutSeconds, offer.nextSeed, offer.difficulties, puzzles);
+        if (session == null) {
+            notifyBoth(offer, "expired");
+            sessionManager.broadcastPresence();
+            return;
+        }
+        session.setInitialCountdownMs(REMATCH_COUNTDOWN_MS);
+        notifyBoth(offer, "accepted|" + REMATCH_COUNTDOWN_MS);
+        session.beginGame();
+        System.out.println("[RematchManager] Rematch " + session.getSessionId() + " started: "
+                + offer.pair[0].getUsername() + " vs " + offer.pair[1].getUsername()
+                + (puzzles != null ? " (pre-generated)" : ""));
+    }
+
+    private void expire(Offer offer) {
+        synchronized (offer) {
+            if (offer.closed) return;
+            closeOffer(offer);
+        }
+        notifyBoth(offer, "expired");
+        sessionManager.broadcastPresence();
+    }
+
+    /**
+     * Drop the offer from the index; the caller holds the offer's lock.
+     */
+    private void closeOffer(Offer offer) {
+        if (offer.closed) return;
+        offer.closed = true;
+        offers.remove(offer.pair[0], offer);
+        offers.remove(offer.pair[1], offer);
+        if (offer.expiry != null) offer.expiry.cancel(false);
+        Future<PreparedPuzzles> pending = offer.prepared;
+        if (pending != null && !pending.isDone()) pending.cancel(false);
+    }
+
+    private void notifyBoth(Offer offer, String payload) {
+        for (ClientHandler c : offer.pair) {
+            try {
+                c.sendType(MessageType.REMATCH_RESPONSE, payload);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+        offers.clear();
+    }
+}
@@ -0,0 +1,84 @@
+package com.mathspeed.application.ghost;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.protocol.MessageType;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.domain.model.GhostReplay;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.puzzle.MathPuzzleSolver;
+
+/**
+ * Seat filled by a recorded run. The match uses the recording's seed, so every puzzle is the one the original
+ * player saw; on each NEW_ROUND the ghost books its answer on the session's own scheduler at the recorded time.
+ * Rounds the original player did not solve stay unanswered.
+ */
+public class GhostPlayer extends ClientHandler {
+    private final GhostReplay replay;
+    private boolean readySent;
+
+    public GhostPlayer(GhostReplay replay) {
+        super(null, null, null, null);
+        this.replay = replay;
+        String name = replay.getDisplayName() != null ? replay.getDisplayName() : "player";
+        Player p = new Player("ghost_" + name, null);
+        p.setId("ghost-" + replay.getPlayerId());
+        p.setDisplayName(name + " (Ghost)");
+        bindPlayer(p);
+    }
+
+    public GhostReplay getReplay() {
+        return replay;
+    }
+
+    @Override
+    public boolean isBot() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlive(long timeoutMillis) {
+        return true;
+    }
+
+    @Override
+    public long getOneWayDelayMs() {
+        return 0L;
+    }
+
+    @Override
+    public long getJitterMs() {
+        return 0L;
+    }
+
+    @Override
+    public void sendType(MessageType type, String payload) {
+    }
+
+    // called on the session thread
+    @Override
+    public void sendMessage(String message) {
+        GameSession session = getCurrentGame();
+        if (session == null || message == null) return;
+        if (message.startsWith("{\"type\":\"NEW_ROUND\"")) {
+            int roundIndex = (int) longField(message, "\"round_index\":");
+            long[] times = replay.getSolveMs();
+            if (roundIndex < 0 || roundIndex >= times.length || times[roundIndex] < 0) return;
+            int target = (int) longField(message, "\"target\":");
+            long opensIn = longField(message, "\"server_round_start\":") - longField(message, "\"server_time\":");
+            session.scheduleAnswer(this, MathPuzzleSolver.solve(target), Math.max(0L, opensIn) + times[roundIndex]);
+        } else if (!readySent && message.startsWith("{\"type\":\"MATCH_START_INFO\"")) {
+            readySent = true;
+            session.handleReady(this);
+        }
+    }
+
+    private static long longField(String json, String key) {
+        int i = json.indexOf(key);
+        if (i < 0) return 0L;
+        i += key.length();
+        int end = i;
+        if (end < json.length() && json.charAt(end) == '-') end++;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+        return end > i ? Long.parseLong(json.substring(i, end)) : 0L;
+    }
+}
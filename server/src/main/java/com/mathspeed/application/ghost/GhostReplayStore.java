@@ -0,0 +1,82 @@
+package com.mathspeed.application.ghost;
+
+import com.mathspeed.domain.model.GhostReplay;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of ghost replays: by match seed (one entry per seed and player) and by rating for
+ * opponent lookup. Bounded; the oldest replays are evicted first.
+ */
+public class GhostReplayStore {
+    private final int capacity;
+    private final Map<Long, List<GhostReplay>> bySeed = new HashMap<>();
+    private final NavigableMap<Integer, List<GhostReplay>> byRating = new TreeMap<>();
+    private final ArrayDeque<GhostReplay> insertionOrder = new ArrayDeque<>();
+
+    public GhostReplayStore(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public synchronized int size() {
+        return insertionOrder.size();
+    }
+
+    /**
+     * Returns false if a replay of the same player for the same seed is already stored.
+     */
+    public synchronized boolean add(GhostReplay replay) {
+        List<GhostReplay> sameSeed = bySeed.computeIfAbsent(replay.getMatchSeed(), k -> new ArrayList<>(2));
+        for (GhostReplay r : sameSeed) {
+            if (r.getPlayerId().equals(replay.getPlayerId())) return false;
+        }
+        sameSeed.add(replay);
+        byRating.computeIfAbsent(replay.getRating(), k -> new ArrayList<>(4)).add(replay);
+        insertionOrder.addLast(replay);
+        while (insertionOrder.size() > capacity) remove(insertionOrder.pollFirst());
+        return true;
+    }
+
+    public synchronized List<GhostReplay> forSeed(long matchSeed) {
+        List<GhostReplay> list = bySeed.get(matchSeed);
+        return list != null ? new ArrayList<>(list) : Collections.emptyList();
+    }
+
+    /**
+     * A replay by someone else within {@code window} rating points, picked at random among the closest few.
+     */
+    public synchronized GhostReplay findNear(int rating, String excludePlayerId, int window, Random random) {
+        List<GhostReplay> candidates = new ArrayList<>();
+        for (List<GhostReplay> bucket : byRating.subMap(rating - window, true, rating + window, true).values()) {
+            for (GhostReplay r : bucket) {
+                if (!r.getPlayerId().equals(excludePlayerId)) candidates.add(r);
+            }
+        }
+        if (candidates.isEmpty()) return null;
+        candidates.sort((a, b) -> Integer.compare(Math.abs(a.getRating() - rating), Math.abs(b.getRating() - rating)));
+        int pickFrom = Math.min(candidates.size(), 8);
+        return candidates.get(random.nextInt(pickFrom));
+    }
+
+    private void remove(GhostReplay replay) {
+        if (replay == null) return;
+        List<GhostReplay> sameSeed = bySeed.get(replay.getMatchSeed());
+        if (sameSeed != null) {
+            sameSeed.remove(replay);
+            if (sameSeed.isEmpty()) bySeed.remove(replay.getMatchSeed());
+        }
+        List<GhostReplay> bucket = byRating.get(replay.getRating());
+        if (bucket != null) {
+            bucket.remove(replay);
+            if (bucket.isEmpty()) byRating.remove(replay.getRating());
+        }
+    }
+}
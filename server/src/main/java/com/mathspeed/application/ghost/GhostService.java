@@ -0,0 +1,150 @@
+package com.mathspeed.application.ghost;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.application.game.GameSessionManager;
+import com.mathspeed.domain.model.GhostReplay;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.port.GameHistoryRepository;
+import com.mathspeed.domain.port.GhostReplayRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Asynchronous matches: records every human's run in finished ranked matches and lets a player start
+ * right away against the recording of someone with a similar rating, on the same puzzles.
+ */
+public class GhostService {
+    private static final int STORE_CAPACITY = 20_000;
+    private static final int WARMUP_ROWS = 5_000;
+    private static final int MIN_SOLVED_ROUNDS = 1;
+    private static final int[] RATING_WINDOWS = {50, 150, 400, 1000};
+
+    private final GhostReplayRepository replayRepository;
+    private final GameHistoryRepository historyRepository;
+    private final GameSessionManager sessionManager;
+    private final GhostReplayStore store = new GhostReplayStore(STORE_CAPACITY);
+    private final Random random = new Random();
+    // recording and database work; session threads only hand snapshots over
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "GhostService");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public GhostService(GhostReplayRepository replayRepository,
+                        GameHistoryRepository historyRepository,
+                        GameSessionManager sessionManager) {
+        this.replayRepository = replayRepository;
+        this.historyRepository = historyRepository;
+        this.sessionManager = sessionManager;
+        sessionManager.addSessionFinishedListener(this::onSessionFinished);
+        worker.execute(this::warmUp);
+    }
+
+    public int getStoredReplays() {
+        return store.size();
+    }
+
+    /**
+     * Start a ghost match for {@code client}. Returns false if no suitable recording exists.
+     */
+    public boolean startGhostMatch(ClientHandler client) {
+        Player player = client.getPlayer();
+        if (player == null || client.getCurrentGame() != null) return false;
+        int rating = safeRating(player.getId());
+
+        GhostReplay replay = null;
+        synchronized (random) {
+            for (int window : RATING_WINDOWS) {
+                replay = store.findNear(rating, player.getId(), window, random);
+                if (replay != null) break;
+            }
+        }
+        if (replay == null) return false;
+
+        GhostPlayer ghost = new GhostPlayer(replay);
+        GameSession session = sessionManager.createSeededSessionSafely(List.of(client, ghost),
+                GameSession.ScoringMode.FIRST_CORRECT, replay.getTotalRounds(), replay.getQuestionTimeoutSeconds(),
+                replay.getMatchSeed(), difficultyList(replay.getDifficulties()));
+        if (session == null) return false;
+        session.beginGame();
+        System.out.println("[GhostService] " + player.getUsername() + " (" + rating + ") vs ghost of "
+                + replay.getDisplayName() + " (" + replay.getRating() + ")");
+        return true;
+    }
+
+    /**
+     * Runs on the finished session's thread: snapshot the timelines here, rate and store them on the worker.
+     */
+    private void onSessionFinished(GameSession session) {
+        List<ClientHandler> seats = session.getPlayers();
+        for (ClientHandler seat : seats) {
+            if (seat.isBot()) return; // unranked; also keeps ghosts of ghosts out
+        }
+        List<GhostReplay> replays = new ArrayList<>(seats.size());
+        int[] levels = session.getDifficultySequence().stream().mapToInt(Integer::intValue).toArray();
+        for (int i = 0; i < seats.size(); i++) {
+            Player p = seats.get(i).getPlayer();
+            if (p == null || p.getId() == null) continue;
+            GhostReplay r = new GhostReplay(session.getMatchSeed(), p.getId(),
+                    p.getDisplayName() != null ? p.getDisplayName() : p.getUsername(), 0,
+                    (int) session.getQuestionTimeoutSeconds(), session.getSolveTimeline(i));
+            r.setDifficulties(levels);
+            if (r.getSolvedRounds() >= MIN_SOLVED_ROUNDS) replays.add(r);
+        }
+        if (replays.isEmpty()) return;
+        try {
+            worker.execute(() -> record(replays));
+        } catch (RejectedExecutionException ignored) {
+            // shutting down
+        }
+    }
+
+    private static List<Integer> difficultyList(int[] levels) {
+        if (levels == null) return null;
+        List<Integer> out = new ArrayList<>(levels.length);
+        for (int level : levels) out.add(level);
+        return out;
+    }
+
+    private void record(List<GhostReplay> replays) {
+        for (GhostReplay r : replays) {
+            r.setRating(safeRating(r.getPlayerId()));
+            if (!store.add(r)) continue;
+            try {
+                replayRepository.saveReplay(r);
+            } catch (Exception ex) {
+                System.err.println("[GhostService] failed to save replay of " + r.getPlayerId() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private void warmUp() {
+        try {
+            List<GhostReplay> recent = replayRepository.findRecent(WARMUP_ROWS);
+            // oldest first so the newest survive eviction
+            for (int i = recent.size() - 1; i >= 0; i--) store.add(recent.get(i));
+            System.out.println("[GhostService] loaded " + store.size() + " replays");
+        } catch (Exception ex) {
+            System.err.println("[GhostService] could not load replays: " + ex.getMessage());
+        }
+    }
+
+    private int safeRating(String playerId) {
+        try {
+            return historyRepository.getRating(playerId);
+        } catch (Exception ex) {
+            return 1500;
+        }
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,157 @@
+package com.mathspeed.application.tournament;
+
+import com.mathspeed.domain.model.TournamentEntrant;
+import com.mathspeed.domain.model.TournamentPairing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pure pairing logic for both formats; no I/O so the scheduler can call it under its own lock.
+ */
+public final class BracketSeeder {
+    public static final int WIN_POINTS = 2;
+    public static final int DRAW_POINTS = 1;
+
+    private BracketSeeder() {
+    }
+
+    /**
+     * Sort by rating (highest first) and assign seeds 1..n.
+     */
+    public static void assignSeeds(List<TournamentEntrant> entrants) {
+        entrants.sort(Comparator.comparingInt(TournamentEntrant::getRating).reversed()
+                .thenComparing(TournamentEntrant::getUsername, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (int i = 0; i < entrants.size(); i++) entrants.get(i).setSeed(i + 1);
+    }
+
+    public static int eliminationRounds(int entrants) {
+        int rounds = 0;
+        while ((1 << rounds) < entrants) rounds++;
+        return Math.max(1, rounds);
+    }
+
+    public static int swissRounds(int entrants) {
+        return eliminationRounds(entrants);
+    }
+
+    /**
+     * Standard bracket order for a power-of-two size: 1,8,4,5,2,7,3,6 for 8, so seeds 1 and 2 can only meet in the final.
+     */
+    static int[] bracketOrder(int size) {
+        int[] order = {1};
+        while (order.length < size) {
+            int len = order.length * 2;
+            int[] next = new int[len];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = len + 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    /**
+     * First elimination round; the bracket is padded to a power of two and the padding becomes byes for top seeds.
+     * Entrants must already be seeded.
+     */
+    public static List<TournamentPairing> firstEliminationRound(String tournamentId, List<TournamentEntrant> seeded) {
+        int n = seeded.size();
+        int size = 1 << eliminationRounds(n);
+        Map<Integer, TournamentEntrant> bySeed = new HashMap<>();
+        for (TournamentEntrant e : seeded) bySeed.put(e.getSeed(), e);
+
+        int[] order = bracketOrder(size);
+        List<TournamentPairing> pairings = new ArrayList<>(size / 2);
+        for (int slot = 0; slot < size / 2; slot++) {
+            TournamentEntrant a = bySeed.get(order[2 * slot]);
+            TournamentEntrant b = bySeed.get(order[2 * slot + 1]);
+            // top half of order always holds the better seed, so a is never padding
+            pairings.add(new TournamentPairing(tournamentId, 1, slot, a.getPlayerId(), b != null ? b.getPlayerId() : null));
+        }
+        return pairings;
+    }
+
+    /**
+     * Winners of slots 2k and 2k+1 meet in slot k of the next round.
+     */
+    public static List<TournamentPairing> nextEliminationRound(String tournamentId, int round, List<TournamentPairing> previous) {
+        List<TournamentPairing> sorted = new ArrayList<>(previous);
+        sorted.sort(Comparator.comparingInt(TournamentPairing::getSlot));
+        List<TournamentPairing> next = new ArrayList<>(sorted.size() / 2);
+        for (int i = 0; i + 1 < sorted.size(); i += 2) {
+            String a = sorted.get(i).getWinnerId();
+            String b = sorted.get(i + 1).getWinnerId();
+            if (a == null) {
+                a = b;
+                b = null;
+            }
+            if (a == null) continue;
+            next.add(new TournamentPairing(tournamentId, round, i / 2, a, b));
+        }
+        return next;
+    }
+
+    /**
+     * Swiss pairing: rank by points then rating, give one bye to the lowest-ranked player without one,
+     * then pair greedily top-down while avoiding rematches where possible.
+     */
+    public static List<TournamentPairing> swissRound(String tournamentId, int round,
+                                                     List<TournamentEntrant> entrants,
+                                                     List<TournamentPairing> history) {
+        List<TournamentEntrant> ranked = new ArrayList<>(entrants);
+        ranked.sort(Comparator.comparingInt(TournamentEntrant::getPoints).reversed()
+                .thenComparing(Comparator.comparingInt(TournamentEntrant::getRating).reversed())
+                .thenComparingInt(TournamentEntrant::getSeed));
+
+        Set<String> played = new HashSet<>();
+        for (TournamentPairing p : history) {
+            if (p.getPlayerB() == null) continue;
+            played.add(pairKey(p.getPlayerA(), p.getPlayerB()));
+        }
+
+        List<TournamentPairing> pairings = new ArrayList<>();
+        int slot = 0;
+        if (ranked.size() % 2 == 1) {
+            int byeIndex = ranked.size() - 1;
+            for (int i = ranked.size() - 1; i >= 0; i--) {
+                if (!ranked.get(i).isHadBye()) {
+                    byeIndex = i;
+                    break;
+                }
+            }
+            TournamentEntrant bye = ranked.remove(byeIndex);
+            pairings.add(new TournamentPairing(tournamentId, round, slot++, bye.getPlayerId(), null));
+        }
+
+        boolean[] used = new boolean[ranked.size()];
+        for (int i = 0; i < ranked.size(); i++) {
+            if (used[i]) continue;
+            used[i] = true;
+            String a = ranked.get(i).getPlayerId();
+            int opponent = -1;
+            for (int j = i + 1; j < ranked.size(); j++) {
+                if (used[j]) continue;
+                if (opponent < 0) opponent = j; // fallback: nearest unpaired even if it is a rematch
+                if (!played.contains(pairKey(a, ranked.get(j).getPlayerId()))) {
+                    opponent = j;
+                    break;
+                }
+            }
+            if (opponent < 0) break;
+            used[opponent] = true;
+            pairings.add(new TournamentPairing(tournamentId, round, slot++, a, ranked.get(opponent).getPlayerId()));
+        }
+        return pairings;
+    }
+
+    private static String pairKey(String a, String b) {
+        return a.compareTo(b) < 0 ? a + '|' + b : b + '|' + a;
+    }
+}
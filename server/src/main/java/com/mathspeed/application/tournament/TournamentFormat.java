@@ -0,0 +1,23 @@
+package com.mathspeed.application.tournament;
+
+public enum TournamentFormat {
+    SINGLE_ELIMINATION("single_elimination"),
+    SWISS("swiss");
+
+    private final String dbValue;
+
+    TournamentFormat(String dbValue) {
+        this.dbValue = dbValue;
+    }
+
+    public String dbValue() {
+        return dbValue;
+    }
+
+    public static TournamentFormat fromDb(String value) {
+        for (TournamentFormat f : values()) {
+            if (f.dbValue.equalsIgnoreCase(value) || f.name().equalsIgnoreCase(value)) return f;
+        }
+        throw new IllegalArgumentException("Unknown tournament format: " + value);
+    }
+}
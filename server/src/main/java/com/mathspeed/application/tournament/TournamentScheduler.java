@@ -0,0 +1,413 @@
+package com.mathspeed.application.tournament;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.ClientRegistry;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.application.game.GameSessionManager;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.model.Tournament;
+import com.mathspeed.domain.model.TournamentEntrant;
+import com.mathspeed.domain.model.TournamentPairing;
+import com.mathspeed.domain.port.GameHistoryRepository;
+import com.mathspeed.domain.port.TournamentRepository;
+import com.mathspeed.util.UuidUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tournaments on top of GameSessionManager.
+ *
+ * Each tournament round is started in waves of {@code waveSize} matches spaced {@code waveGapMs} apart, so puzzle
+ * generation, the MATCH_START_INFO burst and the end-of-match DB writes of one round are spread over time instead
+ * of all landing in the same tick. Winners advance when the GameSession reports completion.
+ *
+ * Entrant points are written after every resolved pairing, so a tournament left 'running' by a restart is picked
+ * up from the database: resolved pairings stand, unfinished ones are replayed and the round carries on.
+ */
+public class TournamentScheduler {
+    private static final long DEFAULT_ROUND_TIME_SECONDS = 30;
+    private static final long ROUND_BREAK_MS = 30_000L;
+    // a player busy in another session is retried this many times (one wave gap apart) before forfeiting
+    private static final int MAX_START_ATTEMPTS = 5;
+    // after a restart, entrants get this long to reconnect before their unfinished pairings are replayed
+    private static final long RECOVERY_DELAY_MS = ROUND_BREAK_MS;
+
+    private final TournamentRepository tournamentRepository;
+    private final GameHistoryRepository gameHistoryRepository;
+    private final ClientRegistry clientRegistry;
+    private final GameSessionManager sessionManager;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tournament-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int waveSize;
+    private final long waveGapMs;
+
+    private final Map<String, ActiveTournament> active = new ConcurrentHashMap<>();
+
+    public TournamentScheduler(TournamentRepository tournamentRepository,
+                               GameHistoryRepository gameHistoryRepository,
+                               ClientRegistry clientRegistry,
+                               GameSessionManager sessionManager) {
+        this(tournamentRepository, gameHistoryRepository, clientRegistry, sessionManager, 16, 2_000L);
+    }
+
+    /**
+     * @param waveSize  matches started together in one wave
+     * @param waveGapMs delay between consecutive waves of the same round
+     */
+    public TournamentScheduler(TournamentRepository tournamentRepository,
+                               GameHistoryRepository gameHistoryRepository,
+                               ClientRegistry clientRegistry,
+                               GameSessionManager sessionManager,
+                               int waveSize,
+                               long waveGapMs) {
+        this.tournamentRepository = tournamentRepository;
+        this.gameHistoryRepository = gameHistoryRepository;
+        this.clientRegistry = clientRegistry;
+        this.sessionManager = sessionManager;
+        this.waveSize = Math.max(1, waveSize);
+        this.waveGapMs = Math.max(0L, waveGapMs);
+        rescheduleRegistering();
+        scheduler.schedule(this::recoverRunning, RECOVERY_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public Tournament createTournament(String name, TournamentFormat format, int roundsPerMatch, long startInSeconds) throws Exception {
+        Tournament t = new Tournament(UuidUtil.randomUuid(), name, format.dbValue(), roundsPerMatch);
+        if (startInSeconds > 0) t.setStartsAt(LocalDateTime.now().plusSeconds(startInSeconds));
+        tournamentRepository.insertTournament(t);
+        if (startInSeconds > 0) scheduleStart(t.getId(), startInSeconds * 1000L);
+        System.out.println("[TournamentScheduler] Created " + t);
+        return t;
+    }
+
+    public TournamentEntrant register(String tournamentId, Player player) throws Exception {
+        Tournament t = tournamentRepository.findTournament(tournamentId);
+        if (t == null) throw new IllegalArgumentException("Tournament not found");
+        if (!"registering".equals(t.getStatus())) throw new IllegalStateException("Registration closed");
+
+        TournamentEntrant entrant = new TournamentEntrant(tournamentId, player.getId(), player.getUsername(),
+                gameHistoryRepository.getRating(player.getId()));
+        tournamentRepository.insertEntrant(entrant);
+        return entrant;
+    }
+
+    /**
+     * Seed and start the first round. Runs on the scheduler thread.
+     */
+    public void startTournament(String tournamentId) {
+        scheduler.execute(() -> {
+            try {
+                doStart(tournamentId);
+            } catch (Exception ex) {
+                System.err.println("[TournamentScheduler] Failed to start tournament " + tournamentId + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    private void scheduleStart(String tournamentId, long delayMs) {
+        scheduler.schedule(() -> startTournament(tournamentId), Math.max(0L, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    private void rescheduleRegistering() {
+        try {
+            for (Tournament t : tournamentRepository.findByStatus("registering")) {
+                if (t.getStartsAt() == null) continue;
+                long delay = java.time.Duration.between(LocalDateTime.now(), t.getStartsAt()).toMillis();
+                scheduleStart(t.getId(), delay);
+            }
+        } catch (Exception ex) {
+            System.err.println("[TournamentScheduler] Could not reload scheduled tournaments: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Resume tournaments that were running when the server stopped. Runs on the scheduler thread.
+     */
+    private void recoverRunning() {
+        List<Tournament> running;
+        try {
+            running = tournamentRepository.findByStatus("running");
+        } catch (Exception ex) {
+            System.err.println("[TournamentScheduler] Could not load running tournaments: " + ex.getMessage());
+            return;
+        }
+        for (Tournament t : running) {
+            try {
+                resume(t);
+            } catch (Exception ex) {
+                System.err.println("[TournamentScheduler] Failed to resume tournament " + t.getId() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private void resume(Tournament t) throws Exception {
+        if (active.containsKey(t.getId())) return;
+        // points already include every pairing that was resolved before the restart
+        ActiveTournament at = new ActiveTournament(t, TournamentFormat.fromDb(t.getFormat()),
+                tournamentRepository.getEntrants(t.getId()));
+        int round = t.getCurrentRound();
+        List<TournamentPairing> current = new ArrayList<>();
+        for (TournamentPairing p : tournamentRepository.getPairings(t.getId())) {
+            if (p.getRound() < round) at.history.add(p);
+            else if (p.getRound() == round) current.add(p);
+        }
+        active.put(t.getId(), at);
+
+        if (round < 1 || current.isEmpty()) {
+            // stopped before the round's pairings were written
+            System.out.println("[TournamentScheduler] Resuming " + t.getId() + " at round " + Math.max(1, round));
+            startRound(at, Math.max(1, round));
+            return;
+        }
+        List<TournamentPairing> unfinished = new ArrayList<>();
+        for (TournamentPairing p : current) if (!p.isResolved()) unfinished.add(p);
+        synchronized (at) {
+            at.currentRound = current;
+            at.outstanding = unfinished.size();
+        }
+        System.out.println("[TournamentScheduler] Resuming " + t.getId() + " round " + round + ": replaying "
+                + unfinished.size() + " of " + current.size() + " pairings");
+        if (unfinished.isEmpty()) {
+            onRoundComplete(at);
+            return;
+        }
+        for (TournamentPairing p : unfinished) {
+            // the match it pointed at died with the old process
+            p.setMatchId(null);
+            p.setStatus("pending");
+        }
+        launchInWaves(at, unfinished);
+    }
+
+    private void doStart(String tournamentId) throws Exception {
+        if (active.containsKey(tournamentId)) return;
+        Tournament t = tournamentRepository.findTournament(tournamentId);
+        if (t == null || !"registering".equals(t.getStatus())) return;
+
+        List<TournamentEntrant> entrants = tournamentRepository.getEntrants(tournamentId);
+        if (entrants.size() < 2) {
+            t.setStatus("cancelled");
+            tournamentRepository.updateTournament(t);
+            System.out.println("[TournamentScheduler] Cancelled " + tournamentId + ": not enough entrants");
+            return;
+        }
+
+        BracketSeeder.assignSeeds(entrants);
+        TournamentFormat format = TournamentFormat.fromDb(t.getFormat());
+        t.setTotalRounds(format == TournamentFormat.SWISS
+                ? BracketSeeder.swissRounds(entrants.size())
+                : BracketSeeder.eliminationRounds(entrants.size()));
+        t.setStatus("running");
+        t.setStartsAt(LocalDateTime.now());
+
+        ActiveTournament at = new ActiveTournament(t, format, entrants);
+        active.put(tournamentId, at);
+        tournamentRepository.updateEntrants(entrants);
+        startRound(at, 1);
+    }
+
+    private void startRound(ActiveTournament at, int round) throws Exception {
+        List<TournamentPairing> pairings;
+        synchronized (at) {
+            at.tournament.setCurrentRound(round);
+            if (at.format == TournamentFormat.SWISS) {
+                pairings = BracketSeeder.swissRound(at.tournament.getId(), round, at.entrants(), at.history);
+            } else if (round == 1) {
+                pairings = BracketSeeder.firstEliminationRound(at.tournament.getId(), at.entrants());
+            } else {
+                pairings = BracketSeeder.nextEliminationRound(at.tournament.getId(), round, at.currentRound);
+            }
+            at.currentRound = pairings;
+            at.outstanding = 0;
+            for (TournamentPairing p : pairings) {
+                if (p.isBye()) {
+                    at.entrant(p.getPlayerA()).setPoints(at.entrant(p.getPlayerA()).getPoints() + BracketSeeder.WIN_POINTS);
+                    at.entrant(p.getPlayerA()).setHadBye(true);
+                } else {
+                    at.outstanding++;
+                }
+            }
+        }
+        tournamentRepository.updateTournament(at.tournament);
+        tournamentRepository.insertPairings(pairings);
+        // bye points
+        tournamentRepository.updateEntrants(at.entrants());
+
+        List<TournamentPairing> playable = new ArrayList<>();
+        for (TournamentPairing p : pairings) if (!p.isBye()) playable.add(p);
+        System.out.println("[TournamentScheduler] " + at.tournament.getId() + " round " + round + ": "
+                + playable.size() + " matches in " + ((playable.size() + waveSize - 1) / waveSize) + " waves");
+
+        if (playable.isEmpty()) {
+            onRoundComplete(at);
+            return;
+        }
+        launchInWaves(at, playable);
+    }
+
+    private void launchInWaves(ActiveTournament at, List<TournamentPairing> playable) {
+        for (int i = 0; i < playable.size(); i++) {
+            TournamentPairing p = playable.get(i);
+            long delay = (i / waveSize) * waveGapMs;
+            scheduler.schedule(() -> launchPairing(at, p, 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void launchPairing(ActiveTournament at, TournamentPairing p, int attempt) {
+        if (clientRegistry.isDraining()) {
+            // no new sessions and players are being sent away; leave it pending for the node that recovers the tournament
+            System.out.println("[TournamentScheduler] draining, pairing " + p.getRound() + "/" + p.getSlot()
+                    + " of " + at.tournament.getId() + " left pending");
+            return;
+        }
+        try {
+            TournamentEntrant ea = at.entrant(p.getPlayerA());
+            TournamentEntrant eb = at.entrant(p.getPlayerB());
+            ClientHandler a = clientRegistry.getClientHandler(ea.getUsername());
+            ClientHandler b = clientRegistry.getClientHandler(eb.getUsername());
+
+            if (a == null || b == null) {
+                // absent players forfeit; if both are gone the better seed goes through
+                String winner = a != null ? ea.getPlayerId() : b != null ? eb.getPlayerId() : betterSeed(ea, eb).getPlayerId();
+                resolvePairing(at, p, winner, "forfeit");
+                return;
+            }
+
+            GameSession session = sessionManager.createSessionSafely(a, b, at.tournament.getRoundsPerMatch(), DEFAULT_ROUND_TIME_SECONDS);
+            if (session == null) {
+                if (attempt < MAX_START_ATTEMPTS) {
+                    scheduler.schedule(() -> launchPairing(at, p, attempt + 1), Math.max(waveGapMs, 1_000L), TimeUnit.MILLISECONDS);
+                    return;
+                }
+                boolean aBusy = a.getCurrentGame() != null;
+                boolean bBusy = b.getCurrentGame() != null;
+                String winner = aBusy == bBusy ? betterSeed(ea, eb).getPlayerId() : (aBusy ? eb.getPlayerId() : ea.getPlayerId());
+                resolvePairing(at, p, winner, "forfeit");
+                return;
+            }
+
+            p.setMatchId(session.getSessionId());
+            p.setStatus("running");
+            tournamentRepository.updatePairing(p);
+            // completion runs on the session's own thread; hop back onto ours before touching bracket state
+            session.addCompletionListener(s -> scheduler.execute(() -> onMatchFinished(at, p, s)));
+            session.beginGame();
+        } catch (Exception ex) {
+            System.err.println("[TournamentScheduler] Failed to launch pairing " + p.getRound() + "/" + p.getSlot()
+                    + " of " + at.tournament.getId() + ": " + ex.getMessage());
+        }
+    }
+
+    private void onMatchFinished(ActiveTournament at, TournamentPairing p, GameSession session) {
+        String winner = session.getWinnerId();
+        if (winner == null && at.format == TournamentFormat.SINGLE_ELIMINATION) {
+            // elimination needs someone to advance; a draw goes to the better seed
+            winner = betterSeed(at.entrant(p.getPlayerA()), at.entrant(p.getPlayerB())).getPlayerId();
+        }
+        resolvePairing(at, p, winner, "finished");
+    }
+
+    private void resolvePairing(ActiveTournament at, TournamentPairing p, String winnerId, String status) {
+        boolean roundDone;
+        synchronized (at) {
+            if (p.isResolved()) return;
+            p.setWinnerId(winnerId);
+            p.setStatus(status);
+
+            TournamentEntrant ea = at.entrant(p.getPlayerA());
+            TournamentEntrant eb = at.entrant(p.getPlayerB());
+            if (winnerId == null) {
+                ea.setPoints(ea.getPoints() + BracketSeeder.DRAW_POINTS);
+                eb.setPoints(eb.getPoints() + BracketSeeder.DRAW_POINTS);
+            } else {
+                TournamentEntrant w = winnerId.equals(ea.getPlayerId()) ? ea : eb;
+                TournamentEntrant l = w == ea ? eb : ea;
+                w.setPoints(w.getPoints() + BracketSeeder.WIN_POINTS);
+                if (at.format == TournamentFormat.SINGLE_ELIMINATION) l.setEliminated(true);
+            }
+            roundDone = --at.outstanding <= 0;
+        }
+        try {
+            tournamentRepository.updatePairing(p);
+            tournamentRepository.updateEntrants(List.of(at.entrant(p.getPlayerA()), at.entrant(p.getPlayerB())));
+        } catch (Exception ex) {
+            System.err.println("[TournamentScheduler] Failed to persist pairing: " + ex.getMessage());
+        }
+        if (roundDone) onRoundComplete(at);
+    }
+
+    private void onRoundComplete(ActiveTournament at) {
+        try {
+            Collection<TournamentEntrant> entrants;
+            boolean finished;
+            synchronized (at) {
+                at.history.addAll(at.currentRound);
+                entrants = at.entrants();
+                finished = at.tournament.getCurrentRound() >= at.tournament.getTotalRounds();
+            }
+            tournamentRepository.updateEntrants(new ArrayList<>(entrants));
+
+            if (finished) {
+                at.tournament.setStatus("finished");
+                tournamentRepository.updateTournament(at.tournament);
+                active.remove(at.tournament.getId());
+                System.out.println("[TournamentScheduler] Tournament " + at.tournament.getId() + " finished");
+                return;
+            }
+            int next = at.tournament.getCurrentRound() + 1;
+            scheduler.schedule(() -> {
+                try {
+                    startRound(at, next);
+                } catch (Exception ex) {
+                    System.err.println("[TournamentScheduler] Failed to start round " + next + ": " + ex.getMessage());
+                }
+            }, ROUND_BREAK_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception ex) {
+            System.err.println("[TournamentScheduler] Failed to close round: " + ex.getMessage());
+        }
+    }
+
+    private static TournamentEntrant betterSeed(TournamentEntrant a, TournamentEntrant b) {
+        return a.getSeed() <= b.getSeed() ? a : b;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        active.clear();
+    }
+
+    private static final class ActiveTournament {
+        final Tournament tournament;
+        final TournamentFormat format;
+        final Map<String, TournamentEntrant> byPlayerId = new LinkedHashMap<>();
+        final List<TournamentPairing> history = new ArrayList<>();
+        List<TournamentPairing> currentRound = new ArrayList<>();
+        int outstanding;
+
+        ActiveTournament(Tournament tournament, TournamentFormat format, List<TournamentEntrant> seeded) {
+            this.tournament = tournament;
+            this.format = format;
+            for (TournamentEntrant e : seeded) byPlayerId.put(e.getPlayerId(), e);
+        }
+
+        TournamentEntrant entrant(String playerId) {
+            return byPlayerId.get(playerId);
+        }
+
+        List<TournamentEntrant> entrants() {
+            return new ArrayList<>(byPlayerId.values());
+        }
+    }
+}
@@ -4,27 +4,58 @@ import com.mathspeed.adapter.network.library.LibraryHandler;
 import com.mathspeed.application.library.LibraryService;
 import com.mathspeed.domain.port.GameHistoryRepository;
 import com.mathspeed.domain.port.GameRepository;
-import com.mathspeed.domain.port.PlayerRepository;
 import com.mathspeed.domain.port.QuizzRepository;
+import com.mathspeed.infrastructure.archive.FileRoundArchiveStore;
+import com.mathspeed.infrastructure.db.DBConnect;
+import com.mathspeed.infrastructure.db.QueryPlanCheck;
+import com.mathspeed.infrastructure.db.SchemaMigrator;
+import com.mathspeed.infrastructure.jfr.FlightRecording;
 import com.mathspeed.infrastructure.persistence.GameDAOImpl;
+import com.mathspeed.infrastructure.persistence.RoundArchiveDAOImpl;
 import com.mathspeed.infrastructure.persistence.PlayerDAOImpl;
 import com.mathspeed.infrastructure.persistence.QuizDAOImpl;
+import com.mathspeed.adapter.network.AdmissionControl;
 import com.mathspeed.adapter.network.ClientRegistry;
 import com.mathspeed.application.game.ChallengeManager;
 import com.mathspeed.application.game.GameSessionManager;
+import com.mathspeed.application.archive.RoundArchiver;
+import com.mathspeed.application.difficulty.DifficultyPlanner;
+import com.mathspeed.application.difficulty.SolveTimeStats;
 import com.mathspeed.application.game.Matchmaker;
+import com.mathspeed.application.game.RematchManager;
 import com.mathspeed.adapter.network.ServerAcceptor;
 import com.mathspeed.adapter.network.HttpServer;
 import com.mathspeed.adapter.network.auth.AuthHandler;
 import com.mathspeed.adapter.network.HealthHandler;
+import com.mathspeed.adapter.network.DrainController;
+import com.mathspeed.adapter.network.DrainHandler;
+import com.mathspeed.adapter.network.WarmupRunner;
 import com.mathspeed.application.auth.AuthService;
+import com.mathspeed.application.activity.ActivityTracker;
 import com.mathspeed.application.friend.FriendService;
+import com.mathspeed.application.friend.IndexedPlayerRepository;
+import com.mathspeed.application.friend.PlayerSearchIndex;
+import com.mathspeed.application.friend.PresenceService;
 import com.mathspeed.adapter.network.friend.FriendHandler;
 import com.mathspeed.adapter.network.stat.StatsHandler;
 import com.mathspeed.infrastructure.persistence.GameHistoryDAOImpl;
+import com.mathspeed.infrastructure.persistence.TournamentDAOImpl;
+import com.mathspeed.domain.port.TournamentRepository;
+import com.mathspeed.application.tournament.TournamentScheduler;
+import com.mathspeed.adapter.network.tournament.TournamentHandler;
+import com.mathspeed.adapter.cluster.ClusterNode;
+import com.mathspeed.adapter.cluster.LoopbackClusterTransport;
+import com.mathspeed.application.bot.BotPool;
+import com.mathspeed.application.ghost.GhostService;
+import com.mathspeed.infrastructure.persistence.GhostReplayDAOImpl;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
 public class Main {
     private static final Logger logger = LogManager.getLogger(Main.class);
     private static final int PORT = 8888;
@@ -34,45 +65,167 @@ public class Main {
         logger.info("Server starting on port " + PORT);
         logger.info("Server setup complete!");
 
-        PlayerRepository playerRepository = new PlayerDAOImpl();
+        // JFR with the shipped quickmath.jfc: domain events next to GC / lock events, dumped to quickmath.jfrFile on exit
+        if (Boolean.getBoolean("quickmath.jfr")) {
+            try {
+                FlightRecording.start(Paths.get(System.getProperty("quickmath.jfrFile", "quickmath.jfr")),
+                        Duration.ofMinutes(Long.getLong("quickmath.jfrMaxAgeMinutes", 60L)));
+            } catch (Exception e) {
+                System.err.println("Could not start flight recording: " + e.getMessage());
+            }
+        }
+
+        // all DDL lives in src/sql/migrations; bring the schema up to date before any DAO touches it.
+        // The DAOs assume that schema, so a failed or half-applied migration stops startup here rather than
+        // failing on the first match that is saved.
+        try {
+            new SchemaMigrator(DBConnect.getDataSource()).migrate();
+        } catch (Exception e) {
+            System.err.println("Schema migration failed, not starting: " + e.getMessage());
+            System.exit(1);
+        }
+        if (Boolean.parseBoolean(System.getProperty("quickmath.explainHotQueries", "true"))) {
+            try {
+                new QueryPlanCheck(DBConnect.getDataSource()).run();
+            } catch (Exception e) {
+                System.err.println("Query plan check failed: " + e.getMessage());
+            }
+        }
+
+        // player search is served from an in-memory trigram index kept in step by the wrapping repository
+        PlayerSearchIndex playerSearchIndex = new PlayerSearchIndex();
+        PlayerDAOImpl playerDao = new PlayerDAOImpl();
+        IndexedPlayerRepository playerRepository = new IndexedPlayerRepository(playerDao, playerSearchIndex);
+        // status / last_active_at writes are buffered and flushed in batches every quickmath.activityFlushMs
+        ActivityTracker activityTracker = new ActivityTracker(playerDao, Long.getLong("quickmath.activityFlushMs", 5_000L));
+        playerRepository.setActivityTracker(activityTracker);
+        activityTracker.start();
         QuizzRepository quizRepository = new QuizDAOImpl();
         GameRepository gameRepository = new GameDAOImpl();
         GameHistoryRepository gameHistoryRepository = new GameHistoryDAOImpl();
+        TournamentRepository tournamentRepository = new TournamentDAOImpl();
 
         ClientRegistry clientRegistry = new ClientRegistry(playerRepository);
+        // silent connections are marked idle after quickmath.idleAfterMs, evicted after quickmath.evictAfterMs (0 never evicts)
+        clientRegistry.setHeartbeatPolicy(Long.getLong("quickmath.idleAfterMs", 30_000L), Long.getLong("quickmath.evictAfterMs", 180_000L));
         GameSessionManager sessionManager = new GameSessionManager(clientRegistry, gameRepository);
+        // difficulty mix sized so a match takes about quickmath.roundBudgetMs per round (0 keeps the fixed mix)
+        SolveTimeStats solveTimeStats = new SolveTimeStats();
+        sessionManager.addSessionFinishedListener(solveTimeStats::record);
+        long roundBudgetMs = Long.getLong("quickmath.roundBudgetMs", 8_000L);
+        if (roundBudgetMs > 0) sessionManager.setDifficultyPlanner(new DifficultyPlanner(solveTimeStats, roundBudgetMs));
         Matchmaker matchmaker = new Matchmaker(clientRegistry, sessionManager);
+        // bots fill in for missing opponents after quickmath.botWaitMs (0 disables them)
+        long botWaitMs = Long.getLong("quickmath.botWaitMs", 20_000L);
+        BotPool botPool = botWaitMs > 0 ? new BotPool(gameRepository, botWaitMs, Integer.getInteger("quickmath.maxBots", 500)) : null;
+        matchmaker.setBotPool(botPool);
+        GhostService ghostService = new GhostService(new GhostReplayDAOImpl(), gameHistoryRepository, sessionManager);
+        matchmaker.setGhostService(ghostService);
+        RematchManager rematchManager = new RematchManager(sessionManager);
+        matchmaker.setRematchManager(rematchManager);
         ChallengeManager challengeManager = new ChallengeManager(clientRegistry, sessionManager);
+        // cluster layer; a single node with the loopback transport behaves exactly like a standalone server.
+        // Swap in a network ClusterTransport to run several nodes behind a session-affinity balancer.
+        String nodeId = System.getProperty("quickmath.node", System.getenv().getOrDefault("QUICKMATH_NODE", "node-1"));
+        ClusterNode clusterNode = new ClusterNode(new LoopbackClusterTransport(nodeId), clientRegistry, playerRepository);
+        clusterNode.attach(matchmaker, challengeManager);
+        clientRegistry.setClusterNode(clusterNode);
+        matchmaker.setClusterNode(clusterNode);
+        challengeManager.setClusterNode(clusterNode);
+        clusterNode.start();
+
+        // rounds older than quickmath.archiveAfterDays move from game_rounds to monthly files (0 disables)
+        int archiveAfterDays = Integer.getInteger("quickmath.archiveAfterDays", 90);
+        RoundArchiver roundArchiver = null;
+        if (archiveAfterDays > 0) {
+            try {
+                Path archiveDir = Paths.get(System.getProperty("quickmath.archiveDir", "archive/rounds"));
+                roundArchiver = new RoundArchiver(new RoundArchiveDAOImpl(), new FileRoundArchiveStore(archiveDir), archiveAfterDays);
+                roundArchiver.start();
+            } catch (IOException e) {
+                System.err.println("Round archive disabled: " + e.getMessage());
+            }
+        }
+        final RoundArchiver archiver = roundArchiver;
+
+        TournamentScheduler tournamentScheduler = new TournamentScheduler(tournamentRepository, gameHistoryRepository, clientRegistry, sessionManager);
         ServerAcceptor acceptor = new ServerAcceptor(PORT, clientRegistry, matchmaker, challengeManager, playerRepository);
+        // per address: at most quickmath.maxConnectionsPerIp open, quickmath.connectsPerSecondPerIp new ones (burst
+        // quickmath.connectBurstPerIp); sockets that do not log in within quickmath.loginTimeoutMs are closed
+        acceptor.setAdmissionControl(new AdmissionControl(
+                Integer.getInteger("quickmath.maxConnectionsPerIp", 20),
+                Double.parseDouble(System.getProperty("quickmath.connectsPerSecondPerIp", "5")),
+                Integer.getInteger("quickmath.connectBurstPerIp", 20),
+                Long.getLong("quickmath.loginTimeoutMs", 15_000L)));
+        // shutdown lets running matches finish for up to quickmath.drainTimeoutMs instead of ending them
+        DrainController drainController = new DrainController(acceptor, clientRegistry, sessionManager, Long.getLong("quickmath.drainTimeoutMs", 120_000L));
+        drainController.addFlushStep(activityTracker::flush);
+
+        // players are only accepted once pools, caches and the JIT are warm; /api/health reports 503 until then
+        WarmupRunner warmup = new WarmupRunner();
+        warmup.addStep("db-pools", () -> DBConnect.prefill() + " connections checked");
+        warmup.addStep("player-index", () -> {
+            playerSearchIndex.warmUp(playerDao);
+            return playerSearchIndex.size() + " profiles cached";
+        });
+        warmup.addStep("solve-times", () -> {
+            solveTimeStats.warmUp(gameRepository);
+            return "difficulty planner loaded";
+        });
+        warmup.addStep("stats-queries", () -> quizRepository.getQuizCount() + " quizzes, "
+                + playerRepository.getTotalPlayers() + " players");
+        // simulated matches until compilation settles, at most quickmath.warmupMs (0 skips them)
+        warmup.addSimulatedMatches(Long.getLong("quickmath.warmupMs", 10_000L));
 
         // shared HTTP server for multiple features
         HttpServer httpServer = new HttpServer(HTTP_PORT);
         AuthService authService = new AuthService(playerRepository);
         FriendService friendService = new FriendService(playerRepository);
+        friendService.setPresenceService(new PresenceService(clientRegistry, playerSearchIndex));
         LibraryService libraryService = new LibraryService(quizRepository);
         try {
-            httpServer.createContext("/api/health", new HealthHandler());
+            HealthHandler healthHandler = new HealthHandler();
+            healthHandler.setDrainController(drainController);
+            healthHandler.setWarmupRunner(warmup);
+            httpServer.createContext("/api/health", healthHandler);
+            String adminToken = System.getProperty("quickmath.adminToken", System.getenv("QUICKMATH_ADMIN_TOKEN"));
+            if (adminToken != null && !adminToken.isEmpty()) {
+                httpServer.createContext("/api/admin/drain", new DrainHandler(drainController, adminToken));
+            }
             httpServer.createContext("/api/auth", new AuthHandler(authService));
             httpServer.createContext("/api/friends/", new FriendHandler(friendService));
             httpServer.createContext("/api/library", new LibraryHandler(authService, libraryService));
             httpServer.createContext("/api/stats", new StatsHandler(authService, quizRepository, gameHistoryRepository));
+            httpServer.createContext("/api/tournaments", new TournamentHandler(tournamentScheduler, tournamentRepository,
+                    clientRegistry.getResumeTokens(), adminToken));
             httpServer.start();
         } catch (Exception e) {
             System.err.println("Failed to start shared HTTP server: " + e.getMessage());
         }
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("Shutdown requested, stopping server...");
+            System.out.println("Shutdown requested, draining...");
+            drainController.drain();
+            System.out.println("Stopping server...");
             acceptor.shutdown();
             matchmaker.shutdown();
             challengeManager.shutdown();
+            tournamentScheduler.shutdown();
+            if (botPool != null) botPool.shutdown();
+            ghostService.shutdown();
+            rematchManager.shutdown();
+            if (archiver != null) archiver.shutdown();
             sessionManager.shutdown();
             clientRegistry.shutdown();
+            clusterNode.shutdown();
             // stop shared HTTP server
             httpServer.stop();
+            // last, so the offline statuses of the connections closed above are written
+            activityTracker.shutdown();
             System.out.println("Server stopped.");
         }));
 
+        warmup.run();
         acceptor.start();
     }
 }
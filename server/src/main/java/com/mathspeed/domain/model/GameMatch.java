@@ -37,6 +37,10 @@ public class GameMatch {
     @Column(name = "status", length = 16)
     private String status = "pending";
 
+    // false for matches against bots; such matches never count towards wins, rating or leaderboards
+    @Column(name = "ranked")
+    private boolean ranked = true;
+
     public GameMatch() {
         this.createdAt = LocalDateTime.now();
     }
@@ -67,6 +71,9 @@ public class GameMatch {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    public boolean isRanked() { return ranked; }
+    public void setRanked(boolean ranked) { this.ranked = ranked; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,147 @@
+package com.mathspeed.domain.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * A recorded run of one player through one match: the match seed and difficulty levels (which together fix
+ * every puzzle) and the time that player needed per round. Replayed as an opponent in asynchronous ("ghost")
+ * matches.
+ *
+ * Timeline wire format, about 2-4 bytes per round:
+ * <pre>
+ *   byte    version (1 = seed's default difficulty mix, 2 = planned levels follow the timeline)
+ *   8 bytes match seed, big-endian
+ *   varint  question timeout in seconds
+ *   varint  round count
+ *   varint  per round: 0 = not solved, otherwise solve time in ms + 1
+ *   byte    per round, version 2 only: difficulty level 1..3
+ * </pre>
+ */
+public class GhostReplay {
+    private static final int FORMAT_DEFAULT_MIX = 1;
+    private static final int FORMAT_PLANNED = 2;
+
+    private long matchSeed;
+    private String playerId;
+    private String displayName;
+    private int rating;
+    private int questionTimeoutSeconds;
+    private long[] solveMs;
+    private int[] difficulties;
+
+    public GhostReplay() {
+    }
+
+    public GhostReplay(long matchSeed, String playerId, String displayName, int rating,
+                       int questionTimeoutSeconds, long[] solveMs) {
+        this.matchSeed = matchSeed;
+        this.playerId = playerId;
+        this.displayName = displayName;
+        this.rating = rating;
+        this.questionTimeoutSeconds = questionTimeoutSeconds;
+        this.solveMs = solveMs;
+    }
+
+    public long getMatchSeed() { return matchSeed; }
+    public void setMatchSeed(long matchSeed) { this.matchSeed = matchSeed; }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(String displayName) { this.displayName = displayName; }
+
+    public int getRating() { return rating; }
+    public void setRating(int rating) { this.rating = rating; }
+
+    public int getQuestionTimeoutSeconds() { return questionTimeoutSeconds; }
+    public void setQuestionTimeoutSeconds(int questionTimeoutSeconds) { this.questionTimeoutSeconds = questionTimeoutSeconds; }
+
+    /** Solve time per round in ms, -1 where the player did not solve the round. */
+    public long[] getSolveMs() { return solveMs; }
+    public void setSolveMs(long[] solveMs) { this.solveMs = solveMs; }
+
+    /** Difficulty level per round, or null when the match used the seed's default mix. */
+    public int[] getDifficulties() { return difficulties; }
+    public void setDifficulties(int[] difficulties) { this.difficulties = difficulties; }
+
+    public int getTotalRounds() { return solveMs != null ? solveMs.length : 0; }
+
+    public int getSolvedRounds() {
+        int n = 0;
+        if (solveMs != null) for (long t : solveMs) if (t >= 0) n++;
+        return n;
+    }
+
+    public byte[] encodeTimeline() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + getTotalRounds() * 3);
+        boolean planned = difficulties != null && difficulties.length == getTotalRounds();
+        out.write(planned ? FORMAT_PLANNED : FORMAT_DEFAULT_MIX);
+        for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (matchSeed >>> shift) & 0xFF);
+        writeVarint(out, questionTimeoutSeconds);
+        writeVarint(out, getTotalRounds());
+        for (int i = 0; i < getTotalRounds(); i++) {
+            writeVarint(out, solveMs[i] < 0 ? 0L : solveMs[i] + 1);
+        }
+        if (planned) {
+            for (int level : difficulties) out.write(level);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Fill seed, timeout, timeline and difficulty levels from {@link #encodeTimeline()} output.
+     */
+    public void decodeTimeline(byte[] data) {
+        if (data == null || data.length < 9 || (data[0] != FORMAT_DEFAULT_MIX && data[0] != FORMAT_PLANNED)) {
+            throw new IllegalArgumentException("unsupported_ghost_timeline");
+        }
+        int[] pos = {1};
+        long seed = 0;
+        for (int i = 0; i < 8; i++) seed = (seed << 8) | (data[pos[0]++] & 0xFF);
+        this.matchSeed = seed;
+        this.questionTimeoutSeconds = (int) readVarint(data, pos);
+        int rounds = (int) readVarint(data, pos);
+        if (rounds < 0 || rounds > 64) throw new IllegalArgumentException("bad_round_count:" + rounds);
+        long[] times = new long[rounds];
+        for (int i = 0; i < rounds; i++) times[i] = readVarint(data, pos) - 1;
+        this.solveMs = times;
+        this.difficulties = null;
+        if (data[0] == FORMAT_PLANNED) {
+            if (pos[0] + rounds > data.length) throw new IllegalArgumentException("truncated_ghost_timeline");
+            int[] levels = new int[rounds];
+            for (int i = 0; i < rounds; i++) levels[i] = data[pos[0]++];
+            this.difficulties = levels;
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= data.length) throw new IllegalArgumentException("truncated_ghost_timeline");
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("malformed_varint");
+    }
+
+    @Override
+    public String toString() {
+        return "GhostReplay{" +
+                "playerId='" + playerId + '\'' +
+                ", rating=" + rating +
+                ", seed=" + matchSeed +
+                ", solveMs=" + Arrays.toString(solveMs) +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package com.mathspeed.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest known status and activity time of one player, waiting to be written to the players row.
+ */
+public class PlayerActivity {
+    private String username;
+    private String status;
+    private LocalDateTime lastActiveAt;
+
+    public PlayerActivity() {
+    }
+
+    public PlayerActivity(String username, String status, LocalDateTime lastActiveAt) {
+        this.username = username;
+        this.status = status;
+        this.lastActiveAt = lastActiveAt;
+    }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getLastActiveAt() { return lastActiveAt; }
+    public void setLastActiveAt(LocalDateTime lastActiveAt) { this.lastActiveAt = lastActiveAt; }
+}
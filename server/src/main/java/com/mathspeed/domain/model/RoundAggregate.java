@@ -0,0 +1,41 @@
+package com.mathspeed.domain.model;
+
+/**
+ * Totals over a set of archived rounds, e.g. one player's rounds in a range of months.
+ */
+public class RoundAggregate {
+    private long rounds;
+    private long correctRounds;
+    private long totalPlayTimeMs;
+    private long fastestCorrectMs = -1L;
+    private final long[] roundsByDifficulty = new long[4]; // index 0 = level not recorded
+
+    public void add(boolean correct, long playTimeMs, int difficulty) {
+        rounds++;
+        totalPlayTimeMs += playTimeMs;
+        if (correct) {
+            correctRounds++;
+            if (fastestCorrectMs < 0 || playTimeMs < fastestCorrectMs) fastestCorrectMs = playTimeMs;
+        }
+        roundsByDifficulty[difficulty >= 1 && difficulty <= 3 ? difficulty : 0]++;
+    }
+
+    public long getRounds() { return rounds; }
+    public long getCorrectRounds() { return correctRounds; }
+    public long getTotalPlayTimeMs() { return totalPlayTimeMs; }
+
+    /** Fastest correct round in ms, -1 if none. */
+    public long getFastestCorrectMs() { return fastestCorrectMs; }
+
+    public long getRoundsAtDifficulty(int difficulty) {
+        return roundsByDifficulty[difficulty >= 1 && difficulty <= 3 ? difficulty : 0];
+    }
+
+    public double getAccuracy() {
+        return rounds > 0 ? (double) correctRounds / rounds : 0.0;
+    }
+
+    public double getAveragePlayTimeMs() {
+        return rounds > 0 ? (double) totalPlayTimeMs / rounds : 0.0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mathspeed.domain.model;
+
+/**
+ * One row of game_rounds: a player's result in one round of a match. Also the unit of the monthly round
+ * archive, which keeps the same fields once rows leave the database.
+ */
+public class RoundRecord {
+    private long id;
+    private String matchId;
+    private int roundIndex;
+    private String playerId;
+    private boolean correct;
+    private long playTimeMs;
+    private long timestampMs;
+    private int difficulty; // 0 = not recorded
+    private int target;     // 0 = not recorded
+
+    public RoundRecord() {
+    }
+
+    public RoundRecord(long id, String matchId, int roundIndex, String playerId, boolean correct,
+                       long playTimeMs, long timestampMs, int difficulty, int target) {
+        this.id = id;
+        this.matchId = matchId;
+        this.roundIndex = roundIndex;
+        this.playerId = playerId;
+        this.correct = correct;
+        this.playTimeMs = playTimeMs;
+        this.timestampMs = timestampMs;
+        this.difficulty = difficulty;
+        this.target = target;
+    }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getMatchId() { return matchId; }
+    public void setMatchId(String matchId) { this.matchId = matchId; }
+
+    public int getRoundIndex() { return roundIndex; }
+    public void setRoundIndex(int roundIndex) { this.roundIndex = roundIndex; }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public boolean isCorrect() { return correct; }
+    public void setCorrect(boolean correct) { this.correct = correct; }
+
+    public long getPlayTimeMs() { return playTimeMs; }
+    public void setPlayTimeMs(long playTimeMs) { this.playTimeMs = playTimeMs; }
+
+    public long getTimestampMs() { return timestampMs; }
+    public void setTimestampMs(long timestampMs) { this.timestampMs = timestampMs; }
+
+    public int getDifficulty() { return difficulty; }
+    public void setDifficulty(int difficulty) { this.difficulty = difficulty; }
+
+    public int getTarget() { return target; }
+    public void setTarget(int target) { this.target = target; }
+}
@@ -0,0 +1,30 @@
+package com.mathspeed.domain.model;
+
+/**
+ * One player's result in one round, reduced to what the difficulty model needs: the puzzle's difficulty level
+ * (1 = easy, 2 = medium, 3 = hard; 0 for rows recorded before the level was stored), how long the player took
+ * and whether they solved it.
+ */
+public class RoundTiming {
+    private int difficulty;
+    private long playTimeMs;
+    private boolean correct;
+
+    public RoundTiming() {
+    }
+
+    public RoundTiming(int difficulty, long playTimeMs, boolean correct) {
+        this.difficulty = difficulty;
+        this.playTimeMs = playTimeMs;
+        this.correct = correct;
+    }
+
+    public int getDifficulty() { return difficulty; }
+    public void setDifficulty(int difficulty) { this.difficulty = difficulty; }
+
+    public long getPlayTimeMs() { return playTimeMs; }
+    public void setPlayTimeMs(long playTimeMs) { this.playTimeMs = playTimeMs; }
+
+    public boolean isCorrect() { return correct; }
+    public void setCorrect(boolean correct) { this.correct = correct; }
+}
@@ -0,0 +1,65 @@
+package com.mathspeed.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A scheduled tournament. Bracket state lives in tournament_entrants / tournament_pairings.
+ */
+public class Tournament {
+    private String id;
+    private String name;
+    // format values: 'single_elimination','swiss'
+    private String format;
+    // status values: 'registering','running','finished','cancelled'
+    private String status = "registering";
+    private int totalRounds;
+    private int currentRound;
+    private int roundsPerMatch;
+    private LocalDateTime createdAt;
+    private LocalDateTime startsAt;
+
+    public Tournament() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Tournament(String id, String name, String format, int roundsPerMatch) {
+        this();
+        this.id = id;
+        this.name = name;
+        this.format = format;
+        this.roundsPerMatch = roundsPerMatch;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getTotalRounds() { return totalRounds; }
+    public void setTotalRounds(int totalRounds) { this.totalRounds = totalRounds; }
+
+    public int getCurrentRound() { return currentRound; }
+    public void setCurrentRound(int currentRound) { this.currentRound = currentRound; }
+
+    public int getRoundsPerMatch() { return roundsPerMatch; }
+    public void setRoundsPerMatch(int roundsPerMatch) { this.roundsPerMatch = roundsPerMatch; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartsAt() { return startsAt; }
+    public void setStartsAt(LocalDateTime startsAt) { this.startsAt = startsAt; }
+
+    @Override
+    public String toString() {
+        return "Tournament{id='" + id + "', name='" + name + "', format='" + format +
+                "', status='" + status + "', round=" + currentRound + "/" + totalRounds + "}";
+    }
+}
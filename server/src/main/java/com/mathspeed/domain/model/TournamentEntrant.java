@@ -0,0 +1,50 @@
+package com.mathspeed.domain.model;
+
+/**
+ * One registered player in a tournament. Points use half-point units (win=2, draw=1) so Swiss
+ * standings stay integral.
+ */
+public class TournamentEntrant {
+    private String tournamentId;
+    private String playerId;
+    private String username;
+    private int seed;
+    private int rating;
+    private int points;
+    private boolean eliminated;
+    private boolean hadBye;
+
+    public TournamentEntrant() {
+    }
+
+    public TournamentEntrant(String tournamentId, String playerId, String username, int rating) {
+        this.tournamentId = tournamentId;
+        this.playerId = playerId;
+        this.username = username;
+        this.rating = rating;
+    }
+
+    public String getTournamentId() { return tournamentId; }
+    public void setTournamentId(String tournamentId) { this.tournamentId = tournamentId; }
+
+    public String getPlayerId() { return playerId; }
+    public void setPlayerId(String playerId) { this.playerId = playerId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public int getSeed() { return seed; }
+    public void setSeed(int seed) { this.seed = seed; }
+
+    public int getRating() { return rating; }
+    public void setRating(int rating) { this.rating = rating; }
+
+    public int getPoints() { return points; }
+    public void setPoints(int points) { this.points = points; }
+
+    public boolean isEliminated() { return eliminated; }
+    public void setEliminated(boolean eliminated) { this.eliminated = eliminated; }
+
+    public boolean isHadBye() { return hadBye; }
+    public void setHadBye(boolean hadBye) { this.hadBye = hadBye; }
+}
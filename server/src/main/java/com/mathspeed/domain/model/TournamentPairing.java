@@ -0,0 +1,62 @@
+package com.mathspeed.domain.model;
+
+/**
+ * A single pairing of a tournament round. playerB is null for a bye.
+ */
+public class TournamentPairing {
+    private String tournamentId;
+    private int round;
+    private int slot;
+    private String playerA;
+    private String playerB;
+    private String matchId;
+    // null while unresolved or on a draw
+    private String winnerId;
+    // status values: 'pending','running','finished','bye','forfeit'
+    private String status = "pending";
+
+    public TournamentPairing() {
+    }
+
+    public TournamentPairing(String tournamentId, int round, int slot, String playerA, String playerB) {
+        this.tournamentId = tournamentId;
+        this.round = round;
+        this.slot = slot;
+        this.playerA = playerA;
+        this.playerB = playerB;
+        if (playerB == null) {
+            this.status = "bye";
+            this.winnerId = playerA;
+        }
+    }
+
+    public boolean isBye() { return playerB == null; }
+
+    public boolean isResolved() {
+        return "finished".equals(status) || "bye".equals(status) || "forfeit".equals(status);
+    }
+
+    public String getTournamentId() { return tournamentId; }
+    public void setTournamentId(String tournamentId) { this.tournamentId = tournamentId; }
+
+    public int getRound() { return round; }
+    public void setRound(int round) { this.round = round; }
+
+    public int getSlot() { return slot; }
+    public void setSlot(int slot) { this.slot = slot; }
+
+    public String getPlayerA() { return playerA; }
+    public void setPlayerA(String playerA) { this.playerA = playerA; }
+
+    public String getPlayerB() { return playerB; }
+    public void setPlayerB(String playerB) { this.playerB = playerB; }
+
+    public String getMatchId() { return matchId; }
+    public void setMatchId(String matchId) { this.matchId = matchId; }
+
+    public String getWinnerId() { return winnerId; }
+    public void setWinnerId(String winnerId) { this.winnerId = winnerId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
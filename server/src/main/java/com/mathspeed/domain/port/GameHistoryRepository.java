@@ -3,4 +3,13 @@ package com.mathspeed.domain.port;
 public interface GameHistoryRepository {
     int getTotalWins(String playerId);
     int getTotalGames(String playerId);
+
+    /**
+     * Seeding rating derived from history: 1000 + 1000 * smoothed win rate, so new players sit at 1500.
+     */
+    default int getRating(String playerId) {
+        int games = getTotalGames(playerId);
+        int wins = getTotalWins(playerId);
+        return 1000 + (int) Math.round(1000.0 * (wins + 1) / (games + 2));
+    }
 }
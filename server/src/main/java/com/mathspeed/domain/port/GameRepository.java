@@ -1,6 +1,7 @@
 package com.mathspeed.domain.port;
 import com.mathspeed.domain.model.GameHistory;
 import com.mathspeed.domain.model.GameMatch;
+import com.mathspeed.domain.model.RoundTiming;
 
 import java.util.List;
 import java.util.Map;
@@ -11,4 +12,19 @@ public interface GameRepository {
                           List<GameHistory> histories,
                           Map<String, List<Map<String, Object>>> roundHistory) throws Exception;
     default void persistRound(String gameId, int roundIndex, List<Map<String, Object>> playersSummary) throws Exception {}
+
+    /**
+     * Play times (ms) of the most recent correct rounds in ranked matches, newest first. Used to calibrate bots.
+     */
+    default List<Long> getRecentSolveTimesMs(int limit) throws Exception { return List.of(); }
+
+    /**
+     * Share of correct rounds among the most recent ranked rounds, or -1 when there is no data.
+     */
+    default double getRecentAccuracy(int limit) throws Exception { return -1.0; }
+
+    /**
+     * Most recent ranked rounds that carry a difficulty level, newest first. Seeds the solve-time statistics.
+     */
+    default List<RoundTiming> getRecentRoundTimings(int limit) throws Exception { return List.of(); }
 }
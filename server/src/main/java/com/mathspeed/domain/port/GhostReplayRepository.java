@@ -0,0 +1,14 @@
+package com.mathspeed.domain.port;
+
+import com.mathspeed.domain.model.GhostReplay;
+
+import java.util.List;
+
+public interface GhostReplayRepository {
+    void saveReplay(GhostReplay replay) throws Exception;
+
+    /**
+     * Most recent replays, newest first; used to warm the in-memory index at startup.
+     */
+    List<GhostReplay> findRecent(int limit) throws Exception;
+}
@@ -1,6 +1,7 @@
 package com.mathspeed.domain.port;
 
 import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.model.PlayerActivity;
 import java.util.List;
 
 public interface PlayerRepository {
@@ -10,10 +11,17 @@ public interface PlayerRepository {
     boolean changePassword(String username, String newPassword) throws Exception;
     Player findPlayer(String username, String password) throws Exception;
     void updateStatus(String username, String status) throws Exception;
+    default void updateActivity(List<PlayerActivity> updates) throws Exception {
+        for (PlayerActivity a : updates) updateStatus(a.getUsername(), a.getStatus());
+    }
     Player getPlayerById(String id) throws Exception;
     boolean existsByUsername(String username) throws Exception;
     boolean existsById(String id) throws Exception;
     List<Player> searchPlayers(String keyword, String excludePlayerId) throws Exception;
+    default List<Player> searchPlayers(String keyword, String excludePlayerId, int limit) throws Exception {
+        List<Player> found = searchPlayers(keyword, excludePlayerId);
+        return found.size() > limit ? found.subList(0, limit) : found;
+    }
     List<Player> getAllPlayers(String excludePlayerId) throws Exception;
     List<Player> getOnlinePlayers(String excludePlayerId) throws Exception;
     int getTotalPlayers() throws Exception;
@@ -0,0 +1,25 @@
+package com.mathspeed.domain.port;
+
+import com.mathspeed.domain.model.RoundRecord;
+
+import java.util.List;
+
+/**
+ * The database side of round archival: hands out old game_rounds rows and removes them once archived.
+ */
+public interface RoundArchiveRepository {
+    /**
+     * Up to {@code limit} rows played before {@code cutoffMs}, oldest first.
+     */
+    List<RoundRecord> findRoundsBefore(long cutoffMs, int limit) throws Exception;
+
+    /**
+     * Delete the given rows in one transaction; returns how many were deleted.
+     */
+    int deleteRounds(List<Long> ids) throws Exception;
+
+    /**
+     * How many of the given rows still exist.
+     */
+    int countRounds(List<Long> ids) throws Exception;
+}
@@ -0,0 +1,39 @@
+package com.mathspeed.domain.port;
+
+import com.mathspeed.domain.model.RoundAggregate;
+import com.mathspeed.domain.model.RoundRecord;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Long-term storage for archived rounds, one append-only file per month.
+ *
+ * Writing is two-phase so that a crash can neither lose nor duplicate rows: {@link #stage} persists a batch next
+ * to the month file, the caller deletes the rows from the database, then {@link #commit} appends the batch. A
+ * batch still staged after a restart is committed if its rows are gone from the database and discarded otherwise.
+ */
+public interface RoundArchiveStore {
+    void stage(YearMonth month, List<RoundRecord> rows) throws Exception;
+
+    void commit(YearMonth month) throws Exception;
+
+    void discard(YearMonth month) throws Exception;
+
+    /**
+     * Months with a staged batch, and the row ids in each.
+     */
+    List<YearMonth> stagedMonths() throws Exception;
+
+    List<Long> stagedIds(YearMonth month) throws Exception;
+
+    /**
+     * A player's archived rounds between two months (inclusive), newest first, at most {@code limit}.
+     */
+    List<RoundRecord> playerHistory(String playerId, YearMonth from, YearMonth to, int limit) throws Exception;
+
+    /**
+     * Totals over archived rounds between two months (inclusive); {@code playerId} null for all players.
+     */
+    RoundAggregate aggregate(String playerId, YearMonth from, YearMonth to) throws Exception;
+}
@@ -0,0 +1,22 @@
+package com.mathspeed.domain.port;
+
+import com.mathspeed.domain.model.Tournament;
+import com.mathspeed.domain.model.TournamentEntrant;
+import com.mathspeed.domain.model.TournamentPairing;
+
+import java.util.List;
+
+public interface TournamentRepository {
+    void insertTournament(Tournament tournament) throws Exception;
+    void updateTournament(Tournament tournament) throws Exception;
+    Tournament findTournament(String id) throws Exception;
+    List<Tournament> findByStatus(String status) throws Exception;
+
+    void insertEntrant(TournamentEntrant entrant) throws Exception;
+    void updateEntrants(List<TournamentEntrant> entrants) throws Exception;
+    List<TournamentEntrant> getEntrants(String tournamentId) throws Exception;
+
+    void insertPairings(List<TournamentPairing> pairings) throws Exception;
+    void updatePairing(TournamentPairing pairing) throws Exception;
+    List<TournamentPairing> getPairings(String tournamentId) throws Exception;
+}
@@ -0,0 +1,33 @@
+package com.mathspeed.domain.puzzle;
+
+/**
+ * Produces an expression over the 1..9 deck that evaluates to a given target.
+ *
+ * The target is written in base 9 and expanded Horner-style, e.g. 100 = ((1*9+2)*9+1),
+ * so every literal is a single deck digit and zero digits are simply left out.
+ */
+public final class MathPuzzleSolver {
+
+    private MathPuzzleSolver() {
+    }
+
+    public static String solve(int target) {
+        if (target < 1) throw new IllegalArgumentException("target_must_be_positive:" + target);
+        if (target < 10) return Integer.toString(target);
+
+        int[] digits = new int[12];
+        int count = 0;
+        for (int t = target; t > 0; t /= 9) {
+            digits[count++] = t % 9;
+        }
+
+        StringBuilder sb = new StringBuilder(count * 6);
+        sb.append(digits[count - 1]);
+        for (int i = count - 2; i >= 0; i--) {
+            sb.insert(0, '(').append("*9");
+            if (digits[i] != 0) sb.append('+').append(digits[i]);
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+}
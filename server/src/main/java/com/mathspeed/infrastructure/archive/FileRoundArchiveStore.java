@@ -0,0 +1,249 @@
+package com.mathspeed.infrastructure.archive;
+
+import com.mathspeed.domain.model.RoundAggregate;
+import com.mathspeed.domain.model.RoundRecord;
+import com.mathspeed.domain.port.RoundArchiveStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Archive of game_rounds rows as one file per month ({@code rounds-2026-01.qmr}), each a short header followed
+ * by {@link RoundBlock}s. Reads map the file read-only and walk the blocks in place, so a scan touches only the
+ * sections it needs and never copies a whole file onto the heap.
+ *
+ * Months are UTC calendar months of the round timestamp. A staged batch lives next to its month file as
+ * {@code rounds-2026-01.qmr.staged} until committed.
+ */
+public class FileRoundArchiveStore implements RoundArchiveStore {
+    private static final byte[] MAGIC = {'Q', 'M', 'R', 'A'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = MAGIC.length + 1;
+    private static final String PREFIX = "rounds-";
+    private static final String SUFFIX = ".qmr";
+    private static final String STAGED_SUFFIX = ".staged";
+
+    private final Path dir;
+
+    public FileRoundArchiveStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    private Path monthFile(YearMonth month) {
+        return dir.resolve(PREFIX + month + SUFFIX);
+    }
+
+    private Path stagedFile(YearMonth month) {
+        return dir.resolve(PREFIX + month + SUFFIX + STAGED_SUFFIX);
+    }
+
+    @Override
+    public synchronized void stage(YearMonth month, List<RoundRecord> rows) throws IOException {
+        byte[] block = RoundBlock.encode(rows);
+        Path tmp = dir.resolve(PREFIX + month + SUFFIX + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(ch, ByteBuffer.wrap(block));
+            ch.force(true);
+        }
+        Files.move(tmp, stagedFile(month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Append the staged block to the month file. Idempotent: if a crash hit after the append but before the
+     * staged file was removed, the block is already the file's tail and is not written twice.
+     */
+    @Override
+    public synchronized void commit(YearMonth month) throws IOException {
+        Path staged = stagedFile(month);
+        if (!Files.exists(staged)) return;
+        byte[] block = Files.readAllBytes(staged);
+        Path file = monthFile(month);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            if (size < FILE_HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+                header.put(MAGIC).put((byte) FORMAT_VERSION).flip();
+                ch.truncate(0);
+                ch.position(0);
+                writeFully(ch, header);
+                size = FILE_HEADER_BYTES;
+            }
+            // cut a torn block left by an interrupted append, or readers would stop there
+            long end = validEnd(ch, size);
+            if (!endsWith(ch, end, block)) {
+                ch.truncate(end);
+                ch.position(end);
+                writeFully(ch, ByteBuffer.wrap(block));
+            } else if (end < size) {
+                ch.truncate(end);
+            }
+            ch.force(true);
+        }
+        Files.delete(staged);
+    }
+
+    @Override
+    public synchronized void discard(YearMonth month) throws IOException {
+        Files.deleteIfExists(stagedFile(month));
+    }
+
+    @Override
+    public synchronized List<YearMonth> stagedMonths() throws IOException {
+        List<YearMonth> out = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX + STAGED_SUFFIX))
+                    .forEach(n -> out.add(YearMonth.parse(n.substring(PREFIX.length(), n.length() - SUFFIX.length() - STAGED_SUFFIX.length()))));
+        }
+        out.sort(Comparator.naturalOrder());
+        return out;
+    }
+
+    @Override
+    public synchronized List<Long> stagedIds(YearMonth month) throws IOException {
+        Path staged = stagedFile(month);
+        if (!Files.exists(staged)) return List.of();
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(staged));
+        long[] ids = new RoundBlock.View(buf, 4).ids();
+        List<Long> out = new ArrayList<>(ids.length);
+        for (long id : ids) out.add(id);
+        return out;
+    }
+
+    @Override
+    public List<RoundRecord> playerHistory(String playerId, YearMonth from, YearMonth to, int limit) throws IOException {
+        byte[] wanted = playerId.getBytes(StandardCharsets.UTF_8);
+        List<RoundRecord> out = new ArrayList<>();
+        // newest month first; a month's rows are all newer than the previous month's, so stop once full
+        for (YearMonth m = to; !m.isBefore(from) && out.size() < limit; m = m.minusMonths(1)) {
+            List<RoundRecord> month = new ArrayList<>();
+            for (RoundBlock.View block : blocks(m)) {
+                int playerIdx = block.findInDictionary(RoundBlock.SEC_PLAYER_DICT, wanted);
+                if (playerIdx < 0) continue;
+                long[] playerRefs = block.varints(RoundBlock.SEC_PLAYER_REF);
+                long[] ids = block.ids();
+                long[] matchRefs = block.varints(RoundBlock.SEC_MATCH_REF);
+                long[] roundIdx = block.varints(RoundBlock.SEC_ROUND_INDEX);
+                long[] ts = block.timestamps();
+                long[] playTime = block.varints(RoundBlock.SEC_PLAY_TIME);
+                long[] target = block.varints(RoundBlock.SEC_TARGET);
+                String[] matchDict = block.dictionary(RoundBlock.SEC_MATCH_DICT);
+                for (int i = 0; i < block.rows; i++) {
+                    if (playerRefs[i] != playerIdx) continue;
+                    month.add(new RoundRecord(ids[i], matchDict[(int) matchRefs[i]], (int) roundIdx[i], playerId,
+                            block.correct(i), playTime[i], ts[i], block.difficulty(i), (int) target[i]));
+                }
+            }
+            month.sort(Comparator.comparingLong(RoundRecord::getTimestampMs).reversed());
+            for (RoundRecord r : month) {
+                if (out.size() >= limit) break;
+                out.add(r);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public RoundAggregate aggregate(String playerId, YearMonth from, YearMonth to) throws IOException {
+        byte[] wanted = playerId != null ? playerId.getBytes(StandardCharsets.UTF_8) : null;
+        RoundAggregate agg = new RoundAggregate();
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            for (RoundBlock.View block : blocks(m)) {
+                int playerIdx = -1;
+                long[] playerRefs = null;
+                if (wanted != null) {
+                    playerIdx = block.findInDictionary(RoundBlock.SEC_PLAYER_DICT, wanted);
+                    if (playerIdx < 0) continue;
+                    playerRefs = block.varints(RoundBlock.SEC_PLAYER_REF);
+                }
+                long[] playTime = block.varints(RoundBlock.SEC_PLAY_TIME);
+                for (int i = 0; i < block.rows; i++) {
+                    if (playerRefs != null && playerRefs[i] != playerIdx) continue;
+                    agg.add(block.correct(i), playTime[i], block.difficulty(i));
+                }
+            }
+        }
+        return agg;
+    }
+
+    /**
+     * Blocks of one month file, read through a read-only mapping; empty if the month was never archived.
+     */
+    private List<RoundBlock.View> blocks(YearMonth month) throws IOException {
+        Path file = monthFile(month);
+        if (!Files.exists(file)) return List.of();
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < FILE_HEADER_BYTES) return List.of();
+            if (size > Integer.MAX_VALUE) throw new IOException("archive file too large: " + file);
+            // the mapping stays valid after the channel is closed
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buf.get(i) != MAGIC[i]) throw new IOException("not a round archive: " + file);
+        }
+        if (buf.get(MAGIC.length) != FORMAT_VERSION) throw new IOException("unsupported archive version: " + file);
+
+        List<RoundBlock.View> out = new ArrayList<>();
+        int pos = FILE_HEADER_BYTES;
+        int limit = buf.limit();
+        while (pos + 4 <= limit) {
+            int payload = buf.getInt(pos);
+            if (payload < RoundBlock.HEADER_BYTES || pos + 4L + payload > limit) {
+                // torn tail from an interrupted append; everything before it is intact
+                System.err.println("[FileRoundArchiveStore] ignoring truncated block at " + pos + " in " + file);
+                break;
+            }
+            out.add(new RoundBlock.View(buf, pos + 4));
+            pos += 4 + payload;
+        }
+        return out;
+    }
+
+    private static long validEnd(FileChannel ch, long size) throws IOException {
+        long pos = FILE_HEADER_BYTES;
+        ByteBuffer len = ByteBuffer.allocate(4);
+        while (pos + 4 <= size) {
+            len.clear();
+            while (len.hasRemaining()) {
+                if (ch.read(len, pos + len.position()) < 0) return pos;
+            }
+            int payload = len.getInt(0);
+            if (payload < RoundBlock.HEADER_BYTES || pos + 4L + payload > size) return pos;
+            pos += 4L + payload;
+        }
+        return pos;
+    }
+
+    private static boolean endsWith(FileChannel ch, long size, byte[] block) throws IOException {
+        if (size < FILE_HEADER_BYTES + block.length) return false;
+        ByteBuffer tail = ByteBuffer.allocate(block.length);
+        long pos = size - block.length;
+        while (tail.hasRemaining()) {
+            int n = ch.read(tail, pos + tail.position());
+            if (n < 0) return false;
+        }
+        return Arrays.equals(tail.array(), block);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+}
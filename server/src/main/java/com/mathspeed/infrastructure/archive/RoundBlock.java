@@ -0,0 +1,252 @@
+package com.mathspeed.infrastructure.archive;
+
+import com.mathspeed.domain.model.RoundRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar encoding of a batch of game_rounds rows. A block is self-contained, so archive files are just
+ * blocks appended one after another:
+ * <pre>
+ *   int     payload length
+ *   int     row count
+ *   long    min timestamp, long max timestamp
+ *   int[11] section offsets, relative to the start of the payload (the row count)
+ *   sections:
+ *     player dictionary, match dictionary   varint count, then varint length + UTF-8 per entry
+ *     ids           varint first id, then varint gaps (rows are sorted by id)
+ *     match refs    varint dictionary index per row
+ *     player refs   varint dictionary index per row
+ *     round index   varint per row
+ *     timestamps    zigzag varint delta from the previous row
+ *     correct       1 bit per row
+ *     play time     varint ms per row
+ *     difficulty    2 bits per row (0 = not recorded)
+ *     target        varint per row (0 = not recorded)
+ * </pre>
+ * A reader looking for one player checks the player dictionary first and skips the whole block when the player
+ * is not in it; otherwise it only decodes the sections the query needs.
+ */
+final class RoundBlock {
+    static final int SEC_PLAYER_DICT = 0;
+    static final int SEC_MATCH_DICT = 1;
+    static final int SEC_IDS = 2;
+    static final int SEC_MATCH_REF = 3;
+    static final int SEC_PLAYER_REF = 4;
+    static final int SEC_ROUND_INDEX = 5;
+    static final int SEC_TIMESTAMP = 6;
+    static final int SEC_CORRECT = 7;
+    static final int SEC_PLAY_TIME = 8;
+    static final int SEC_DIFFICULTY = 9;
+    static final int SEC_TARGET = 10;
+    static final int SECTIONS = 11;
+    // row count, min/max timestamp, section offsets
+    static final int HEADER_BYTES = 4 + 8 + 8 + SECTIONS * 4;
+
+    private RoundBlock() {
+    }
+
+    /**
+     * Encode rows into one block, length prefix included.
+     */
+    static byte[] encode(List<RoundRecord> input) {
+        List<RoundRecord> rows = new ArrayList<>(input);
+        rows.sort(Comparator.comparingLong(RoundRecord::getId));
+        int n = rows.size();
+
+        Map<String, Integer> players = new HashMap<>();
+        Map<String, Integer> matches = new HashMap<>();
+        List<String> playerDict = new ArrayList<>();
+        List<String> matchDict = new ArrayList<>();
+        ByteArrayOutputStream[] sec = new ByteArrayOutputStream[SECTIONS];
+        for (int i = 0; i < SECTIONS; i++) sec[i] = new ByteArrayOutputStream(i <= SEC_MATCH_DICT ? 1024 : n * 2 + 8);
+
+        byte[] correctBits = new byte[(n + 7) / 8];
+        byte[] difficultyBits = new byte[(n + 3) / 4];
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        long prevId = 0, prevTs = 0;
+        for (int i = 0; i < n; i++) {
+            RoundRecord r = rows.get(i);
+            writeVarint(sec[SEC_IDS], i == 0 ? r.getId() : r.getId() - prevId);
+            prevId = r.getId();
+            writeVarint(sec[SEC_MATCH_REF], intern(r.getMatchId(), matches, matchDict));
+            writeVarint(sec[SEC_PLAYER_REF], intern(r.getPlayerId(), players, playerDict));
+            writeVarint(sec[SEC_ROUND_INDEX], Math.max(0, r.getRoundIndex()));
+            writeVarint(sec[SEC_TIMESTAMP], zigzag(r.getTimestampMs() - prevTs));
+            prevTs = r.getTimestampMs();
+            if (r.isCorrect()) correctBits[i >>> 3] |= (byte) (1 << (i & 7));
+            writeVarint(sec[SEC_PLAY_TIME], Math.max(0L, r.getPlayTimeMs()));
+            int level = r.getDifficulty() >= 1 && r.getDifficulty() <= 3 ? r.getDifficulty() : 0;
+            difficultyBits[i >>> 2] |= (byte) (level << ((i & 3) * 2));
+            writeVarint(sec[SEC_TARGET], Math.max(0, r.getTarget()));
+            minTs = Math.min(minTs, r.getTimestampMs());
+            maxTs = Math.max(maxTs, r.getTimestampMs());
+        }
+        writeDictionary(sec[SEC_PLAYER_DICT], playerDict);
+        writeDictionary(sec[SEC_MATCH_DICT], matchDict);
+        sec[SEC_CORRECT].write(correctBits, 0, correctBits.length);
+        sec[SEC_DIFFICULTY].write(difficultyBits, 0, difficultyBits.length);
+
+        int payload = HEADER_BYTES;
+        for (ByteArrayOutputStream s : sec) payload += s.size();
+        ByteBuffer out = ByteBuffer.allocate(4 + payload);
+        out.putInt(payload);
+        out.putInt(n);
+        out.putLong(n > 0 ? minTs : 0L);
+        out.putLong(n > 0 ? maxTs : 0L);
+        int offset = HEADER_BYTES;
+        for (ByteArrayOutputStream s : sec) {
+            out.putInt(offset);
+            offset += s.size();
+        }
+        for (ByteArrayOutputStream s : sec) out.put(s.toByteArray());
+        return out.array();
+    }
+
+    private static int intern(String value, Map<String, Integer> index, List<String> dict) {
+        String key = value != null ? value : "";
+        Integer idx = index.get(key);
+        if (idx == null) {
+            idx = dict.size();
+            index.put(key, idx);
+            dict.add(key);
+        }
+        return idx;
+    }
+
+    private static void writeDictionary(ByteArrayOutputStream out, List<String> dict) {
+        writeVarint(out, dict.size());
+        for (String s : dict) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, b.length);
+            out.write(b, 0, b.length);
+        }
+    }
+
+    // ---- reading; all positions are absolute indexes into the mapped buffer ----
+
+    /**
+     * A block inside a buffer; {@code start} points at the payload (after the length prefix).
+     */
+    static final class View {
+        final ByteBuffer buf;
+        final int start;
+        final int rows;
+
+        View(ByteBuffer buf, int start) {
+            this.buf = buf;
+            this.start = start;
+            this.rows = buf.getInt(start);
+        }
+
+        long minTimestamp() { return buf.getLong(start + 4); }
+        long maxTimestamp() { return buf.getLong(start + 12); }
+
+        int section(int s) {
+            return start + buf.getInt(start + 20 + s * 4);
+        }
+
+        /**
+         * Dictionary index of {@code utf8}, or -1; compares bytes in place without decoding the other entries.
+         */
+        int findInDictionary(int sec, byte[] utf8) {
+            int[] pos = {section(sec)};
+            int count = (int) readVarint(buf, pos);
+            for (int i = 0; i < count; i++) {
+                int len = (int) readVarint(buf, pos);
+                if (len == utf8.length && regionEquals(buf, pos[0], utf8)) return i;
+                pos[0] += len;
+            }
+            return -1;
+        }
+
+        String[] dictionary(int sec) {
+            int[] pos = {section(sec)};
+            int count = (int) readVarint(buf, pos);
+            String[] out = new String[count];
+            for (int i = 0; i < count; i++) {
+                int len = (int) readVarint(buf, pos);
+                byte[] b = new byte[len];
+                for (int k = 0; k < len; k++) b[k] = buf.get(pos[0] + k);
+                pos[0] += len;
+                out[i] = new String(b, StandardCharsets.UTF_8);
+            }
+            return out;
+        }
+
+        /**
+         * All values of a plain varint section.
+         */
+        long[] varints(int sec) {
+            long[] out = new long[rows];
+            int[] pos = {section(sec)};
+            for (int i = 0; i < rows; i++) out[i] = readVarint(buf, pos);
+            return out;
+        }
+
+        long[] ids() {
+            long[] out = varints(SEC_IDS);
+            for (int i = 1; i < rows; i++) out[i] += out[i - 1];
+            return out;
+        }
+
+        long[] timestamps() {
+            long[] out = new long[rows];
+            int[] pos = {section(SEC_TIMESTAMP)};
+            long prev = 0;
+            for (int i = 0; i < rows; i++) {
+                prev += unzigzag(readVarint(buf, pos));
+                out[i] = prev;
+            }
+            return out;
+        }
+
+        boolean correct(int row) {
+            return (buf.get(section(SEC_CORRECT) + (row >>> 3)) & (1 << (row & 7))) != 0;
+        }
+
+        int difficulty(int row) {
+            return (buf.get(section(SEC_DIFFICULTY) + (row >>> 2)) >>> ((row & 3) * 2)) & 0x3;
+        }
+    }
+
+    private static boolean regionEquals(ByteBuffer buf, int pos, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(pos + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarint(ByteBuffer buf, int[] pos) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get(pos[0]++);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("malformed_varint");
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
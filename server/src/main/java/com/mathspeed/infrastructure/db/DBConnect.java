@@ -5,10 +5,43 @@ import com.zaxxer.hikari.HikariDataSource;
 
 import javax.sql.DataSource;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Connection pools: one for the primary and, when db.replicaUrls lists any, one per read replica. Connections are
+ * handed out by {@link Intent}: writes always go to the primary, reads to a replica whose measured lag is within
+ * db.replica.maxLagSeconds, falling back to the primary when none qualifies or a replica refuses a connection.
+ * Each role is sized on its own: db.maxPool / db.minIdle for the primary, db.replica.maxPool / db.replica.minIdle
+ * per replica (defaulting to the primary's).
+ *
+ * Replica lag is sampled every db.replica.lagCheckMs with SHOW REPLICA STATUS (SHOW SLAVE STATUS before MySQL 8.0.22),
+ * so the replica user needs the REPLICATION CLIENT privilege. A replica that is not replicating counts as unhealthy.
+ */
 public class DBConnect {
     private static volatile HikariDataSource dataSource;
+    private static volatile List<Replica> replicas = Collections.emptyList();
+    private static volatile ScheduledExecutorService lagMonitor;
+    private static volatile int maxLagSeconds = 2;
+    private static volatile long lagCheckMs = 1000L;
+    private static final AtomicInteger nextReplica = new AtomicInteger();
+    // System.nanoTime() when the last WRITE connection was returned, i.e. after its work committed
+    private static final AtomicLong lastWriteNanos = new AtomicLong(System.nanoTime());
+    // fetch size for streamed queries; Integer.MIN_VALUE makes MySQL Connector/J stream row by row
+    private static volatile int streamFetchSize = Integer.MIN_VALUE;
     static {
         initDataSource();
     }
@@ -61,43 +94,80 @@ public class DBConnect {
             int maxPool = parseIntOrDefault(firstNonEmpty(System.getenv("DB_MAX_POOL"), props.getProperty("db.maxPool")), defaultMaxPool);
             int minIdle = parseIntOrDefault(firstNonEmpty(System.getenv("DB_MIN_IDLE"), props.getProperty("db.minIdle")), defaultMinIdle);
 
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(jdbcUrl);
-            config.setUsername(user);
-            config.setPassword(password);
-
-            // set driver if provided in properties
-            String driver = firstNonEmpty(System.getenv("DB_DRIVER"), props.getProperty("db.driver"));
-            if (driver != null && !driver.isEmpty()) {
-                config.setDriverClassName(driver);
-            } else {
-                // best-effort default for MySQL (no harm if driver auto-loaded)
-                config.setDriverClassName("com.mysql.cj.jdbc.Driver");
-            }
+            // db.streamFetchSize: rows per round trip for streamed queries; a positive value needs useCursorFetch=true
+            streamFetchSize = parseIntOrDefault(firstNonEmpty(System.getenv("DB_STREAM_FETCH_SIZE"), props.getProperty("db.streamFetchSize")), Integer.MIN_VALUE);
 
-            config.setMaximumPoolSize(maxPool);
-            config.setMinimumIdle(minIdle);
-            config.setConnectionTimeout(parseLongOrDefault(firstNonEmpty(props.getProperty("db.connectionTimeout"), props.getProperty("hibernate.connection.timeout")), 30000L));
-            config.setIdleTimeout(parseLongOrDefault(props.getProperty("db.idleTimeout"), 600000L));
-            config.setMaxLifetime(parseLongOrDefault(props.getProperty("db.maxLifetime"), 1800000L));
+            HikariDataSource ds = new HikariDataSource(poolConfig("quickmath-primary", jdbcUrl, user, password, maxPool, minIdle, props));
 
-            // Performance settings (can be overridden by properties)
-            config.addDataSourceProperty("cachePrepStmts", firstNonEmpty(props.getProperty("db.cachePrepStmts"), "true"));
-            config.addDataSourceProperty("prepStmtCacheSize", firstNonEmpty(props.getProperty("db.prepStmtCacheSize"), "250"));
-            config.addDataSourceProperty("prepStmtCacheSqlLimit", firstNonEmpty(props.getProperty("db.prepStmtCacheSqlLimit"), "2048"));
-            config.addDataSourceProperty("useServerPrepStmts", firstNonEmpty(props.getProperty("db.useServerPrepStmts"), "true"));
+            // Replicas: comma-separated JDBC URLs; credentials and pool size default to the primary's
+            List<Replica> newReplicas = new ArrayList<>();
+            String replicaUrls = firstNonEmpty(System.getenv("DB_REPLICA_URLS"), props.getProperty("db.replicaUrls"));
+            if (replicaUrls != null) {
+                String replicaUser = firstNonEmpty(System.getenv("DB_REPLICA_USER"), props.getProperty("db.replica.user"), user);
+                String replicaPassword = firstNonEmpty(System.getenv("DB_REPLICA_PASSWORD"), props.getProperty("db.replica.password"), password);
+                int replicaMaxPool = parseIntOrDefault(firstNonEmpty(System.getenv("DB_REPLICA_MAX_POOL"), props.getProperty("db.replica.maxPool")), maxPool);
+                int replicaMinIdle = parseIntOrDefault(firstNonEmpty(System.getenv("DB_REPLICA_MIN_IDLE"), props.getProperty("db.replica.minIdle")), minIdle);
+                for (String url : replicaUrls.split(",")) {
+                    if (url.trim().isEmpty()) continue;
+                    String name = "quickmath-replica-" + (newReplicas.size() + 1);
+                    HikariConfig config = poolConfig(name, url.trim(), replicaUser, replicaPassword, replicaMaxPool, replicaMinIdle, props);
+                    config.setReadOnly(true);
+                    // a dead replica must not hold a request for the full primary timeout before falling back
+                    config.setConnectionTimeout(parseLongOrDefault(props.getProperty("db.replica.connectionTimeout"), 2000L));
+                    config.setInitializationFailTimeout(-1);
+                    newReplicas.add(new Replica(name, new HikariDataSource(config)));
+                }
+            }
+            maxLagSeconds = parseIntOrDefault(firstNonEmpty(System.getenv("DB_REPLICA_MAX_LAG_SECONDS"), props.getProperty("db.replica.maxLagSeconds")), 2);
+            lagCheckMs = Math.max(100L, parseLongOrDefault(props.getProperty("db.replica.lagCheckMs"), 1000L));
 
-            HikariDataSource ds = new HikariDataSource(config);
             HikariDataSource previous = dataSource;
+            List<Replica> previousReplicas = replicas;
             dataSource = ds;
+            replicas = Collections.unmodifiableList(newReplicas);
             if (previous != null && !previous.isClosed()) {
                 previous.close();
             }
+            for (Replica r : previousReplicas) r.dataSource.close();
+            if (!newReplicas.isEmpty()) startLagMonitor();
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize DataSource", e);
         }
     }
 
+    private static HikariConfig poolConfig(String poolName, String jdbcUrl, String user, String password, int maxPool, int minIdle, Properties props) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+
+        // set driver if provided in properties
+        String driver = firstNonEmpty(System.getenv("DB_DRIVER"), props.getProperty("db.driver"));
+        if (driver != null && !driver.isEmpty()) {
+            config.setDriverClassName(driver);
+        } else {
+            // best-effort default for MySQL (no harm if driver auto-loaded)
+            config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        }
+
+        config.setMaximumPoolSize(maxPool);
+        config.setMinimumIdle(minIdle);
+        config.setConnectionTimeout(parseLongOrDefault(firstNonEmpty(props.getProperty("db.connectionTimeout"), props.getProperty("hibernate.connection.timeout")), 30000L));
+        config.setIdleTimeout(parseLongOrDefault(props.getProperty("db.idleTimeout"), 600000L));
+        config.setMaxLifetime(parseLongOrDefault(props.getProperty("db.maxLifetime"), 1800000L));
+
+        // Performance settings (can be overridden by properties)
+        config.addDataSourceProperty("cachePrepStmts", firstNonEmpty(props.getProperty("db.cachePrepStmts"), "true"));
+        config.addDataSourceProperty("prepStmtCacheSize", firstNonEmpty(props.getProperty("db.prepStmtCacheSize"), "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", firstNonEmpty(props.getProperty("db.prepStmtCacheSqlLimit"), "2048"));
+        config.addDataSourceProperty("useServerPrepStmts", firstNonEmpty(props.getProperty("db.useServerPrepStmts"), "true"));
+
+        String cursorFetch = props.getProperty("db.useCursorFetch");
+        if (cursorFetch != null) config.addDataSourceProperty("useCursorFetch", cursorFetch);
+        return config;
+    }
+
     private static String firstNonEmpty(String... candidates) {
         for (String s : candidates) {
             if (s != null && !s.isEmpty()) return s;
@@ -115,13 +185,179 @@ public class DBConnect {
         try { return Long.parseLong(s); } catch (NumberFormatException ignored) { return def; }
     }
 
+    public static int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    /**
+     * The primary pool. Schema migrations and anything else that must not touch a replica use this directly.
+     */
     public static DataSource getDataSource() {
         return dataSource;
     }
 
+    /**
+     * A connection suited to {@code intent}. READ takes the next replica within the lag limit; READ_YOUR_WRITES
+     * additionally needs the replica to have applied everything up to the last write this process committed, which
+     * under steady write traffic usually means the primary. Falls back to the primary whenever no replica fits.
+     */
+    public static Connection getConnection(Intent intent) throws SQLException {
+        List<Replica> pool = replicas;
+        if (intent == Intent.WRITE || pool.isEmpty()) {
+            return pool.isEmpty() ? dataSource.getConnection() : trackWrite(dataSource.getConnection());
+        }
+        long now = System.nanoTime();
+        long staleAfter = TimeUnit.MILLISECONDS.toNanos(3 * lagCheckMs);
+        long lastWrite = lastWriteNanos.get();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), pool.size());
+        for (int i = 0; i < pool.size(); i++) {
+            Replica r = pool.get((start + i) % pool.size());
+            if (!r.healthy || r.lagSeconds > maxLagSeconds || now - r.checkedAtNanos > staleAfter) continue;
+            if (intent == Intent.READ_YOUR_WRITES && r.appliedThroughNanos - lastWrite <= 0) continue;
+            try {
+                return r.dataSource.getConnection();
+            } catch (SQLException e) {
+                r.markUnhealthy("connection failed: " + e.getMessage());
+            }
+        }
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Wraps a primary connection so returning it stamps the time of the last write, for READ_YOUR_WRITES.
+     */
+    private static Connection trackWrite(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            try {
+                return method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if ("close".equals(method.getName())) lastWriteNanos.accumulateAndGet(System.nanoTime(), Math::max);
+            }
+        });
+    }
+
+    /**
+     * Hold db.minIdle connections of every pool at once and run a trivial query on each, so the pools are full and
+     * the driver paths loaded before the first player arrives. Returns how many connections were checked.
+     */
+    public static int prefill() {
+        int checked = prefill(dataSource);
+        for (Replica r : replicas) checked += prefill(r.dataSource);
+        return checked;
+    }
+
+    private static int prefill(HikariDataSource ds) {
+        if (ds == null) return 0;
+        int target = Math.max(1, ds.getMinimumIdle());
+        List<Connection> held = new ArrayList<>(target);
+        try {
+            while (held.size() < target) {
+                Connection conn = ds.getConnection();
+                held.add(conn);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("SELECT 1");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("[DBConnect] " + ds.getPoolName() + " prefill stopped at " + held.size() + "/" + target + ": " + e.getMessage());
+        } finally {
+            for (Connection conn : held) {
+                try { conn.close(); } catch (SQLException ignored) {}
+            }
+        }
+        return held.size();
+    }
+
+    private static void startLagMonitor() {
+        ScheduledExecutorService previous = lagMonitor;
+        if (previous != null) previous.shutdownNow();
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DBConnect-replica-lag");
+            t.setDaemon(true);
+            return t;
+        });
+        monitor.scheduleWithFixedDelay(() -> {
+            for (Replica r : replicas) r.checkLag();
+        }, 0, lagCheckMs, TimeUnit.MILLISECONDS);
+        lagMonitor = monitor;
+    }
+
     public static synchronized void close() {
+        ScheduledExecutorService monitor = lagMonitor;
+        if (monitor != null) monitor.shutdownNow();
+        for (Replica r : replicas) r.dataSource.close();
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
     }
-}
\ No newline at end of file
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        volatile boolean healthy;
+        volatile long lagSeconds = Long.MAX_VALUE;
+        volatile long checkedAtNanos;
+        // every transaction the primary committed before this instant is known to be applied here
+        volatile long appliedThroughNanos = Long.MIN_VALUE;
+        // null until the first successful check; false once SHOW REPLICA STATUS turned out to be unsupported
+        Boolean replicaSyntax;
+        // so a replica that never comes up is reported once rather than on every check
+        volatile boolean reportedDown;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void checkLag() {
+            long startedAt = System.nanoTime();
+            try (Connection conn = dataSource.getConnection();
+                 Statement st = conn.createStatement()) {
+                Long lag = readLag(st);
+                if (lag == null) {
+                    markUnhealthy("not replicating");
+                    return;
+                }
+                lagSeconds = lag;
+                // Seconds_Behind_Source is whole seconds, so allow one more on top of what it reports
+                appliedThroughNanos = startedAt - TimeUnit.SECONDS.toNanos(lag + 1);
+                checkedAtNanos = startedAt;
+                if (!healthy) System.out.println("[DBConnect] " + name + " serving reads (lag " + lag + "s)");
+                healthy = true;
+                reportedDown = false;
+            } catch (SQLException e) {
+                markUnhealthy(e.getMessage());
+            }
+        }
+
+        private Long readLag(Statement st) throws SQLException {
+            if (replicaSyntax == null || replicaSyntax) {
+                try (ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+                    replicaSyntax = true;
+                    return lagFrom(rs, "Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    // 1064: syntax not known before MySQL 8.0.22
+                    if (e.getErrorCode() != 1064) throw e;
+                    replicaSyntax = false;
+                }
+            }
+            try (ResultSet rs = st.executeQuery("SHOW SLAVE STATUS")) {
+                return lagFrom(rs, "Seconds_Behind_Master");
+            }
+        }
+
+        private static Long lagFrom(ResultSet rs, String column) throws SQLException {
+            if (!rs.next()) return null;
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+
+        void markUnhealthy(String reason) {
+            if (healthy || !reportedDown) System.err.println("[DBConnect] " + name + " out of rotation: " + reason);
+            healthy = false;
+            reportedDown = true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.mathspeed.infrastructure.db;
+
+/**
+ * What a connection will be used for, so {@link DBConnect} can send it to the primary or a replica.
+ */
+public enum Intent {
+    /** Reads that tolerate replica lag up to db.replica.maxLagSeconds (dashboards, listings, stats). */
+    READ,
+    /** Writes, and reads inside a write transaction. Always the primary. */
+    WRITE,
+    /** Reads that must see every write already committed; a replica only once it has provably caught up. */
+    READ_YOUR_WRITES
+}
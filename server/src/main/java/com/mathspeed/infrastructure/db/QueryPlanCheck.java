@@ -0,0 +1,80 @@
+package com.mathspeed.infrastructure.db;
+
+import javax.sql.DataSource;
+import java.sql.*;
+
+/**
+ * Runs EXPLAIN over the hot DAO queries and warns when one scans a whole table or sorts on the fly instead of
+ * reading an index. Meant to catch a schema that drifted from the migrations, or a query edited so it no longer
+ * matches its index. Only tables big enough for the optimizer to care are reported; on a near-empty table a full
+ * scan is the right plan.
+ */
+public class QueryPlanCheck {
+    // below this row estimate the optimizer picks a scan on purpose
+    private static final long MIN_ROWS = 1_000L;
+
+    // name, query as the DAO issues it, sample parameters
+    private static final Object[][] HOT_QUERIES = {
+            {"GameHistoryDAOImpl.getTotalWins",
+                    "SELECT COUNT(*) FROM game_history gh JOIN matches m ON m.id = gh.match_id " +
+                            "WHERE gh.player_id = ? AND gh.result = 'win' AND m.ranked = 1", "x"},
+            {"GameHistoryDAOImpl.getTotalGames",
+                    "SELECT COUNT(*) FROM game_history gh JOIN matches m ON m.id = gh.match_id " +
+                            "WHERE gh.player_id = ? AND m.ranked = 1", "x"},
+            {"QuizDAOImpl.getOwnQuizzes", "SELECT * FROM quizzes WHERE player_id = ? ORDER BY created_at DESC", "x"},
+            {"RoundArchiveDAOImpl.findRoundsBefore",
+                    "SELECT id FROM game_rounds WHERE timestamp_ms < ? ORDER BY timestamp_ms, id LIMIT ?", 0L, 5_000},
+            {"TournamentDAOImpl.findByStatus", "SELECT * FROM tournaments WHERE status = ? ORDER BY created_at", "running"},
+            {"TournamentDAOImpl.getEntrants", "SELECT * FROM tournament_entrants WHERE tournament_id = ? ORDER BY seed", "x"},
+            {"GhostReplayDAOImpl.findRecent", "SELECT player_id FROM ghost_replays ORDER BY created_at DESC LIMIT ?", 200},
+            {"PlayerDAOImpl.findPlayer", "SELECT id FROM players WHERE username = ?", "x"},
+    };
+
+    private final DataSource dataSource;
+
+    public QueryPlanCheck(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Explain every hot query and log the ones with a poor plan. Returns the number of warnings.
+     */
+    public int run() {
+        int warnings = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            for (Object[] q : HOT_QUERIES) {
+                String name = (String) q[0];
+                try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + q[1])) {
+                    for (int i = 2; i < q.length; i++) ps.setObject(i - 1, q[i]);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String problem = problemWith(rs);
+                            if (problem != null) {
+                                warnings++;
+                                System.err.println("[QueryPlanCheck] " + name + ": " + problem + " on " + rs.getString("table")
+                                        + " (~" + rs.getLong("rows") + " rows, key=" + rs.getString("key") + ")");
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    warnings++;
+                    System.err.println("[QueryPlanCheck] " + name + ": EXPLAIN failed: " + e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("[QueryPlanCheck] skipped: " + e.getMessage());
+            return 0;
+        }
+        System.out.println("[QueryPlanCheck] " + HOT_QUERIES.length + " hot queries explained, " + warnings + " warning(s)");
+        return warnings;
+    }
+
+    private static String problemWith(ResultSet row) throws SQLException {
+        if (row.getLong("rows") < MIN_ROWS) return null;
+        String extra = row.getString("Extra");
+        if ("ALL".equals(row.getString("type"))) return "full table scan";
+        if (extra != null && extra.contains("Using filesort")) return "filesort";
+        if (extra != null && extra.contains("Using temporary")) return "temporary table";
+        return null;
+    }
+}
@@ -0,0 +1,283 @@
+package com.mathspeed.infrastructure.db;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned schema scripts ({@code V<n>__<description>.sql}, from src/sql/migrations) that the
+ * database has not seen yet, in version order, and records each one in {@code schema_migrations}. This is the
+ * only place the server runs DDL; the DAOs assume the schema is already in place.
+ *
+ * Scripts are read from the classpath ({@code db/migration/}) or from the directory named by
+ * {@code quickmath.migrationsDir}. A MySQL named lock keeps several nodes starting together from racing.
+ *
+ * MySQL commits DDL statement by statement, so a script that fails half way is not rolled back. Errors meaning
+ * "this is already done" (table, column, index or constraint exists; index to drop is gone) are skipped, which
+ * lets a failed script simply be rerun and lets databases built by hand from the old quickmath.sql adopt the
+ * baseline. Adoption only creates what is missing: a table that already exists keeps its old columns, so a column
+ * V1 declares but the old quickmath.sql lacked (matches.ranked) needs its own ALTER in a later script (V4).
+ */
+public class SchemaMigrator {
+    private static final String CLASSPATH_DIR = "db/migration";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String LOCK_NAME = "quickmath_schema";
+    private static final int LOCK_TIMEOUT_S = 60;
+    // ER_TABLE_EXISTS_ERROR, ER_DUP_FIELDNAME, ER_DUP_KEYNAME, ER_CANT_DROP_FIELD_OR_KEY, ER_FK_DUP_NAME
+    private static final Set<Integer> ALREADY_APPLIED = Set.of(1050, 1060, 1061, 1091, 1826);
+
+    private final DataSource dataSource;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Bring the schema up to the newest script. Returns how many scripts were applied.
+     */
+    public int migrate() throws Exception {
+        List<Script> scripts = loadScripts();
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(true);
+            lock(conn);
+            try {
+                createHistoryTable(conn);
+                Map<Integer, Long> applied = appliedChecksums(conn);
+                int count = 0;
+                for (Script script : scripts) {
+                    Long checksum = applied.get(script.version);
+                    if (checksum != null) {
+                        if (checksum != script.checksum) {
+                            System.err.println("[SchemaMigrator] V" + script.version + " (" + script.fileName
+                                    + ") changed after it was applied; add a new script instead of editing this one");
+                        }
+                        continue;
+                    }
+                    apply(conn, script);
+                    count++;
+                }
+                int latest = scripts.isEmpty() ? 0 : scripts.get(scripts.size() - 1).version;
+                System.out.println("[SchemaMigrator] schema at V" + latest + (count > 0 ? ", applied " + count + " script(s)" : ", up to date"));
+                return count;
+            } finally {
+                unlock(conn);
+            }
+        }
+    }
+
+    private void apply(Connection conn, Script script) throws SQLException {
+        long start = System.nanoTime();
+        List<String> statements = splitStatements(script.sql);
+        try (Statement st = conn.createStatement()) {
+            for (String sql : statements) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED.contains(e.getErrorCode())) {
+                        throw new SQLException("V" + script.version + " (" + script.fileName + ") failed at: "
+                                + firstLine(sql) + " - " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                    }
+                    System.out.println("[SchemaMigrator] V" + script.version + ": already in place, skipped: " + firstLine(sql));
+                }
+            }
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000L;
+        String insert = "INSERT INTO schema_migrations (version, description, checksum, applied_at, execution_ms) VALUES (?, ?, ?, NOW(), ?)";
+        try (PreparedStatement ps = conn.prepareStatement(insert)) {
+            ps.setInt(1, script.version);
+            ps.setString(2, script.description);
+            ps.setLong(3, script.checksum);
+            ps.setLong(4, ms);
+            ps.executeUpdate();
+        }
+        System.out.println("[SchemaMigrator] applied V" + script.version + " " + script.description + " in " + ms + " ms");
+    }
+
+    private static void createHistoryTable(Connection conn) throws SQLException {
+        String ddl = "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                "version INT NOT NULL PRIMARY KEY," +
+                "description VARCHAR(200) NOT NULL," +
+                "checksum BIGINT NOT NULL," +
+                "applied_at DATETIME NOT NULL," +
+                "execution_ms BIGINT NOT NULL DEFAULT 0" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+        try (Statement st = conn.createStatement()) {
+            st.execute(ddl);
+        }
+    }
+
+    private static Map<Integer, Long> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, Long> out = new HashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) out.put(rs.getInt(1), rs.getLong(2));
+        }
+        return out;
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_S);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("timed out waiting for schema lock '" + LOCK_NAME + "'");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("[SchemaMigrator] failed to release schema lock: " + e.getMessage());
+        }
+    }
+
+    // ---- script loading ----
+
+    private static List<Script> loadScripts() throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        String dir = System.getProperty("quickmath.migrationsDir");
+        if (dir != null && !dir.isEmpty()) {
+            readDirectory(Paths.get(dir), files);
+        } else {
+            ClassLoader cl = SchemaMigrator.class.getClassLoader();
+            Enumeration<URL> roots = cl.getResources(CLASSPATH_DIR);
+            while (roots.hasMoreElements()) {
+                URL url = roots.nextElement();
+                if ("jar".equals(url.getProtocol())) readJar(url, files);
+                else if ("file".equals(url.getProtocol())) {
+                    try {
+                        readDirectory(Paths.get(url.toURI()), files);
+                    } catch (java.net.URISyntaxException e) {
+                        throw new IOException("bad migration location " + url, e);
+                    }
+                }
+            }
+        }
+
+        List<Script> scripts = new ArrayList<>();
+        Map<Integer, String> seen = new HashMap<>();
+        for (Map.Entry<String, String> e : files.entrySet()) {
+            Matcher m = SCRIPT_NAME.matcher(e.getKey());
+            if (!m.matches()) continue;
+            int version = Integer.parseInt(m.group(1));
+            String other = seen.put(version, e.getKey());
+            if (other != null) throw new IOException("two migrations with version " + version + ": " + other + ", " + e.getKey());
+            scripts.add(new Script(version, m.group(2).replace('_', ' '), e.getKey(), e.getValue()));
+        }
+        scripts.sort(Comparator.comparingInt(s -> s.version));
+        if (scripts.isEmpty()) System.err.println("[SchemaMigrator] no migration scripts found");
+        return scripts;
+    }
+
+    private static void readDirectory(Path dir, Map<String, String> out) throws IOException {
+        if (!Files.isDirectory(dir)) throw new IOException("migration directory not found: " + dir);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "V*.sql")) {
+            for (Path p : ds) out.put(p.getFileName().toString(), Files.readString(p, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void readJar(URL url, Map<String, String> out) throws IOException {
+        JarURLConnection conn = (JarURLConnection) url.openConnection();
+        conn.setUseCaches(false);
+        try (JarFile jar = conn.getJarFile()) {
+            String prefix = CLASSPATH_DIR + "/";
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.startsWith(prefix) || name.indexOf('/', prefix.length()) >= 0) continue;
+                try (InputStream in = jar.getInputStream(entry)) {
+                    out.put(name.substring(prefix.length()), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    /**
+     * Split a script on semicolons that end a statement, ignoring those inside quotes, backticks and comments.
+     * Comments are dropped from the statements.
+     */
+    static List<String> splitStatements(String sql) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        int n = sql.length();
+        char quote = 0;
+        for (int i = 0; i < n; i++) {
+            char c = sql.charAt(i);
+            char next = i + 1 < n ? sql.charAt(i + 1) : 0;
+            if (quote != 0) {
+                cur.append(c);
+                if (c == '\\' && quote != '`' && i + 1 < n) {
+                    cur.append(next);
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '-' && next == '-' || c == '#') {
+                while (i < n && sql.charAt(i) != '\n') i++;
+                cur.append('\n');
+            } else if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 1;
+                cur.append(' ');
+            } else if (c == ';') {
+                addStatement(out, cur);
+            } else {
+                if (c == '\'' || c == '"' || c == '`') quote = c;
+                cur.append(c);
+            }
+        }
+        addStatement(out, cur);
+        return out;
+    }
+
+    private static void addStatement(List<String> out, StringBuilder cur) {
+        String s = cur.toString().trim();
+        if (!s.isEmpty()) out.add(s);
+        cur.setLength(0);
+    }
+
+    private static String firstLine(String sql) {
+        int nl = sql.indexOf('\n');
+        String line = nl < 0 ? sql : sql.substring(0, nl);
+        return line.length() > 120 ? line.substring(0, 120) + "..." : line;
+    }
+
+    private static final class Script {
+        final int version;
+        final String description;
+        final String fileName;
+        final String sql;
+        final long checksum;
+
+        Script(int version, String description, String fileName, String sql) {
+            this.version = version;
+            this.description = description;
+            this.fileName = fileName;
+            this.sql = sql;
+            // line endings normalised so a Windows checkout does not look like an edited script
+            CRC32 crc = new CRC32();
+            crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+        }
+    }
+}
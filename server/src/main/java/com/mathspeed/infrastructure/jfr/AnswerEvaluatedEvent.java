@@ -0,0 +1,28 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Duration is the expression evaluation alone, on the session thread.
+ */
+@Name("com.mathspeed.AnswerEvaluated")
+@Label("Answer Evaluated")
+@Category({"QuickMath", "Game"})
+@Description("A submitted expression was parsed and evaluated against the round target")
+public class AnswerEvaluatedEvent extends jdk.jfr.Event {
+    @Label("Session Id")
+    public String sessionId;
+
+    @Label("Username")
+    public String username;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Result")
+    @Description("correct, wrong, invalid_expression or internal_error")
+    public String result;
+}
@@ -0,0 +1,23 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.mathspeed.ConnectionAccepted")
+@Label("Connection Accepted")
+@Category({"QuickMath", "Network"})
+@Description("A client socket was accepted, then handed to the client pool or refused")
+public class ConnectionAcceptedEvent extends jdk.jfr.Event {
+    @Label("Remote Address")
+    public String remote;
+
+    @Label("Rejected")
+    @Description("The socket was refused and closed instead of getting a ClientHandler")
+    public boolean rejected;
+
+    @Label("Reject Reason")
+    @Description("pool_full, per_ip_cap or connect_rate")
+    public String reason;
+}
@@ -0,0 +1,27 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.mathspeed.ConnectionClosed")
+@Label("Connection Closed")
+@Category({"QuickMath", "Network"})
+@Description("A client connection ended and its handler cleaned up")
+public class ConnectionClosedEvent extends jdk.jfr.Event {
+    @Label("Remote Address")
+    public String remote;
+
+    @Label("Username")
+    public String username;
+
+    @Label("Lifetime")
+    @Timespan(Timespan.MILLISECONDS)
+    public long lifetimeMs;
+
+    @Label("Intentional")
+    @Description("The player logged out or left, as opposed to a dropped connection")
+    public boolean intentional;
+}
@@ -0,0 +1,29 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One execute call on a DAO statement. The duration covers the round trip only, not reading the result set.
+ */
+@Name("com.mathspeed.DbStatement")
+@Label("DAO Statement")
+@Category({"QuickMath", "Database"})
+@Description("A statement executed by a DAO, identified by the DAO method that prepared it")
+public class DbStatementEvent extends jdk.jfr.Event {
+    @Label("SQL Id")
+    @Description("DAO class and method, e.g. PlayerDAOImpl.findPlayer")
+    public String sqlId;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Intent")
+    public String intent;
+
+    @Label("Rows")
+    @Description("Update count or batch total; -1 for queries")
+    public int rows;
+}
@@ -0,0 +1,42 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Continuous in-process recording with the JDK default profile plus the quickmath.jfc shipped on the classpath.
+ * Events stay in the disk repository for {@code maxAge} and are written to {@code file} on exit; grab a dump of a
+ * live node with {@code jcmd <pid> JFR.dump name=quickmath filename=...}.
+ */
+public final class FlightRecording {
+    public static final String SETTINGS_RESOURCE = "/quickmath.jfc";
+
+    private FlightRecording() {}
+
+    public static Recording start(Path file, Duration maxAge) throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (InputStream in = FlightRecording.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in == null) throw new IOException(SETTINGS_RESOURCE + " not found on classpath");
+            settings.putAll(Configuration.create(new InputStreamReader(in, StandardCharsets.UTF_8)).getSettings());
+        }
+        Recording recording = new Recording(settings);
+        recording.setName("quickmath");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setDestination(file);
+        recording.setDumpOnExit(true);
+        recording.start();
+        System.out.println("[FlightRecording] recording to " + file.toAbsolutePath() + " (max age " + maxAge.toMinutes() + " min)");
+        return recording;
+    }
+}
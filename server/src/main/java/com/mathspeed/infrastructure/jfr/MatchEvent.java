@@ -0,0 +1,30 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Spans a whole match, from beginGame to GAME_OVER; the event's start and end are the match begin and end.
+ */
+@Name("com.mathspeed.Match")
+@Label("Match")
+@Category({"QuickMath", "Game"})
+@Description("A game session from begin to game over")
+public class MatchEvent extends jdk.jfr.Event {
+    @Label("Session Id")
+    public String sessionId;
+
+    @Label("Players")
+    public int players;
+
+    @Label("Rounds Played")
+    public int roundsPlayed;
+
+    @Label("Scoring Mode")
+    public String scoringMode;
+
+    @Label("Winner")
+    public String winner;
+}
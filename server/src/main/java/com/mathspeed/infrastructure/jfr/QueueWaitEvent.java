@@ -0,0 +1,28 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.mathspeed.QueueWait")
+@Label("Queue Wait")
+@Category({"QuickMath", "Matchmaking"})
+@Description("A player left a matchmaking queue, with how long they waited in it")
+public class QueueWaitEvent extends jdk.jfr.Event {
+    @Label("Username")
+    public String username;
+
+    @Label("Queue")
+    @Description("duel or room")
+    public String queue;
+
+    @Label("Outcome")
+    @Description("matched, bot, pool_matched (seated from the shared pool on another node) or left")
+    public String outcome;
+
+    @Label("Wait")
+    @Timespan(Timespan.MILLISECONDS)
+    public long waitMs;
+}
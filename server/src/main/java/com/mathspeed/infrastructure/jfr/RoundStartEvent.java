@@ -0,0 +1,27 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.mathspeed.RoundStart")
+@Label("Round Start")
+@Category({"QuickMath", "Game"})
+@Description("NEW_ROUND was sent to the players of a session")
+public class RoundStartEvent extends jdk.jfr.Event {
+    @Label("Session Id")
+    public String sessionId;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Difficulty")
+    public int difficulty;
+
+    @Label("Lead Time")
+    @Description("How far ahead of the round opening the puzzle was sent")
+    @Timespan(Timespan.MILLISECONDS)
+    public long leadMs;
+}
@@ -0,0 +1,22 @@
+package com.mathspeed.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.mathspeed.RoundTimeout")
+@Label("Round Timeout")
+@Category({"QuickMath", "Game"})
+@Description("A round's answer window closed on the timer rather than by a winning answer")
+public class RoundTimeoutEvent extends jdk.jfr.Event {
+    @Label("Session Id")
+    public String sessionId;
+
+    @Label("Round")
+    public int round;
+
+    @Label("Solved")
+    @Description("Players who solved the round before it closed")
+    public int solved;
+}
@@ -0,0 +1,131 @@
+package com.mathspeed.infrastructure.jfr;
+
+import com.mathspeed.infrastructure.db.Intent;
+import jdk.jfr.EventType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Emits a {@link DbStatementEvent} for every execute call on statements prepared from a wrapped connection.
+ * Connections are only wrapped while the event is enabled in a running recording, so without one the DAOs get the
+ * pool's connection back untouched and pay for a single flag check.
+ */
+public final class StatementTracing {
+    private static final EventType TYPE = EventType.getEventType(DbStatementEvent.class);
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final int MAX_SQL_CHARS = 512;
+
+    private StatementTracing() {}
+
+    /**
+     * @param dao base class whose frames are skipped when naming the statement after the DAO method that prepared it
+     */
+    public static Connection wrap(Connection conn, Intent intent, Class<?> dao) {
+        if (conn == null || !TYPE.isEnabled()) return conn;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn, intent, dao));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final String intent;
+        private final Class<?> dao;
+
+        ConnectionHandler(Connection target, Intent intent, Class<?> dao) {
+            this.target = target;
+            this.intent = intent != null ? intent.name() : null;
+            this.dao = dao;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementTracing.invoke(target, method, args);
+            String name = method.getName();
+            if (result instanceof Statement
+                    && (name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement"))) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                Class<?> type = method.getReturnType();
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, sql, callerId(), intent));
+            }
+            return result;
+        }
+
+        /**
+         * "DaoClass.method" of the first frame outside this wrapper, the proxies and the DAO base class.
+         */
+        private String callerId() {
+            return WALKER.walk(frames -> frames
+                    .filter(f -> {
+                        Class<?> c = f.getDeclaringClass();
+                        return c != dao && !Proxy.isProxyClass(c) && c.getEnclosingClass() != StatementTracing.class
+                                && c != StatementTracing.class;
+                    })
+                    .findFirst()
+                    .map(f -> f.getDeclaringClass().getSimpleName() + "." + f.getMethodName())
+                    .orElse("unknown"));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final String sqlId;
+        private final String intent;
+
+        StatementHandler(Statement target, String sql, String sqlId, String intent) {
+            this.target = target;
+            this.sql = sql;
+            this.sqlId = sqlId;
+            this.intent = intent;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) return StatementTracing.invoke(target, method, args);
+
+            DbStatementEvent event = new DbStatementEvent();
+            event.begin();
+            Object result = null;
+            try {
+                result = StatementTracing.invoke(target, method, args);
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    // plain Statement.execute*(sql) carries its SQL in the call
+                    String text = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                    event.sqlId = sqlId;
+                    event.sql = text != null && text.length() > MAX_SQL_CHARS ? text.substring(0, MAX_SQL_CHARS) : text;
+                    event.intent = intent;
+                    event.rows = rows(result);
+                    event.commit();
+                }
+            }
+        }
+
+        private static int rows(Object result) {
+            if (result instanceof Integer n) return n;
+            if (result instanceof Long n) return (int) Math.min(Integer.MAX_VALUE, n);
+            if (result instanceof int[] counts) {
+                int total = 0;
+                for (int c : counts) if (c > 0) total += c;
+                return total;
+            }
+            return -1;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.mathspeed.infrastructure.persistence;
 
 import com.mathspeed.infrastructure.db.DBConnect;
+import com.mathspeed.infrastructure.db.Intent;
+import com.mathspeed.infrastructure.jfr.StatementTracing;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Connections come from {@link DBConnect} by {@link Intent}: the plain overloads use the primary, so only reads
+ * that opt in with READ or READ_YOUR_WRITES are sent to a replica. A DAO built with its own DataSource uses it for
+ * everything. While a JFR recording has com.mathspeed.DbStatement enabled, each execute is recorded under the
+ * DAO method that prepared it (see {@link StatementTracing}).
+ */
 public abstract class BaseDAO {
     private final DataSource dataSource;
 
     protected BaseDAO() {
-        this(DBConnect.getDataSource());
+        this.dataSource = null;
     }
 
     protected BaseDAO(DataSource dataSource) {
@@ -17,11 +28,20 @@ public abstract class BaseDAO {
     }
 
     protected Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        return getConnection(Intent.WRITE);
+    }
+
+    protected Connection getConnection(Intent intent) throws SQLException {
+        Connection conn = dataSource != null ? dataSource.getConnection() : DBConnect.getConnection(intent);
+        return StatementTracing.wrap(conn, intent, BaseDAO.class);
     }
 
     protected <T> T executeQuery(String sql, PrepStatementSetter setter, ResultSetExtractor<T> extractor) throws SQLException {
-        try (Connection conn = getConnection();
+        return executeQuery(Intent.WRITE, sql, setter, extractor);
+    }
+
+    protected <T> T executeQuery(Intent intent, String sql, PrepStatementSetter setter, ResultSetExtractor<T> extractor) throws SQLException {
+        try (Connection conn = getConnection(intent);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             if (setter != null) setter.set(ps);
             try (ResultSet rs = ps.executeQuery()) {
@@ -30,6 +50,49 @@ public abstract class BaseDAO {
         }
     }
 
+    /**
+     * All rows mapped through {@code mapper}. SQL text should be a constant so the driver's statement cache
+     * (cachePrepStmts / useServerPrepStmts in DBConnect) can reuse the prepared statement.
+     */
+    protected <T> List<T> queryList(String sql, PrepStatementSetter setter, RowMapper<T> mapper) throws SQLException {
+        return queryList(Intent.WRITE, sql, setter, mapper);
+    }
+
+    protected <T> List<T> queryList(Intent intent, String sql, PrepStatementSetter setter, RowMapper<T> mapper) throws SQLException {
+        return executeQuery(intent, sql, setter, rs -> {
+            List<T> out = new ArrayList<>();
+            while (rs.next()) out.add(mapper.map(rs));
+            return out;
+        });
+    }
+
+    /**
+     * First row mapped through {@code mapper}, or null.
+     */
+    protected <T> T queryOne(String sql, PrepStatementSetter setter, RowMapper<T> mapper) throws SQLException {
+        return queryOne(Intent.WRITE, sql, setter, mapper);
+    }
+
+    protected <T> T queryOne(Intent intent, String sql, PrepStatementSetter setter, RowMapper<T> mapper) throws SQLException {
+        return executeQuery(intent, sql, setter, rs -> rs.next() ? mapper.map(rs) : null);
+    }
+
+    /**
+     * Hand rows to {@code consumer} one at a time as the driver streams them, for result sets too large to buffer.
+     * Uses {@link DBConnect#getStreamFetchSize()}; with MySQL's default of Integer.MIN_VALUE the connection is
+     * busy until the last row is read, so the consumer must not query through this DAO.
+     */
+    protected <T> void streamQuery(Intent intent, String sql, PrepStatementSetter setter, RowMapper<T> mapper, Consumer<T> consumer) throws SQLException {
+        try (Connection conn = getConnection(intent);
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(DBConnect.getStreamFetchSize());
+            if (setter != null) setter.set(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) consumer.accept(mapper.map(rs));
+            }
+        }
+    }
+
     protected int executeUpdate(String sql, PrepStatementSetter setter) throws SQLException {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -47,6 +110,14 @@ public abstract class BaseDAO {
     protected interface ResultSetExtractor<T> {
         T extract(ResultSet rs) throws SQLException;
     }
+
+    /**
+     * Maps the current row; implementations read columns by index in the order of their SELECT list.
+     */
+    @FunctionalInterface
+    protected interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
 }
 
 
@@ -2,7 +2,9 @@ package com.mathspeed.infrastructure.persistence;
 
 import com.mathspeed.domain.model.GameHistory;
 import com.mathspeed.domain.model.GameMatch;
+import com.mathspeed.domain.model.RoundTiming;
 import com.mathspeed.domain.port.GameRepository;
+import com.mathspeed.infrastructure.db.Intent;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -79,7 +81,6 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
                                  List<GameHistory> histories,
                                  Map<String, List<Map<String, Object>>> roundHistory) throws Exception {
         if (match == null) throw new IllegalArgumentException("match is required");
-        ensureGameRoundsTable();
 
         boolean previousAuto = true;
         try (Connection conn = getConnection()) {
@@ -108,7 +109,7 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
                 }
 
                 // Update matches -> set status finished, started_at = COALESCE(started_at, ?), ended_at = ?, total_rounds = ?
-                String updMatchSql = "UPDATE matches SET status = 'finished', started_at = COALESCE(started_at, ?), ended_at = ?, total_rounds = ? WHERE id = ?";
+                String updMatchSql = "UPDATE matches SET status = 'finished', started_at = COALESCE(started_at, ?), ended_at = ?, total_rounds = ?, ranked = ? WHERE id = ?";
                 try (PreparedStatement updMatch = conn.prepareStatement(updMatchSql)) {
                     Timestamp startedAt = match.getStartedAt() != null ? Timestamp.valueOf(match.getStartedAt()) : null;
                     Timestamp endedAt = match.getEndedAt() != null ? Timestamp.valueOf(match.getEndedAt()) : new Timestamp(System.currentTimeMillis());
@@ -116,7 +117,8 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
                     updMatch.setTimestamp(1, startedAt);
                     updMatch.setTimestamp(2, endedAt);
                     updMatch.setInt(3, match.getTotalRounds());
-                    updMatch.setString(4, match.getId());
+                    updMatch.setBoolean(4, match.isRanked());
+                    updMatch.setString(5, match.getId());
                     updMatch.executeUpdate();
                 }
 
@@ -140,7 +142,7 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
 
                 // Insert per-round rows into game_rounds (batch)
                 if (roundHistory != null && !roundHistory.isEmpty()) {
-                    String insRoundSql = "INSERT INTO game_rounds (match_id, round_index, player_id, correct, round_play_time_ms, timestamp_ms) VALUES (?, ?, ?, ?, ?, ?)";
+                    String insRoundSql = "INSERT INTO game_rounds (match_id, round_index, player_id, correct, round_play_time_ms, timestamp_ms, difficulty, target) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
                     try (PreparedStatement insRound = conn.prepareStatement(insRoundSql)) {
                         for (Map.Entry<String, List<Map<String, Object>>> ph : roundHistory.entrySet()) {
                             String playerId = ph.getKey();
@@ -154,6 +156,8 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
                                 else if (corrObj instanceof Number) correctB = ((Number) corrObj).intValue() != 0;
                                 Number playTimeN = (Number) r.get("round_play_time_ms");
                                 Number tsN = (Number) r.get("timestamp");
+                                Number difficultyN = (Number) r.get("difficulty");
+                                Number targetN = (Number) r.get("target");
 
                                 int roundIndex = idxN != null ? idxN.intValue() : -1;
                                 boolean correct = correctB != null && correctB;
@@ -166,6 +170,10 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
                                 insRound.setBoolean(4, correct);
                                 insRound.setLong(5, playTime);
                                 insRound.setLong(6, ts);
+                                if (difficultyN != null) insRound.setInt(7, difficultyN.intValue());
+                                else insRound.setNull(7, Types.TINYINT);
+                                if (targetN != null) insRound.setInt(8, targetN.intValue());
+                                else insRound.setNull(8, Types.INTEGER);
                                 insRound.addBatch();
                             }
                         }
@@ -185,7 +193,6 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
 
     @Override
     public void persistRound(String matchId, int roundIndex, List<Map<String, Object>> playersSummary) throws Exception {
-        ensureGameRoundsTable();
         String insertRoundSql = "INSERT INTO game_rounds (match_id, round_index, player_id, correct, round_play_time_ms, timestamp_ms) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(insertRoundSql)) {
@@ -232,24 +239,51 @@ public class GameDAOImpl extends BaseDAO implements GameRepository {
         }
     }
 
-    private void ensureGameRoundsTable() throws SQLException {
-        String ddl = "CREATE TABLE IF NOT EXISTS game_rounds (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "match_id CHAR(36) NOT NULL," +
-                "round_index INT NOT NULL," +
-                "player_id CHAR(36) NOT NULL," +
-                "correct TINYINT(1) NOT NULL DEFAULT 0," +
-                "round_play_time_ms BIGINT NOT NULL DEFAULT 0," +
-                "timestamp_ms BIGINT NOT NULL," +
-                "INDEX ix_gr_match (match_id)," +
-                "INDEX ix_gr_player (player_id)," +
-                "CONSTRAINT fk_gr_match FOREIGN KEY (match_id) REFERENCES matches(id) ON DELETE CASCADE ON UPDATE CASCADE," +
-                "CONSTRAINT fk_gr_player FOREIGN KEY (player_id) REFERENCES players(id) ON DELETE RESTRICT ON UPDATE CASCADE" +
-                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
-        try (Connection conn = getConnection();
-             Statement st = conn.createStatement()) {
-            st.execute(ddl);
+    @Override
+    public List<Long> getRecentSolveTimesMs(int limit) throws Exception {
+        String sql = "SELECT gr.round_play_time_ms FROM game_rounds gr JOIN matches m ON m.id = gr.match_id " +
+                "WHERE gr.correct = 1 AND m.ranked = 1 ORDER BY gr.id DESC LIMIT ?";
+        List<Long> out = new ArrayList<>();
+        try (Connection conn = getConnection(Intent.READ);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(rs.getLong(1));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public double getRecentAccuracy(int limit) throws Exception {
+        String sql = "SELECT AVG(t.correct) FROM (SELECT gr.correct FROM game_rounds gr JOIN matches m ON m.id = gr.match_id " +
+                "WHERE m.ranked = 1 ORDER BY gr.id DESC LIMIT ?) t";
+        try (Connection conn = getConnection(Intent.READ);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    double v = rs.getDouble(1);
+                    if (!rs.wasNull()) return v;
+                }
+            }
+        }
+        return -1.0;
+    }
+
+    @Override
+    public List<RoundTiming> getRecentRoundTimings(int limit) throws Exception {
+        String sql = "SELECT gr.difficulty, gr.round_play_time_ms, gr.correct FROM game_rounds gr JOIN matches m ON m.id = gr.match_id " +
+                "WHERE gr.difficulty IS NOT NULL AND m.ranked = 1 ORDER BY gr.id DESC LIMIT ?";
+        List<RoundTiming> out = new ArrayList<>();
+        try (Connection conn = getConnection(Intent.READ);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(new RoundTiming(rs.getInt(1), rs.getLong(2), rs.getBoolean(3)));
+            }
         }
+        return out;
     }
 
     private int inferTotalRounds(Map<String, List<Map<String, Object>>> roundHistory) {
@@ -1,17 +1,22 @@
 package com.mathspeed.infrastructure.persistence;
 
 import com.mathspeed.domain.port.GameHistoryRepository;
+import com.mathspeed.infrastructure.db.Intent;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+/**
+ * Win and game counts only cover ranked matches; games against bots are left out.
+ */
 public class GameHistoryDAOImpl extends BaseDAO implements GameHistoryRepository {
     @Override
     public int getTotalWins(String playerId) {
-        String sql = "SELECT COUNT(*) AS total FROM game_history WHERE player_id = ? AND result = 'win'";
-        try (Connection conn = getConnection();
+        String sql = "SELECT COUNT(*) AS total FROM game_history gh JOIN matches m ON m.id = gh.match_id " +
+                "WHERE gh.player_id = ? AND gh.result = 'win' AND m.ranked = 1";
+        try (Connection conn = getConnection(Intent.READ);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, playerId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -25,8 +30,9 @@ public class GameHistoryDAOImpl extends BaseDAO implements GameHistoryRepository
 
     @Override
     public int getTotalGames(String playerId) {
-        String sql = "SELECT COUNT(*) AS total FROM game_history WHERE player_id = ?";
-        try (Connection conn = getConnection();
+        String sql = "SELECT COUNT(*) AS total FROM game_history gh JOIN matches m ON m.id = gh.match_id " +
+                "WHERE gh.player_id = ? AND m.ranked = 1";
+        try (Connection conn = getConnection(Intent.READ);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, playerId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -37,4 +43,24 @@ public class GameHistoryDAOImpl extends BaseDAO implements GameHistoryRepository
             return 0;
         }
     }
+
+    @Override
+    public int getRating(String playerId) {
+        String sql = "SELECT COUNT(*) AS games, COALESCE(SUM(gh.result = 'win'), 0) AS wins FROM game_history gh " +
+                "JOIN matches m ON m.id = gh.match_id WHERE gh.player_id = ? AND m.ranked = 1";
+        try (Connection conn = getConnection(Intent.READ);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, playerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                int games = 0, wins = 0;
+                if (rs.next()) {
+                    games = rs.getInt("games");
+                    wins = rs.getInt("wins");
+                }
+                return 1000 + (int) Math.round(1000.0 * (wins + 1) / (games + 2));
+            }
+        } catch (SQLException e) {
+            return 1500;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.mathspeed.infrastructure.persistence;
+
+import com.mathspeed.domain.model.GhostReplay;
+import com.mathspeed.domain.port.GhostReplayRepository;
+import com.mathspeed.infrastructure.db.Intent;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GhostReplayDAOImpl extends BaseDAO implements GhostReplayRepository {
+
+    public GhostReplayDAOImpl() {
+        super();
+    }
+
+    @Override
+    public void saveReplay(GhostReplay replay) throws Exception {
+        String sql = "INSERT INTO ghost_replays (match_seed, player_id, display_name, rating, total_rounds, timeline) " +
+                "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE timeline = VALUES(timeline)";
+        executeUpdate(sql, ps -> {
+            ps.setLong(1, replay.getMatchSeed());
+            ps.setString(2, replay.getPlayerId());
+            ps.setString(3, replay.getDisplayName());
+            ps.setInt(4, replay.getRating());
+            ps.setInt(5, replay.getTotalRounds());
+            ps.setBytes(6, replay.encodeTimeline());
+        });
+    }
+
+    @Override
+    public List<GhostReplay> findRecent(int limit) throws Exception {
+        String sql = "SELECT player_id, display_name, rating, timeline FROM ghost_replays ORDER BY created_at DESC LIMIT ?";
+        return executeQuery(Intent.READ, sql, ps -> ps.setInt(1, limit), rs -> {
+            List<GhostReplay> list = new ArrayList<>();
+            while (rs.next()) {
+                GhostReplay r = mapReplay(rs);
+                if (r != null) list.add(r);
+            }
+            return list;
+        });
+    }
+
+    private GhostReplay mapReplay(ResultSet rs) throws SQLException {
+        GhostReplay r = new GhostReplay();
+        r.setPlayerId(rs.getString("player_id"));
+        r.setDisplayName(rs.getString("display_name"));
+        r.setRating(rs.getInt("rating"));
+        try {
+            r.decodeTimeline(rs.getBytes("timeline"));
+        } catch (IllegalArgumentException ex) {
+            System.err.println("[GhostReplayDAO] skipping unreadable replay of " + r.getPlayerId() + ": " + ex.getMessage());
+            return null;
+        }
+        return r;
+    }
+}
@@ -2,13 +2,28 @@ package com.mathspeed.infrastructure.persistence;
 
 import com.mathspeed.domain.port.PlayerRepository;
 import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.model.PlayerActivity;
+import com.mathspeed.infrastructure.db.Intent;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class PlayerDAOImpl extends BaseDAO implements PlayerRepository {
+    private static final int SEARCH_LIMIT = 50;
+    // players per batched activity UPDATE
+    private static final int ACTIVITY_CHUNK = 500;
+
+    // constant SQL text, so the driver's prepared statement cache is hit on every call
+    private static final String FIND_FOR_LOGIN_SQL = PlayerProjections.AUTH.select("FROM players WHERE username = ?");
+    private static final String BY_ID_SQL = PlayerProjections.SUMMARY.select("FROM players WHERE id = ?");
+    private static final String ALL_SQL = PlayerProjections.SUMMARY.select("FROM players WHERE id <> ?");
+    private static final String ONLINE_SQL = PlayerProjections.SUMMARY.select("FROM players WHERE status = ? AND id <> ?");
+    private static final String SEARCH_SQL = PlayerProjections.SUMMARY.select(
+            "FROM players WHERE (display_name LIKE ? OR username LIKE ?) AND id <> ? LIMIT ?");
+
     public PlayerDAOImpl() {
         super();
     }
@@ -82,43 +97,11 @@ public class PlayerDAOImpl extends BaseDAO implements PlayerRepository {
 
     @Override
     public Player findPlayer(String username, String password) throws SQLException {
-        String sql = "SELECT * FROM players WHERE username = ?";
-
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, username);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Player player = new Player();
-                    player.setId(rs.getString("id"));
-                    player.setUsername(rs.getString("username"));
-                    player.setDisplayName(rs.getString("display_name"));
-                    player.setPasswordHash(rs.getString("password_hash"));
-                    player.setGender(rs.getString("gender"));
-                    player.setAvatarUrl(rs.getString("avatar_url"));
-                    player.setStatus(rs.getString("status"));
-
-                    String country = rs.getString("country_code");
-                    if (country != null) player.setCountryCode(country);
-
-                    Timestamp lastActiveTs = rs.getTimestamp("last_active_at");
-                    if (lastActiveTs != null) {
-                        player.setLastActiveAt(lastActiveTs.toLocalDateTime());
-                    }
-
-                    Timestamp ts = rs.getTimestamp("created_at");
-                    if (ts != null) {
-                        player.setCreatedAt(ts.toLocalDateTime());
-                    }
-
-                    if (checkPassword(password.trim(), player.getPasswordHash())) {
-                        return player;
-                    }
-                }
-                return null;
-            }
-        }
+        Player player = queryOne(Intent.READ_YOUR_WRITES, FIND_FOR_LOGIN_SQL, stmt -> stmt.setString(1, username), PlayerProjections.AUTH.mapper());
+        if (player == null || !checkPassword(password.trim(), player.getPasswordHash())) return null;
+        // the hash has done its job; keep it out of the session and anything that caches the profile
+        player.setPasswordHash(null);
+        return player;
     }
 
     @Override
@@ -133,225 +116,103 @@ public class PlayerDAOImpl extends BaseDAO implements PlayerRepository {
         }
     }
 
+    /**
+     * Write many players' status and last_active_at in one statement per chunk:
+     * UPDATE players SET status = CASE username WHEN ? THEN ? ... END, last_active_at = CASE ... END
+     * WHERE username IN (...)
+     */
     @Override
-    public Player getPlayerById(String id) throws SQLException {
-        if (id == null) return null;
-        id = id.trim();
-        if (id.isEmpty()) return null;
-
-        String sql = "SELECT * FROM players WHERE id = ?";
-
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, id);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Player player = new Player();
-                    player.setId(rs.getString("id"));
-                    player.setUsername(rs.getString("username"));
-                    player.setDisplayName(rs.getString("display_name"));
-                    player.setPasswordHash(rs.getString("password_hash"));
-                    player.setGender(rs.getString("gender"));
-                    player.setAvatarUrl(rs.getString("avatar_url"));
-                    player.setStatus(rs.getString("status"));
-
-                    String country = rs.getString("country_code");
-                    if (country != null) player.setCountryCode(country);
-
-                    Timestamp lastActiveTs = rs.getTimestamp("last_active_at");
-                    if (lastActiveTs != null) {
-                        player.setLastActiveAt(lastActiveTs.toLocalDateTime());
-                    }
-
-                    Timestamp ts = rs.getTimestamp("created_at");
-                    if (ts != null) {
-                        player.setCreatedAt(ts.toLocalDateTime());
-                    }
-                    return player;
+    public void updateActivity(List<PlayerActivity> updates) throws SQLException {
+        for (int from = 0; from < updates.size(); from += ACTIVITY_CHUNK) {
+            List<PlayerActivity> chunk = updates.subList(from, Math.min(updates.size(), from + ACTIVITY_CHUNK));
+            StringBuilder sql = new StringBuilder("UPDATE players SET status = CASE username");
+            for (int i = 0; i < chunk.size(); i++) sql.append(" WHEN ? THEN ?");
+            sql.append(" ELSE status END, last_active_at = CASE username");
+            for (int i = 0; i < chunk.size(); i++) sql.append(" WHEN ? THEN ?");
+            sql.append(" ELSE last_active_at END WHERE username IN (");
+            for (int i = 0; i < chunk.size(); i++) sql.append(i == 0 ? "?" : ",?");
+            sql.append(')');
+
+            executeUpdate(sql.toString(), stmt -> {
+                int idx = 1;
+                for (PlayerActivity a : chunk) {
+                    stmt.setString(idx++, a.getUsername());
+                    stmt.setString(idx++, a.getStatus());
                 }
-                return null;
-            }
+                for (PlayerActivity a : chunk) {
+                    stmt.setString(idx++, a.getUsername());
+                    stmt.setTimestamp(idx++, Timestamp.valueOf(a.getLastActiveAt() != null ? a.getLastActiveAt() : LocalDateTime.now()));
+                }
+                for (PlayerActivity a : chunk) stmt.setString(idx++, a.getUsername());
+            });
         }
     }
 
+    @Override
+    public Player getPlayerById(String id) throws SQLException {
+        if (id == null) return null;
+        String key = id.trim();
+        if (key.isEmpty()) return null;
+        return queryOne(Intent.READ_YOUR_WRITES, BY_ID_SQL, stmt -> stmt.setString(1, key), PlayerProjections.SUMMARY.mapper());
+    }
+
     @Override
     public boolean existsByUsername(String username) throws SQLException {
-        String sql = "SELECT 1 FROM players WHERE username = ? LIMIT 1";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, username);
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
-        }
+        return executeQuery("SELECT 1 FROM players WHERE username = ? LIMIT 1", stmt -> stmt.setString(1, username), ResultSet::next);
     }
 
     @Override
     public boolean existsById(String id) throws Exception {
-        String sql = "SELECT 1 FROM players WHERE id = ? LIMIT 1";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
-            }
-        }
+        return executeQuery(Intent.READ_YOUR_WRITES, "SELECT 1 FROM players WHERE id = ? LIMIT 1", stmt -> stmt.setString(1, id), ResultSet::next);
     }
 
+    /**
+     * Every player but the excluded one, streamed from the driver rather than buffered as a whole result set;
+     * the search index loads through here at startup.
+     */
     @Override
     public List<Player> getAllPlayers(String excludePlayerId) throws Exception {
-        boolean exclude = excludePlayerId != null && !excludePlayerId.isEmpty();
-        String sql = (exclude)
-                ? "SELECT * FROM players WHERE id <> ?"
-                : "SELECT * FROM players";
-
-        List<Player> players = new java.util.ArrayList<>();
-
-        try (Connection conn = getConnection()) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-                if (exclude) {
-                    stmt.setString(1, excludePlayerId);
-                }
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        Player player = new Player();
-                        player.setId(rs.getString("id"));
-                        player.setUsername(rs.getString("username"));
-                        player.setDisplayName(rs.getString("display_name"));
-                        player.setPasswordHash(rs.getString("password_hash"));
-                        player.setGender(rs.getString("gender"));
-                        player.setAvatarUrl(rs.getString("avatar_url"));
-                        player.setStatus(rs.getString("status"));
-
-                        String country = rs.getString("country_code");
-                        if (country != null) player.setCountryCode(country);
-
-                        Timestamp lastActiveTs = rs.getTimestamp("last_active_at");
-                        if (lastActiveTs != null) {
-                            player.setLastActiveAt(lastActiveTs.toLocalDateTime());
-                        }
-
-                        Timestamp ts = rs.getTimestamp("created_at");
-                        if (ts != null) {
-                            player.setCreatedAt(ts.toLocalDateTime());
-                        }
-
-                        players.add(player);
-                    }
-                }
-            }
-        }
-
+        List<Player> players = new ArrayList<>();
+        streamQuery(Intent.READ, ALL_SQL, stmt -> stmt.setString(1, excludePlayerId != null ? excludePlayerId : ""),
+                PlayerProjections.SUMMARY.mapper(), players::add);
         return players;
     }
 
     @Override
     public List<Player> getOnlinePlayers(String excludePlayerId) throws Exception {
-        boolean exclude = excludePlayerId != null && !excludePlayerId.isEmpty();
-        String sql = exclude
-                ? "SELECT * FROM players WHERE status = ? AND id <> ?"
-                : "SELECT * FROM players WHERE status = ?";
-
-        List<Player> players = new java.util.ArrayList<>();
-
-        try (Connection conn = getConnection()) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, "online");
-                if (exclude) {
-                    stmt.setString(2, excludePlayerId);
-                }
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        Player player = new Player();
-                        player.setId(rs.getString("id"));
-                        player.setUsername(rs.getString("username"));
-                        player.setDisplayName(rs.getString("display_name"));
-                        player.setPasswordHash(rs.getString("password_hash"));
-                        player.setGender(rs.getString("gender"));
-                        player.setAvatarUrl(rs.getString("avatar_url"));
-                        player.setStatus(rs.getString("status"));
-
-                        String country = rs.getString("country_code");
-                        if (country != null) player.setCountryCode(country);
-
-                        Timestamp lastActiveTs = rs.getTimestamp("last_active_at");
-                        if (lastActiveTs != null) {
-                            player.setLastActiveAt(lastActiveTs.toLocalDateTime());
-                        }
-
-                        Timestamp ts = rs.getTimestamp("created_at");
-                        if (ts != null) {
-                            player.setCreatedAt(ts.toLocalDateTime());
-                        }
-
-                        players.add(player);
-                    }
-                }
-            }
-        }
-
-        return players;
+        return queryList(Intent.READ, ONLINE_SQL, stmt -> {
+            stmt.setString(1, "online");
+            stmt.setString(2, excludePlayerId != null ? excludePlayerId : "");
+        }, PlayerProjections.SUMMARY.mapper());
     }
 
     @Override
     public int getTotalPlayers() throws Exception {
-        String sql = "SELECT COUNT(*) AS total FROM players";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getInt("total");
-            }
-            return 0;
-        }
+        return executeQuery(Intent.READ, "SELECT COUNT(*) FROM players", null, rs -> rs.next() ? rs.getInt(1) : 0);
     }
 
 
     @Override
     public List<Player> searchPlayers(String keyword, String excludePlayerId) throws Exception {
-        String sql = "SELECT * FROM players WHERE display_name LIKE ? AND id <> ?";
-        List<Player> players = new java.util.ArrayList<>();
+        return searchPlayers(keyword, excludePlayerId, SEARCH_LIMIT);
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            String pattern = "%" + (keyword != null ? keyword : "") + "%";
+    /**
+     * Database fallback for player search, used until the in-memory index is warm. Public profile columns only.
+     */
+    @Override
+    public List<Player> searchPlayers(String keyword, String excludePlayerId, int limit) throws Exception {
+        String pattern = "%" + escapeLike(keyword != null ? keyword.trim() : "") + "%";
+        return queryList(Intent.READ, SEARCH_SQL, stmt -> {
             stmt.setString(1, pattern);
             stmt.setString(2, pattern);
+            stmt.setString(3, excludePlayerId != null ? excludePlayerId : "");
+            stmt.setInt(4, Math.max(1, Math.min(limit, SEARCH_LIMIT)));
+        }, PlayerProjections.SUMMARY.mapper());
+    }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Player player = new Player();
-                    player.setId(rs.getString("id"));
-                    player.setUsername(rs.getString("username"));
-                    player.setDisplayName(rs.getString("display_name"));
-                    player.setPasswordHash(rs.getString("password_hash"));
-                    player.setGender(rs.getString("gender"));
-                    player.setAvatarUrl(rs.getString("avatar_url"));
-                    player.setStatus(rs.getString("status"));
-
-                    String country = rs.getString("country_code");
-                    if (country != null) player.setCountryCode(country);
-
-                    Timestamp lastActiveTs = rs.getTimestamp("last_active_at");
-                    if (lastActiveTs != null) {
-                        player.setLastActiveAt(lastActiveTs.toLocalDateTime());
-                    }
-
-                    Timestamp ts = rs.getTimestamp("created_at");
-                    if (ts != null) {
-                        player.setCreatedAt(ts.toLocalDateTime());
-                    }
-
-                    players.add(player);
-                }
-            }
-        }
-
-        return players;
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
 }
@@ -0,0 +1,44 @@
+package com.mathspeed.infrastructure.persistence;
+
+import com.mathspeed.domain.model.Player;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Projections of the players table.
+ *   SUMMARY  public profile, for lists, search and lookups by id; never carries password_hash
+ *   AUTH     SUMMARY plus password_hash, only for verifying a login
+ */
+final class PlayerProjections {
+    private static final String SUMMARY_COLUMNS =
+            "id, username, display_name, gender, avatar_url, country_code, status, last_active_at, created_at";
+
+    static final Projection<Player> SUMMARY = new Projection<>(SUMMARY_COLUMNS, PlayerProjections::summary);
+    static final Projection<Player> AUTH = new Projection<>(SUMMARY_COLUMNS + ", password_hash", rs -> {
+        Player p = summary(rs);
+        p.setPasswordHash(rs.getString(10));
+        return p;
+    });
+
+    private PlayerProjections() {
+    }
+
+    private static Player summary(ResultSet rs) throws SQLException {
+        Player p = new Player();
+        p.setId(rs.getString(1));
+        p.setUsername(rs.getString(2));
+        p.setDisplayName(rs.getString(3));
+        p.setGender(rs.getString(4));
+        p.setAvatarUrl(rs.getString(5));
+        String country = rs.getString(6);
+        if (country != null) p.setCountryCode(country);
+        p.setStatus(rs.getString(7));
+        Timestamp lastActive = rs.getTimestamp(8);
+        if (lastActive != null) p.setLastActiveAt(lastActive.toLocalDateTime());
+        Timestamp created = rs.getTimestamp(9);
+        if (created != null) p.setCreatedAt(created.toLocalDateTime());
+        return p;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mathspeed.infrastructure.persistence;
+
+/**
+ * A fixed SELECT list paired with the mapper that reads it by column index. Queries built from a projection
+ * fetch only the columns the caller needs, and the mapper never looks a column up by name.
+ */
+final class Projection<T> {
+    private final String columns;
+    private final BaseDAO.RowMapper<T> mapper;
+
+    Projection(String columns, BaseDAO.RowMapper<T> mapper) {
+        this.columns = columns;
+        this.mapper = mapper;
+    }
+
+    /**
+     * {@code SELECT <columns> <rest>}, e.g. {@code select("FROM players WHERE id = ?")}.
+     */
+    String select(String rest) {
+        return "SELECT " + columns + " " + rest;
+    }
+
+    BaseDAO.RowMapper<T> mapper() {
+        return mapper;
+    }
+}
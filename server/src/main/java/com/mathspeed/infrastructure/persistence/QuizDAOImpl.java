@@ -2,6 +2,7 @@ package com.mathspeed.infrastructure.persistence;
 
 import com.mathspeed.domain.model.Quiz;
 import com.mathspeed.domain.port.QuizzRepository;
+import com.mathspeed.infrastructure.db.Intent;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -13,7 +14,7 @@ public class QuizDAOImpl extends BaseDAO implements QuizzRepository {
     @Override
     public int getQuizCount() {
         String sql = "SELECT COUNT(*) AS total FROM quizzes";
-        try (Connection conn = getConnection();
+        try (Connection conn = getConnection(Intent.READ);
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             if (rs.next()) {
@@ -30,7 +31,7 @@ public class QuizDAOImpl extends BaseDAO implements QuizzRepository {
         String sql = "SELECT * FROM quizzes ORDER BY created_at DESC";
         List<Quiz> quizzes = new ArrayList<>();
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getConnection(Intent.READ);
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -64,7 +65,7 @@ public class QuizDAOImpl extends BaseDAO implements QuizzRepository {
         String sql = "SELECT * FROM quizzes WHERE player_id = ? ORDER BY created_at DESC";
         List<Quiz> quizzes = new ArrayList<>();
 
-        try (Connection conn = getConnection();
+        try (Connection conn = getConnection(Intent.READ);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, playerId);
             try (ResultSet rs = stmt.executeQuery()) {
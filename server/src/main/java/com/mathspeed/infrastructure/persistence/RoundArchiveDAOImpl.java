@@ -0,0 +1,91 @@
+package com.mathspeed.infrastructure.persistence;
+
+import com.mathspeed.domain.model.RoundRecord;
+import com.mathspeed.domain.port.RoundArchiveRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoundArchiveDAOImpl extends BaseDAO implements RoundArchiveRepository {
+    // ids per IN (...) list
+    private static final int CHUNK = 500;
+
+    public RoundArchiveDAOImpl() {
+        super();
+    }
+
+    @Override
+    public List<RoundRecord> findRoundsBefore(long cutoffMs, int limit) throws Exception {
+        String sql = "SELECT id, match_id, round_index, player_id, correct, round_play_time_ms, timestamp_ms, difficulty, target " +
+                "FROM game_rounds WHERE timestamp_ms < ? ORDER BY timestamp_ms, id LIMIT ?";
+        return executeQuery(sql, ps -> {
+            ps.setLong(1, cutoffMs);
+            ps.setInt(2, limit);
+        }, rs -> {
+            List<RoundRecord> list = new ArrayList<>();
+            while (rs.next()) list.add(mapRound(rs));
+            return list;
+        });
+    }
+
+    @Override
+    public int deleteRounds(List<Long> ids) throws Exception {
+        if (ids.isEmpty()) return 0;
+        try (Connection conn = getConnection()) {
+            boolean previousAuto = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            int deleted = 0;
+            try {
+                for (int from = 0; from < ids.size(); from += CHUNK) {
+                    List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+                    try (PreparedStatement ps = conn.prepareStatement("DELETE FROM game_rounds WHERE id IN (" + placeholders(chunk.size()) + ")")) {
+                        for (int i = 0; i < chunk.size(); i++) ps.setLong(i + 1, chunk.get(i));
+                        deleted += ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                try { conn.setAutoCommit(previousAuto); } catch (Exception ignored) {}
+            }
+            return deleted;
+        }
+    }
+
+    @Override
+    public int countRounds(List<Long> ids) throws Exception {
+        int count = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+            count += executeQuery("SELECT COUNT(*) FROM game_rounds WHERE id IN (" + placeholders(chunk.size()) + ")", ps -> {
+                for (int i = 0; i < chunk.size(); i++) ps.setLong(i + 1, chunk.get(i));
+            }, rs -> rs.next() ? rs.getInt(1) : 0);
+        }
+        return count;
+    }
+
+    private static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder(n * 2);
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ",?");
+        return sb.toString();
+    }
+
+    private RoundRecord mapRound(ResultSet rs) throws SQLException {
+        return new RoundRecord(
+                rs.getLong("id"),
+                rs.getString("match_id"),
+                rs.getInt("round_index"),
+                rs.getString("player_id"),
+                rs.getBoolean("correct"),
+                rs.getLong("round_play_time_ms"),
+                rs.getLong("timestamp_ms"),
+                rs.getInt("difficulty"),
+                rs.getInt("target"));
+    }
+}
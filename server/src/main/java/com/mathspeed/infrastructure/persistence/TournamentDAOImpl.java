@@ -0,0 +1,216 @@
+package com.mathspeed.infrastructure.persistence;
+
+import com.mathspeed.domain.model.Tournament;
+import com.mathspeed.domain.model.TournamentEntrant;
+import com.mathspeed.domain.model.TournamentPairing;
+import com.mathspeed.domain.port.TournamentRepository;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TournamentDAOImpl extends BaseDAO implements TournamentRepository {
+
+    public TournamentDAOImpl() {
+        super();
+    }
+
+    @Override
+    public void insertTournament(Tournament t) throws Exception {
+        String sql = "INSERT INTO tournaments (id, name, format, status, total_rounds, current_round, rounds_per_match, created_at, starts_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        executeUpdate(sql, ps -> {
+            ps.setString(1, t.getId());
+            ps.setString(2, t.getName());
+            ps.setString(3, t.getFormat());
+            ps.setString(4, t.getStatus());
+            ps.setInt(5, t.getTotalRounds());
+            ps.setInt(6, t.getCurrentRound());
+            ps.setInt(7, t.getRoundsPerMatch());
+            ps.setTimestamp(8, toTimestamp(t.getCreatedAt()));
+            ps.setTimestamp(9, toTimestamp(t.getStartsAt()));
+        });
+    }
+
+    @Override
+    public void updateTournament(Tournament t) throws Exception {
+        String sql = "UPDATE tournaments SET status = ?, total_rounds = ?, current_round = ?, starts_at = ? WHERE id = ?";
+        executeUpdate(sql, ps -> {
+            ps.setString(1, t.getStatus());
+            ps.setInt(2, t.getTotalRounds());
+            ps.setInt(3, t.getCurrentRound());
+            ps.setTimestamp(4, toTimestamp(t.getStartsAt()));
+            ps.setString(5, t.getId());
+        });
+    }
+
+    @Override
+    public Tournament findTournament(String id) throws Exception {
+        String sql = "SELECT * FROM tournaments WHERE id = ?";
+        return executeQuery(sql, ps -> ps.setString(1, id), rs -> rs.next() ? mapTournament(rs) : null);
+    }
+
+    @Override
+    public List<Tournament> findByStatus(String status) throws Exception {
+        String sql = "SELECT * FROM tournaments WHERE status = ? ORDER BY created_at";
+        return executeQuery(sql, ps -> ps.setString(1, status), rs -> {
+            List<Tournament> list = new ArrayList<>();
+            while (rs.next()) list.add(mapTournament(rs));
+            return list;
+        });
+    }
+
+    @Override
+    public void insertEntrant(TournamentEntrant e) throws Exception {
+        String sql = "INSERT INTO tournament_entrants (tournament_id, player_id, username, seed, rating, points, eliminated, had_bye) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE player_id = player_id";
+        executeUpdate(sql, ps -> {
+            ps.setString(1, e.getTournamentId());
+            ps.setString(2, e.getPlayerId());
+            ps.setString(3, e.getUsername());
+            ps.setInt(4, e.getSeed());
+            ps.setInt(5, e.getRating());
+            ps.setInt(6, e.getPoints());
+            ps.setBoolean(7, e.isEliminated());
+            ps.setBoolean(8, e.isHadBye());
+        });
+    }
+
+    @Override
+    public void updateEntrants(List<TournamentEntrant> entrants) throws Exception {
+        if (entrants == null || entrants.isEmpty()) return;
+        String sql = "UPDATE tournament_entrants SET seed = ?, rating = ?, points = ?, eliminated = ?, had_bye = ? " +
+                "WHERE tournament_id = ? AND player_id = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (TournamentEntrant e : entrants) {
+                    ps.setInt(1, e.getSeed());
+                    ps.setInt(2, e.getRating());
+                    ps.setInt(3, e.getPoints());
+                    ps.setBoolean(4, e.isEliminated());
+                    ps.setBoolean(5, e.isHadBye());
+                    ps.setString(6, e.getTournamentId());
+                    ps.setString(7, e.getPlayerId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                try { conn.setAutoCommit(true); } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    @Override
+    public List<TournamentEntrant> getEntrants(String tournamentId) throws Exception {
+        String sql = "SELECT * FROM tournament_entrants WHERE tournament_id = ? ORDER BY seed";
+        return executeQuery(sql, ps -> ps.setString(1, tournamentId), rs -> {
+            List<TournamentEntrant> list = new ArrayList<>();
+            while (rs.next()) {
+                TournamentEntrant e = new TournamentEntrant(
+                        rs.getString("tournament_id"),
+                        rs.getString("player_id"),
+                        rs.getString("username"),
+                        rs.getInt("rating"));
+                e.setSeed(rs.getInt("seed"));
+                e.setPoints(rs.getInt("points"));
+                e.setEliminated(rs.getBoolean("eliminated"));
+                e.setHadBye(rs.getBoolean("had_bye"));
+                list.add(e);
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public void insertPairings(List<TournamentPairing> pairings) throws Exception {
+        if (pairings == null || pairings.isEmpty()) return;
+        String sql = "INSERT INTO tournament_pairings (tournament_id, round_no, slot, player_a, player_b, match_id, winner_id, status) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (TournamentPairing p : pairings) {
+                    ps.setString(1, p.getTournamentId());
+                    ps.setInt(2, p.getRound());
+                    ps.setInt(3, p.getSlot());
+                    ps.setString(4, p.getPlayerA());
+                    ps.setString(5, p.getPlayerB());
+                    ps.setString(6, p.getMatchId());
+                    ps.setString(7, p.getWinnerId());
+                    ps.setString(8, p.getStatus());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                try { conn.setAutoCommit(true); } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    @Override
+    public void updatePairing(TournamentPairing p) throws Exception {
+        String sql = "UPDATE tournament_pairings SET match_id = ?, winner_id = ?, status = ? " +
+                "WHERE tournament_id = ? AND round_no = ? AND slot = ?";
+        executeUpdate(sql, ps -> {
+            ps.setString(1, p.getMatchId());
+            ps.setString(2, p.getWinnerId());
+            ps.setString(3, p.getStatus());
+            ps.setString(4, p.getTournamentId());
+            ps.setInt(5, p.getRound());
+            ps.setInt(6, p.getSlot());
+        });
+    }
+
+    @Override
+    public List<TournamentPairing> getPairings(String tournamentId) throws Exception {
+        String sql = "SELECT * FROM tournament_pairings WHERE tournament_id = ? ORDER BY round_no, slot";
+        return executeQuery(sql, ps -> ps.setString(1, tournamentId), rs -> {
+            List<TournamentPairing> list = new ArrayList<>();
+            while (rs.next()) {
+                TournamentPairing p = new TournamentPairing();
+                p.setTournamentId(rs.getString("tournament_id"));
+                p.setRound(rs.getInt("round_no"));
+                p.setSlot(rs.getInt("slot"));
+                p.setPlayerA(rs.getString("player_a"));
+                p.setPlayerB(rs.getString("player_b"));
+                p.setMatchId(rs.getString("match_id"));
+                p.setWinnerId(rs.getString("winner_id"));
+                p.setStatus(rs.getString("status"));
+                list.add(p);
+            }
+            return list;
+        });
+    }
+
+    private Tournament mapTournament(ResultSet rs) throws SQLException {
+        Tournament t = new Tournament();
+        t.setId(rs.getString("id"));
+        t.setName(rs.getString("name"));
+        t.setFormat(rs.getString("format"));
+        t.setStatus(rs.getString("status"));
+        t.setTotalRounds(rs.getInt("total_rounds"));
+        t.setCurrentRound(rs.getInt("current_round"));
+        t.setRoundsPerMatch(rs.getInt("rounds_per_match"));
+        Timestamp created = rs.getTimestamp("created_at");
+        if (created != null) t.setCreatedAt(created.toLocalDateTime());
+        Timestamp starts = rs.getTimestamp("starts_at");
+        if (starts != null) t.setStartsAt(starts.toLocalDateTime());
+        return t;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dt) {
+        return dt != null ? Timestamp.valueOf(dt) : null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.mathspeed.sim;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.application.game.GameScheduler;
+import com.mathspeed.application.game.GameSession;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs many complete matches in virtual time on the calling thread and reports what one match costs the server.
+ *
+ * Usage: MatchSimulator [matches=1000] [roomSize=2] [rounds=10] [inFlight=100] [seed=42]
+ *
+ * Matches run in batches of {@code inFlight} sessions sharing one {@link VirtualTimeLoop}. Nothing is persisted
+ * (no GameRepository), and sessions are marked simulated so console logging, JFR events and throttle counters
+ * neither skew the numbers nor show up next to real matches.
+ */
+public class MatchSimulator {
+
+    private static final long QUESTION_TIMEOUT_SECONDS = 30;
+
+    public static void main(String[] args) {
+        int matches = intArg(args, 0, 1000);
+        int roomSize = Math.max(GameSession.MIN_ROOM_SIZE, Math.min(intArg(args, 1, 2), GameSession.MAX_ROOM_SIZE));
+        int rounds = intArg(args, 2, 10);
+        int inFlight = Math.max(1, intArg(args, 3, 100));
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocs = threads instanceof com.sun.management.ThreadMXBean t ? t : null;
+        long tid = Thread.currentThread().getId();
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long allocStart = allocs != null ? allocs.getThreadAllocatedBytes(tid) : -1L;
+        long wallStart = System.nanoTime();
+
+        Result result = simulate(matches, roomSize, rounds, inFlight, seed);
+
+        long wallNs = System.nanoTime() - wallStart;
+        long cpuNs = threads.getCurrentThreadCpuTime() - cpuStart;
+        long allocBytes = allocs != null ? allocs.getThreadAllocatedBytes(tid) - allocStart : -1L;
+
+        System.out.println("[MatchSimulator] matches=" + matches + " finished=" + result.finished
+                + " roomSize=" + roomSize + " rounds=" + rounds + " mode=" + result.mode + " seed=" + seed);
+        System.out.println("[MatchSimulator] virtual time " + (result.virtualMs / 1000) + " s, wall time " + (wallNs / 1_000_000) + " ms");
+        System.out.println("[MatchSimulator] tasks executed=" + result.executedTasks + " failed=" + result.failedTasks
+                + " messages=" + result.messages);
+        System.out.printf("[MatchSimulator] per match: cpu %.1f us, allocated %s, %.1f messages%n",
+                cpuNs / 1000.0 / matches,
+                allocBytes >= 0 ? (allocBytes / matches) + " B" : "n/a",
+                (double) result.messages / matches);
+        if (result.lastFailure != null) {
+            System.out.println("[MatchSimulator] last task failure: " + result.lastFailure);
+        }
+    }
+
+    /**
+     * Play {@code matches} complete matches on the calling thread.
+     */
+    public static Result simulate(int matches, int roomSize, int rounds, int inFlight, long seed) {
+        GameSession.ScoringMode mode = roomSize == 2 ? GameSession.ScoringMode.FIRST_CORRECT : GameSession.ScoringMode.RANKED;
+        VirtualTimeLoop loop = new VirtualTimeLoop(1_700_000_000_000L);
+        Random random = new Random(seed);
+        long virtualStart = loop.now();
+
+        int finished = 0;
+        int started = 0;
+        long messages = 0;
+        while (started < matches) {
+            int batch = Math.min(inFlight, matches - started);
+            List<GameSession> sessions = new ArrayList<>(batch);
+            List<ScriptedClient> clients = new ArrayList<>(batch * roomSize);
+            for (int m = 0; m < batch; m++) {
+                List<ClientHandler> seats = new ArrayList<>(roomSize);
+                for (int s = 0; s < roomSize; s++) {
+                    ScriptedClient c = newClient(loop, random, started + m, s);
+                    seats.add(c);
+                    clients.add(c);
+                }
+                GameScheduler scheduler = loop.newScheduler();
+                GameSession session = new GameSession(seats, mode, rounds, QUESTION_TIMEOUT_SECONDS,
+                        null, scheduler, random.nextLong());
+                session.setSimulated(true);
+                sessions.add(session);
+            }
+            for (GameSession s : sessions) s.beginGame();
+            loop.runUntilIdle();
+
+            for (GameSession s : sessions) if (s.isFinished()) finished++;
+            for (ScriptedClient c : clients) messages += c.getMessagesReceived();
+            started += batch;
+        }
+        return new Result(mode, finished, messages, loop.getExecutedTasks(), loop.getFailedTasks(),
+                loop.now() - virtualStart, loop.getLastFailure());
+    }
+
+    public static final class Result {
+        public final GameSession.ScoringMode mode;
+        public final int finished;
+        public final long messages;
+        public final long executedTasks;
+        public final long failedTasks;
+        public final long virtualMs;
+        public final Throwable lastFailure;
+
+        Result(GameSession.ScoringMode mode, int finished, long messages, long executedTasks, long failedTasks,
+               long virtualMs, Throwable lastFailure) {
+            this.mode = mode;
+            this.finished = finished;
+            this.messages = messages;
+            this.executedTasks = executedTasks;
+            this.failedTasks = failedTasks;
+            this.virtualMs = virtualMs;
+            this.lastFailure = lastFailure;
+        }
+    }
+
+    private static ScriptedClient newClient(VirtualTimeLoop loop, Random random, int match, int seat) {
+        String name = "sim" + match + "_" + seat;
+        long oneWay = 10 + random.nextInt(90);
+        long thinkMedian = 2_000 + random.nextInt(6_000);
+        double accuracy = 0.6 + random.nextDouble() * 0.35;
+        return new ScriptedClient(name, name, loop.newScheduler(), random.nextLong(), oneWay, thinkMedian, 0.5, accuracy);
+    }
+
+    private static int intArg(String[] args, int index, int fallback) {
+        if (args.length <= index) return fallback;
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.mathspeed.sim;
+
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.adapter.network.protocol.MessageType;
+import com.mathspeed.application.game.GameScheduler;
+import com.mathspeed.application.game.GameSession;
+import com.mathspeed.domain.model.Player;
+import com.mathspeed.domain.puzzle.MathPuzzleSolver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Socket-less fake player for simulations. Reacts to what the session sends the way a client would:
+ * READY on the first MATCH_START_INFO, and for each NEW_ROUND an answer after a log-normal think time,
+ * with network delay added in both directions. A miss is followed by a second, correct attempt.
+ *
+ * All timing goes through the scheduler of the shared {@link VirtualTimeLoop}; nothing here is thread-safe.
+ */
+public class ScriptedClient extends ClientHandler {
+
+    private final GameScheduler clock;
+    private final Random random;
+    private final long oneWayDelayMs;
+    private final long thinkMedianMs;
+    private final double thinkSigma;
+    private final double accuracy;
+
+    private boolean sentReady;
+    private int lastRound = -1;
+    private long messagesReceived;
+    private long commandsSent;
+    private boolean gameOver;
+    private String gameOverJson;
+    private int roundsSeen;
+
+    /**
+     * @param oneWayDelayMs simulated network delay per direction
+     * @param thinkMedianMs median solve time; actual times are log-normal around it
+     * @param thinkSigma    log-space spread of solve times (0 = always the median)
+     * @param accuracy      probability that the first attempt of a round is correct
+     */
+    public ScriptedClient(String id, String username, GameScheduler clock, long seed,
+                          long oneWayDelayMs, long thinkMedianMs, double thinkSigma, double accuracy) {
+        super(null, null, null, null);
+        Player p = new Player(username, null);
+        p.setId(id);
+        p.setDisplayName(username);
+        bindPlayer(p);
+        this.clock = clock;
+        this.random = new Random(seed);
+        this.oneWayDelayMs = Math.max(0L, oneWayDelayMs);
+        this.thinkMedianMs = Math.max(1L, thinkMedianMs);
+        this.thinkSigma = Math.max(0.0, thinkSigma);
+        this.accuracy = accuracy;
+    }
+
+    public long getMessagesReceived() { return messagesReceived; }
+    public long getCommandsSent() { return commandsSent; }
+    public boolean isGameOver() { return gameOver; }
+    /** The GAME_OVER frame as received, or null before the match ended. */
+    public String getGameOverJson() { return gameOverJson; }
+    public int getRoundsSeen() { return roundsSeen; }
+
+    @Override
+    public long getOneWayDelayMs() { return oneWayDelayMs; }
+
+    @Override
+    public long getEstimatedRttMs() { return oneWayDelayMs * 2; }
+
+    @Override
+    public long getJitterMs() { return 0L; }
+
+    @Override
+    public void sendType(MessageType type, String payload) {
+        messagesReceived++;
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        messagesReceived++;
+        if (message.startsWith("{\"type\":\"MATCH_START_INFO\"")) {
+            if (!sentReady) {
+                sentReady = true;
+                toServer(oneWayDelayMs * 2, session -> session.handleReady(this));
+            }
+        } else if (message.startsWith("{\"type\":\"NEW_ROUND\"")) {
+            onNewRound(message);
+        } else if (message.contains("\"type\":\"GAME_OVER\"")) {
+            gameOver = true;
+            gameOverJson = message;
+        }
+    }
+
+    private void onNewRound(String json) {
+        int round = (int) longField(json, "\"round\":");
+        if (round == lastRound) return;
+        lastRound = round;
+        roundsSeen++;
+        int target = (int) longField(json, "\"target\":");
+        long roundStart = longField(json, "\"server_round_start\":");
+
+        long now = clock.currentTimeMillis();
+        // client starts solving once the puzzle arrived and its round has started
+        long solveFrom = Math.max(oneWayDelayMs, roundStart - now);
+        long firstAttempt = solveFrom + thinkTime();
+        String correct = MathPuzzleSolver.solve(target);
+        if (random.nextDouble() < accuracy) {
+            toServer(firstAttempt + oneWayDelayMs, session -> session.submitAnswer(this, correct));
+        } else {
+            String wrong = target == 2 ? "1+2" : "1+1";
+            toServer(firstAttempt + oneWayDelayMs, session -> session.submitAnswer(this, wrong));
+            long retry = firstAttempt + thinkTime();
+            toServer(retry + oneWayDelayMs, session -> session.submitAnswer(this, correct));
+        }
+    }
+
+    private void toServer(long delayMs, Consumer<GameSession> action) {
+        clock.schedule(() -> {
+            GameSession session = getCurrentGame();
+            if (session == null || session.isFinished()) return;
+            commandsSent++;
+            action.accept(session);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long thinkTime() {
+        double t = thinkMedianMs * Math.exp(thinkSigma * random.nextGaussian());
+        return Math.max(1L, Math.round(t));
+    }
+
+    private static long longField(String json, String key) {
+        int i = json.indexOf(key);
+        if (i < 0) return 0L;
+        i += key.length();
+        int end = i;
+        if (end < json.length() && json.charAt(end) == '-') end++;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+        return end > i ? Long.parseLong(json.substring(i, end)) : 0L;
+    }
+}
@@ -0,0 +1,163 @@
+package com.mathspeed.sim;
+
+import com.mathspeed.application.game.GameScheduler;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded discrete-event loop with a virtual millisecond clock.
+ *
+ * Every session (and every scripted client) gets its own {@link GameScheduler} view from {@link #newScheduler()};
+ * all views share one queue ordered by (due time, submission order), so runs with the same seeds replay exactly.
+ * Time only advances when the next task is due, a 30 s round timeout costs nothing.
+ *
+ * Not thread-safe: create, drive and inspect it from one thread.
+ */
+public class VirtualTimeLoop {
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private long now;
+    private long seq;
+    private long executed;
+    private long failed;
+    private Throwable lastFailure;
+
+    public VirtualTimeLoop(long startMs) {
+        this.now = startMs;
+    }
+
+    public long now() { return now; }
+    public long getExecutedTasks() { return executed; }
+    public long getFailedTasks() { return failed; }
+    public Throwable getLastFailure() { return lastFailure; }
+    public int getPendingTasks() { return queue.size(); }
+
+    public GameScheduler newScheduler() {
+        return new View();
+    }
+
+    /**
+     * Run tasks until the queue is empty. Returns the number of tasks executed.
+     */
+    public long runUntilIdle() {
+        return runUntil(Long.MAX_VALUE);
+    }
+
+    /**
+     * Run every task due at or before {@code deadlineMs}; the clock ends at the deadline if one was given.
+     */
+    public long runUntil(long deadlineMs) {
+        long before = executed;
+        Task t;
+        while ((t = queue.peek()) != null && t.dueMs <= deadlineMs) {
+            queue.poll();
+            if (t.cancelled || t.owner.shutdown) continue;
+            if (t.dueMs > now) now = t.dueMs;
+            executed++;
+            try {
+                t.action.run();
+            } catch (Throwable ex) {
+                // a real executor parks the exception in the future; keep the loop going the same way
+                t.failure = ex;
+                failed++;
+                lastFailure = ex;
+            }
+            t.done = true;
+        }
+        if (deadlineMs != Long.MAX_VALUE && deadlineMs > now) now = deadlineMs;
+        return executed - before;
+    }
+
+    private Task enqueue(View owner, Runnable action, long delayMs) {
+        if (owner.shutdown) throw new RejectedExecutionException("scheduler shut down");
+        Task t = new Task(owner, action, now + Math.max(0L, delayMs), seq++);
+        queue.add(t);
+        return t;
+    }
+
+    private final class View implements GameScheduler {
+        private boolean shutdown;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            enqueue(this, task, 0L);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+            return enqueue(this, task, unit.toMillis(delay));
+        }
+
+        @Override
+        public void shutdownNow() {
+            // queued tasks of this view are dropped lazily when they reach the head
+            shutdown = true;
+        }
+    }
+
+    private final class Task implements ScheduledFuture<Object> {
+        private final View owner;
+        private final Runnable action;
+        private final long dueMs;
+        private final long order;
+        private boolean cancelled;
+        private boolean done;
+        private Throwable failure;
+
+        Task(View owner, Runnable action, long dueMs, long order) {
+            this.owner = owner;
+            this.action = action;
+            this.dueMs = dueMs;
+            this.order = order;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueMs - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (o instanceof Task other) {
+                int c = Long.compare(dueMs, other.dueMs);
+                return c != 0 ? c : Long.compare(order, other.order);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done || cancelled) return false;
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() { return cancelled; }
+
+        @Override
+        public boolean isDone() { return done || cancelled || owner.shutdown; }
+
+        @Override
+        public Object get() throws ExecutionException {
+            if (failure != null) throw new ExecutionException(failure);
+            if (!isDone()) throw new IllegalStateException("virtual task has not run yet; drive the loop instead of blocking");
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws ExecutionException {
+            return get();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+-- V1: schema as it stood before versioned migrations.
+-- Every statement is IF NOT EXISTS so a database created from the old quickmath.sql is adopted as-is.
+
+CREATE TABLE IF NOT EXISTS `players` (
+   `id` char(36) COLLATE utf8mb4_unicode_ci NOT NULL,
+   `username` varchar(64) COLLATE utf8mb4_unicode_ci NOT NULL,
+   `display_name` varchar(100) COLLATE utf8mb4_unicode_ci DEFAULT 'unknown',
+   `password_hash` varchar(255) COLLATE utf8mb4_unicode_ci NOT NULL,
+   `gender` enum('male','female','other') COLLATE utf8mb4_unicode_ci DEFAULT 'male',
+   `avatar_url` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT 'https://tse1.mm.bing.net/th/id/OIP.pLa0MvBoBWBLYBwKtdbLhQAAAA?rs=1&pid=ImgDetMain&o=7&rm=3',
+   `country_code` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT 'vn',
+   `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+   `status` enum('online','in_game','offline') COLLATE utf8mb4_unicode_ci DEFAULT 'offline',
+   `last_active_at` datetime DEFAULT NULL,
+   PRIMARY KEY (`id`),
+   UNIQUE KEY `username` (`username`),
+   KEY `ix_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+
+CREATE TABLE IF NOT EXISTS matches (
+    id CHAR(36) NOT NULL PRIMARY KEY,   -- UUID cho trận
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at DATETIME NULL,
+    ended_at DATETIME NULL,
+    total_rounds INT NOT NULL DEFAULT 0, -- (optional) số lượt trong trận, nếu cần
+    status ENUM('pending','running','finished','cancelled') NOT NULL DEFAULT 'pending',
+    ranked TINYINT(1) NOT NULL DEFAULT 1,  -- 0 = có bot tham gia, không tính vào bảng xếp hạng
+    INDEX (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+
+CREATE TABLE IF NOT EXISTS game_history (
+    match_id CHAR(36) NOT NULL,
+    player_id CHAR(36) NOT NULL,
+    final_score INT NOT NULL DEFAULT 0,       -- tổng điểm cuối trận (số điểm thu được)
+    total_time BIGINT NOT NULL DEFAULT 0,  -- tổng thời gian chơi (ms) dùng để phân xử khi hòa
+    result ENUM('win','lose','draw') DEFAULT NULL, -- kết quả trận cho người này (đặt khi trận kết thúc)
+    PRIMARY KEY (match_id, player_id),
+    CONSTRAINT fk_gp_match FOREIGN KEY (match_id) REFERENCES matches(id) ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT fk_gp_player FOREIGN KEY (player_id) REFERENCES players(id) ON DELETE RESTRICT ON UPDATE CASCADE,
+    INDEX ix_gp_match (match_id),
+    INDEX ix_gp_player (player_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS game_rounds (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    match_id CHAR(36) NOT NULL,
+    round_index INT NOT NULL,
+    player_id CHAR(36) NOT NULL,
+    correct TINYINT(1) NOT NULL DEFAULT 0,
+    round_play_time_ms BIGINT NOT NULL DEFAULT 0,
+    timestamp_ms BIGINT NOT NULL,
+    INDEX ix_gr_match (match_id),
+    INDEX ix_gr_player (player_id),
+    CONSTRAINT fk_gr_match FOREIGN KEY (match_id) REFERENCES matches(id) ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT fk_gr_player FOREIGN KEY (player_id) REFERENCES players(id) ON DELETE RESTRICT ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS quizzes (
+    id CHAR(36) NOT NULL PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    question_number INT NOT NULL,
+    player_id CHAR(36) NOT NULL,
+    level ENUM('easy','medium','hard') DEFAULT 'easy',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_quiz_player FOREIGN KEY (player_id) REFERENCES players(id) ON DELETE RESTRICT ON UPDATE CASCADE,
+    INDEX ix_quiz_player (player_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS tournaments (
+    id CHAR(36) NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    format ENUM('single_elimination','swiss') NOT NULL DEFAULT 'single_elimination',
+    status ENUM('registering','running','finished','cancelled') NOT NULL DEFAULT 'registering',
+    total_rounds INT NOT NULL DEFAULT 0,      -- số vòng của giải (không phải số lượt trong trận)
+    current_round INT NOT NULL DEFAULT 0,
+    rounds_per_match INT NOT NULL DEFAULT 10,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    starts_at DATETIME NULL,
+    INDEX ix_tournament_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS tournament_entrants (
+    tournament_id CHAR(36) NOT NULL,
+    player_id CHAR(36) NOT NULL,
+    username VARCHAR(64) NOT NULL,
+    seed INT NOT NULL DEFAULT 0,
+    rating INT NOT NULL DEFAULT 1500,
+    points INT NOT NULL DEFAULT 0,            -- đơn vị nửa điểm: thắng = 2, hòa = 1
+    eliminated TINYINT(1) NOT NULL DEFAULT 0,
+    had_bye TINYINT(1) NOT NULL DEFAULT 0,
+    PRIMARY KEY (tournament_id, player_id),
+    CONSTRAINT fk_te_tournament FOREIGN KEY (tournament_id) REFERENCES tournaments(id) ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT fk_te_player FOREIGN KEY (player_id) REFERENCES players(id) ON DELETE RESTRICT ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS tournament_pairings (
+    tournament_id CHAR(36) NOT NULL,
+    round_no INT NOT NULL,
+    slot INT NOT NULL,
+    player_a CHAR(36) NOT NULL,
+    player_b CHAR(36) NULL,                   -- NULL = bye
+    match_id CHAR(36) NULL,
+    winner_id CHAR(36) NULL,
+    status ENUM('pending','running','finished','bye','forfeit') NOT NULL DEFAULT 'pending',
+    PRIMARY KEY (tournament_id, round_no, slot),
+    CONSTRAINT fk_tp_tournament FOREIGN KEY (tournament_id) REFERENCES tournaments(id) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS ghost_replays (
+    match_seed BIGINT NOT NULL,               -- seed của trận gốc, quyết định toàn bộ câu hỏi
+    player_id CHAR(36) NOT NULL,
+    display_name VARCHAR(100) NULL,
+    rating INT NOT NULL DEFAULT 1500,         -- rating của người chơi lúc ghi lại
+    total_rounds INT NOT NULL,
+    timeline VARBINARY(512) NOT NULL,         -- định dạng nhị phân, xem GhostReplay
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (match_seed, player_id),
+    INDEX ix_ghost_rating (total_rounds, rating),
+    INDEX ix_ghost_created (created_at),
+    CONSTRAINT fk_ghost_player FOREIGN KEY (player_id) REFERENCES players(id) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,5 @@
+-- V2: per-round difficulty and target, recorded for the difficulty planner.
+-- Databases where GameDAOImpl already added these at runtime report "duplicate column", which the runner skips.
+
+ALTER TABLE game_rounds ADD COLUMN difficulty TINYINT NULL;
+ALTER TABLE game_rounds ADD COLUMN target INT NULL;
@@ -0,0 +1,22 @@
+-- V3: composite indexes for the hot DAO reads. New indexes go in before the ones they replace are dropped,
+-- so the foreign keys always keep a usable index.
+
+-- GameHistoryDAOImpl win / game counts: player_id = ? AND result = 'win', joined to matches by match_id.
+-- The primary key columns ride along in the secondary index, so the count never touches the rows.
+CREATE INDEX ix_gh_player_result ON game_history (player_id, result);
+DROP INDEX ix_gp_player ON game_history;
+
+-- QuizDAOImpl: per-player listing WHERE player_id = ? ORDER BY created_at DESC. (The full listing returns every
+-- row, so a scan plus sort is already its best plan and an index on created_at alone would go unused.)
+CREATE INDEX ix_quiz_player_created ON quizzes (player_id, created_at);
+DROP INDEX ix_quiz_player ON quizzes;
+
+-- RoundArchiveDAOImpl: timestamp_ms < ? ORDER BY timestamp_ms, id LIMIT ?, read straight off the index.
+CREATE INDEX ix_gr_timestamp ON game_rounds (timestamp_ms);
+
+-- TournamentDAOImpl: WHERE status = ? ORDER BY created_at.
+CREATE INDEX ix_tournament_status_created ON tournaments (status, created_at);
+DROP INDEX ix_tournament_status ON tournaments;
+
+-- TournamentDAOImpl: entrants WHERE tournament_id = ? ORDER BY seed.
+CREATE INDEX ix_te_tournament_seed ON tournament_entrants (tournament_id, seed);
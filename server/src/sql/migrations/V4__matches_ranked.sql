@@ -0,0 +1,6 @@
+-- V4: matches.ranked for databases that predate it. V1 declares the column, but its CREATE TABLE IF NOT EXISTS
+-- is skipped on a database whose matches table came from the old quickmath.sql, and GameDAOImpl writes the flag
+-- on every finished match. Databases created by V1 already have it and report "duplicate column", which the
+-- runner skips.
+
+ALTER TABLE matches ADD COLUMN ranked TINYINT(1) NOT NULL DEFAULT 1;
@@ -0,0 +1,154 @@
+package com.mathspeed.sim;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mathspeed.adapter.network.ClientHandler;
+import com.mathspeed.application.game.GameSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeded matches on {@link VirtualTimeLoop}. The same seeds replay the same match, so the expected scores below
+ * only change when game logic does; lag hold, the compensation cap and RESUME each get a match built to hit them.
+ */
+class MatchSimulatorTest {
+
+    private static final long START_MS = 1_700_000_000_000L;
+    private static final int ROUNDS = 10;
+
+    @Test
+    void seededDuelReplaysExactly() {
+        MatchSimulator.Result first = MatchSimulator.simulate(20, 2, ROUNDS, 20, 42L);
+        MatchSimulator.Result again = MatchSimulator.simulate(20, 2, ROUNDS, 20, 42L);
+
+        assertEquals(20, first.finished);
+        assertEquals(0, first.failedTasks, () -> "task failed: " + first.lastFailure);
+        assertEquals(first.executedTasks, again.executedTasks);
+        assertEquals(first.messages, again.messages);
+        assertEquals(first.virtualMs, again.virtualMs);
+    }
+
+    @Test
+    void seededDuelFinalScores() {
+        VirtualTimeLoop loop = new VirtualTimeLoop(START_MS);
+        ScriptedClient a = new ScriptedClient("a", "a", loop.newScheduler(), 1L, 40, 4_000, 0.5, 0.8);
+        ScriptedClient b = new ScriptedClient("b", "b", loop.newScheduler(), 2L, 60, 4_000, 0.5, 0.8);
+        GameSession session = newSession(loop, 7L, a, b);
+
+        session.beginGame();
+        loop.runUntilIdle();
+
+        assertTrue(session.isFinished());
+        assertEquals(0, loop.getFailedTasks(), () -> "task failed: " + loop.getLastFailure());
+        assertEquals(ROUNDS, a.getRoundsSeen());
+        assertEquals(ROUNDS, b.getRoundsSeen());
+        JsonObject scores = scores(a);
+        assertEquals(9, scores.get("a").getAsInt());
+        assertEquals(1, scores.get("b").getAsInt());
+        assertEquals("a", session.getWinnerId());
+    }
+
+    @Test
+    void lagHoldLetsTheFasterSolverOnASlowLinkWin() {
+        // b's answers arrive 60 ms first, but a solved 50 ms sooner; the 110 ms hold lets a's answer in
+        VirtualTimeLoop loop = new VirtualTimeLoop(START_MS);
+        ScriptedClient a = new ScriptedClient("a", "a", loop.newScheduler(), 1L, 120, 2_000, 0.0, 1.0);
+        ScriptedClient b = new ScriptedClient("b", "b", loop.newScheduler(), 2L, 10, 2_050, 0.0, 1.0);
+        GameSession session = newSession(loop, 7L, a, b);
+
+        session.beginGame();
+        loop.runUntilIdle();
+
+        assertEquals(ROUNDS, a.getRoundsSeen());
+        JsonObject scores = scores(a);
+        assertEquals(ROUNDS, scores.get("a").getAsInt());
+        assertEquals(0, scores.get("b").getAsInt());
+        assertEquals("a", session.getWinnerId());
+    }
+
+    @Test
+    void compensationNeverExceedsTheHoldCap() {
+        // a's answer lands 145 ms after b's, inside the 150 ms hold. a claims a 400 ms one-way delay but only 150 ms
+        // of it counts: 2255 - 150 loses to b's 2110 - 10, where the full claim would have won
+        VirtualTimeLoop loop = new VirtualTimeLoop(START_MS);
+        ScriptedClient a = new ScriptedClient("a", "a", loop.newScheduler(), 1L, 400, 1_855, 0.0, 1.0);
+        ScriptedClient b = new ScriptedClient("b", "b", loop.newScheduler(), 2L, 10, 2_100, 0.0, 1.0);
+        GameSession session = newSession(loop, 7L, a, b);
+
+        session.beginGame();
+        loop.runUntilIdle();
+
+        JsonObject scores = scores(b);
+        assertEquals(0, scores.get("a").getAsInt());
+        assertEquals(ROUNDS, scores.get("b").getAsInt());
+    }
+
+    @Test
+    void resumedSeatPlaysOnToTheEnd() {
+        VirtualTimeLoop loop = new VirtualTimeLoop(START_MS);
+        ScriptedClient a = new ScriptedClient("a", "a", loop.newScheduler(), 1L, 30, 3_000, 0.0, 1.0);
+        ScriptedClient b = new ScriptedClient("b", "b", loop.newScheduler(), 2L, 30, 3_500, 0.0, 1.0);
+        GameSession session = newSession(loop, 7L, a, b);
+
+        session.beginGame();
+        loop.runUntil(START_MS + 20_000);
+        dropConnection(session, a);
+        loop.runUntil(START_MS + 30_000);
+        ScriptedClient back = new ScriptedClient("a", "a", loop.newScheduler(), 3L, 30, 3_000, 0.0, 1.0);
+        session.resumeSeat("a", back);
+        loop.runUntilIdle();
+
+        assertTrue(session.isFinished());
+        assertEquals(ROUNDS, b.getRoundsSeen());
+        assertNotNull(back.getGameOverJson(), "resumed seat should see the end of the match");
+        // a drops during round 4 and misses round 5; b, the slower solver, takes only those two
+        assertEquals(4, a.getRoundsSeen());
+        assertEquals(5, back.getRoundsSeen());
+        JsonObject scores = scores(b);
+        assertEquals(8, scores.get("a").getAsInt());
+        assertEquals(2, scores.get("b").getAsInt());
+        assertEquals("a", session.getWinnerId());
+    }
+
+    @Test
+    void seatNotResumedInTimeForfeits() {
+        VirtualTimeLoop loop = new VirtualTimeLoop(START_MS);
+        ScriptedClient a = new ScriptedClient("a", "a", loop.newScheduler(), 1L, 30, 3_000, 0.0, 1.0);
+        ScriptedClient b = new ScriptedClient("b", "b", loop.newScheduler(), 2L, 30, 3_500, 0.0, 1.0);
+        GameSession session = newSession(loop, 7L, a, b);
+
+        session.beginGame();
+        loop.runUntil(START_MS + 20_000);
+        dropConnection(session, a);
+        loop.runUntilIdle();
+
+        assertTrue(session.isFinished());
+        assertTrue(b.getRoundsSeen() < ROUNDS);
+        JsonObject scores = scores(b);
+        assertEquals(0, scores.get("a").getAsInt());
+        assertEquals(ROUNDS, scores.get("b").getAsInt());
+        assertEquals("b", session.getWinnerId());
+    }
+
+    private static GameSession newSession(VirtualTimeLoop loop, long seed, ClientHandler... seats) {
+        GameSession session = new GameSession(List.of(seats), GameSession.ScoringMode.FIRST_CORRECT, ROUNDS, 30,
+                null, loop.newScheduler(), seed);
+        session.setSimulated(true);
+        return session;
+    }
+
+    // what ClientHandler does when the socket goes: the session holds the seat, the old handler goes quiet
+    private static void dropConnection(GameSession session, ScriptedClient client) {
+        session.handlePlayerDisconnect(client);
+        client.clearCurrentGame();
+    }
+
+    private static JsonObject scores(ScriptedClient client) {
+        String json = client.getGameOverJson();
+        assertNotNull(json, "no GAME_OVER for " + client.getUsername());
+        return JsonParser.parseString(json).getAsJsonObject().getAsJsonObject("scores");
+    }
+}